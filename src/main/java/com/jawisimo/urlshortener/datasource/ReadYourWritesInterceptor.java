@@ -0,0 +1,43 @@
+package com.jawisimo.urlshortener.datasource;
+
+import com.jawisimo.urlshortener.security.CustomUserDetails;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Records the changing requests of authenticated users in the {@link ReadYourWritesTracker}.
+ * <p>
+ * A request with a method other than {@code GET}, {@code HEAD} or {@code OPTIONS} is taken as a change,
+ * whether or not it succeeded. It is recorded after completion, i.e. after its transaction has committed.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+    private static final Set<String> SAFE_METHODS =
+            Set.of(HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.OPTIONS.name());
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        if (SAFE_METHODS.contains(request.getMethod())) {
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (Objects.nonNull(authentication) && authentication.getPrincipal() instanceof CustomUserDetails details) {
+            readYourWritesTracker.recordWrite(details.user().getId());
+        }
+    }
+}
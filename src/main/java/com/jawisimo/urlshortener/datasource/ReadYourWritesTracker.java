@@ -0,0 +1,68 @@
+package com.jawisimo.urlshortener.datasource;
+
+import com.jawisimo.urlshortener.security.CustomUserDetails;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which users changed data recently, so their reads can see their own writes.
+ * <p>
+ * Replicas apply the changes of the primary with a delay. For {@code datasource.replicas.read-your-writes-ms}
+ * after a user's last change, read-only transactions of that user are sent to the primary instead of a
+ * replica. A window of {@code 0} disables the tracking. Only changes handled by this instance are known.
+ * </p>
+ */
+@Component
+public class ReadYourWritesTracker {
+    private final long windowNanos;
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(@Value("${datasource.replicas.read-your-writes-ms:0}") long windowMillis) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    /**
+     * Records a change of the given user.
+     *
+     * @param userId the user id
+     */
+    public void recordWrite(long userId) {
+        if (windowNanos > 0L) {
+            lastWrites.put(userId, System.nanoTime());
+        }
+    }
+
+    /**
+     * Checks whether the authenticated user of the current thread changed data within the window.
+     *
+     * @return {@code true} if reads of the current user should go to the primary
+     */
+    public boolean isCurrentUserRecentWriter() {
+        if (windowNanos == 0L || lastWrites.isEmpty()) {
+            return false;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (Objects.nonNull(authentication) && authentication.getPrincipal() instanceof CustomUserDetails details) {
+            Long lastWrite = lastWrites.get(details.user().getId());
+            return Objects.nonNull(lastWrite) && System.nanoTime() - lastWrite < windowNanos;
+        }
+        return false;
+    }
+
+    /**
+     * Forgets the users whose window has passed.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replicas.read-your-writes-evict-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+    }
+}
@@ -0,0 +1,20 @@
+package com.jawisimo.urlshortener.datasource;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the {@link ReadYourWritesInterceptor} for the API.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ReadYourWritesWebConfig implements WebMvcConfigurer {
+    private final ReadYourWritesInterceptor readYourWritesInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(readYourWritesInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,168 @@
+package com.jawisimo.urlshortener.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data source for read-only connections, spread round-robin over the healthy replicas.
+ * <p>
+ * A replica is healthy if it answered the last health check and its replication lag was at most the
+ * configured maximum. A replica whose connection fails is taken out at once and back in by the next
+ * successful check. Connections are taken from the primary instead if no replica is healthy or a
+ * replica connection fails, and for users with recent changes of their own, see
+ * {@link ReadYourWritesTracker}.
+ * </p>
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements Closeable {
+    /**
+     * Replication lag in milliseconds; {@code 0} on a primary or a replica that has replayed everything
+     * it received.
+     */
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() " +
+                    "THEN 0 " +
+                    "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile Replica[] healthy = new Replica[0];
+
+    /**
+     * Creates a data source; all replicas count as healthy until their first check.
+     *
+     * @param primary               the primary, used as fallback
+     * @param replicas              the replica data sources
+     * @param readYourWritesTracker the tracker of recent changes
+     * @param maxLagMillis          the maximum replication lag of a healthy replica
+     */
+    public ReplicaDataSource(DataSource primary, List<DataSource> replicas,
+                             ReadYourWritesTracker readYourWritesTracker, long maxLagMillis) {
+        this.primary = primary;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.maxLagMillis = maxLagMillis;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + (i + 1), replicas.get(i)));
+        }
+        updateHealthy();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readYourWritesTracker.isCurrentUserRecentWriter()) {
+            return primary.getConnection();
+        }
+
+        Replica[] candidates = healthy;
+        if (candidates.length == 0) {
+            return primary.getConnection();
+        }
+        Replica replica = candidates[Math.floorMod(next.getAndIncrement(), candidates.length)];
+        try {
+            return replica.dataSource.getConnection();
+        } catch (SQLException e) {
+            markDown(replica, e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * Connects to the primary with other credentials; replica connections always use the configured ones.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Checks the connectivity and replication lag of every replica.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replicas.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(HEALTH_CHECK_TIMEOUT_SECONDS);
+                try (ResultSet rs = statement.executeQuery(LAG_SQL)) {
+                    rs.next();
+                    long lagMillis = rs.getLong(1);
+                    if (lagMillis > maxLagMillis) {
+                        markDown(replica, "replication lag of " + lagMillis + " ms");
+                    } else {
+                        markUp(replica);
+                    }
+                }
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the names of the replicas currently in use
+     */
+    public List<String> healthyReplicas() {
+        List<String> names = new ArrayList<>();
+        for (Replica replica : healthy) {
+            names.add(replica.name);
+        }
+        return names;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.up) {
+            replica.up = false;
+            log.warn("Read replica {} is out of use: {}", replica.name, reason);
+            updateHealthy();
+        }
+    }
+
+    private void markUp(Replica replica) {
+        if (!replica.up) {
+            replica.up = true;
+            log.info("Read replica {} is back in use", replica.name);
+            updateHealthy();
+        }
+    }
+
+    private synchronized void updateHealthy() {
+        healthy = replicas.stream().filter(replica -> replica.up).toArray(Replica[]::new);
+    }
+
+    private static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean up = true;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
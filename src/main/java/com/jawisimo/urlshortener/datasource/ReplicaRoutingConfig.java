@@ -0,0 +1,106 @@
+package com.jawisimo.urlshortener.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration sending read-only transactions to read replicas.
+ * <p>
+ * Active when {@code datasource.replicas.urls} lists the JDBC URLs of one or more replicas. The
+ * application data source is then a {@link LazyConnectionDataSourceProxy} over the primary pool that takes
+ * connections of read-only transactions, such as {@code @Transactional(readOnly = true)}, from the
+ * {@link ReplicaDataSource}. Everything else, including Flyway, keeps using the primary.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replicas", name = "urls")
+public class ReplicaRoutingConfig {
+    private static final long REPLICA_CONNECTION_TIMEOUT_MS = 1000L;
+
+    /**
+     * Creates the connection pool of the primary from the {@code spring.datasource} properties.
+     *
+     * @param properties the {@code spring.datasource} properties
+     * @return the primary pool
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Creates one read-only connection pool per replica.
+     * <p>
+     * Replica pools wait only briefly for a connection and start even if their replica is down, so a
+     * missing replica makes reads fall back to the primary instead of failing them.
+     * </p>
+     *
+     * @param primaryDataSource     the primary pool
+     * @param readYourWritesTracker the tracker of recent changes
+     * @param properties            the {@code spring.datasource} properties
+     * @param urls                  the JDBC URLs of the replicas
+     * @param username              the user of the replicas, by default that of the primary
+     * @param password              the password of the replicas, by default that of the primary
+     * @param poolSize              the maximum pool size per replica
+     * @param maxLagMillis          the maximum replication lag of a replica in use
+     * @return the replica data source
+     */
+    @Bean(destroyMethod = "close")
+    public ReplicaDataSource replicaDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            ReadYourWritesTracker readYourWritesTracker,
+            DataSourceProperties properties,
+            @Value("${datasource.replicas.urls}") List<String> urls,
+            @Value("${datasource.replicas.username:}") String username,
+            @Value("${datasource.replicas.password:}") String password,
+            @Value("${datasource.replicas.pool-size:10}") int poolSize,
+            @Value("${datasource.replicas.max-lag-ms:5000}") long maxLagMillis) {
+        List<DataSource> replicas = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(username.isEmpty() ? properties.determineUsername() : username)
+                    .password(password.isEmpty() ? properties.determinePassword() : password)
+                    .build();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setConnectionTimeout(REPLICA_CONNECTION_TIMEOUT_MS);
+            replica.setInitializationFailTimeout(-1L);
+            replicas.add(replica);
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas, readYourWritesTracker, maxLagMillis);
+    }
+
+    /**
+     * Creates the application data source routing read-only connections to the replicas.
+     *
+     * @param primaryDataSource the primary pool
+     * @param replicaDataSource the replica data source
+     * @return the routing data source
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
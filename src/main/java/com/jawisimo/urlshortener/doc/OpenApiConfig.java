@@ -1,6 +1,7 @@
 package com.jawisimo.urlshortener.doc;
 
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
+import io.swagger.v3.oas.annotations.enums.SecuritySchemeIn;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
@@ -15,10 +16,13 @@ import java.util.LinkedHashMap;
 
 /**
  * Configuration class for setting up OpenAPI documentation using Springdoc OpenAPI and Swagger.
- * Defines security scheme, error response examples, and provides custom OpenAPI customization.
+ * Defines security schemes, error response examples, and provides custom OpenAPI customization.
  */
 @OpenAPIDefinition(
-        security = @SecurityRequirement(name = "bearerAuth")
+        security = {
+                @SecurityRequirement(name = "bearerAuth"),
+                @SecurityRequirement(name = "apiKeyAuth")
+        }
 )
 @SecurityScheme(
         name = "bearerAuth",
@@ -26,6 +30,12 @@ import java.util.LinkedHashMap;
         scheme = "bearer",
         bearerFormat = "JWT"
 )
+@SecurityScheme(
+        name = "apiKeyAuth",
+        type = SecuritySchemeType.APIKEY,
+        in = SecuritySchemeIn.HEADER,
+        paramName = "X-Api-Key"
+)
 @Configuration
 public class OpenApiConfig {
 
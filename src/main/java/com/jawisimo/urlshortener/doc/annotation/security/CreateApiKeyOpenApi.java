@@ -0,0 +1,47 @@
+package com.jawisimo.urlshortener.doc.annotation.security;
+
+import com.jawisimo.urlshortener.error.ErrorResponse;
+import com.jawisimo.urlshortener.security.dto.CreateApiKeyResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Operation(
+        summary = "Create an API key",
+        description = "Creates a long-lived API key for the authenticated user. The key is returned only once")
+@ApiResponses({
+        @ApiResponse(
+                responseCode = "201",
+                description = "API key has been created successfully",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = CreateApiKeyResponse.class))),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Invalid key name",
+                content = @Content(
+                        schema = @Schema(implementation = ErrorResponse.class),
+                        examples = @ExampleObject(
+                                name = "BadRequestExample",
+                                ref = "#/components/examples/BadRequestExample"))),
+        @ApiResponse(
+                responseCode = "403",
+                description = "Forbidden",
+                content = @Content(
+                        schema = @Schema(implementation = ErrorResponse.class),
+                        examples = @ExampleObject(
+                                name = "ForbiddenExample",
+                                ref = "#/components/examples/ForbiddenExample")))
+})
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CreateApiKeyOpenApi {
+}
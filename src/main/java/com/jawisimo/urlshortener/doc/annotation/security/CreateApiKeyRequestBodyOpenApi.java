@@ -0,0 +1,17 @@
+package com.jawisimo.urlshortener.doc.annotation.security;
+
+import com.jawisimo.urlshortener.security.dto.CreateApiKeyRequest;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@io.swagger.v3.oas.annotations.parameters.RequestBody(
+        content = @Content(schema = @Schema(implementation = CreateApiKeyRequest.class)))
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface CreateApiKeyRequestBodyOpenApi {
+}
@@ -0,0 +1,40 @@
+package com.jawisimo.urlshortener.doc.annotation.security;
+
+import com.jawisimo.urlshortener.error.ErrorResponse;
+import com.jawisimo.urlshortener.security.dto.ApiKeyResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Operation(
+        summary = "Get API keys",
+        description = "Retrieves the API keys of the authenticated user, without the keys themselves")
+@ApiResponses({
+        @ApiResponse(
+                responseCode = "200",
+                description = "API keys provided",
+                content = @Content(
+                        mediaType = "application/json",
+                        array = @ArraySchema(schema = @Schema(implementation = ApiKeyResponse.class)))),
+        @ApiResponse(
+                responseCode = "403",
+                description = "Forbidden",
+                content = @Content(
+                        schema = @Schema(implementation = ErrorResponse.class),
+                        examples = @ExampleObject(
+                                name = "ForbiddenExample",
+                                ref = "#/components/examples/ForbiddenExample")))
+})
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ListApiKeysOpenApi {
+}
@@ -0,0 +1,53 @@
+package com.jawisimo.urlshortener.doc.annotation.url;
+
+import com.jawisimo.urlshortener.error.ErrorResponse;
+import com.jawisimo.urlshortener.url.dto.statistics.StatsClicksResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Operation(
+        summary = "Get click counts for a URL",
+        description = "Counts clicks on a short URL over a time range, optionally grouped by hour or day")
+@ApiResponses({
+        @ApiResponse(
+                responseCode = "200",
+                description = "Click counts provided",
+                content = @Content(schema = @Schema(implementation = StatsClicksResponse.class))),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Time range or grouping is not correct",
+                content = @Content(
+                        schema = @Schema(implementation = ErrorResponse.class),
+                        examples = @ExampleObject(
+                                name = "BadRequestExample",
+                                ref = "#/components/examples/BadRequestExample"))),
+        @ApiResponse(
+                responseCode = "403",
+                description = "Forbidden",
+                content = @Content(
+                        schema = @Schema(implementation = ErrorResponse.class),
+                        examples = @ExampleObject(
+                                name = "ForbiddenExample",
+                                ref = "#/components/examples/ForbiddenExample"))),
+        @ApiResponse(
+                responseCode = "404",
+                description = "URL not found",
+                content = @Content(
+                        schema = @Schema(implementation = ErrorResponse.class),
+                        examples = @ExampleObject(
+                                name = "NotFoundExample",
+                                ref = "#/components/examples/NotFoundExample")))
+})
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ClicksByShortUrlOpenApi {
+}
@@ -26,6 +26,9 @@ import java.lang.annotation.Target;
                         mediaType = "application/json",
                         schema = @Schema(implementation = StatsListUrlResponse.class))
         ),
+        @ApiResponse(
+                responseCode = "304",
+                description = "Not modified, the statistics still match the ETag sent in If-None-Match"),
         @ApiResponse(
                 responseCode = "403",
                 description = "Forbidden",
@@ -0,0 +1,44 @@
+package com.jawisimo.urlshortener.doc.annotation.url;
+
+import com.jawisimo.urlshortener.error.ErrorResponse;
+import com.jawisimo.urlshortener.url.dto.statistics.StatsSummaryResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Operation(
+        summary = "Get URL summary",
+        description = "Retrieves the URL counts and the total number of visits of the authenticated user"
+)
+@ApiResponses({
+        @ApiResponse(
+                responseCode = "200",
+                description = "Summary provided",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = StatsSummaryResponse.class))
+        ),
+        @ApiResponse(
+                responseCode = "304",
+                description = "Not modified, the statistics still match the ETag sent in If-None-Match"),
+        @ApiResponse(
+                responseCode = "403",
+                description = "Forbidden",
+                content = @Content(
+                        schema = @Schema(implementation = ErrorResponse.class),
+                        examples = @ExampleObject(
+                                name = "ForbiddenExample",
+                                ref = "#/components/examples/ForbiddenExample")))
+})
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface UrlSummaryOpenApi {
+}
@@ -22,6 +22,9 @@ import java.lang.annotation.Target;
                 responseCode = "200",
                 description = "URL provided",
                 content = @Content(schema = @Schema(implementation = StatsVisitsUrlResponse.class))),
+        @ApiResponse(
+                responseCode = "304",
+                description = "Not modified, the statistics still match the ETag sent in If-None-Match"),
         @ApiResponse(
                 responseCode = "403",
                 description = "Forbidden",
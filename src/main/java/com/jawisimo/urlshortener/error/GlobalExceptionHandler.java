@@ -1,12 +1,15 @@
 package com.jawisimo.urlshortener.error;
 
 import com.jawisimo.urlshortener.error.exception.ResourceNotFoundException;
+import com.jawisimo.urlshortener.error.exception.ServiceUnavailableException;
+import com.jawisimo.urlshortener.error.exception.TooManyRequestsException;
 import com.jawisimo.urlshortener.error.exception.UnauthorizedException;
 import com.jawisimo.urlshortener.error.exception.UserExistsException;
 import com.jawisimo.urlshortener.error.exception.ValidationException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.json.JsonParseException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -147,6 +150,52 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    /**
+     * Handles TooManyRequestsException and returns a TOO_MANY_REQUESTS response with the error details.
+     * The {@code Retry-After} header tells the client when the next request will be admitted.
+     *
+     * @param e       the TooManyRequestsException thrown when a rate limit is exhausted
+     * @param request the HttpServletRequest associated with the failed request
+     * @return ResponseEntity containing ErrorResponse with TOO_MANY_REQUESTS status and error details
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(TooManyRequestsException e,
+                                                                        HttpServletRequest request) {
+        log.warn("TooManyRequestsException: {}", e.getMessage());
+        ErrorResponse response = ErrorResponse.createErrorResponse(
+                request.getRequestURI(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase(),
+                e.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+    }
+
+    /**
+     * Handles ServiceUnavailableException and returns a SERVICE_UNAVAILABLE response with the error details.
+     * The client is asked to retry after one second.
+     *
+     * @param e       the ServiceUnavailableException thrown when the request cannot be admitted
+     * @param request the HttpServletRequest associated with the failed request
+     * @return ResponseEntity containing ErrorResponse with SERVICE_UNAVAILABLE status and error details
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(ServiceUnavailableException e,
+                                                                           HttpServletRequest request) {
+        log.warn("ServiceUnavailableException: {}", e.getMessage());
+        ErrorResponse response = ErrorResponse.createErrorResponse(
+                request.getRequestURI(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                e.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
     /**
      * Handles IOException and returns an INTERNAL_SERVER_ERROR response with the error details.
      *
@@ -0,0 +1,8 @@
+package com.jawisimo.urlshortener.error.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
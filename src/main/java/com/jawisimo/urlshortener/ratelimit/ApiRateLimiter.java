@@ -0,0 +1,204 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+import com.jawisimo.urlshortener.error.exception.TooManyRequestsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.jawisimo.urlshortener.util.MessageProvider.TOO_MANY_REQUESTS_MESSAGE;
+
+/**
+ * Throttles URL operations per authenticated user and per client address.
+ * <p>
+ * Every {@link RateLimitOperation} has a token bucket per user and per address, kept in bounded
+ * {@link TokenBucketTable}s, so a single client cannot exhaust the database connection pool.
+ * </p>
+ * <p>
+ * The limits per address are off unless {@code ratelimit.api.ip-limits-enabled} is set. Behind a proxy,
+ * the address is the proxy's unless {@code ratelimit.trust-forwarded-for} is set too, and all clients
+ * would share one bucket.
+ * </p>
+ * <p>
+ * With {@code ratelimit.shared.enabled} the quota is shared by all instances. Decisions stay local;
+ * the tokens taken here are batched and added to the {@code rate_limit_usage} table periodically, and the
+ * tokens taken by other instances in the same window are taken from the local buckets in turn. A client
+ * spreading requests over several instances can therefore exceed its limit by at most what the other
+ * instances admit within one sync interval.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ApiRateLimiter {
+    private static final int STRIPES = 64;
+    private static final String USER_SCOPE = "user";
+    private static final String IP_SCOPE = "ip";
+
+    private final Map<RateLimitOperation, TokenBucketTable> userBuckets = new EnumMap<>(RateLimitOperation.class);
+    private final Map<RateLimitOperation, TokenBucketTable> ipBuckets = new EnumMap<>(RateLimitOperation.class);
+    private final Map<String, TokenBucketTable> bucketsByPrefix = new HashMap<>();
+    private final SharedQuotaRepository sharedQuotaRepository;
+    private final boolean shared;
+    private final boolean ipLimited;
+    private final long windowSeconds;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<String, Long> unsynced = new ConcurrentHashMap<>();
+    private final Map<String, SyncedUsage> syncedUsage = new HashMap<>();
+    private long currentWindow = -1L;
+
+    public ApiRateLimiter(Environment environment,
+                          SharedQuotaRepository sharedQuotaRepository,
+                          @Value("${ratelimit.api.max-entries:100000}") int maxEntries,
+                          @Value("${ratelimit.shared.enabled:false}") boolean shared,
+                          @Value("${ratelimit.shared.window-seconds:60}") long windowSeconds,
+                          @Value("${ratelimit.api.ip-limits-enabled:false}") boolean ipLimited) {
+        for (RateLimitOperation operation : RateLimitOperation.values()) {
+            String prefix = "ratelimit.api." + operation.getKey();
+            if (operation.isUserLimited()) {
+                int userPerMinute = environment.getProperty(prefix + ".user-per-minute", Integer.class,
+                        operation.getDefaultUserPerMinute());
+                TokenBucketTable users =
+                        new TokenBucketTable(userPerMinute, userPerMinute / 60.0, maxEntries, STRIPES);
+                userBuckets.put(operation, users);
+                bucketsByPrefix.put(sharedKeyPrefix(operation, USER_SCOPE), users);
+            }
+            if (ipLimited) {
+                int ipPerMinute = environment.getProperty(prefix + ".ip-per-minute", Integer.class,
+                        operation.getDefaultIpPerMinute());
+                TokenBucketTable addresses =
+                        new TokenBucketTable(ipPerMinute, ipPerMinute / 60.0, maxEntries, STRIPES);
+                ipBuckets.put(operation, addresses);
+                bucketsByPrefix.put(sharedKeyPrefix(operation, IP_SCOPE), addresses);
+            }
+        }
+        this.sharedQuotaRepository = sharedQuotaRepository;
+        this.shared = shared;
+        this.ipLimited = ipLimited;
+        this.windowSeconds = Math.max(windowSeconds, 1L);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Takes a token for the given operation from the buckets of the user and of the client address.
+     *
+     * @param operation the limited operation
+     * @param userId    the authenticated user id, or {@code null} for anonymous requests
+     * @param clientIp  the client address
+     * @throws TooManyRequestsException if the user or the address has exhausted its limit
+     */
+    public void acquire(RateLimitOperation operation, Long userId, String clientIp) {
+        long now = System.nanoTime();
+        if (Objects.nonNull(userId) && operation.isUserLimited()) {
+            acquire(operation, USER_SCOPE, userBuckets.get(operation), String.valueOf(userId), now);
+        }
+        if (ipLimited) {
+            acquire(operation, IP_SCOPE, ipBuckets.get(operation), clientIp, now);
+        }
+    }
+
+    /**
+     * Removes the buckets of users and addresses that have been idle long enough to be full again.
+     */
+    @Scheduled(fixedDelayString = "${ratelimit.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (TokenBucketTable buckets : bucketsByPrefix.values()) {
+            evicted += buckets.evictIdle(now);
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle API rate limit buckets", evicted);
+        }
+    }
+
+    /**
+     * Publishes the tokens taken on this instance and applies the tokens taken by other instances.
+     * <p>
+     * Does nothing unless {@code ratelimit.shared.enabled} is set. A failed sync is logged and the
+     * unpublished tokens are dropped, so the limits degrade to per-instance limits while the database
+     * is unavailable.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${ratelimit.shared.sync-interval-ms:1000}")
+    public synchronized void syncSharedQuota() {
+        if (!shared) {
+            return;
+        }
+
+        long window = Instant.now().getEpochSecond() / windowSeconds * windowSeconds;
+        SortedMap<String, Long> consumed = new TreeMap<>();
+        for (String key : unsynced.keySet()) {
+            Long tokens = unsynced.remove(key);
+            if (Objects.nonNull(tokens)) {
+                consumed.put(key, tokens);
+            }
+        }
+
+        try {
+            if (window != currentWindow) {
+                syncedUsage.clear();
+                currentWindow = window;
+                sharedQuotaRepository.deleteWindowsBefore(window - windowSeconds);
+            }
+            if (consumed.isEmpty()) {
+                return;
+            }
+
+            Map<String, Long> totals = sharedQuotaRepository.addAndGet(window, consumed);
+            long now = System.nanoTime();
+            totals.forEach((key, total) -> {
+                SyncedUsage usage = syncedUsage.computeIfAbsent(key, k -> new SyncedUsage());
+                usage.local += consumed.getOrDefault(key, 0L);
+                long remote = total - usage.local;
+                if (remote > usage.remote) {
+                    debit(key, remote - usage.remote, now);
+                    usage.remote = remote;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Failed to sync shared rate limit quota: {}", e.getMessage());
+        }
+    }
+
+    private void acquire(RateLimitOperation operation, String scope, TokenBucketTable buckets, String key,
+                         long now) {
+        long waitNanos = buckets.tryConsume(key, now);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1;
+            throw new TooManyRequestsException(TOO_MANY_REQUESTS_MESSAGE, retryAfterSeconds);
+        }
+        if (shared && unsynced.size() < maxEntries) {
+            unsynced.merge(sharedKeyPrefix(operation, scope) + key, 1L, Long::sum);
+        }
+    }
+
+    private void debit(String sharedKey, long tokens, long now) {
+        int separator = sharedKey.indexOf(':') + 1;
+        TokenBucketTable buckets = bucketsByPrefix.get(sharedKey.substring(0, separator));
+        if (Objects.nonNull(buckets)) {
+            buckets.debit(sharedKey.substring(separator), tokens, now);
+        }
+    }
+
+    private static String sharedKeyPrefix(RateLimitOperation operation, String scope) {
+        return operation.getKey() + "." + scope + ":";
+    }
+
+    private static class SyncedUsage {
+        private long local;
+        private long remote;
+    }
+}
@@ -0,0 +1,60 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+import com.jawisimo.urlshortener.error.exception.TooManyRequestsException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+/**
+ * Servlet filter applying the client limit of {@link LoginRateLimiter} to all {@code /api/v1/auth} requests.
+ * <p>
+ * The filter runs before the Spring Security filter chain, so throttled requests are rejected before their
+ * body is read. Rejections are rendered by the {@code GlobalExceptionHandler} like any other error.
+ * </p>
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 10)
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+    private static final String AUTH_PATH = "/api/v1/auth/";
+
+    private final LoginRateLimiter loginRateLimiter;
+    private final ClientIpResolver clientIpResolver;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public AuthRateLimitFilter(LoginRateLimiter loginRateLimiter,
+                               ClientIpResolver clientIpResolver,
+                               @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        this.loginRateLimiter = loginRateLimiter;
+        this.clientIpResolver = clientIpResolver;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(AUTH_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            loginRateLimiter.acquireForClient(clientIpResolver.resolve(request));
+        } catch (TooManyRequestsException e) {
+            exceptionResolver.resolveException(request, response, null, e);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
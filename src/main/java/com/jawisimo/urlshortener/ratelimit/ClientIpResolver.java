@@ -0,0 +1,40 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the address of the client that sent a request.
+ * <p>
+ * The {@code X-Forwarded-For} header can be set by any client, so it is only used when the application
+ * runs behind a proxy that sets it, see {@code ratelimit.trust-forwarded-for}.
+ * </p>
+ */
+@Component
+public class ClientIpResolver {
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final boolean trustForwardedFor;
+
+    public ClientIpResolver(@Value("${ratelimit.trust-forwarded-for:false}") boolean trustForwardedFor) {
+        this.trustForwardedFor = trustForwardedFor;
+    }
+
+    /**
+     * Returns the client address of the given request.
+     *
+     * @param request the HTTP request
+     * @return the first address of {@code X-Forwarded-For} if trusted and present; the remote address otherwise
+     */
+    public String resolve(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
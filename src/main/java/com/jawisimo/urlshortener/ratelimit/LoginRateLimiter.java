@@ -0,0 +1,95 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+import com.jawisimo.urlshortener.error.exception.TooManyRequestsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.jawisimo.urlshortener.util.MessageProvider.TOO_MANY_REQUESTS_MESSAGE;
+
+/**
+ * Throttles authentication attempts per client address and per login identifier.
+ * <p>
+ * The client limit applies to every {@code /api/v1/auth} request and stops a single source from
+ * flooding the service. The identifier limit applies to logins and stops credential stuffing against one
+ * account from many addresses. Both are checked before any user lookup or password hashing. The API key
+ * limit applies to API key lookups that miss the cache and stops a client from reaching the database with
+ * random key prefixes; a client with a valid key misses at most once per cache time to live.
+ * </p>
+ */
+@Component
+@Slf4j
+public class LoginRateLimiter {
+    private static final int STRIPES = 64;
+
+    private final TokenBucketTable clientBuckets;
+    private final TokenBucketTable identifierBuckets;
+    private final TokenBucketTable apiKeyBuckets;
+
+    public LoginRateLimiter(@Value("${ratelimit.auth.client.capacity:20}") int clientCapacity,
+                            @Value("${ratelimit.auth.client.refill-per-minute:20}") double clientRefillPerMinute,
+                            @Value("${ratelimit.auth.identifier.capacity:5}") int identifierCapacity,
+                            @Value("${ratelimit.auth.identifier.refill-per-minute:5}") double identifierRefillPerMinute,
+                            @Value("${ratelimit.auth.api-key.capacity:10}") int apiKeyCapacity,
+                            @Value("${ratelimit.auth.api-key.refill-per-minute:10}") double apiKeyRefillPerMinute,
+                            @Value("${ratelimit.auth.max-entries:100000}") int maxEntries) {
+        this.clientBuckets = new TokenBucketTable(clientCapacity, clientRefillPerMinute / 60.0, maxEntries, STRIPES);
+        this.identifierBuckets =
+                new TokenBucketTable(identifierCapacity, identifierRefillPerMinute / 60.0, maxEntries, STRIPES);
+        this.apiKeyBuckets = new TokenBucketTable(apiKeyCapacity, apiKeyRefillPerMinute / 60.0, maxEntries, STRIPES);
+    }
+
+    /**
+     * Takes a token for an authentication request from the given client.
+     *
+     * @param clientIp the client address
+     * @throws TooManyRequestsException if the client has exhausted its limit
+     */
+    public void acquireForClient(String clientIp) {
+        acquire(clientBuckets, clientIp);
+    }
+
+    /**
+     * Takes a token for a login attempt with the given login or email.
+     *
+     * @param identifier the login or email
+     * @throws TooManyRequestsException if the identifier has exhausted its limit
+     */
+    public void acquireForIdentifier(String identifier) {
+        acquire(identifierBuckets, identifier.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Takes a token for a database lookup of an API key sent by the given client.
+     *
+     * @param clientIp the client address
+     * @throws TooManyRequestsException if the client has exhausted its limit
+     */
+    public void acquireForApiKeyLookup(String clientIp) {
+        acquire(apiKeyBuckets, clientIp);
+    }
+
+    /**
+     * Removes the buckets of clients and identifiers that have been idle long enough to be full again.
+     */
+    @Scheduled(fixedDelayString = "${ratelimit.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int evicted = clientBuckets.evictIdle(now) + identifierBuckets.evictIdle(now) + apiKeyBuckets.evictIdle(now);
+        if (evicted > 0) {
+            log.debug("Evicted {} idle authentication rate limit buckets", evicted);
+        }
+    }
+
+    private static void acquire(TokenBucketTable buckets, String key) {
+        long waitNanos = buckets.tryConsume(key);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1;
+            throw new TooManyRequestsException(TOO_MANY_REQUESTS_MESSAGE, retryAfterSeconds);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+import com.jawisimo.urlshortener.error.exception.TooManyRequestsException;
+import com.jawisimo.urlshortener.security.CustomUserDetails;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Objects;
+
+/**
+ * Applies the limits of {@link ApiRateLimiter} to handlers annotated with {@link RateLimited}.
+ * <p>
+ * The interceptor runs after authentication, so the user is known, and before the handler, so throttled
+ * requests never reach the database. A {@link TooManyRequestsException} is rendered by the
+ * {@code GlobalExceptionHandler}.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final ApiRateLimiter apiRateLimiter;
+    private final ClientIpResolver clientIpResolver;
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request,
+                             @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            RateLimited rateLimited = handlerMethod.getMethodAnnotation(RateLimited.class);
+            if (Objects.isNull(rateLimited)) {
+                rateLimited = handlerMethod.getBeanType().getAnnotation(RateLimited.class);
+            }
+            if (Objects.nonNull(rateLimited)) {
+                apiRateLimiter.acquire(rateLimited.value(), authenticatedUserId(), clientIpResolver.resolve(request));
+            }
+        }
+        return true;
+    }
+
+    private static Long authenticatedUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (Objects.nonNull(authentication) && authentication.getPrincipal() instanceof CustomUserDetails details) {
+            return details.user().getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+/**
+ * Operations with their own API rate limits.
+ * <p>
+ * Each operation is limited per authenticated user and per client address; the defaults are used when
+ * {@code ratelimit.api.<key>.user-per-minute} or {@code ratelimit.api.<key>.ip-per-minute} is not set.
+ * An operation with a default user limit of {@code 0} is anonymous and limited per client address only.
+ * </p>
+ */
+public enum RateLimitOperation {
+    CREATE("create", 30, 60),
+    RESOLVE("resolve", 0, 600),
+    STATS("stats", 120, 240);
+
+    private final String key;
+    private final int defaultUserPerMinute;
+    private final int defaultIpPerMinute;
+
+    RateLimitOperation(String key, int defaultUserPerMinute, int defaultIpPerMinute) {
+        this.key = key;
+        this.defaultUserPerMinute = defaultUserPerMinute;
+        this.defaultIpPerMinute = defaultIpPerMinute;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isUserLimited() {
+        return defaultUserPerMinute > 0;
+    }
+
+    public int getDefaultUserPerMinute() {
+        return defaultUserPerMinute;
+    }
+
+    public int getDefaultIpPerMinute() {
+        return defaultIpPerMinute;
+    }
+}
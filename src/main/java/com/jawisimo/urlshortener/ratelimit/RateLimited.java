@@ -0,0 +1,20 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method, or all methods of a controller, as limited by {@link ApiRateLimiter}.
+ * The limit is checked by {@link RateLimitInterceptor} before the handler runs.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RateLimited {
+
+    /**
+     * @return the operation whose limits apply
+     */
+    RateLimitOperation value();
+}
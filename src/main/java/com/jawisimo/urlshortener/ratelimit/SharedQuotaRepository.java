@@ -0,0 +1,69 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * JDBC repository for the {@code rate_limit_usage} table.
+ * <p>
+ * Each row counts the tokens all instances took from one bucket in one fixed window, identified by the
+ * epoch second it starts at.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class SharedQuotaRepository {
+    private static final String ADD_AND_GET_SQL =
+            "INSERT INTO rate_limit_usage (bucket_key, window_start, consumed) " +
+                    "SELECT usage.bucket_key, CAST(? AS BIGINT), usage.consumed " +
+                    "FROM unnest(CAST(? AS VARCHAR[]), CAST(? AS BIGINT[])) AS usage(bucket_key, consumed) " +
+                    "ON CONFLICT (bucket_key, window_start) " +
+                    "DO UPDATE SET consumed = rate_limit_usage.consumed + EXCLUDED.consumed " +
+                    "RETURNING bucket_key, consumed";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the tokens taken on this instance to the window counters in a single statement.
+     * <p>
+     * Keys are passed in sorted order, so concurrent batches of several instances lock the rows
+     * in the same order and cannot deadlock.
+     * </p>
+     *
+     * @param windowStart the epoch second the current window starts at
+     * @param consumed    the tokens taken per bucket key since the last call
+     * @return the tokens taken by all instances in the window per bucket key
+     */
+    public Map<String, Long> addAndGet(long windowStart, SortedMap<String, Long> consumed) {
+        String[] keys = consumed.keySet().toArray(String[]::new);
+        Long[] amounts = consumed.values().toArray(Long[]::new);
+        Map<String, Long> totals = new HashMap<>();
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ADD_AND_GET_SQL);
+            statement.setLong(1, windowStart);
+            statement.setArray(2, connection.createArrayOf("varchar", keys));
+            statement.setArray(3, connection.createArrayOf("bigint", amounts));
+            return statement;
+        }, resultSet -> {
+            totals.put(resultSet.getString("bucket_key"), resultSet.getLong("consumed"));
+        });
+        return totals;
+    }
+
+    /**
+     * Deletes the counters of windows that started before the given epoch second.
+     *
+     * @param windowStart the epoch second of the oldest window to keep
+     * @return the number of deleted counters
+     */
+    public int deleteWindowsBefore(long windowStart) {
+        return jdbcTemplate.update("DELETE FROM rate_limit_usage WHERE window_start < ?", windowStart);
+    }
+}
@@ -0,0 +1,171 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory table of token buckets, one per key.
+ * <p>
+ * Every bucket holds up to {@code capacity} tokens and regains {@code refillPerSecond} tokens per second;
+ * each request takes one token. The table is split into lock-striped segments, so requests for different
+ * keys rarely contend. Each segment keeps its buckets in LRU order and drops the least recently used one
+ * when it is full. A bucket that has refilled completely is equivalent to a new one, so such idle buckets
+ * are removed by {@link #evictIdle(long)} without changing any decision.
+ * </p>
+ */
+public class TokenBucketTable {
+    private final double capacity;
+    private final double tokensPerNano;
+    private final Segment[] segments;
+
+    /**
+     * Creates a table.
+     *
+     * @param capacity        the maximum number of tokens of a bucket, i.e. the allowed burst
+     * @param refillPerSecond the number of tokens regained per second
+     * @param maxEntries      the maximum number of buckets
+     * @param stripes         the number of lock stripes, rounded up to a power of two
+     */
+    public TokenBucketTable(int capacity, double refillPerSecond, int maxEntries, int stripes) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+
+        int segmentCount = Integer.highestOneBit(Math.max(stripes - 1, 1)) << 1;
+        int segmentEntries = Math.max(maxEntries / segmentCount, 1);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentEntries);
+        }
+    }
+
+    /**
+     * Takes a token from the bucket of the given key.
+     *
+     * @param key the bucket key, e.g. a client address
+     * @return {@code 0} if a token was taken; otherwise the nanoseconds until the next token is available
+     */
+    public long tryConsume(String key) {
+        return tryConsume(key, System.nanoTime());
+    }
+
+    /**
+     * Takes a token from the bucket of the given key at the given time.
+     *
+     * @param key the bucket key
+     * @param now the current {@link System#nanoTime()}
+     * @return {@code 0} if a token was taken; otherwise the nanoseconds until the next token is available
+     */
+    public long tryConsume(String key, long now) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Bucket bucket = segment.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                segment.put(key, bucket);
+            } else {
+                bucket.refill(now, capacity, tokensPerNano);
+            }
+
+            if (bucket.tokens >= 1.0) {
+                bucket.tokens -= 1.0;
+                return 0L;
+            }
+            return Math.max((long) Math.ceil((1.0 - bucket.tokens) / tokensPerNano), 1L);
+        }
+    }
+
+    /**
+     * Takes tokens that were consumed elsewhere, e.g. on other instances, from the bucket of the given key.
+     * <p>
+     * The bucket may go into debt down to {@code -capacity}, which delays the next admitted request until
+     * the debt has been refilled.
+     * </p>
+     *
+     * @param key    the bucket key
+     * @param tokens the number of tokens to take
+     * @param now    the current {@link System#nanoTime()}
+     */
+    public void debit(String key, double tokens, long now) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Bucket bucket = segment.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                segment.put(key, bucket);
+            } else {
+                bucket.refill(now, capacity, tokensPerNano);
+            }
+            bucket.tokens = Math.max(bucket.tokens - tokens, -capacity);
+        }
+    }
+
+    /**
+     * Removes all buckets that have refilled completely.
+     *
+     * @param now the current {@link System#nanoTime()}
+     * @return the number of removed buckets
+     */
+    public int evictIdle(long now) {
+        int evicted = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                int before = segment.size();
+                segment.values().removeIf(bucket -> bucket.tokensAt(now, capacity, tokensPerNano) >= capacity);
+                evicted += before - segment.size();
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * @return the current number of buckets
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private static class Segment extends LinkedHashMap<String, Bucket> {
+        private final int maxEntries;
+
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    private static class Bucket {
+        private double tokens;
+        private long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+
+        double tokensAt(long now, double capacity, double tokensPerNano) {
+            return Math.min(capacity, tokens + Math.max(now - updatedAt, 0L) * tokensPerNano);
+        }
+
+        void refill(long now, double capacity, double tokensPerNano) {
+            tokens = tokensAt(now, capacity, tokensPerNano);
+            updatedAt = Math.max(now, updatedAt);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.jawisimo.urlshortener.security;
+
+import com.jawisimo.urlshortener.error.exception.TooManyRequestsException;
+import com.jawisimo.urlshortener.ratelimit.ClientIpResolver;
+import com.jawisimo.urlshortener.security.apikey.ActiveApiKey;
+import com.jawisimo.urlshortener.security.service.ApiKeyService;
+import com.jawisimo.urlshortener.user.User;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * API key authentication filter for machine clients.
+ * <p>
+ * If the request carries an {@code X-Api-Key} header with a valid key, the owner of the key is set in the
+ * Spring Security context. The principal is built like for access tokens and only holds the id, login and
+ * role of the user. Verified keys are cached, so the hot path costs one SHA-256 and no database access.
+ * A client sending keys that miss the cache is throttled before they reach the database, and the rejection
+ * is rendered by the {@code GlobalExceptionHandler}.
+ * </p>
+ * <p>
+ * The authentication also carries the {@link #API_KEY_AUTHORITY} authority, so endpoints that manage the
+ * credentials of the user, like the API keys themselves, can require a JWT instead.
+ * </p>
+ */
+@Component
+public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
+    public static final String API_KEY_HEADER = "X-Api-Key";
+    public static final String API_KEY_AUTHORITY = "AUTH_API_KEY";
+
+    private final ApiKeyService apiKeyService;
+    private final ClientIpResolver clientIpResolver;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public ApiKeyAuthenticationFilter(ApiKeyService apiKeyService,
+                                      ClientIpResolver clientIpResolver,
+                                      @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        this.apiKeyService = apiKeyService;
+        this.clientIpResolver = clientIpResolver;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String key = request.getHeader(API_KEY_HEADER);
+        if (Objects.nonNull(key) && !key.isEmpty()) {
+            try {
+                apiKeyService.verify(key, clientIpResolver.resolve(request))
+                        .ifPresent(this::setCustomUserDetailsToSecurityContextHolder);
+            } catch (TooManyRequestsException e) {
+                exceptionResolver.resolveException(request, response, null, e);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void setCustomUserDetailsToSecurityContextHolder(ActiveApiKey apiKey) {
+        CustomUserDetails customUserDetails = new CustomUserDetails(User.builder()
+                .id(apiKey.userId())
+                .login(apiKey.login())
+                .role(apiKey.role())
+                .build());
+
+        List<GrantedAuthority> authorities = new ArrayList<>(customUserDetails.getAuthorities());
+        authorities.add(new SimpleGrantedAuthority(API_KEY_AUTHORITY));
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                customUserDetails,
+                null,
+                authorities
+        );
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+}
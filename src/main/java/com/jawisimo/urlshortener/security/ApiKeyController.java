@@ -0,0 +1,75 @@
+package com.jawisimo.urlshortener.security;
+
+import com.jawisimo.urlshortener.doc.annotation.security.CreateApiKeyOpenApi;
+import com.jawisimo.urlshortener.doc.annotation.security.CreateApiKeyRequestBodyOpenApi;
+import com.jawisimo.urlshortener.doc.annotation.security.ListApiKeysOpenApi;
+import com.jawisimo.urlshortener.doc.annotation.security.RevokeApiKeyOpenApi;
+import com.jawisimo.urlshortener.security.dto.ApiKeyResponse;
+import com.jawisimo.urlshortener.security.dto.CreateApiKeyRequest;
+import com.jawisimo.urlshortener.security.dto.CreateApiKeyResponse;
+import com.jawisimo.urlshortener.security.service.ApiKeyService;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller responsible for managing the API keys of the authenticated user.
+ * <p>
+ * Provides endpoints for creating, listing and revoking keys used by machine clients
+ * in the {@code X-Api-Key} header.
+ */
+@Tag(name = "4. API keys", description = "Endpoints for managing API keys of machine clients")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/api-keys")
+public class ApiKeyController {
+    private final ApiKeyService apiKeyService;
+
+    /**
+     * Creates an API key for the authenticated user.
+     * <p>
+     * The key is part of the response only once and cannot be retrieved later.
+     *
+     * @param request the request containing the key name
+     * @return {@link ResponseEntity} with {@link CreateApiKeyResponse} and HTTP 201 status
+     */
+    @CreateApiKeyOpenApi
+    @PostMapping
+    public ResponseEntity<CreateApiKeyResponse> createApiKey(
+            @CreateApiKeyRequestBodyOpenApi
+            @RequestBody
+            CreateApiKeyRequest request) {
+        CreateApiKeyResponse response = apiKeyService.create(request);
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
+    /**
+     * Lists the API keys of the authenticated user.
+     *
+     * @return {@link ResponseEntity} with the list of {@link ApiKeyResponse} and HTTP 200 status
+     */
+    @ListApiKeysOpenApi
+    @GetMapping
+    public ResponseEntity<List<ApiKeyResponse>> listApiKeys() {
+        List<ApiKeyResponse> response = apiKeyService.list();
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Revokes an API key of the authenticated user.
+     *
+     * @param id the id of the key to revoke
+     * @return a {@link ResponseEntity} with HTTP status 204 (No Content) if revocation is successful
+     */
+    @RevokeApiKeyOpenApi
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> revokeApiKey(@PathVariable Long id) {
+        apiKeyService.revoke(id);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+}
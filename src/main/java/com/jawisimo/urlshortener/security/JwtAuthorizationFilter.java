@@ -1,7 +1,11 @@
 package com.jawisimo.urlshortener.security;
 
 import com.jawisimo.urlshortener.security.provider.JwtTokenProvider;
+import com.jawisimo.urlshortener.security.provider.VerifiedToken;
+import com.jawisimo.urlshortener.security.provider.VerifiedTokenCache;
 import com.jawisimo.urlshortener.security.service.CustomUserDetailsService;
+import com.jawisimo.urlshortener.security.service.TokenEpochService;
+import com.jawisimo.urlshortener.user.User;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,12 +18,18 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * JWT Authorization Filter that processes incoming HTTP requests to check the validity of JWT tokens.
  * <p>
- * If a valid JWT token is present, this filter extracts the login information from the token,
- * loads the corresponding user details, and sets them in the Spring Security context.
+ * If a valid JWT token is present, this filter builds the user details from the token claims
+ * (login, user id and role) and sets them in the Spring Security context, without querying the database.
+ * Tokens whose epoch is lower than the current token epoch of the user are ignored. Tokens issued before
+ * the claims were introduced fall back to loading the user. Verified tokens are cached in the
+ * {@link VerifiedTokenCache}, so repeated requests with the same token skip the signature check.
  * </p>
  * This class extends {@link OncePerRequestFilter} to ensure that the filter is applied once per request.
  */
@@ -28,6 +38,8 @@ import java.io.IOException;
 public class JwtAuthorizationFilter extends OncePerRequestFilter {
     private final JwtTokenProvider jwtService;
     private final CustomUserDetailsService detailService;
+    private final TokenEpochService tokenEpochService;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     /**
      * Filters the incoming HTTP request to check for the presence and validity of a JWT token.
@@ -50,21 +62,48 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
 
         String token = jwtService.getTokenFromRequest(request);
 
-        if (jwtService.validateToken(token)) {
-            setCustomUserDetailsToSecurityContextHolder(token);
+        if (Objects.nonNull(token) && !token.isEmpty()) {
+            verifiedTokenCache.get(token, this::verifyToken)
+                    .ifPresent(this::setCustomUserDetailsToSecurityContextHolder);
         }
         filterChain.doFilter(request, response);
     }
 
     /**
-     * Sets the {@link CustomUserDetails} to the {@link SecurityContextHolder} using the login information
+     * Verifies the JWT token and extracts the claims needed to authenticate the request.
+     * <p>
+     * Refresh tokens carry a token family and are only accepted by the refresh endpoint, never as
+     * access tokens.
+     * </p>
+     *
+     * @param token The JWT token to verify.
+     * @return the verified token, or empty if the token is invalid or a refresh token
+     */
+    private Optional<VerifiedToken> verifyToken(String token) {
+        return jwtService.verifyToken(token)
+                .filter(claims -> Objects.isNull(claims.get(JwtTokenProvider.FAMILY_CLAIM)))
+                .map(claims -> new VerifiedToken(
+                claims.get(JwtTokenProvider.USER_ID_CLAIM, Long.class),
+                claims.getSubject(),
+                claims.get(JwtTokenProvider.ROLE_CLAIM, String.class),
+                jwtService.getEpochFromClaims(claims),
+                Objects.isNull(claims.getExpiration()) ? Instant.EPOCH : claims.getExpiration().toInstant()
+        ));
+    }
+
+    /**
+     * Sets the {@link CustomUserDetails} to the {@link SecurityContextHolder} using the information
      * extracted from the JWT token.
      *
-     * @param token The JWT token from which the login information will be extracted.
+     * @param verifiedToken The verified JWT token.
      */
-    private void setCustomUserDetailsToSecurityContextHolder(String token) {
-        String login = jwtService.getLoginFromToken(token);
-        CustomUserDetails customUserDetails = detailService.loadUserByUsername(login);
+    private void setCustomUserDetailsToSecurityContextHolder(VerifiedToken verifiedToken) {
+        CustomUserDetails customUserDetails = createCustomUserDetails(verifiedToken);
+
+        // Tokens issued before the last revocation of the user are no longer accepted
+        if (verifiedToken.epoch() < tokenEpochService.getEpoch(customUserDetails.user().getId())) {
+            return;
+        }
 
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                 customUserDetails,
@@ -74,4 +113,27 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
     }
+
+    /**
+     * Creates the {@link CustomUserDetails} of the token owner.
+     * <p>
+     * The principal only holds the login, id and role of the user and is created per request, so cached
+     * tokens never share a user instance. Tokens without a user id claim were issued by an older version
+     * and are resolved by loading the user.
+     * </p>
+     *
+     * @param verifiedToken The verified JWT token.
+     * @return the user details of the token owner
+     */
+    private CustomUserDetails createCustomUserDetails(VerifiedToken verifiedToken) {
+        if (Objects.isNull(verifiedToken.userId()) || Objects.isNull(verifiedToken.role())) {
+            return detailService.loadUserByUsername(verifiedToken.login());
+        }
+
+        return new CustomUserDetails(User.builder()
+                .id(verifiedToken.userId())
+                .login(verifiedToken.login())
+                .role(Role.valueOf(verifiedToken.role()))
+                .build());
+    }
 }
@@ -1,31 +1,49 @@
 package com.jawisimo.urlshortener.security;
 
+import com.jawisimo.urlshortener.security.password.BoundedPasswordEncoder;
 import com.jawisimo.urlshortener.security.provider.CustomAuthenticationProvider;
 import com.jawisimo.urlshortener.security.service.CustomUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static com.jawisimo.urlshortener.security.ApiKeyAuthenticationFilter.API_KEY_AUTHORITY;
 import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
 /**
  * Configuration class for security settings in the URL shortener application.
  * <p>
  * This class configures security settings, including authentication, authorization,
- * and session management for the URL shortener application. It integrates JWT-based
+ * and session management for the URL shortener application. It integrates JWT-based and API key
  * authentication and defines the rules for HTTP security.
  * </p>
+ * <p>
+ * Resolving a short URL is public and the most frequent request, so it is served by a separate
+ * lightweight filter chain that does no authentication work at all.
+ * </p>
  */
 @Configuration
 @EnableWebSecurity
@@ -33,13 +51,47 @@ import static org.springframework.http.HttpMethod.POST;
 public class SecurityConfig {
 
     private final JwtAuthorizationFilter authorizationFilter;
+    private final ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
+
+    /**
+     * Configures the filter chain of the public short URL resolve endpoint.
+     * <p>
+     * The chain is matched before the main chain and contains neither the {@link JwtAuthorizationFilter}
+     * nor the security context, anonymous authentication, request cache and logout filters, so a bearer
+     * token sent along with the request is never looked at.
+     * </p>
+     *
+     * @param http the {@link HttpSecurity} object used to configure HTTP security
+     * @return a {@link SecurityFilterChain} for the public resolve endpoint
+     * @throws Exception if an error occurs during the configuration of HTTP security
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain publicUrlFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(antMatcher(POST, "/api/v1/url/*"))
+                .cors(AbstractHttpConfigurer::disable)
+                .httpBasic(AbstractHttpConfigurer::disable)
+                .csrf(AbstractHttpConfigurer::disable)
+                .formLogin(AbstractHttpConfigurer::disable)
+                .logout(AbstractHttpConfigurer::disable)
+                .requestCache(AbstractHttpConfigurer::disable)
+                .anonymous(AbstractHttpConfigurer::disable)
+                .securityContext(AbstractHttpConfigurer::disable)
+                .sessionManagement(session ->
+                        session.sessionCreationPolicy(
+                                SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
+        return http.build();
+    }
 
     /**
      * Configures the security filter chain to define HTTP security rules.
      * <p>
      * This method sets up rules for request authorization, allowing access to specific
-     * endpoints (such as authentication and documentation endpoints) while requiring
-     * authentication for all other requests. It also disables session creation and
+     * endpoints (such as authentication and documentation endpoints), restricting the
+     * actuator endpoints to administrators, keeping API keys from managing API keys and
+     * requiring authentication for all other requests. It also disables session creation and
      * enables stateless security based on JWT tokens.
      * </p>
      *
@@ -67,26 +119,92 @@ public class SecurityConfig {
                                         "/error")
                                 .permitAll()
                                 .requestMatchers(POST, "/api/v1/url/{shortUrlCode}").permitAll()
+                                .requestMatchers("/actuator/**").hasRole("ADMIN")
+                                .requestMatchers("/api/v1/api-keys/**")
+                                .access(SecurityConfig::authenticatedWithoutApiKey)
                                 .anyRequest().authenticated())
                 .sessionManagement(session ->
                         session.sessionCreationPolicy(
                                 SessionCreationPolicy.STATELESS))
-                .addFilterBefore(authorizationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(authorizationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(apiKeyAuthenticationFilter, JwtAuthorizationFilter.class);
         return http.build();
     }
 
+    /**
+     * Grants access to users authenticated by a JWT, but not by an API key.
+     * <p>
+     * A leaked API key must not be able to create further keys or revoke the keys of the owner.
+     * </p>
+     *
+     * @param authentication the authentication of the request
+     * @param context        the request
+     * @return the authorization decision
+     */
+    private static AuthorizationDecision authenticatedWithoutApiKey(Supplier<Authentication> authentication,
+                                                                    RequestAuthorizationContext context) {
+        Authentication current = authentication.get();
+        boolean granted = Objects.nonNull(current)
+                && current.isAuthenticated()
+                && !(current instanceof AnonymousAuthenticationToken)
+                && current.getAuthorities().stream()
+                .noneMatch(authority -> API_KEY_AUTHORITY.equals(authority.getAuthority()));
+        return new AuthorizationDecision(granted);
+    }
+
+    /**
+     * Disables the servlet container registration of the {@link JwtAuthorizationFilter}.
+     * <p>
+     * The filter is a bean and would otherwise be registered for every request by Spring Boot,
+     * in addition to running inside the main security filter chain.
+     * </p>
+     *
+     * @param filter the JWT authorization filter
+     * @return a disabled {@link FilterRegistrationBean} for the filter
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthorizationFilter> jwtAuthorizationFilterRegistration(
+            JwtAuthorizationFilter filter) {
+        FilterRegistrationBean<JwtAuthorizationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    /**
+     * Disables the servlet container registration of the {@link ApiKeyAuthenticationFilter},
+     * which only runs inside the main security filter chain.
+     *
+     * @param filter the API key authentication filter
+     * @return a disabled {@link FilterRegistrationBean} for the filter
+     */
+    @Bean
+    public FilterRegistrationBean<ApiKeyAuthenticationFilter> apiKeyAuthenticationFilterRegistration(
+            ApiKeyAuthenticationFilter filter) {
+        FilterRegistrationBean<ApiKeyAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     /**
      * Configures a password encoder used to encode user passwords.
      * <p>
-     * This method creates and returns a {@link BCryptPasswordEncoder} with a strength of 4
-     * for securely hashing user passwords.
+     * This method creates a {@link BCryptPasswordEncoder} with the configured strength and wraps it in a
+     * {@link BoundedPasswordEncoder}, so hashing runs on a bounded worker pool instead of the request threads.
      * </p>
      *
+     * @param strength      the BCrypt work factor
+     * @param poolSize      the number of hashing threads, or {@code 0} for one per available processor
+     * @param queueCapacity the number of hashing tasks that may wait for a thread
+     * @param meterRegistry the registry of the hashing meters
      * @return a {@link PasswordEncoder} for encoding passwords
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(4);
+    public PasswordEncoder passwordEncoder(@Value("${password.hashing.strength:4}") int strength,
+                                           @Value("${password.hashing.pool-size:0}") int poolSize,
+                                           @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+                                           MeterRegistry meterRegistry) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), threads, queueCapacity, meterRegistry);
     }
 
     /**
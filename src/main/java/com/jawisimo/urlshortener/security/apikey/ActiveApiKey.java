@@ -0,0 +1,14 @@
+package com.jawisimo.urlshortener.security.apikey;
+
+import com.jawisimo.urlshortener.security.Role;
+
+/**
+ * An active API key with the owner data needed to authenticate a request.
+ *
+ * @param keyHash the hex encoded SHA-256 hash of the key
+ * @param userId  the owner id
+ * @param login   the owner login
+ * @param role    the owner role
+ */
+public record ActiveApiKey(String keyHash, Long userId, String login, Role role) {
+}
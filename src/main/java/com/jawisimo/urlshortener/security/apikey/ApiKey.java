@@ -0,0 +1,44 @@
+package com.jawisimo.urlshortener.security.apikey;
+
+import com.jawisimo.urlshortener.user.User;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "api_keys")
+@Getter
+@Setter
+@ToString(exclude = {"user", "keyHash"})
+@EqualsAndHashCode(exclude = "user")
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ApiKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 100, nullable = false)
+    private String name;
+
+    @Column(length = 16, nullable = false, unique = true, updatable = false)
+    private String prefix;
+
+    @Column(name = "key_hash", length = 64, nullable = false, updatable = false)
+    private String keyHash;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+}
@@ -0,0 +1,121 @@
+package com.jawisimo.urlshortener.security.apikey;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of active API keys by key prefix, with a time to live.
+ * <p>
+ * A hit spares the database lookup of the key and its owner. Prefixes without an active key are cached
+ * as well, for the shorter {@code api-key.cache.negative-ttl-seconds}, so repeated requests with an
+ * unknown or revoked key do not reach the database either. They are bounded on their own by
+ * {@code api-key.cache.max-negative-entries}, so a flood of unknown prefixes never evicts an active key.
+ * Revoking a key evicts it on this instance;
+ * other instances stop accepting it when their entry expires, at the latest after the time to live,
+ * which is therefore kept short.
+ * When either part is full, its first entry in hash order is evicted to make room. Expired entries are
+ * purged in the background every {@code api-key.cache.purge-interval-ms}.
+ * </p>
+ */
+@Component
+public class ApiKeyCache {
+    private final int maxEntries;
+    private final int maxNegativeEntries;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> negativeEntries = new ConcurrentHashMap<>();
+
+    public ApiKeyCache(@Value("${api-key.cache.max-entries:10000}") int maxEntries,
+                       @Value("${api-key.cache.max-negative-entries:10000}") int maxNegativeEntries,
+                       @Value("${api-key.cache.ttl-seconds:30}") long ttlSeconds,
+                       @Value("${api-key.cache.negative-ttl-seconds:5}") long negativeTtlSeconds) {
+        this.maxEntries = maxEntries;
+        this.maxNegativeEntries = maxNegativeEntries;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.negativeTtl = Duration.ofSeconds(negativeTtlSeconds);
+    }
+
+    /**
+     * Returns the active key with the given prefix, loading and caching it, or its absence, on a miss.
+     *
+     * @param prefix the key prefix
+     * @param loader loads the active key with the prefix; returns empty if there is none
+     * @return the active key, or empty if there is none
+     */
+    public Optional<ActiveApiKey> get(String prefix, Function<String, Optional<ActiveApiKey>> loader) {
+        Instant now = Instant.now();
+        Optional<Entry> cached = find(entries, prefix, now).or(() -> find(negativeEntries, prefix, now));
+        if (cached.isPresent()) {
+            return Optional.ofNullable(cached.get().key());
+        }
+
+        Optional<ActiveApiKey> loaded = loader.apply(prefix);
+        if (loaded.isPresent()) {
+            put(entries, maxEntries, prefix, new Entry(loaded.get(), now.plus(ttl)));
+        } else {
+            put(negativeEntries, maxNegativeEntries, prefix, new Entry(null, now.plus(negativeTtl)));
+        }
+        return loaded;
+    }
+
+    /**
+     * Evicts the key with the given prefix, e.g. after it was revoked or created.
+     *
+     * @param prefix the key prefix
+     */
+    public void evict(String prefix) {
+        entries.remove(prefix);
+        negativeEntries.remove(prefix);
+    }
+
+    /**
+     * Removes the expired entries.
+     */
+    @Scheduled(fixedDelayString = "${api-key.cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        entries.values().removeIf(cached -> !cached.expiresAt().isAfter(now));
+        negativeEntries.values().removeIf(cached -> !cached.expiresAt().isAfter(now));
+    }
+
+    private static Optional<Entry> find(ConcurrentHashMap<String, Entry> cache, String prefix, Instant now) {
+        Entry entry = cache.get(prefix);
+        if (Objects.isNull(entry)) {
+            return Optional.empty();
+        }
+        if (!entry.expiresAt().isAfter(now)) {
+            cache.remove(prefix, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    private static void put(ConcurrentHashMap<String, Entry> cache, int maxSize, String prefix, Entry entry) {
+        if (cache.size() >= maxSize && !cache.containsKey(prefix)) {
+            Iterator<String> prefixes = cache.keySet().iterator();
+            if (prefixes.hasNext()) {
+                cache.remove(prefixes.next());
+            }
+        }
+        cache.put(prefix, entry);
+    }
+
+    /**
+     * A cached lookup.
+     *
+     * @param key       the active key, or {@code null} if the prefix has none
+     * @param expiresAt the end of the time to live
+     */
+    private record Entry(ActiveApiKey key, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.jawisimo.urlshortener.security.apikey;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ApiKeyRepository extends JpaRepository<ApiKey, Long> {
+
+    @Query(value = "SELECT k FROM ApiKey k JOIN FETCH k.user WHERE k.prefix = :prefix AND k.revokedAt IS NULL")
+    Optional<ApiKey> findActiveByPrefixWithUser(@Param("prefix") String prefix);
+
+    List<ApiKey> findAllByUserIdOrderByCreatedAtDesc(Long userId);
+
+    Optional<ApiKey> findByIdAndUserId(Long id, Long userId);
+}
@@ -0,0 +1,32 @@
+package com.jawisimo.urlshortener.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"id", "name", "prefix", "createdAt", "revokedAt"})
+@Schema
+public class ApiKeyResponse {
+
+    @Schema(example = "1")
+    private Long id;
+
+    @Schema(example = "link-service")
+    private String name;
+
+    @Schema(example = "k3x9a0qz")
+    private String prefix;
+
+    @Schema(example = "2025-01-01T10:00:00")
+    private LocalDateTime createdAt;
+
+    @Schema(example = "null")
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,16 @@
+package com.jawisimo.urlshortener.security.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema
+public class CreateApiKeyRequest {
+
+    @Schema(example = "link-service")
+    private String name;
+}
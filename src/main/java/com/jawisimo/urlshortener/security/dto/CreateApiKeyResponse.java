@@ -0,0 +1,33 @@
+package com.jawisimo.urlshortener.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"id", "name", "prefix", "key", "createdAt"})
+@Schema
+public class CreateApiKeyResponse {
+
+    @Schema(example = "1")
+    private Long id;
+
+    @Schema(example = "link-service")
+    private String name;
+
+    @Schema(example = "k3x9a0qz")
+    private String prefix;
+
+    @Schema(description = "The API key; it is only returned once",
+            example = "usk_k3x9a0qz_Vx8q0Zb1f3Kk1l2m3n4o5p6q7r8s9t0uvwxyzABCDEF")
+    private String key;
+
+    @Schema(example = "2025-01-01T10:00:00")
+    private LocalDateTime createdAt;
+}
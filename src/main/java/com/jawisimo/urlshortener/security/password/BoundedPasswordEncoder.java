@@ -0,0 +1,187 @@
+package com.jawisimo.urlshortener.security.password;
+
+import com.jawisimo.urlshortener.error.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static com.jawisimo.urlshortener.util.MessageProvider.PASSWORD_HASHING_BUSY_MESSAGE;
+
+/**
+ * {@link PasswordEncoder} that runs the hashing of a delegate encoder on a bounded worker pool.
+ * <p>
+ * Password hashing is deliberately slow. Running it on the request threads lets a login storm starve
+ * every other request, so hashing runs on a separately sized pool with a bounded queue instead.
+ * When the queue is full the request is rejected at once with a {@link ServiceUnavailableException}.
+ * The time spent in the queue and in hashing is recorded, registered as {@code password.hashing.*} meters
+ * and logged periodically.
+ * </p>
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+    /**
+     * Creates an encoder with its own worker pool.
+     *
+     * @param delegate      the encoder doing the actual hashing
+     * @param poolSize      the number of worker threads
+     * @param queueCapacity the number of hashing tasks that may wait for a worker
+     * @param meterRegistry the registry of the hashing meters
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int poolSize, int queueCapacity,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity)
+                : new SynchronousQueue<>();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, queue,
+                new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        taskCounter(meterRegistry, "completed", completed);
+        taskCounter(meterRegistry, "rejected", rejected);
+        Gauge.builder("password.hashing.queued", executor, pool -> pool.getQueue().size())
+                .description("Hashing tasks waiting for a worker")
+                .register(meterRegistry);
+        taskTimer(meterRegistry, "password.hashing.queue", "Time hashing tasks waited for a worker", queueNanos);
+        taskTimer(meterRegistry, "password.hashing.hash", "Time of hashing", hashNanos);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Returns the hashing statistics since startup.
+     *
+     * @return the current statistics
+     */
+    public Statistics statistics() {
+        long completedCount = completed.sum();
+        return new Statistics(
+                completedCount,
+                rejected.sum(),
+                executor.getQueue().size(),
+                completedCount == 0 ? 0L : queueNanos.sum() / completedCount,
+                completedCount == 0 ? 0L : hashNanos.sum() / completedCount);
+    }
+
+    /**
+     * Logs the number of hashed and rejected passwords and the average queue and hash times.
+     */
+    @Scheduled(fixedDelayString = "${password.hashing.report-interval-ms:300000}")
+    public void logStatistics() {
+        Statistics statistics = statistics();
+        if (statistics.completed() + statistics.rejected() == 0) {
+            return;
+        }
+        log.info("Password hashing: {} completed, {} rejected, {} queued, average queue time {} µs, " +
+                        "average hash time {} µs",
+                statistics.completed(), statistics.rejected(), statistics.queued(),
+                TimeUnit.NANOSECONDS.toMicros(statistics.averageQueueNanos()),
+                TimeUnit.NANOSECONDS.toMicros(statistics.averageHashNanos()));
+    }
+
+    /**
+     * Stops the worker pool; called by the container on shutdown.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static void taskCounter(MeterRegistry meterRegistry, String result, LongAdder count) {
+        FunctionCounter.builder("password.hashing.tasks", count, LongAdder::sum)
+                .description("Hashing tasks by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void taskTimer(MeterRegistry meterRegistry, String name, String description, LongAdder nanos) {
+        FunctionTimer.builder(name, this, encoder -> encoder.completed.sum(), encoder -> nanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    private <T> T execute(Supplier<T> hashing) {
+        long submittedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    return hashing.get();
+                } finally {
+                    long finishedAt = System.nanoTime();
+                    queueNanos.add(startedAt - submittedAt);
+                    hashNanos.add(finishedAt - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException(PASSWORD_HASHING_BUSY_MESSAGE);
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException(PASSWORD_HASHING_BUSY_MESSAGE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Hashing statistics.
+     *
+     * @param completed         the number of finished hashing tasks
+     * @param rejected          the number of tasks rejected because the queue was full
+     * @param queued            the number of tasks currently waiting for a worker
+     * @param averageQueueNanos the average time a task waited for a worker
+     * @param averageHashNanos  the average time of hashing
+     */
+    public record Statistics(long completed, long rejected, int queued, long averageQueueNanos,
+                             long averageHashNanos) {
+    }
+
+    private static class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.jawisimo.urlshortener.security.provider;
 
+import com.jawisimo.urlshortener.user.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,10 +15,21 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Provider class for generating, parsing and validating JWT access and refresh tokens.
  * Uses HS256 algorithm and a secret key from application properties.
+ * <p>
+ * The signing key and the parser are built once at startup; both are immutable and thread-safe.
+ * </p>
+ * <p>
+ * Access tokens carry the user id, role and token epoch, so requests can be authenticated
+ * without loading the user. Refresh tokens carry the token epoch, a unique token id and the id of
+ * their rotation family.
+ * </p>
  */
 @Component
 @Slf4j
@@ -28,13 +41,33 @@ public class JwtTokenProvider {
     private static final Long JWT_EXPIRATION_MINUTES_TIME = 10L;
     private static final Long REFRESH_EXPIRATION_DAYS_TIME = 7L;
 
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String EPOCH_CLAIM = "epoch";
+    public static final String FAMILY_CLAIM = "fam";
+
+    private SecretKey signInKey;
+    private JwtParser parser;
+
+    /**
+     * Builds the signing key and the token parser from the configured secret.
+     */
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Base64.getDecoder().decode(jwtSecret.getBytes());
+        signInKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parser()
+                .verifyWith(signInKey)
+                .build();
+    }
+
     /**
-     * Generates an access token for the given login with a short expiration time.
+     * Generates an access token for the given user with a short expiration time.
      *
-     * @param login the username or identifier to embed in the token.
+     * @param user the user whose login, id, role and token epoch are embedded in the token.
      * @return the generated JWT access token.
      */
-    public String generateAccessToken(String login) {
+    public String generateAccessToken(User user) {
         Date expirationDate = Date.from(
                 LocalDateTime
                         .now()
@@ -44,31 +77,43 @@ public class JwtTokenProvider {
         );
 
         return Jwts.builder()
-                .subject(login)
+                .subject(user.getLogin())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, Objects.isNull(user.getRole()) ? null : user.getRole().name())
+                .claim(EPOCH_CLAIM, user.getTokenEpoch())
                 .expiration(expirationDate)
-                .signWith(getSignInKey())
+                .signWith(signInKey)
                 .compact();
     }
 
     /**
-     * Generates a refresh token for the given login with a longer expiration time.
+     * Returns the expiration date of a refresh token issued now.
+     *
+     * @return the current time plus the refresh token lifetime.
+     */
+    public LocalDateTime nextRefreshTokenExpiration() {
+        return LocalDateTime.now().plusDays(REFRESH_EXPIRATION_DAYS_TIME);
+    }
+
+    /**
+     * Generates a refresh token for the given user.
      *
-     * @param login the username or identifier to embed in the token.
+     * @param user      the user whose login and token epoch are embedded in the token.
+     * @param familyId  the id of the rotation family the token belongs to.
+     * @param tokenId   the unique id of the token, embedded as {@code jti}.
+     * @param expiresAt the expiration date, see {@link #nextRefreshTokenExpiration()}.
      * @return the generated JWT refresh token.
      */
-    public String generateRefreshToken(String login) {
-        Date expirationDate = Date.from(
-                LocalDateTime
-                        .now()
-                        .plusDays(REFRESH_EXPIRATION_DAYS_TIME)
-                        .atZone(ZoneId.systemDefault())
-                        .toInstant()
-        );
+    public String generateRefreshToken(User user, UUID familyId, UUID tokenId, LocalDateTime expiresAt) {
+        Date expirationDate = Date.from(expiresAt.atZone(ZoneId.systemDefault()).toInstant());
 
         return Jwts.builder()
-                .subject(login)
+                .id(tokenId.toString())
+                .subject(user.getLogin())
+                .claim(FAMILY_CLAIM, familyId.toString())
+                .claim(EPOCH_CLAIM, user.getTokenEpoch())
                 .expiration(expirationDate)
-                .signWith(getSignInKey())
+                .signWith(signInKey)
                 .compact();
     }
 
@@ -79,49 +124,34 @@ public class JwtTokenProvider {
      * @return the subject (login) embedded in the token.
      */
     public String getLoginFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return claims.getSubject();
+        return getClaimsFromToken(token).getSubject();
     }
 
     /**
-     * Extracts the JWT token from the Authorization header of the request.
-     * Expects the header format: "Bearer &lt;token&gt;".
+     * Extracts all claims from a given JWT token.
      *
-     * @param request the HTTP servlet request containing the Authorization header.
-     * @return the JWT token if present and correctly formatted; {@code null} otherwise.
+     * @param token the JWT token.
+     * @return the claims embedded in the token.
+     * @throws JwtException if the token is malformed, expired or not signed with the secret key.
      */
-    public String getTokenFromRequest(HttpServletRequest request) {
-        String bearerToken = request.getHeader(HttpHeaders.AUTHORIZATION);
-        if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7);
-        }
-        return null;
+    public Claims getClaimsFromToken(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /**
-     * Validates the provided JWT token.
-     * Checks for proper signature and expiration.
+     * Verifies the provided JWT token and returns its claims.
+     * Checks for proper signature and expiration, parsing the token only once.
      *
-     * @param token the JWT token to validate.
-     * @return {@code true} if the token is valid; {@code false} otherwise.
+     * @param token the JWT token to verify.
+     * @return the claims of the token if it is valid; empty otherwise.
      */
-    public boolean validateToken(String token) {
+    public Optional<Claims> verifyToken(String token) {
         if (token == null || token.isEmpty()) {
-            return false;
+            return Optional.empty();
         }
 
         try {
-            Jwts.parser()
-                    .verifyWith(getSignInKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return true;
+            return Optional.of(getClaimsFromToken(token));
         } catch (ExpiredJwtException | UnsupportedJwtException |
                  MalformedJwtException | SecurityException e) {
             log.info("JWT validation failed: {}", e.getMessage());
@@ -129,16 +159,43 @@ public class JwtTokenProvider {
             log.info("Unexpected error during JWT validation: {}", e.getMessage());
         }
 
-        return false;
+        return Optional.empty();
     }
 
     /**
-     * Returns the signing key used for JWT token generation and validation.
+     * Extracts the token epoch from the given claims.
      *
-     * @return the {@link SecretKey} derived from the base64-encoded {@code jwt.secret}.
+     * @param claims the token claims.
+     * @return the token epoch, or {@code 0} for tokens issued before epochs were introduced.
      */
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Base64.getDecoder().decode(jwtSecret.getBytes());
-        return Keys.hmacShaKeyFor(keyBytes);
+    public int getEpochFromClaims(Claims claims) {
+        Integer epoch = claims.get(EPOCH_CLAIM, Integer.class);
+        return Objects.isNull(epoch) ? 0 : epoch;
+    }
+
+    /**
+     * Extracts the JWT token from the Authorization header of the request.
+     * Expects the header format: "Bearer &lt;token&gt;".
+     *
+     * @param request the HTTP servlet request containing the Authorization header.
+     * @return the JWT token if present and correctly formatted; {@code null} otherwise.
+     */
+    public String getTokenFromRequest(HttpServletRequest request) {
+        String bearerToken = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
+        }
+        return null;
+    }
+
+    /**
+     * Validates the provided JWT token.
+     * Checks for proper signature and expiration.
+     *
+     * @param token the JWT token to validate.
+     * @return {@code true} if the token is valid; {@code false} otherwise.
+     */
+    public boolean validateToken(String token) {
+        return verifyToken(token).isPresent();
     }
 }
@@ -23,6 +23,10 @@ public class SecurityContextProvider {
     /**
      * Retrieves the currently authenticated {@link User}
      * from the Spring Security context.
+     * <p>
+     * For token authenticated requests the user is built from the token claims and only holds
+     * the id, login and role; it can be used as a reference but is not a loaded entity.
+     * </p>
      *
      * @return the authenticated user
      * @throws UnauthorizedException if there is no authenticated user in the context
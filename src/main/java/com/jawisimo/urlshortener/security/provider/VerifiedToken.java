@@ -0,0 +1,25 @@
+package com.jawisimo.urlshortener.security.provider;
+
+import java.time.Instant;
+
+/**
+ * The claims of a verified access token that are needed to authenticate a request.
+ *
+ * @param userId    the user id, or {@code null} for tokens issued before the claim was introduced
+ * @param login     the login of the token owner
+ * @param role      the role name, or {@code null} for tokens issued before the claim was introduced
+ * @param epoch     the token epoch of the owner at issue time
+ * @param expiresAt the expiration time of the token
+ */
+public record VerifiedToken(Long userId, String login, String role, int epoch, Instant expiresAt) {
+
+    /**
+     * Checks whether the token is still valid at the given time.
+     *
+     * @param now the current time
+     * @return {@code true} if the token has not expired yet
+     */
+    public boolean isValidAt(Instant now) {
+        return expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,188 @@
+package com.jawisimo.urlshortener.security.provider;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of verified access tokens, keyed by the SHA-256 digest of the token.
+ * <p>
+ * Clients send the same access token many times during its lifetime, so the signature check and claim
+ * parsing are done once per token and instance. An entry is valid until the expiration of its token and
+ * is evicted when the tokens of its user are revoked. Only digests are kept, never the tokens themselves.
+ * When the cache is full, the first entry in hash order is evicted to make room, which is a random entry as
+ * the keys are digests. Expired entries are purged in the background every
+ * {@code jwt.token-cache.purge-interval-ms}.
+ * </p>
+ * <p>
+ * The hits, misses, size and verification time are registered as {@code jwt.token-cache.*} meters and
+ * logged every {@code jwt.token-cache.report-interval-ms}.
+ * </p>
+ */
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+    private final int maxEntries;
+    private final ConcurrentHashMap<ByteBuffer, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder verificationNanos = new LongAdder();
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${jwt.token-cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        requestCounter(meterRegistry, "hit", hits);
+        requestCounter(meterRegistry, "miss", misses);
+        Gauge.builder("jwt.token-cache.size", entries, ConcurrentHashMap::size)
+                .description("Verified access tokens in the cache")
+                .register(meterRegistry);
+        FunctionTimer.builder("jwt.token-cache.verification", this, cache -> cache.misses.sum(),
+                        cache -> cache.verificationNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Verification of access tokens missing from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the verified token from the cache, verifying and caching it on a miss.
+     *
+     * @param token    the raw access token
+     * @param verifier verifies the token on a miss; returns empty for invalid tokens
+     * @return the verified token, or empty if the token is invalid or expired
+     */
+    public Optional<VerifiedToken> get(String token, Function<String, Optional<VerifiedToken>> verifier) {
+        ByteBuffer key = digest(token);
+        Instant now = Instant.now();
+
+        VerifiedToken cached = entries.get(key);
+        if (Objects.nonNull(cached)) {
+            if (cached.isValidAt(now)) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            entries.remove(key, cached);
+        }
+
+        misses.increment();
+        long start = System.nanoTime();
+        Optional<VerifiedToken> verified = verifier.apply(token);
+        verificationNanos.add(System.nanoTime() - start);
+
+        verified.filter(verifiedToken -> verifiedToken.isValidAt(now))
+                .ifPresent(verifiedToken -> put(key, verifiedToken));
+        return verified;
+    }
+
+    /**
+     * Evicts all cached tokens of the given user, e.g. after their tokens were revoked.
+     *
+     * @param userId the user id
+     */
+    public void evictUser(long userId) {
+        entries.values().removeIf(verifiedToken -> Objects.equals(verifiedToken.userId(), userId));
+    }
+
+    /**
+     * Removes the entries of expired tokens.
+     */
+    @Scheduled(fixedDelayString = "${jwt.token-cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        entries.values().removeIf(cached -> !cached.isValidAt(now));
+    }
+
+    /**
+     * Returns the cache statistics since startup.
+     *
+     * @return the current statistics
+     */
+    public Statistics statistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long averageVerificationNanos = missCount == 0 ? 0L : verificationNanos.sum() / missCount;
+        return new Statistics(hitCount, missCount, entries.size(), averageVerificationNanos);
+    }
+
+    /**
+     * Logs the hit ratio and the estimated verification time saved by the cache.
+     */
+    @Scheduled(fixedDelayString = "${jwt.token-cache.report-interval-ms:300000}")
+    public void logStatistics() {
+        Statistics statistics = statistics();
+        if (statistics.hits() + statistics.misses() == 0) {
+            return;
+        }
+        log.info("Verified token cache: {} entries, {} hits, {} misses, hit ratio {}, saved about {} ms of verification",
+                statistics.size(), statistics.hits(), statistics.misses(),
+                String.format("%.3f", statistics.hitRatio()),
+                TimeUnit.NANOSECONDS.toMillis(statistics.savedNanos()));
+    }
+
+    private void put(ByteBuffer key, VerifiedToken verifiedToken) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            Iterator<ByteBuffer> keys = entries.keySet().iterator();
+            if (keys.hasNext()) {
+                entries.remove(keys.next());
+            }
+        }
+        entries.put(key, verifiedToken);
+    }
+
+    private static void requestCounter(MeterRegistry meterRegistry, String result, LongAdder count) {
+        FunctionCounter.builder("jwt.token-cache.requests", count, LongAdder::sum)
+                .description("Access tokens looked up in the cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Cache statistics.
+     *
+     * @param hits                     the number of requests served from the cache
+     * @param misses                   the number of requests that verified their token
+     * @param size                     the number of cached tokens
+     * @param averageVerificationNanos the average time of a token verification
+     */
+    public record Statistics(long hits, long misses, int size, long averageVerificationNanos) {
+
+        /**
+         * @return the share of requests served from the cache
+         */
+        public double hitRatio() {
+            return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+        }
+
+        /**
+         * @return the estimated verification time saved by the cache hits
+         */
+        public long savedNanos() {
+            return hits * averageVerificationNanos;
+        }
+    }
+}
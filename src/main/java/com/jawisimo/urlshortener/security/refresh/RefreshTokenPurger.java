@@ -0,0 +1,33 @@
+package com.jawisimo.urlshortener.security.refresh;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background job that deletes expired refresh tokens.
+ * <p>
+ * An expired token is rejected by its signature check already, so its row is no longer needed for
+ * rotation or reuse detection. Running the job on several instances is harmless.
+ * </p>
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RefreshTokenPurger {
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    /**
+     * Deletes all refresh tokens that have expired.
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval-ms:3600000}")
+    public void purge() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.debug("Purged {} expired refresh tokens", deleted);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.jawisimo.urlshortener.security.refresh;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * JDBC repository for the {@code refresh_tokens} table.
+ * <p>
+ * Every issued refresh token is a row. Tokens issued by rotating one another form a family that shares
+ * the {@code family_id} of the token issued at login. A token is used at most once; revoking a family
+ * revokes all of its tokens.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class RefreshTokenRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Stores a newly issued refresh token.
+     *
+     * @param tokenId   the token id ({@code jti})
+     * @param familyId  the family id
+     * @param userId    the owner id
+     * @param expiresAt the expiration date of the token
+     */
+    public void insert(UUID tokenId, UUID familyId, long userId, LocalDateTime expiresAt) {
+        jdbcTemplate.update(
+                "INSERT INTO refresh_tokens (token_id, family_id, user_id, expires_at) VALUES (?, ?, ?, ?)",
+                tokenId, familyId, userId, Timestamp.valueOf(expiresAt));
+    }
+
+    /**
+     * Marks a refresh token as used, if it is unused, not revoked and not expired.
+     *
+     * @param tokenId  the token id
+     * @param familyId the family id from the same token
+     * @param now      the current time
+     * @return {@code true} if the token was marked; {@code false} if it cannot be used
+     */
+    public boolean markUsed(UUID tokenId, UUID familyId, LocalDateTime now) {
+        return jdbcTemplate.update(
+                "UPDATE refresh_tokens SET used_at = ? " +
+                        "WHERE token_id = ? AND family_id = ? " +
+                        "AND used_at IS NULL AND revoked_at IS NULL AND expires_at > ?",
+                Timestamp.valueOf(now), tokenId, familyId, Timestamp.valueOf(now)) == 1;
+    }
+
+    /**
+     * Revokes all tokens of a family.
+     *
+     * @param familyId the family id
+     * @param now      the current time
+     * @return the latest expiration date of the family tokens, or {@code null} if the family is unknown
+     */
+    public LocalDateTime revokeFamily(UUID familyId, LocalDateTime now) {
+        jdbcTemplate.update(
+                "UPDATE refresh_tokens SET revoked_at = ? WHERE family_id = ? AND revoked_at IS NULL",
+                Timestamp.valueOf(now), familyId);
+        Timestamp expiresAt = jdbcTemplate.queryForObject(
+                "SELECT max(expires_at) FROM refresh_tokens WHERE family_id = ?", Timestamp.class, familyId);
+        return Objects.isNull(expiresAt) ? null : expiresAt.toLocalDateTime();
+    }
+
+    /**
+     * Loads the revoked families that still have unexpired tokens.
+     *
+     * @param now the current time
+     * @return the latest expiration date of the tokens by family id
+     */
+    public Map<UUID, LocalDateTime> findRevokedFamilies(LocalDateTime now) {
+        List<Map.Entry<UUID, LocalDateTime>> rows = jdbcTemplate.query(
+                "SELECT family_id, max(expires_at) FROM refresh_tokens " +
+                        "WHERE revoked_at IS NOT NULL AND expires_at > ? GROUP BY family_id",
+                (rs, rowNum) -> Map.entry(rs.getObject(1, UUID.class), rs.getTimestamp(2).toLocalDateTime()),
+                Timestamp.valueOf(now));
+        Map<UUID, LocalDateTime> families = new HashMap<>(rows.size());
+        rows.forEach(row -> families.put(row.getKey(), row.getValue()));
+        return families;
+    }
+
+    /**
+     * Deletes all expired tokens.
+     *
+     * @param now the current time
+     * @return the number of deleted tokens
+     */
+    public int deleteExpired(LocalDateTime now) {
+        return jdbcTemplate.update("DELETE FROM refresh_tokens WHERE expires_at <= ?", Timestamp.valueOf(now));
+    }
+}
@@ -0,0 +1,83 @@
+package com.jawisimo.urlshortener.security.refresh;
+
+import com.jawisimo.urlshortener.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of revoked refresh token families, fronted by a {@link BloomFilter}.
+ * <p>
+ * Almost every refresh belongs to a family that is not revoked, which the Bloom filter answers without
+ * touching the exact set. The set is loaded from {@code refresh_tokens} and refreshed periodically, so
+ * revocations made on other instances take effect here as well. Families are dropped once all of their
+ * tokens have expired, and the Bloom filter is rebuilt from the remaining ones.
+ * </p>
+ */
+@Component
+@Slf4j
+public class RevokedTokenFamilies {
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final int expectedFamilies;
+    private final Map<UUID, LocalDateTime> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+
+    public RevokedTokenFamilies(RefreshTokenRepository refreshTokenRepository,
+                                @Value("${jwt.refresh.revoked-families.expected:10000}") int expectedFamilies) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.expectedFamilies = expectedFamilies;
+        this.bloomFilter = new BloomFilter(expectedFamilies, FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * Checks whether the given family is revoked.
+     *
+     * @param familyId the family id
+     * @return {@code true} if the family is revoked
+     */
+    public boolean isRevoked(UUID familyId) {
+        return bloomFilter.mightContain(hash(familyId)) && revoked.containsKey(familyId);
+    }
+
+    /**
+     * Adds a revoked family.
+     *
+     * @param familyId  the family id
+     * @param expiresAt the latest expiration date of the family tokens
+     */
+    public synchronized void add(UUID familyId, LocalDateTime expiresAt) {
+        revoked.merge(familyId, expiresAt, (current, added) -> current.isAfter(added) ? current : added);
+        bloomFilter.add(hash(familyId));
+    }
+
+    /**
+     * Reloads the revoked families from the database, drops expired ones and rebuilds the Bloom filter.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${jwt.refresh.revoked-families.refresh-interval-ms:30000}")
+    public synchronized void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, LocalDateTime> loaded = refreshTokenRepository.findRevokedFamilies(now);
+        loaded.forEach((familyId, expiresAt) ->
+                revoked.merge(familyId, expiresAt, (current, added) -> current.isAfter(added) ? current : added));
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedFamilies, revoked.size() * 2), FALSE_POSITIVE_PROBABILITY);
+        revoked.keySet().forEach(familyId -> rebuilt.add(hash(familyId)));
+        bloomFilter = rebuilt;
+        log.debug("Loaded {} revoked refresh token families", revoked.size());
+    }
+
+    private static long hash(UUID familyId) {
+        return familyId.getMostSignificantBits() ^ Long.rotateLeft(familyId.getLeastSignificantBits(), 32);
+    }
+}
@@ -0,0 +1,180 @@
+package com.jawisimo.urlshortener.security.service;
+
+import com.jawisimo.urlshortener.error.exception.ResourceNotFoundException;
+import com.jawisimo.urlshortener.error.exception.TooManyRequestsException;
+import com.jawisimo.urlshortener.error.exception.ValidationException;
+import com.jawisimo.urlshortener.ratelimit.LoginRateLimiter;
+import com.jawisimo.urlshortener.security.apikey.ActiveApiKey;
+import com.jawisimo.urlshortener.security.apikey.ApiKey;
+import com.jawisimo.urlshortener.security.apikey.ApiKeyCache;
+import com.jawisimo.urlshortener.security.apikey.ApiKeyRepository;
+import com.jawisimo.urlshortener.security.dto.ApiKeyResponse;
+import com.jawisimo.urlshortener.security.dto.CreateApiKeyRequest;
+import com.jawisimo.urlshortener.security.dto.CreateApiKeyResponse;
+import com.jawisimo.urlshortener.security.provider.SecurityContextProvider;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.jawisimo.urlshortener.util.MessageProvider.API_KEY_NAME_MESSAGE;
+import static com.jawisimo.urlshortener.util.MessageProvider.API_KEY_NOT_FOUND_MESSAGE;
+
+/**
+ * Service managing the API keys of machine clients.
+ * <p>
+ * A key has the form {@code usk_<prefix>_<secret>}. Only the prefix and the SHA-256 hash of the whole key
+ * are stored; the key itself is returned once, at creation. Keys carry 256 random bits, so a fast hash is
+ * as safe for them as BCrypt is for passwords, and verifying a key costs a single SHA-256.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ApiKeyService {
+    private static final String KEY_MARKER = "usk_";
+    private static final int PREFIX_LENGTH = 8;
+    private static final int SECRET_BYTES = 32;
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final char[] PREFIX_ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+    private final ApiKeyRepository apiKeyRepository;
+    private final UserRepository userRepository;
+    private final ApiKeyCache apiKeyCache;
+    private final LoginRateLimiter loginRateLimiter;
+    private final SecurityContextProvider contextProvider;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Creates an API key for the authenticated user.
+     *
+     * @param request the request containing the key name
+     * @return the created key, including the key itself
+     * @throws ValidationException if the name is empty or too long
+     */
+    @Transactional
+    public CreateApiKeyResponse create(CreateApiKeyRequest request) {
+        String name = Objects.isNull(request.getName()) ? "" : request.getName().trim();
+        if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+            throw new ValidationException(API_KEY_NAME_MESSAGE);
+        }
+
+        User user = contextProvider.getAuthenticatedUser();
+        String prefix = generatePrefix();
+        byte[] secret = new byte[SECRET_BYTES];
+        secureRandom.nextBytes(secret);
+        String key = KEY_MARKER + prefix + "_" + Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+
+        ApiKey apiKey = apiKeyRepository.save(ApiKey.builder()
+                .name(name)
+                .prefix(prefix)
+                .keyHash(hash(key))
+                .user(userRepository.getReferenceById(user.getId()))
+                .build());
+        apiKeyCache.evict(prefix);
+
+        return new CreateApiKeyResponse(apiKey.getId(), apiKey.getName(), prefix, key, apiKey.getCreatedAt());
+    }
+
+    /**
+     * Lists the API keys of the authenticated user, newest first.
+     *
+     * @return the keys, without the keys themselves
+     */
+    @Transactional(readOnly = true)
+    public List<ApiKeyResponse> list() {
+        User user = contextProvider.getAuthenticatedUser();
+        return apiKeyRepository.findAllByUserIdOrderByCreatedAtDesc(user.getId()).stream()
+                .map(apiKey -> new ApiKeyResponse(apiKey.getId(), apiKey.getName(), apiKey.getPrefix(),
+                        apiKey.getCreatedAt(), apiKey.getRevokedAt()))
+                .toList();
+    }
+
+    /**
+     * Revokes an API key of the authenticated user.
+     *
+     * @param id the key id
+     * @throws ResourceNotFoundException if the user has no key with the given id
+     */
+    @Transactional
+    public void revoke(Long id) {
+        User user = contextProvider.getAuthenticatedUser();
+        ApiKey apiKey = apiKeyRepository.findByIdAndUserId(id, user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException(API_KEY_NOT_FOUND_MESSAGE));
+
+        if (Objects.isNull(apiKey.getRevokedAt())) {
+            apiKey.setRevokedAt(LocalDateTime.now());
+        }
+        apiKeyCache.evict(apiKey.getPrefix());
+    }
+
+    /**
+     * Verifies an API key sent by a client.
+     * <p>
+     * A prefix missing from the cache is looked up in the database only if the client has not exhausted its
+     * API key lookup limit, so random prefixes cannot flood the database.
+     * </p>
+     *
+     * @param key      the key from the request
+     * @param clientIp the client address
+     * @return the active key with its owner, or empty if the key is malformed, unknown, revoked or wrong
+     * @throws TooManyRequestsException if the prefix is not cached and the client has exhausted its limit
+     */
+    public Optional<ActiveApiKey> verify(String key, String clientIp) {
+        String prefix = extractPrefix(key);
+        if (Objects.isNull(prefix)) {
+            return Optional.empty();
+        }
+
+        byte[] presentedHash = hash(key).getBytes(StandardCharsets.US_ASCII);
+        return apiKeyCache.get(prefix, uncachedPrefix -> {
+                    loginRateLimiter.acquireForApiKeyLookup(clientIp);
+                    return loadActiveKey(uncachedPrefix);
+                })
+                .filter(activeKey -> MessageDigest.isEqual(
+                        activeKey.keyHash().getBytes(StandardCharsets.US_ASCII), presentedHash));
+    }
+
+    private Optional<ActiveApiKey> loadActiveKey(String prefix) {
+        return apiKeyRepository.findActiveByPrefixWithUser(prefix)
+                .map(apiKey -> new ActiveApiKey(apiKey.getKeyHash(), apiKey.getUser().getId(),
+                        apiKey.getUser().getLogin(), apiKey.getUser().getRole()));
+    }
+
+    private String generatePrefix() {
+        char[] prefix = new char[PREFIX_LENGTH];
+        for (int i = 0; i < PREFIX_LENGTH; i++) {
+            prefix[i] = PREFIX_ALPHABET[secureRandom.nextInt(PREFIX_ALPHABET.length)];
+        }
+        return new String(prefix);
+    }
+
+    private static String extractPrefix(String key) {
+        int prefixEnd = KEY_MARKER.length() + PREFIX_LENGTH;
+        if (Objects.isNull(key) || key.length() <= prefixEnd + 1
+                || !key.startsWith(KEY_MARKER) || key.charAt(prefixEnd) != '_') {
+            return null;
+        }
+        return key.substring(KEY_MARKER.length(), prefixEnd);
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
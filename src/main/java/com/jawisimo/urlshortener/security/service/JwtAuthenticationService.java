@@ -1,26 +1,35 @@
 package com.jawisimo.urlshortener.security.service;
 
 import com.jawisimo.urlshortener.error.exception.UnauthorizedException;
+import com.jawisimo.urlshortener.ratelimit.LoginRateLimiter;
+import com.jawisimo.urlshortener.security.CustomUserDetails;
 import com.jawisimo.urlshortener.security.dto.AuthUserRequest;
 import com.jawisimo.urlshortener.security.dto.AuthUserResponse;
 import com.jawisimo.urlshortener.security.dto.RefreshTokenRequest;
 import com.jawisimo.urlshortener.security.dto.RefreshTokenResponse;
 import com.jawisimo.urlshortener.security.provider.JwtTokenProvider;
+import com.jawisimo.urlshortener.user.User;
 import com.jawisimo.urlshortener.user.UserValidator;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Optional;
+
 import static com.jawisimo.urlshortener.util.MessageProvider.TOKEN_INCORRECT_MESSAGE;
 
 /**
  * Service responsible for handling user authentication using JWT tokens.
  * <p>
  * Provides methods to authenticate a user and to refresh tokens.
+ * Refreshing loads the user, so a new access token always carries the current role and token epoch.
+ * Refresh tokens are rotated by the {@link RefreshTokenService}.
  */
 @Service
 @RequiredArgsConstructor
@@ -28,17 +37,21 @@ public class JwtAuthenticationService implements AuthenticationService {
     private final JwtTokenProvider tokenProvider;
     private final AuthenticationManager authenticationManager;
     private final UserValidator userValidator;
+    private final CustomUserDetailsService detailService;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginRateLimiter loginRateLimiter;
 
     /**
      * Authenticates a user based on login/email and password.
      * <p>
      * If authentication is successful, returns an access token and a refresh token.
+     * Attempts are rate limited per identifier.
      *
      * @param request the authentication request containing identifier and password
      * @return {@link AuthUserResponse} with JWT access and refresh tokens
      */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
     public AuthUserResponse authenticate(AuthUserRequest request) {
         String identifier = request.getIdentifier();
         String password = request.getPassword();
@@ -46,6 +59,9 @@ public class JwtAuthenticationService implements AuthenticationService {
         // Validate that identifier and password are not blank or invalid
         userValidator.validate(identifier, password);
 
+        // Throttle attempts per account before any user lookup or password hashing
+        loginRateLimiter.acquireForIdentifier(identifier);
+
         // Authenticate using Spring Security
         UsernamePasswordAuthenticationToken authToken =
                 new UsernamePasswordAuthenticationToken(identifier, password);
@@ -55,34 +71,61 @@ public class JwtAuthenticationService implements AuthenticationService {
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
         // Generate tokens
-        String authLogin = authentication.getName();
-        String accessToken = tokenProvider.generateAccessToken(authLogin);
-        String refreshToken = tokenProvider.generateRefreshToken(authLogin);
+        User user = ((CustomUserDetails) authentication.getPrincipal()).user();
+        String accessToken = tokenProvider.generateAccessToken(user);
+        String refreshToken = refreshTokenService.issue(user);
 
         return AuthUserResponse.createSuccessResponse(accessToken, refreshToken);
     }
 
     /**
      * Refreshes the access and refresh tokens based on a valid refresh token.
+     * <p>
+     * The refresh token is rotated: it cannot be used again, and using it again revokes its whole family.
+     * The revocation is committed even though the request fails.
+     * </p>
      *
      * @param request the refresh token request
      * @return {@link RefreshTokenResponse} with new tokens
-     * @throws UnauthorizedException if the provided token is invalid or expired
+     * @throws UnauthorizedException if the provided token is invalid, expired, already used or revoked
      */
+    @Transactional(noRollbackFor = UnauthorizedException.class)
     public RefreshTokenResponse refreshToken(RefreshTokenRequest request) {
         String requestToken = request.getRefreshToken();
 
         // Validate refresh token
-        if (tokenProvider.validateToken(requestToken)) {
-            String login = tokenProvider.getLoginFromToken(requestToken);
+        Optional<Claims> verifiedClaims = tokenProvider.verifyToken(requestToken);
+        if (verifiedClaims.isPresent()) {
+            Claims claims = verifiedClaims.get();
+            User user = loadUser(claims.getSubject());
 
-            // Generate new tokens
-            String accessToken = tokenProvider.generateAccessToken(login);
-            String refreshToken = tokenProvider.generateRefreshToken(login);
+            // Reject refresh tokens issued before the last revocation
+            if (tokenProvider.getEpochFromClaims(claims) < user.getTokenEpoch()) {
+                throw new UnauthorizedException(TOKEN_INCORRECT_MESSAGE);
+            }
+
+            // Generate new tokens, consuming the refresh token
+            String refreshToken = refreshTokenService.rotate(claims, user);
+            String accessToken = tokenProvider.generateAccessToken(user);
 
             return RefreshTokenResponse.createSuccessResponse(accessToken, refreshToken);
         }
 
         throw new UnauthorizedException(TOKEN_INCORRECT_MESSAGE);
     }
+
+    /**
+     * Loads the owner of a refresh token.
+     *
+     * @param login the login from the token subject
+     * @return the user
+     * @throws UnauthorizedException if the user no longer exists
+     */
+    private User loadUser(String login) {
+        try {
+            return detailService.loadUserByUsername(login).user();
+        } catch (UsernameNotFoundException e) {
+            throw new UnauthorizedException(TOKEN_INCORRECT_MESSAGE);
+        }
+    }
 }
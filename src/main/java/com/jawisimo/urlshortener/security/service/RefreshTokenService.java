@@ -0,0 +1,96 @@
+package com.jawisimo.urlshortener.security.service;
+
+import com.jawisimo.urlshortener.error.exception.UnauthorizedException;
+import com.jawisimo.urlshortener.security.provider.JwtTokenProvider;
+import com.jawisimo.urlshortener.security.refresh.RefreshTokenRepository;
+import com.jawisimo.urlshortener.security.refresh.RevokedTokenFamilies;
+import com.jawisimo.urlshortener.user.User;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+import static com.jawisimo.urlshortener.util.MessageProvider.TOKEN_INCORRECT_MESSAGE;
+
+/**
+ * Service issuing and rotating refresh tokens.
+ * <p>
+ * Every refresh token can be used once: using it marks it as used and issues a new token of the same
+ * family. Presenting a token that was already used means it was copied, so the whole family is revoked
+ * and both the attacker and the legitimate client have to log in again.
+ * </p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RefreshTokenService {
+    private final JwtTokenProvider tokenProvider;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedTokenFamilies revokedFamilies;
+
+    /**
+     * Issues the first refresh token of a new family, e.g. at login.
+     *
+     * @param user the token owner
+     * @return the refresh token
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID());
+    }
+
+    /**
+     * Consumes a verified refresh token and issues its successor in the same family.
+     *
+     * @param claims the claims of the verified refresh token
+     * @param user   the token owner
+     * @return the new refresh token
+     * @throws UnauthorizedException if the token was already used, its family is revoked or it has no token id;
+     *                               the transaction is not marked for rollback, so a revocation is committed
+     */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = UnauthorizedException.class)
+    public String rotate(Claims claims, User user) {
+        UUID tokenId = parseId(claims.getId());
+        UUID familyId = parseId(claims.get(JwtTokenProvider.FAMILY_CLAIM, String.class));
+        if (Objects.isNull(tokenId) || Objects.isNull(familyId) || revokedFamilies.isRevoked(familyId)) {
+            throw new UnauthorizedException(TOKEN_INCORRECT_MESSAGE);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!refreshTokenRepository.markUsed(tokenId, familyId, now)) {
+            // The token was used before, so it has been replayed: revoke every token of its family
+            LocalDateTime expiresAt = refreshTokenRepository.revokeFamily(familyId, now);
+            if (Objects.nonNull(expiresAt)) {
+                revokedFamilies.add(familyId, expiresAt);
+            }
+            log.warn("Refresh token reuse detected for user {}, token family {} revoked", user.getId(), familyId);
+            throw new UnauthorizedException(TOKEN_INCORRECT_MESSAGE);
+        }
+
+        return issue(user, familyId);
+    }
+
+    private String issue(User user, UUID familyId) {
+        UUID tokenId = UUID.randomUUID();
+        LocalDateTime expiresAt = tokenProvider.nextRefreshTokenExpiration();
+        refreshTokenRepository.insert(tokenId, familyId, user.getId(), expiresAt);
+        return tokenProvider.generateRefreshToken(user, familyId, tokenId, expiresAt);
+    }
+
+    private static UUID parseId(String id) {
+        if (Objects.isNull(id)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.jawisimo.urlshortener.security.service;
+
+import com.jawisimo.urlshortener.security.provider.VerifiedTokenCache;
+import com.jawisimo.urlshortener.user.UserRepository;
+import com.jawisimo.urlshortener.user.UserTokenEpoch;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of the token revocation epochs of all users.
+ * <p>
+ * Every token carries the epoch of its user at issue time. Raising the epoch of a user, e.g. after a role
+ * change or an account lock, invalidates all tokens issued before. Only users with a raised epoch are kept
+ * in memory, and the view is refreshed periodically so that changes made on other instances take effect
+ * well within the lifetime of an access token.
+ * </p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TokenEpochService {
+    private static final int INITIAL_EPOCH = 0;
+
+    private final UserRepository userRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final Map<Long, Integer> epochs = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the current token epoch of the given user.
+     *
+     * @param userId the user id
+     * @return the current epoch; tokens with a lower epoch are revoked
+     */
+    public int getEpoch(long userId) {
+        return epochs.getOrDefault(userId, INITIAL_EPOCH);
+    }
+
+    /**
+     * Revokes all tokens issued to the given user so far and evicts them from the verified token cache.
+     * <p>
+     * The epoch raised in the database is applied in memory only once the transaction commits, so a rolled
+     * back revocation does not reject valid tokens on this instance.
+     * </p>
+     *
+     * @param userId the user id
+     */
+    @Transactional
+    public void revokeTokens(long userId) {
+        userRepository.incrementTokenEpoch(userId).ifPresent(epoch ->
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        epochs.merge(userId, epoch, Math::max);
+                        verifiedTokenCache.evictUser(userId);
+                    }
+                }));
+    }
+
+    /**
+     * Reloads the raised epochs from the database.
+     * <p>
+     * Epochs never decrease, so loaded values are merged with {@link Math#max} and a concurrent local
+     * revocation is never lost.
+     * </p>
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${jwt.epoch.refresh-interval-ms:30000}")
+    public void refresh() {
+        List<UserTokenEpoch> raised = userRepository.findAllWithRaisedTokenEpoch();
+        raised.forEach(user -> epochs.merge(user.getId(), user.getTokenEpoch(), Math::max));
+        log.debug("Loaded token epochs of {} users", raised.size());
+    }
+}
@@ -0,0 +1,85 @@
+package com.jawisimo.urlshortener.url;
+
+/**
+ * Converts short URL codes to and from their numeric form.
+ * <p>
+ * A code over the alphabet of {@link ShortUrlCodeGenerator} is read as a bijective base62 number, whose
+ * digits run from 1 to 62. Unlike plain base62 there is no zero digit, so codes of different lengths,
+ * such as {@code b} and {@code ab}, never share a number. Codes of up to {@link #MAX_CODE_LENGTH}
+ * characters fit in a positive {@code long}.
+ * </p>
+ */
+public final class Base62Codec {
+    /**
+     * Maximum length of a code that has a numeric form.
+     */
+    public static final int MAX_CODE_LENGTH = 10;
+
+    /**
+     * Returned by {@link #decode(CharSequence)} for a code without a numeric form.
+     */
+    public static final long INVALID = -1L;
+
+    private static final int BASE = 62;
+    private static final char[] DIGITS =
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+    private Base62Codec() {
+    }
+
+    /**
+     * Returns the number of a code.
+     *
+     * @param code the short URL code
+     * @return the positive number of the code, or {@link #INVALID} if the code is {@code null}, empty,
+     * longer than {@link #MAX_CODE_LENGTH} or contains a character outside the alphabet
+     */
+    public static long decode(CharSequence code) {
+        if (code == null || code.isEmpty() || code.length() > MAX_CODE_LENGTH) {
+            return INVALID;
+        }
+        long number = 0L;
+        for (int i = 0; i < code.length(); i++) {
+            int digit = digitValue(code.charAt(i));
+            if (digit < 0) {
+                return INVALID;
+            }
+            number = number * BASE + digit + 1;
+        }
+        return number;
+    }
+
+    /**
+     * Returns the code of a number.
+     *
+     * @param number a positive number returned by {@link #decode(CharSequence)}
+     * @return the code
+     * @throws IllegalArgumentException if the number is not positive
+     */
+    public static String encode(long number) {
+        if (number <= 0L) {
+            throw new IllegalArgumentException("Code number must be positive: " + number);
+        }
+        char[] buffer = new char[MAX_CODE_LENGTH + 1];
+        int position = buffer.length;
+        while (number > 0L) {
+            number--;
+            buffer[--position] = DIGITS[(int) (number % BASE)];
+            number /= BASE;
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    private static int digitValue(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 26;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 52;
+        }
+        return -1;
+    }
+}
@@ -1,33 +1,47 @@
 package com.jawisimo.urlshortener.url;
 
 import com.jawisimo.urlshortener.error.exception.ValidationException;
+import com.jawisimo.urlshortener.url.blocklist.UrlBlocklist;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import static com.jawisimo.urlshortener.util.MessageProvider.URL_BLOCKED_MESSAGE;
 import static com.jawisimo.urlshortener.util.MessageProvider.URL_INCORRECT_MESSAGE;
 
 /**
  * Component responsible for validating long URLs in the URL shortener application.
  * <p>
- * This class ensures that the provided long URL is not null, empty, and matches the required format (http or https).
+ * This class ensures that the provided long URL is a well-formed http or https URL, brings it into its
+ * canonical form with {@link UrlCanonicalizer} and checks the canonical URL against the {@link UrlBlocklist}.
  * </p>
  */
 @Component
+@RequiredArgsConstructor
 public class LongUrlValidator {
 
-    private static final String URL_REGEX = "^(http://|https://).+";
+    private static final int MAX_URL_LENGTH = 2000;
+
+    private final UrlBlocklist urlBlocklist;
 
     /**
-     * Validates the provided long URL.
+     * Validates the provided long URL and returns its canonical form.
      * <p>
-     * This method checks that the URL is not null or empty, and that it starts with either "http://" or "https://".
+     * This method checks that the URL starts with either "http://" or "https://", has a valid host, port and path,
+     * fits into the database column after canonicalization and is not blocked.
      * </p>
      *
      * @param longUrl the long URL to validate
-     * @throws ValidationException if the URL is invalid
+     * @return the canonical form of the URL, which is the form to store
+     * @throws ValidationException if the URL is invalid or blocked
      */
-    public void validateLongUrl(String longUrl) {
-        if (longUrl == null || longUrl.isEmpty() || !longUrl.matches(URL_REGEX)) {
+    public String validateLongUrl(String longUrl) {
+        String canonicalUrl = UrlCanonicalizer.canonicalize(longUrl);
+        if (canonicalUrl == null || canonicalUrl.length() > MAX_URL_LENGTH) {
             throw new ValidationException(URL_INCORRECT_MESSAGE);
         }
+        if (urlBlocklist.isBlocked(canonicalUrl)) {
+            throw new ValidationException(URL_BLOCKED_MESSAGE);
+        }
+        return canonicalUrl;
     }
 }
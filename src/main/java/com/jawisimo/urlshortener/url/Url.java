@@ -4,11 +4,13 @@ import com.jawisimo.urlshortener.user.User;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Formula;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "urls")
+@SecondaryTable(name = "url_counters", pkJoinColumns = @PrimaryKeyJoinColumn(name = "url_id"))
 @Getter
 @Setter
 @ToString(exclude = "user")
@@ -18,17 +20,46 @@ import java.time.LocalDateTime;
 @Builder
 public class Url {
 
+    /**
+     * The id, unique because every id is drawn from {@code urls_id_seq}. The primary key of the partitioned
+     * {@code urls} table is {@code (id, short_url_code)}, so the database does not enforce it on its own.
+     */
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "short_url_code", length = 50)
+    @Column(name = "short_url_code", length = 50, nullable = false)
     private String shortUrlCode;
 
-    @Column(name = "long_url", length = 2000, nullable = false)
+    /**
+     * The {@link Base62Codec} number of the short URL code, set whenever the URL is saved.
+     */
+    @Column(name = "code_num")
+    private Long codeNum;
+
+    /**
+     * The long URL, stored once per distinct URL in {@code long_urls} and read from there by the
+     * {@code url_long_url} function of the schema.
+     */
+    @Formula("url_long_url(long_url_id, short_url_code)")
     private String longUrl;
 
-    @Column
+    /**
+     * The id of the long URL, taken by {@link com.jawisimo.urlshortener.url.longurl.LongUrlRepository#acquire}
+     * when the URL is created.
+     */
+    @Column(name = "long_url_id", nullable = false, updatable = false)
+    private Long longUrlId;
+
+    @Column(name = "long_url_hash")
+    private Long longUrlHash;
+
+    /**
+     * The number of visits, kept in the narrow {@code url_counters} table. The counter row is created
+     * with the URL and then only changed by {@link UrlCounterRepository#incrementVisits(long)}, so saving
+     * a URL never rewrites it.
+     */
+    @Column(table = "url_counters", name = "visits", updatable = false)
     private long visits;
 
     @CreationTimestamp
@@ -41,4 +72,11 @@ public class Url {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
+
+    @PrePersist
+    @PreUpdate
+    private void updateCodeNum() {
+        long number = Base62Codec.decode(shortUrlCode);
+        codeNum = number == Base62Codec.INVALID ? null : number;
+    }
 }
@@ -0,0 +1,288 @@
+package com.jawisimo.urlshortener.url;
+
+import java.net.IDN;
+
+/**
+ * Single-pass parser producing the canonical form of an absolute http or https URL.
+ * <p>
+ * The URL is validated and copied into one buffer in a single scan:
+ * </p>
+ * <ul>
+ *     <li>the scheme must be {@code http} or {@code https} and is lower-cased;</li>
+ *     <li>the host must be a valid domain name, IPv4 address or bracketed IPv6 address and is lower-cased,
+ *     without a trailing dot; international domain names are converted to their ASCII form;</li>
+ *     <li>the port must be a number from 1 to 65535 and is dropped if it is the default port of the scheme;</li>
+ *     <li>an empty path becomes {@code /};</li>
+ *     <li>in the user info, path, query and fragment, percent-encoded unreserved characters are decoded,
+ *     all other percent-encodings use upper-case hex digits, and characters that are not allowed in a URL,
+ *     like spaces or non-ASCII characters, are percent-encoded as UTF-8.</li>
+ * </ul>
+ * <p>
+ * Two spellings of a URL that differ only in these respects have the same canonical form.
+ * </p>
+ */
+public final class UrlCanonicalizer {
+    private static final int MAX_HOST_LENGTH = 253;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private UrlCanonicalizer() {
+    }
+
+    /**
+     * Returns the canonical form of a URL.
+     *
+     * @param url the URL to canonicalize
+     * @return the canonical URL, or {@code null} if the URL is not a valid http or https URL
+     */
+    public static String canonicalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        int length = url.length();
+        StringBuilder result = new StringBuilder(length + 8);
+
+        // Scheme
+        int defaultPort;
+        int position;
+        if (url.regionMatches(true, 0, "https://", 0, 8)) {
+            result.append("https://");
+            defaultPort = 443;
+            position = 8;
+        } else if (url.regionMatches(true, 0, "http://", 0, 7)) {
+            result.append("http://");
+            defaultPort = 80;
+            position = 7;
+        } else {
+            return null;
+        }
+
+        // Authority ends at the first '/', '?' or '#'; a backslash is rejected, browsers read it as '/'
+        int authorityEnd = position;
+        int userInfoEnd = -1;
+        while (authorityEnd < length) {
+            char c = url.charAt(authorityEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '\\') {
+                return null;
+            }
+            if (c == '@') {
+                userInfoEnd = authorityEnd;
+            }
+            authorityEnd++;
+        }
+
+        if (userInfoEnd >= 0) {
+            if (!appendNormalized(url, position, userInfoEnd, result, false)) {
+                return null;
+            }
+            result.append('@');
+            position = userInfoEnd + 1;
+        }
+
+        // Host and port
+        int hostEnd;
+        if (position < authorityEnd && url.charAt(position) == '[') {
+            hostEnd = url.indexOf(']', position);
+            if (hostEnd < 0 || hostEnd >= authorityEnd || !appendIpv6(url, position + 1, hostEnd, result)) {
+                return null;
+            }
+            hostEnd++;
+        } else {
+            hostEnd = position;
+            while (hostEnd < authorityEnd && url.charAt(hostEnd) != ':') {
+                hostEnd++;
+            }
+            if (!appendHost(url, position, hostEnd, result)) {
+                return null;
+            }
+        }
+
+        if (hostEnd < authorityEnd) {
+            if (url.charAt(hostEnd) != ':') {
+                return null;
+            }
+            int port = 0;
+            for (int i = hostEnd + 1; i < authorityEnd; i++) {
+                char c = url.charAt(i);
+                if (c < '0' || c > '9' || (port = port * 10 + (c - '0')) > 65535) {
+                    return null;
+                }
+            }
+            if (hostEnd + 1 < authorityEnd && port == 0) {
+                return null;
+            }
+            if (port != 0 && port != defaultPort) {
+                result.append(':').append(port);
+            }
+        }
+
+        // Path, query and fragment
+        if (authorityEnd == length || url.charAt(authorityEnd) != '/') {
+            result.append('/');
+        }
+        if (!appendNormalized(url, authorityEnd, length, result, true)) {
+            return null;
+        }
+        return result.toString();
+    }
+
+    private static boolean appendHost(String url, int start, int end, StringBuilder result) {
+        while (end > start && url.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (url.charAt(i) >= 0x80) {
+                return appendInternationalHost(url.substring(start, end), result);
+            }
+        }
+        if (end - start > MAX_HOST_LENGTH) {
+            return false;
+        }
+
+        int labelStart = start;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? url.charAt(i) : '.';
+            if (c == '.') {
+                int labelLength = i - labelStart;
+                if (labelLength == 0 || labelLength > MAX_LABEL_LENGTH
+                        || url.charAt(labelStart) == '-' || url.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labelStart = i + 1;
+                if (i < end) {
+                    result.append('.');
+                }
+            } else if (c >= 'A' && c <= 'Z') {
+                result.append((char) (c + ('a' - 'A')));
+            } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_') {
+                result.append(c);
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean appendInternationalHost(String host, StringBuilder result) {
+        String asciiHost;
+        try {
+            asciiHost = IDN.toASCII(host, IDN.USE_STD3_ASCII_RULES);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return !asciiHost.isEmpty() && appendHost(asciiHost, 0, asciiHost.length(), result);
+    }
+
+    private static boolean appendIpv6(String url, int start, int end, StringBuilder result) {
+        if (start == end) {
+            return false;
+        }
+        result.append('[');
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c >= 'A' && c <= 'F') {
+                result.append((char) (c + ('a' - 'A')));
+            } else if ((c >= 'a' && c <= 'f') || (c >= '0' && c <= '9') || c == ':' || c == '.') {
+                result.append(c);
+            } else {
+                return false;
+            }
+        }
+        result.append(']');
+        return true;
+    }
+
+    /**
+     * Copies a user info, path, query or fragment with normalized percent-encoding.
+     */
+    private static boolean appendNormalized(String url, int start, int end, StringBuilder result,
+                                            boolean allowDelimiters) {
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c == '%') {
+                int high = i + 2 < end ? hexValue(url.charAt(i + 1)) : -1;
+                int low = high >= 0 ? hexValue(url.charAt(i + 2)) : -1;
+                if (low < 0) {
+                    result.append("%25");
+                    continue;
+                }
+                char decoded = (char) (high << 4 | low);
+                if (isUnreserved(decoded)) {
+                    result.append(decoded);
+                } else {
+                    appendPercentEncoded(decoded, result);
+                }
+                i += 2;
+            } else if ((isAllowed(c) && (allowDelimiters || c != '@'))
+                    || (allowDelimiters && (c == '/' || c == '?' || c == '#'))) {
+                result.append(c);
+            } else if (c < 0x80) {
+                appendPercentEncoded(c, result);
+            } else {
+                int codePoint = url.codePointAt(i);
+                if (Character.isSurrogate(c) && !Character.isSupplementaryCodePoint(codePoint)) {
+                    return false;
+                }
+                appendUtf8(codePoint, result);
+                i += Character.charCount(codePoint) - 1;
+            }
+        }
+        return true;
+    }
+
+    private static void appendUtf8(int codePoint, StringBuilder result) {
+        if (codePoint < 0x800) {
+            appendPercentEncoded(0xc0 | codePoint >> 6, result);
+        } else if (codePoint < 0x10000) {
+            appendPercentEncoded(0xe0 | codePoint >> 12, result);
+            appendPercentEncoded(0x80 | (codePoint >> 6 & 0x3f), result);
+        } else {
+            appendPercentEncoded(0xf0 | codePoint >> 18, result);
+            appendPercentEncoded(0x80 | (codePoint >> 12 & 0x3f), result);
+            appendPercentEncoded(0x80 | (codePoint >> 6 & 0x3f), result);
+        }
+        appendPercentEncoded(0x80 | (codePoint & 0x3f), result);
+    }
+
+    private static void appendPercentEncoded(int value, StringBuilder result) {
+        result.append('%').append(HEX_DIGITS[value >> 4 & 0xf]).append(HEX_DIGITS[value & 0xf]);
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    /**
+     * Unreserved characters, sub-delimiters, {@code :} and {@code @}; everything a path segment,
+     * query or fragment may contain without encoding.
+     */
+    private static boolean isAllowed(char c) {
+        if (isUnreserved(c)) {
+            return true;
+        }
+        return switch (c) {
+            case '!', '$', '&', '\'', '(', ')', '*', '+', ',', ';', '=', ':', '@' -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.jawisimo.urlshortener.url;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC repository for the {@code url_counters} table.
+ * <p>
+ * Each URL has one narrow counter row, read together with the URL through {@link Url#getVisits()}.
+ * Visits are counted by relative increments, so concurrent visits never overwrite each other and the
+ * {@code urls} row is left untouched. The table is created with a low fillfactor, so the updated row
+ * version usually fits on the same page and the update stays HOT, without any index change.
+ * The time of the last visit is kept in the same row and tells the idle URLs apart for archiving.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlCounterRepository {
+    private static final String INCREMENT_VISITS_SQL =
+            "INSERT INTO url_counters AS c (url_id, visits, last_visited_at) VALUES (?, 1, LOCALTIMESTAMP) " +
+                    "ON CONFLICT (url_id) DO UPDATE SET visits = c.visits + 1, last_visited_at = LOCALTIMESTAMP";
+    private static final String ADD_VISITS_SQL =
+            "UPDATE url_counters SET visits = visits + ?, last_visited_at = LOCALTIMESTAMP WHERE url_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds one visit to the counter of the given URL and records its time, creating the counter row if it
+     * is missing.
+     *
+     * @param urlId the URL id
+     */
+    public void incrementVisits(long urlId) {
+        jdbcTemplate.update(INCREMENT_VISITS_SQL, urlId);
+    }
+
+    /**
+     * Adds buffered visit counts to the counters of several URLs in a single JDBC batch.
+     * <p>
+     * Counters of URLs deleted or archived in the meantime are gone, and their visits are dropped.
+     * </p>
+     *
+     * @param visitsByUrl visit counts by URL id
+     */
+    public void addVisits(Map<Long, Long> visitsByUrl) {
+        List<Object[]> args = new ArrayList<>(visitsByUrl.size());
+        visitsByUrl.forEach((urlId, visits) -> args.add(new Object[]{visits, urlId}));
+        jdbcTemplate.batchUpdate(ADD_VISITS_SQL, args);
+    }
+}
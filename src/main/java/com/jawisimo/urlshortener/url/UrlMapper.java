@@ -2,6 +2,8 @@ package com.jawisimo.urlshortener.url;
 
 import com.jawisimo.urlshortener.url.dto.operations.UrlDto;
 import com.jawisimo.urlshortener.url.dto.statistics.StatsUrlDto;
+import com.jawisimo.urlshortener.url.longurl.LongUrlInterner;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 /**
@@ -12,7 +14,9 @@ import org.springframework.stereotype.Service;
  * </p>
  */
 @Service
+@RequiredArgsConstructor
 public class UrlMapper {
+    private final LongUrlInterner longUrlInterner;
 
     /**
      * Maps a {@link Url} entity to a {@link UrlDto} for URL operations.
@@ -38,7 +42,8 @@ public class UrlMapper {
      * Maps a {@link Url} entity to a {@link StatsUrlDto} for statistics purposes.
      * <p>
      * This method maps the {@link Url} entity to a {@link StatsUrlDto}, including additional information about
-     * the number of visits and the active status of the URL.
+     * the number of visits and the active status of the URL. Statistics responses are cached, so the long URL
+     * is interned by {@link LongUrlInterner}.
      * </p>
      *
      * @param url the URL entity to map
@@ -48,7 +53,7 @@ public class UrlMapper {
     public StatsUrlDto mapToStatsUrlDto(Url url, boolean isActive) {
         return StatsUrlDto.builder()
                 .shortUrlCode(url.getShortUrlCode())
-                .longUrl(url.getLongUrl())
+                .longUrl(longUrlInterner.intern(url.getLongUrlId(), url.getLongUrl()))
                 .visits(url.getVisits())
                 .isActive(isActive)
                 .createdAt(url.getCreatedAt())
@@ -1,6 +1,5 @@
 package com.jawisimo.urlshortener.url;
 
-
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -10,12 +9,24 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Repository for {@link Url} entities.
+ * <p>
+ * The {@code urls} table is hash-partitioned by the short URL code, so lookups by short URL code read a
+ * single partition. Lookups by user scan the {@code user_id} index of every partition.
+ * Within the partition, {@link #findUrlByShortUrlCodeAndCodeNum(String, Long)} uses the compact unique
+ * index of the {@link Base62Codec} code number instead of the text index.
+ * </p>
+ */
 @Repository
 public interface UrlRepository extends JpaRepository<Url, Long> {
 
     @EntityGraph(attributePaths = "user")
     Optional<Url> findUrlByShortUrlCode(String shortUrlCode);
 
+    @EntityGraph(attributePaths = "user")
+    Optional<Url> findUrlByShortUrlCodeAndCodeNum(String shortUrlCode, Long codeNum);
+
     @EntityGraph(attributePaths = "user")
     @Query(value = "SELECT u FROM Url u WHERE u.user.id = :userId")
     List<Url> findAllUrlsByUserId(@Param("userId") Long userId);
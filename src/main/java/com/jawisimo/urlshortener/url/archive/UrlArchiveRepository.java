@@ -0,0 +1,216 @@
+package com.jawisimo.urlshortener.url.archive;
+
+import com.jawisimo.urlshortener.url.Base62Codec;
+import com.jawisimo.urlshortener.url.Url;
+import com.jawisimo.urlshortener.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * JDBC repository for the {@code urls_archive} table of idle URLs.
+ * <p>
+ * A URL lives either in {@code urls} or in the archive, and each move between the two is a single
+ * transaction. Archiving keeps the reference to the shared long URL, and restoring gives the URL back
+ * its id, so click events and the user summary do not notice the move.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlArchiveRepository {
+    /**
+     * Key of the session advisory lock held by the node running the archiver, {@code "urlarchv"} in ASCII.
+     */
+    private static final long ARCHIVE_LOCK_KEY = 0x75726C6172636876L;
+    private static final String ARCHIVE_IDLE_SQL =
+            "WITH idle AS (" +
+                    "SELECT u.id, u.short_url_code, u.long_url_id, u.long_url_hash, u.user_id, c.visits, " +
+                    "u.created_at, u.expires_at, c.last_visited_at " +
+                    "FROM urls u JOIN url_counters c ON c.url_id = u.id " +
+                    "WHERE u.id > ? AND u.id <= ? " +
+                    "AND COALESCE(c.last_visited_at, u.created_at) < LOCALTIMESTAMP - make_interval(days => ?) " +
+                    "FOR UPDATE OF u, c SKIP LOCKED) " +
+                    "INSERT INTO urls_archive " +
+                    "(id, short_url_code, long_url_id, long_url_hash, user_id, visits, created_at, expires_at, " +
+                    "last_visited_at) " +
+                    "SELECT * FROM idle " +
+                    "RETURNING id, short_url_code";
+    private static final String CHUNK_END_SQL =
+            "SELECT max(id) FROM (SELECT id FROM urls WHERE id > ? ORDER BY id LIMIT ?) chunk";
+    private static final String DELETE_ARCHIVED_SQL = "DELETE FROM urls WHERE id = ? AND short_url_code = ?";
+    private static final String RESTORE_SQL =
+            "WITH archived AS (DELETE FROM urls_archive WHERE short_url_code = ? RETURNING *), " +
+                    "restored AS (" +
+                    "INSERT INTO urls (id, short_url_code, code_num, long_url_id, long_url_hash, user_id, " +
+                    "created_at, expires_at) " +
+                    "SELECT id, short_url_code, CAST(? AS BIGINT), long_url_id, long_url_hash, user_id, " +
+                    "created_at, expires_at " +
+                    "FROM archived), " +
+                    "dedupe_key AS (" +
+                    "INSERT INTO url_dedupe_keys (user_id, long_url_hash, expires_key, url_id) " +
+                    "SELECT user_id, long_url_hash, COALESCE(expires_at, 'infinity'::TIMESTAMP), id " +
+                    "FROM archived WHERE long_url_hash IS NOT NULL " +
+                    "ON CONFLICT DO NOTHING) " +
+                    "INSERT INTO url_counters AS c (url_id, visits, last_visited_at) " +
+                    "SELECT id, visits, last_visited_at FROM archived " +
+                    "ON CONFLICT (url_id) DO UPDATE SET visits = c.visits + EXCLUDED.visits, " +
+                    "last_visited_at = GREATEST(c.last_visited_at, EXCLUDED.last_visited_at)";
+    private static final String SELECT_SQL =
+            "SELECT a.id, a.short_url_code, a.long_url_id, l.url AS long_url, a.visits, a.created_at, a.expires_at " +
+                    "FROM urls_archive a JOIN long_urls l ON l.id = a.long_url_id ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs a task while holding the archiver advisory lock, unless another node holds it.
+     * <p>
+     * The lock belongs to the database session of a connection kept for the whole task, so it is released
+     * by the end of the task or by the connection closing if the node dies.
+     * </p>
+     *
+     * @param task the task to run
+     * @return {@code true} if the lock was taken and the task has run
+     */
+    public boolean runExclusively(Runnable task) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                return false;
+            }
+            try {
+                task.run();
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Finds the end of the next chunk of {@code urls} in id order.
+     *
+     * @param afterId the end of the previous chunk
+     * @param limit   the maximum number of URLs in the chunk
+     * @return the id of the last URL of the chunk, or {@code afterId} if no URLs are left
+     */
+    public long findChunkEnd(long afterId, int limit) {
+        Long end = jdbcTemplate.queryForObject(CHUNK_END_SQL, Long.class, afterId, limit);
+        return Objects.isNull(end) ? afterId : end;
+    }
+
+    /**
+     * Moves the URLs of an id range that have been neither visited nor created within the given number of
+     * days to the archive, together with their counters.
+     * <p>
+     * Must run in a transaction. The range is read through the primary key, so a chunk costs the same
+     * wherever it lies in the table. URLs locked by a concurrent archiver or visit are skipped.
+     * </p>
+     *
+     * @param idleDays the number of days without a visit
+     * @param afterId  exclusive lower bound of the ids
+     * @param toId     inclusive upper bound of the ids
+     * @return the number of moved URLs
+     */
+    public int archiveIdle(int idleDays, long afterId, long toId) {
+        List<ArchivedCode> archived = jdbcTemplate.query(ARCHIVE_IDLE_SQL,
+                (rs, rowNum) -> new ArchivedCode(rs.getLong(1), rs.getString(2)),
+                afterId, toId, idleDays);
+        if (!archived.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_ARCHIVED_SQL, archived, archived.size(), (ps, code) -> {
+                ps.setLong(1, code.id());
+                ps.setString(2, code.shortUrlCode());
+            });
+        }
+        return archived.size();
+    }
+
+    /**
+     * Moves an archived URL back to {@code urls}.
+     * <p>
+     * Visits counted while the URL was being archived are added to the archived count, and a URL created in
+     * dedupe mode gets its dedupe key back unless another URL has taken it meanwhile. If several
+     * transactions restore the same URL, one moves it and the others wait for it and find nothing.
+     * </p>
+     *
+     * @param shortUrlCode the short URL code
+     * @return {@code true} if the URL was archived and has been moved back
+     */
+    public boolean restore(String shortUrlCode) {
+        long codeNum = Base62Codec.decode(shortUrlCode);
+        return jdbcTemplate.update(RESTORE_SQL, shortUrlCode,
+                codeNum == Base62Codec.INVALID ? null : codeNum) > 0;
+    }
+
+    /**
+     * Checks whether an archived URL has the given short URL code.
+     *
+     * @param shortUrlCode the short URL code
+     * @return {@code true} if the code is taken by an archived URL
+     */
+    public boolean existsByShortUrlCode(String shortUrlCode) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM urls_archive WHERE short_url_code = ?)", Boolean.class, shortUrlCode));
+    }
+
+    /**
+     * Loads an archived URL without moving it back.
+     *
+     * @param shortUrlCode the short URL code
+     * @param user         the owner the URL must belong to
+     * @return the detached URL, or empty if the user has no archived URL with this code
+     */
+    public Optional<Url> findByShortUrlCode(String shortUrlCode, User user) {
+        return jdbcTemplate.query(SELECT_SQL + "WHERE a.short_url_code = ? AND a.user_id = ?",
+                urlMapper(user), shortUrlCode, user.getId()).stream().findFirst();
+    }
+
+    /**
+     * Loads the archived URLs of a user without moving them back.
+     *
+     * @param user the owner
+     * @return the detached URLs
+     */
+    public List<Url> findAllByUser(User user) {
+        return jdbcTemplate.query(SELECT_SQL + "WHERE a.user_id = ?", urlMapper(user), user.getId());
+    }
+
+    private static RowMapper<Url> urlMapper(User user) {
+        return (rs, rowNum) -> Url.builder()
+                .id(rs.getLong("id"))
+                .shortUrlCode(rs.getString("short_url_code"))
+                .longUrlId(rs.getLong("long_url_id"))
+                .longUrl(rs.getString("long_url"))
+                .visits(rs.getLong("visits"))
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .expiresAt(toLocalDateTime(rs.getTimestamp("expires_at")))
+                .user(user)
+                .build();
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, ARCHIVE_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return Objects.isNull(timestamp) ? null : timestamp.toLocalDateTime();
+    }
+
+    private record ArchivedCode(long id, String shortUrlCode) {
+    }
+}
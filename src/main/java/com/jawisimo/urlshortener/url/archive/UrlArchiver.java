@@ -0,0 +1,81 @@
+package com.jawisimo.urlshortener.url.archive;
+
+import com.jawisimo.urlshortener.url.longurl.LongUrlIdBackfill;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+
+/**
+ * Background job moving idle URLs from {@code urls} to the {@code urls_archive} table.
+ * <p>
+ * A URL is idle if it has been neither visited nor created for {@code url.archive.idle-days}. Each run
+ * walks {@code urls} once in id order, in chunks of {@code url.archive.batch-size} URLs, and moves the idle
+ * URLs of every chunk in its own short transaction, which keeps the hot table and its indexes to the URLs
+ * that are actually used. Chunks are read by id range, so a run costs one pass over the table. Archived
+ * URLs are moved back by the next lookup of their short code. One node at a time runs the job, holding an
+ * advisory lock; the other nodes skip the run. Archived URLs refer to their long URL by id, so nothing is
+ * archived until the {@link LongUrlIdBackfill} is complete.
+ * </p>
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "url.archive.enabled", havingValue = "true")
+public class UrlArchiver {
+    private final UrlArchiveRepository urlArchiveRepository;
+    private final LongUrlIdBackfill longUrlIdBackfill;
+    private final TransactionTemplate transactionTemplate;
+    private final int idleDays;
+    private final int batchSize;
+
+    public UrlArchiver(UrlArchiveRepository urlArchiveRepository,
+                       LongUrlIdBackfill longUrlIdBackfill,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${url.archive.idle-days:30}") int idleDays,
+                       @Value("${url.archive.batch-size:1000}") int batchSize) {
+        this.urlArchiveRepository = urlArchiveRepository;
+        this.longUrlIdBackfill = longUrlIdBackfill;
+        this.transactionTemplate = transactionTemplate;
+        this.idleDays = idleDays;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Archives all idle URLs, unless another node is already archiving.
+     *
+     * @return {@code true} if this node has run the archiver
+     */
+    @Scheduled(fixedDelayString = "${url.archive.interval-ms:3600000}",
+            initialDelayString = "${url.archive.initial-delay-ms:60000}")
+    public boolean archiveIdle() {
+        if (!longUrlIdBackfill.isComplete()) {
+            return false;
+        }
+        boolean ran = urlArchiveRepository.runExclusively(this::archiveAll);
+        if (!ran) {
+            log.debug("URL archiving skipped, another node holds the archiver lock");
+        }
+        return ran;
+    }
+
+    private void archiveAll() {
+        long total = 0L;
+        long afterId = 0L;
+        long chunkEnd;
+        while ((chunkEnd = urlArchiveRepository.findChunkEnd(afterId, batchSize)) > afterId) {
+            long from = afterId;
+            long to = chunkEnd;
+            total += Objects.requireNonNullElse(
+                    transactionTemplate.execute(status -> urlArchiveRepository.archiveIdle(idleDays, from, to)), 0);
+            afterId = chunkEnd;
+        }
+
+        if (total > 0) {
+            log.info("Archived {} URLs idle for {} days", total, idleDays);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.jawisimo.urlshortener.url.backfill;
+
+import java.util.List;
+
+/**
+ * Online schema change of {@code urls} run by the {@link BackfillRunner} while the application serves traffic.
+ * <p>
+ * A Flyway migration adds the new columns empty, so it only changes the catalog; a backfill then fills
+ * the existing rows in keyset chunks and finally builds its indexes concurrently and validates that its
+ * required columns are filled, so that a later migration can declare them {@code NOT NULL} without a
+ * scan. Each chunk is committed
+ * together with the checkpoint of the backfill, so a restart continues after the last committed chunk and
+ * a chunk may be processed more than once only if its transaction failed. The application must write new
+ * URLs complete, since a backfill only walks the URLs that existed when it started.
+ * </p>
+ */
+public interface Backfill {
+
+    /**
+     * @return the unique name the checkpoint is stored under; renaming it starts the backfill again
+     */
+    String name();
+
+    /**
+     * Fills the URLs with ids in {@code (afterId, toId]}.
+     * <p>
+     * Runs in the transaction that moves the checkpoint to {@code toId}. Must be idempotent.
+     * </p>
+     *
+     * @param afterId the exclusive lower bound of the ids
+     * @param toId    the inclusive upper bound of the ids
+     * @return the number of changed URLs
+     */
+    int backfill(long afterId, long toId);
+
+    /**
+     * @return the indexes to build on {@code urls} once all rows are filled
+     */
+    default List<ConcurrentIndex> indexes() {
+        return List.of();
+    }
+
+    /**
+     * @return the columns of {@code urls} to check for {@code NULL} once all rows are filled and the
+     * indexes built
+     */
+    default List<String> notNullColumns() {
+        return List.of();
+    }
+
+    /**
+     * Called once the rows are filled and the indexes built, and on every start of a node afterwards.
+     */
+    default void onComplete() {
+    }
+}
@@ -0,0 +1,244 @@
+package com.jawisimo.urlshortener.url.backfill;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * JDBC repository for the {@code url_backfills} checkpoints and the chunks and indexes of the backfills.
+ * <p>
+ * Index and constraint statements run outside of a transaction, as {@code CONCURRENTLY} requires and so
+ * that a validation does not keep the lock of the constraint it has added.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class BackfillRepository {
+    /**
+     * Key of the session advisory lock held by the node running the backfills, {@code "backfill"} in ASCII.
+     */
+    private static final long BACKFILL_LOCK_KEY = 0x6261636B66696C6CL;
+    private static final String START_SQL =
+            "INSERT INTO url_backfills (name, target_id) SELECT ?, COALESCE(max(id), 0) FROM urls " +
+                    "ON CONFLICT (name) DO NOTHING";
+    private static final String FIND_SQL =
+            "SELECT name, target_id, last_id, processed, completed_at IS NOT NULL FROM url_backfills WHERE name = ?";
+    private static final String CHUNK_END_SQL =
+            "SELECT max(id) FROM (SELECT id FROM urls WHERE id > ? AND id <= ? ORDER BY id LIMIT ?) chunk";
+    private static final String ADVANCE_SQL =
+            "UPDATE url_backfills SET last_id = ?, processed = processed + ?, updated_at = LOCALTIMESTAMP " +
+                    "WHERE name = ?";
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                    "WHERE i.inhparent = 'urls'::REGCLASS ORDER BY c.relname";
+    private static final String INDEX_VALID_SQL =
+            "SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)";
+    private static final String NOT_NULL_SQL =
+            "SELECT attnotnull FROM pg_attribute WHERE attrelid = 'urls'::REGCLASS AND attname = ?";
+    private static final String CONSTRAINT_EXISTS_SQL =
+            "SELECT count(*) FROM pg_constraint WHERE conrelid = 'urls'::REGCLASS AND conname = ?";
+    private static final RowMapper<Checkpoint> CHECKPOINT_MAPPER = (rs, rowNum) ->
+            new Checkpoint(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getBoolean(5));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs a task while holding the backfill advisory lock, unless another node holds it.
+     * <p>
+     * The lock belongs to the database session of a connection kept for the whole task, so it is released
+     * by the end of the task or by the connection closing if the node dies.
+     * </p>
+     *
+     * @param task the task to run
+     * @return {@code true} if the lock was taken and the task has run
+     */
+    public boolean runExclusively(Runnable task) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                return false;
+            }
+            try {
+                task.run();
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Loads the checkpoint of a backfill, creating it with the current highest URL id as target if the
+     * backfill has not started yet.
+     *
+     * @param name the backfill name
+     * @return the checkpoint
+     */
+    public Checkpoint findOrStart(String name) {
+        jdbcTemplate.update(START_SQL, name);
+        return find(name).orElseThrow();
+    }
+
+    /**
+     * Loads the checkpoint of a backfill.
+     *
+     * @param name the backfill name
+     * @return the checkpoint, or empty if the backfill has not started yet
+     */
+    public Optional<Checkpoint> find(String name) {
+        return jdbcTemplate.query(FIND_SQL, CHECKPOINT_MAPPER, name).stream().findFirst();
+    }
+
+    /**
+     * Loads the checkpoint of a started backfill and locks it until the end of the transaction.
+     *
+     * @param name the backfill name
+     * @return the checkpoint
+     */
+    public Checkpoint lock(String name) {
+        return jdbcTemplate.queryForObject(FIND_SQL + " FOR UPDATE", CHECKPOINT_MAPPER, name);
+    }
+
+    /**
+     * Finds the end of the next chunk in id order.
+     *
+     * @param afterId the end of the previous chunk
+     * @param toId    the target id of the backfill
+     * @param limit   the maximum number of URLs in the chunk
+     * @return the id of the last URL of the chunk, or {@code toId} if no URLs are left up to it
+     */
+    public long findChunkEnd(long afterId, long toId, int limit) {
+        Long end = jdbcTemplate.queryForObject(CHUNK_END_SQL, Long.class, afterId, toId, limit);
+        return Objects.isNull(end) ? toId : end;
+    }
+
+    /**
+     * Moves the checkpoint of a backfill to the end of a processed chunk.
+     *
+     * @param name      the backfill name
+     * @param lastId    the end of the chunk
+     * @param processed the number of URLs changed by the chunk
+     */
+    public void advance(String name, long lastId, long processed) {
+        jdbcTemplate.update(ADVANCE_SQL, lastId, processed, name);
+    }
+
+    /**
+     * Marks a backfill as complete.
+     *
+     * @param name the backfill name
+     */
+    public void complete(String name) {
+        jdbcTemplate.update("UPDATE url_backfills SET completed_at = LOCALTIMESTAMP, updated_at = LOCALTIMESTAMP " +
+                "WHERE name = ?", name);
+    }
+
+    /**
+     * @return the names of the partitions of {@code urls}
+     */
+    public List<String> findPartitions() {
+        return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class);
+    }
+
+    /**
+     * Creates an index on the parent {@code urls} table only, which is invalid until all partitions are
+     * attached.
+     *
+     * @param index the index
+     */
+    public void createParentIndex(ConcurrentIndex index) {
+        jdbcTemplate.execute(createIndex(index.unique(), "") + "IF NOT EXISTS " + index.name() +
+                " ON ONLY urls " + index.definition());
+    }
+
+    /**
+     * Builds the index of a partition concurrently and attaches it to the parent index.
+     * <p>
+     * An invalid index left behind by an interrupted build is dropped and built again.
+     * </p>
+     *
+     * @param index     the parent index
+     * @param partition the partition name
+     */
+    public void buildPartitionIndex(ConcurrentIndex index, String partition) {
+        String name = partition + "_" + index.name();
+        List<Boolean> valid = jdbcTemplate.queryForList(INDEX_VALID_SQL, Boolean.class, name);
+        if (!valid.isEmpty() && !valid.getFirst()) {
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+        }
+        jdbcTemplate.execute(createIndex(index.unique(), "CONCURRENTLY ") + "IF NOT EXISTS " + name +
+                " ON " + partition + " " + index.definition());
+        jdbcTemplate.execute("ALTER INDEX " + index.name() + " ATTACH PARTITION " + name);
+    }
+
+    /**
+     * Adds a {@code NOT VALID} check that a column of {@code urls} is not {@code NULL} and validates it.
+     * <p>
+     * Adding the check locks the table only briefly, and the validation scans it while allowing writes. The
+     * validated check, named {@code urls_<column>_not_null}, lets {@code SET NOT NULL} skip its scan. Nothing is
+     * done if the column is {@code NOT NULL} already.
+     * </p>
+     *
+     * @param column the column
+     */
+    public void validateNotNull(String column) {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(NOT_NULL_SQL, Boolean.class, column))) {
+            return;
+        }
+        String name = "urls_" + column + "_not_null";
+        Long existing = jdbcTemplate.queryForObject(CONSTRAINT_EXISTS_SQL, Long.class, name);
+        if (Objects.isNull(existing) || existing == 0L) {
+            jdbcTemplate.execute("ALTER TABLE urls ADD CONSTRAINT " + name + " CHECK (" + column + " IS NOT NULL) " +
+                    "NOT VALID");
+        }
+        jdbcTemplate.execute("ALTER TABLE urls VALIDATE CONSTRAINT " + name);
+    }
+
+    private static String createIndex(boolean unique, String concurrently) {
+        return (unique ? "CREATE UNIQUE INDEX " : "CREATE INDEX ") + concurrently;
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, BACKFILL_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Progress of a backfill.
+     *
+     * @param name      the backfill name
+     * @param targetId  the highest URL id to fill
+     * @param lastId    the end of the last committed chunk
+     * @param processed the number of changed URLs
+     * @param completed {@code true} once the rows are filled and the indexes built
+     */
+    public record Checkpoint(String name, long targetId, long lastId, long processed, boolean completed) {
+
+        /**
+         * @return {@code true} if all rows up to the target id are filled
+         */
+        public boolean isFilled() {
+            return lastId >= targetId;
+        }
+
+        /**
+         * @return the filled share of the id range, from {@code 0} to {@code 1}
+         */
+        public double progress() {
+            return targetId == 0 ? 1.0 : Math.min((double) lastId / targetId, 1.0);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.jawisimo.urlshortener.url.backfill;
+
+import com.jawisimo.urlshortener.url.backfill.BackfillRepository.Checkpoint;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Background job running the {@link Backfill backfills} of {@code urls} one after another, in their order.
+ * <p>
+ * A backfill walks the URLs in id order in chunks of {@code url.backfill.batch-size}, each chunk in a short
+ * transaction that also moves its checkpoint, with a pause of {@code url.backfill.pause-ms} between chunks
+ * so that the table stays available and replicas keep up. Once the rows are filled its indexes are built
+ * concurrently and its required columns validated. A failing backfill stops the run and the later backfills
+ * wait for it. A run holds a Postgres advisory lock, so on several nodes only one of them works at a time,
+ * and continues from the checkpoints left by any node before.
+ * </p>
+ * <p>
+ * Progress is kept in {@code url_backfills}, logged, and published as the metric {@code url.backfill.progress}
+ * tagged with the backfill name.
+ * </p>
+ */
+@Component
+@Slf4j
+public class BackfillRunner {
+    private final List<Backfill> backfills;
+    private final BackfillRepository backfillRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final Map<String, AtomicReference<Checkpoint>> checkpoints = new ConcurrentHashMap<>();
+
+    public BackfillRunner(List<Backfill> backfills,
+                          BackfillRepository backfillRepository,
+                          TransactionTemplate transactionTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${url.backfill.batch-size:1000}") int batchSize,
+                          @Value("${url.backfill.pause-ms:100}") long pauseMillis) {
+        this.backfills = backfills;
+        this.backfillRepository = backfillRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    /**
+     * Runs all backfills that are not complete, unless another node is already running them. In that case
+     * only the progress made there is read, and the backfills it has completed are told so.
+     *
+     * @return {@code true} if this node has run the backfills
+     */
+    @Scheduled(fixedDelayString = "${url.backfill.interval-ms:10000}",
+            initialDelayString = "${url.backfill.initial-delay-ms:1000}")
+    public boolean runBackfills() {
+        boolean ran = runAll();
+        if (!ran) {
+            for (Backfill backfill : backfills) {
+                backfillRepository.find(backfill.name()).ifPresent(checkpoint -> {
+                    track(checkpoint);
+                    if (checkpoint.completed()) {
+                        backfill.onComplete();
+                    }
+                });
+            }
+        }
+        return ran;
+    }
+
+    private boolean runAll() {
+        return backfillRepository.runExclusively(() -> {
+            for (Backfill backfill : backfills) {
+                try {
+                    if (!run(backfill)) {
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Backfill {} failed, continuing from its checkpoint on the next run: {}",
+                            backfill.name(), e.getMessage());
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs a backfill to completion.
+     *
+     * @return {@code false} if the run was interrupted
+     */
+    private boolean run(Backfill backfill) {
+        Checkpoint checkpoint = backfillRepository.findOrStart(backfill.name());
+        track(checkpoint);
+        if (checkpoint.completed()) {
+            backfill.onComplete();
+            return true;
+        }
+        if (checkpoint.lastId() == 0L) {
+            log.info("Backfill {} started for URLs up to id {}", backfill.name(), checkpoint.targetId());
+        }
+
+        long loggedPercent = percent(checkpoint);
+        while (!checkpoint.isFilled()) {
+            checkpoint = Objects.requireNonNull(transactionTemplate.execute(status -> fillChunk(backfill)));
+            track(checkpoint);
+            if (percent(checkpoint) > loggedPercent) {
+                loggedPercent = percent(checkpoint);
+                log.info("Backfill {} at {}%, {} URLs changed", backfill.name(), loggedPercent,
+                        checkpoint.processed());
+            }
+            if (!checkpoint.isFilled() && !pause()) {
+                return false;
+            }
+        }
+
+        for (ConcurrentIndex index : backfill.indexes()) {
+            buildIndex(backfill, index);
+        }
+        for (String column : backfill.notNullColumns()) {
+            log.info("Backfill {} validating column {}", backfill.name(), column);
+            backfillRepository.validateNotNull(column);
+        }
+        backfillRepository.complete(backfill.name());
+        backfillRepository.find(backfill.name()).ifPresent(this::track);
+        backfill.onComplete();
+        log.info("Backfill {} complete, {} URLs changed", backfill.name(), checkpoint.processed());
+        return true;
+    }
+
+    /**
+     * Fills the next chunk and moves the checkpoint, in the current transaction.
+     * <p>
+     * The checkpoint is locked for the transaction, so no chunk is filled twice even without the advisory lock.
+     * </p>
+     */
+    private Checkpoint fillChunk(Backfill backfill) {
+        Checkpoint checkpoint = backfillRepository.lock(backfill.name());
+        long chunkEnd = backfillRepository.findChunkEnd(checkpoint.lastId(), checkpoint.targetId(), batchSize);
+        int changed = backfill.backfill(checkpoint.lastId(), chunkEnd);
+        backfillRepository.advance(backfill.name(), chunkEnd, changed);
+        return new Checkpoint(checkpoint.name(), checkpoint.targetId(), chunkEnd, checkpoint.processed() + changed,
+                false);
+    }
+
+    private void buildIndex(Backfill backfill, ConcurrentIndex index) {
+        log.info("Backfill {} building index {}", backfill.name(), index.name());
+        backfillRepository.createParentIndex(index);
+        for (String partition : backfillRepository.findPartitions()) {
+            backfillRepository.buildPartitionIndex(index, partition);
+        }
+    }
+
+    private void track(Checkpoint checkpoint) {
+        checkpoints.computeIfAbsent(checkpoint.name(), name -> {
+            AtomicReference<Checkpoint> current = new AtomicReference<>(checkpoint);
+            Gauge.builder("url.backfill.progress", current, reference -> reference.get().progress())
+                    .description("Filled share of the URLs of the backfill, from 0 to 1")
+                    .tag("name", name)
+                    .register(meterRegistry);
+            return current;
+        }).set(checkpoint);
+    }
+
+    private static long percent(Checkpoint checkpoint) {
+        return (long) (checkpoint.progress() * 100);
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
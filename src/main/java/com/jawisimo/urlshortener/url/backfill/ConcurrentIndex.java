@@ -0,0 +1,17 @@
+package com.jawisimo.urlshortener.url.backfill;
+
+/**
+ * Index of {@code urls} built by a {@link Backfill} without blocking writes.
+ * <p>
+ * {@code urls} is partitioned and Postgres cannot build an index of a partitioned table concurrently, so
+ * the index is created on the parent only, built concurrently on every partition and attached there.
+ * The parent index becomes valid once the index of the last partition is attached, and partitions created
+ * later get it automatically.
+ * </p>
+ *
+ * @param name       the name of the parent index; the partition indexes are named after their partition
+ * @param unique     {@code true} for a unique index, which must contain {@code short_url_code}
+ * @param definition the part of {@code CREATE INDEX} after the table name, e.g. {@code (user_id, created_at)}
+ */
+public record ConcurrentIndex(String name, boolean unique, String definition) {
+}
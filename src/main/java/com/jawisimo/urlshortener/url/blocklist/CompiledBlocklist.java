@@ -0,0 +1,185 @@
+package com.jawisimo.urlshortener.url.blocklist;
+
+import com.jawisimo.urlshortener.util.BloomFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Immutable, compiled form of a URL blocklist.
+ * <p>
+ * The list has one entry per line; blank lines and lines starting with {@code #} are ignored.
+ * A line starting with {@code regex:} is a pattern searched for in the whole URL, any other line is a
+ * domain that is blocked together with all of its subdomains. Domains are kept in a
+ * {@link ReversedDomainTrie} with a {@link BloomFilter} of the blocked domains in front, so the usual
+ * case of a host none of whose suffixes is blocked is answered by a few bit probes.
+ * All patterns are combined into a single regular expression.
+ * </p>
+ */
+public final class CompiledBlocklist {
+    private static final String PATTERN_PREFIX = "regex:";
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    /**
+     * Blocklist blocking nothing.
+     */
+    public static final CompiledBlocklist EMPTY = compile(Stream.empty());
+
+    private final ReversedDomainTrie domains;
+    private final BloomFilter domainFilter;
+    private final Pattern pattern;
+    private final int domainCount;
+    private final int patternCount;
+
+    private CompiledBlocklist(ReversedDomainTrie domains, BloomFilter domainFilter, Pattern pattern,
+                              int domainCount, int patternCount) {
+        this.domains = domains;
+        this.domainFilter = domainFilter;
+        this.pattern = pattern;
+        this.domainCount = domainCount;
+        this.patternCount = patternCount;
+    }
+
+    /**
+     * Compiles a blocklist from its lines.
+     *
+     * @param lines the lines of the blocklist
+     * @return the compiled blocklist
+     * @throws java.util.regex.PatternSyntaxException if a pattern is invalid
+     */
+    public static CompiledBlocklist compile(Stream<String> lines) {
+        ReversedDomainTrie.Builder trie = ReversedDomainTrie.builder();
+        long[] domainHashes = new long[1024];
+        int domainCount = 0;
+        List<String> patterns = new ArrayList<>();
+
+        for (String line : (Iterable<String>) lines.map(String::trim)::iterator) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith(PATTERN_PREFIX)) {
+                patterns.add(line.substring(PATTERN_PREFIX.length()).trim());
+                continue;
+            }
+
+            int start = line.startsWith("*.") ? 2 : 0;
+            int end = line.length();
+            while (end > start && line.charAt(end - 1) == '.') {
+                end--;
+            }
+            if (end == start) {
+                continue;
+            }
+            trie.add(line);
+            if (domainCount == domainHashes.length) {
+                domainHashes = Arrays.copyOf(domainHashes, domainCount * 2);
+            }
+            domainHashes[domainCount++] = domainHash(line, start, end);
+        }
+
+        BloomFilter domainFilter = new BloomFilter(domainCount, FALSE_POSITIVE_PROBABILITY);
+        for (int i = 0; i < domainCount; i++) {
+            domainFilter.add(domainHashes[i]);
+        }
+        Pattern pattern = patterns.isEmpty() ? null : Pattern.compile(
+                patterns.stream().map(p -> "(?:" + p + ")").collect(Collectors.joining("|")),
+                Pattern.CASE_INSENSITIVE);
+
+        return new CompiledBlocklist(trie.build(), domainFilter, pattern, domainCount, patterns.size());
+    }
+
+    /**
+     * Checks whether a URL is blocked by its host or by a pattern.
+     *
+     * @param url an absolute URL, e.g. {@code https://login.example.com/path}
+     * @return {@code true} if the URL is blocked
+     */
+    public boolean isBlocked(String url) {
+        return isHostBlocked(url) || (Objects.nonNull(pattern) && pattern.matcher(url).find());
+    }
+
+    /**
+     * @return the number of blocked domains
+     */
+    public int domainCount() {
+        return domainCount;
+    }
+
+    /**
+     * @return the number of URL patterns
+     */
+    public int patternCount() {
+        return patternCount;
+    }
+
+    private boolean isHostBlocked(String url) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd < 0 || domainCount == 0) {
+            return false;
+        }
+        int start = schemeEnd + 3;
+        int end = start;
+        while (end < url.length() && "/?#\\".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        for (int i = end - 1; i >= start; i--) {
+            if (url.charAt(i) == '@') {
+                start = i + 1;
+                break;
+            }
+        }
+        if (start < end && url.charAt(start) != '[') {
+            for (int i = start; i < end; i++) {
+                if (url.charAt(i) == ':') {
+                    end = i;
+                    break;
+                }
+            }
+        }
+        while (end > start && url.charAt(end - 1) == '.') {
+            end--;
+        }
+
+        return mightBeBlocked(url, start, end) && domains.matches(url, start, end);
+    }
+
+    private boolean mightBeBlocked(CharSequence host, int start, int end) {
+        long hash = 0L;
+        int labelEnd = end;
+        while (labelEnd > start) {
+            int labelStart = labelEnd;
+            while (labelStart > start && host.charAt(labelStart - 1) != '.') {
+                labelStart--;
+            }
+            hash = suffixHash(hash, ReversedDomainTrie.labelHash(host, labelStart, labelEnd));
+            if (domainFilter.mightContain(hash)) {
+                return true;
+            }
+            labelEnd = labelStart - 1;
+        }
+        return false;
+    }
+
+    private static long domainHash(CharSequence domain, int start, int end) {
+        long hash = 0L;
+        int labelEnd = end;
+        while (labelEnd > start) {
+            int labelStart = labelEnd;
+            while (labelStart > start && domain.charAt(labelStart - 1) != '.') {
+                labelStart--;
+            }
+            hash = suffixHash(hash, ReversedDomainTrie.labelHash(domain, labelStart, labelEnd));
+            labelEnd = labelStart - 1;
+        }
+        return hash;
+    }
+
+    private static long suffixHash(long parentHash, long labelHash) {
+        return parentHash * 0x9e3779b97f4a7c15L + labelHash;
+    }
+}
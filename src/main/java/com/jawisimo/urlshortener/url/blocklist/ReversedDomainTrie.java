@@ -0,0 +1,206 @@
+package com.jawisimo.urlshortener.url.blocklist;
+
+import java.util.Arrays;
+
+/**
+ * Immutable trie of domains keyed by their labels in reverse order, e.g. {@code com -> example -> mail}.
+ * <p>
+ * A blocked domain marks its node as terminal; a host matches if any of its suffixes ends at a terminal
+ * node, so a blocked domain also blocks all of its subdomains. Labels are not stored. Each edge is the
+ * 64-bit hash of its parent node and label in an open-addressing table of primitive arrays, which keeps a
+ * node at about 16 bytes and a lookup at one probe per label, without allocation. Two different edges
+ * sharing a 64-bit hash would produce a false match; the chance is negligible even for millions of domains.
+ * </p>
+ */
+public final class ReversedDomainTrie {
+    private static final int ROOT = 0;
+    private static final long FREE = 0L;
+
+    private final long[] edgeKeys;
+    private final int[] edgeChildren;
+    private final long[] terminal;
+    private final int nodeCount;
+
+    private ReversedDomainTrie(long[] edgeKeys, int[] edgeChildren, long[] terminal, int nodeCount) {
+        this.edgeKeys = edgeKeys;
+        this.edgeChildren = edgeChildren;
+        this.terminal = terminal;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * @return a builder for a new trie
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Checks whether the host, or one of its parent domains, is in the trie.
+     *
+     * @param host  the string containing the host
+     * @param start the index of the first host character
+     * @param end   the index after the last host character
+     * @return {@code true} if a suffix of the host is a domain of the trie
+     */
+    public boolean matches(CharSequence host, int start, int end) {
+        int node = ROOT;
+        int labelEnd = end;
+        while (labelEnd > start) {
+            int labelStart = labelEnd;
+            while (labelStart > start && host.charAt(labelStart - 1) != '.') {
+                labelStart--;
+            }
+            node = child(node, labelHash(host, labelStart, labelEnd));
+            if (node < 0) {
+                return false;
+            }
+            if (isTerminal(node)) {
+                return true;
+            }
+            labelEnd = labelStart - 1;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of nodes, including the root
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    private int child(int node, long labelHash) {
+        long key = edgeKey(node, labelHash);
+        int mask = edgeKeys.length - 1;
+        for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+            long slotKey = edgeKeys[slot];
+            if (slotKey == key) {
+                return edgeChildren[slot];
+            }
+            if (slotKey == FREE) {
+                return -1;
+            }
+        }
+    }
+
+    private boolean isTerminal(int node) {
+        return (terminal[node >>> 6] & (1L << node)) != 0;
+    }
+
+    /**
+     * Hashes a label with FNV-1a over its lower-cased characters.
+     */
+    static long labelHash(CharSequence value, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= Character.toLowerCase(value.charAt(i));
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long edgeKey(int parent, long labelHash) {
+        long key = labelHash + parent * 0x9e3779b97f4a7c15L;
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key == FREE ? 1L : key;
+    }
+
+    /**
+     * Builder collecting domains; not thread-safe.
+     */
+    public static final class Builder {
+        private long[] edgeKeys = new long[1024];
+        private int[] edgeChildren = new int[1024];
+        private long[] terminal = new long[16];
+        private int edgeCount;
+        private int nodeCount = 1;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a domain; a leading {@code *.} and a trailing dot are ignored.
+         *
+         * @param domain the domain, e.g. {@code example.com}
+         * @return this builder
+         */
+        public Builder add(String domain) {
+            int start = domain.startsWith("*.") ? 2 : 0;
+            int end = domain.length();
+            while (end > start && domain.charAt(end - 1) == '.') {
+                end--;
+            }
+            if (end == start) {
+                return this;
+            }
+
+            int node = ROOT;
+            int labelEnd = end;
+            while (labelEnd > start) {
+                int labelStart = labelEnd;
+                while (labelStart > start && domain.charAt(labelStart - 1) != '.') {
+                    labelStart--;
+                }
+                node = childOrCreate(node, labelHash(domain, labelStart, labelEnd));
+                labelEnd = labelStart - 1;
+            }
+            markTerminal(node);
+            return this;
+        }
+
+        /**
+         * @return the built trie
+         */
+        public ReversedDomainTrie build() {
+            return new ReversedDomainTrie(edgeKeys, edgeChildren,
+                    Arrays.copyOf(terminal, (nodeCount + Long.SIZE - 1) / Long.SIZE), nodeCount);
+        }
+
+        private int childOrCreate(int node, long labelHash) {
+            if ((edgeCount + 1) * 4L > edgeKeys.length * 3L) {
+                grow();
+            }
+            long key = edgeKey(node, labelHash);
+            int mask = edgeKeys.length - 1;
+            int slot = (int) key & mask;
+            while (edgeKeys[slot] != FREE) {
+                if (edgeKeys[slot] == key) {
+                    return edgeChildren[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            edgeKeys[slot] = key;
+            edgeChildren[slot] = nodeCount;
+            edgeCount++;
+            return nodeCount++;
+        }
+
+        private void markTerminal(int node) {
+            if (node >>> 6 >= terminal.length) {
+                terminal = Arrays.copyOf(terminal, Math.max(terminal.length * 2, (node >>> 6) + 1));
+            }
+            terminal[node >>> 6] |= 1L << node;
+        }
+
+        private void grow() {
+            long[] oldKeys = edgeKeys;
+            int[] oldChildren = edgeChildren;
+            edgeKeys = new long[oldKeys.length * 2];
+            edgeChildren = new int[oldKeys.length * 2];
+            int mask = edgeKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != FREE) {
+                    int slot = (int) oldKeys[i] & mask;
+                    while (edgeKeys[slot] != FREE) {
+                        slot = (slot + 1) & mask;
+                    }
+                    edgeKeys[slot] = oldKeys[i];
+                    edgeChildren[slot] = oldChildren[i];
+                }
+            }
+        }
+    }
+}
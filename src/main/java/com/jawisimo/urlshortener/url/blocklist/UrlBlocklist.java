@@ -0,0 +1,82 @@
+package com.jawisimo.urlshortener.url.blocklist;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+
+/**
+ * URL blocklist loaded from a local file, see {@link CompiledBlocklist} for the format.
+ * <p>
+ * The file is checked periodically and recompiled when its modification time or size changes.
+ * The new list is compiled aside and replaces the current one in a single volatile write, so every check
+ * sees either the old or the new list completely. If the file cannot be read or contains an invalid
+ * pattern, the current list is kept. Without {@code url.blocklist.file} nothing is blocked.
+ * </p>
+ */
+@Component
+@Slf4j
+public class UrlBlocklist {
+    private final Path file;
+    private volatile CompiledBlocklist blocklist = CompiledBlocklist.EMPTY;
+    private FileTime loadedModifiedTime;
+    private long loadedSize = -1L;
+
+    public UrlBlocklist(@Value("${url.blocklist.file:}") String file) {
+        this.file = file.isBlank() ? null : Path.of(file);
+        reload();
+    }
+
+    /**
+     * Checks whether a URL is blocked.
+     *
+     * @param url an absolute URL
+     * @return {@code true} if the host of the URL, or one of its parent domains, or a pattern is blocked
+     */
+    public boolean isBlocked(String url) {
+        return blocklist.isBlocked(url);
+    }
+
+    /**
+     * Recompiles the blocklist if the file has changed since it was last loaded.
+     */
+    @Scheduled(fixedDelayString = "${url.blocklist.reload-interval-ms:10000}")
+    public synchronized void reload() {
+        if (Objects.isNull(file)) {
+            return;
+        }
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attributes.lastModifiedTime().equals(loadedModifiedTime) && attributes.size() == loadedSize) {
+                return;
+            }
+
+            long startedAt = System.nanoTime();
+            CompiledBlocklist compiled;
+            try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+                compiled = CompiledBlocklist.compile(lines);
+            }
+            blocklist = compiled;
+            loadedModifiedTime = attributes.lastModifiedTime();
+            loadedSize = attributes.size();
+
+            log.info("Loaded URL blocklist of {} domains and {} patterns from {} in {} ms",
+                    compiled.domainCount(), compiled.patternCount(), file,
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (IOException | UncheckedIOException | PatternSyntaxException e) {
+            log.warn("Failed to load URL blocklist from {}, keeping the current one: {}", file, e.getMessage());
+        }
+    }
+}
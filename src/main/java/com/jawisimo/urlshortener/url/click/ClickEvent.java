@@ -0,0 +1,17 @@
+package com.jawisimo.urlshortener.url.click;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single raw click on a short URL.
+ * <p>
+ * Click events are buffered by {@link ClickEventRecorder} and written to the {@code url_clicks} table in batches.
+ * Aged events are later rolled into the on-disk click archive.
+ * </p>
+ *
+ * @param urlId     the id of the clicked URL
+ * @param userId    the id of the URL owner
+ * @param clickedAt the moment of the click
+ */
+public record ClickEvent(long urlId, long userId, LocalDateTime clickedAt) {
+}
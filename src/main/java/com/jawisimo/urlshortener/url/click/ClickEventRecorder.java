@@ -0,0 +1,78 @@
+package com.jawisimo.urlshortener.url.click;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers raw click events in memory and writes them to Postgres in batches.
+ * <p>
+ * Resolving a short URL only enqueues an event, so the redirect path never waits for the click insert.
+ * The buffer is bounded: when it is full, new events are dropped and counted instead of blocking requests.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ClickEventRecorder {
+    private final ClickEventRepository clickEventRepository;
+    private final BlockingQueue<ClickEvent> buffer;
+    private final int batchSize;
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    public ClickEventRecorder(ClickEventRepository clickEventRepository,
+                              @Value("${click.recorder.buffer-capacity:100000}") int bufferCapacity,
+                              @Value("${click.recorder.batch-size:1000}") int batchSize) {
+        this.clickEventRepository = clickEventRepository;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Records a click on the given URL.
+     *
+     * @param urlId  the id of the clicked URL
+     * @param userId the id of the URL owner
+     */
+    public void record(long urlId, long userId) {
+        if (!buffer.offer(new ClickEvent(urlId, userId, LocalDateTime.now()))) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes all buffered click events to the database.
+     * <p>
+     * Runs periodically and on shutdown. Events are drained in chunks of {@code click.recorder.batch-size}
+     * so that a single JDBC batch stays small.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${click.recorder.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        List<ClickEvent> batch = new ArrayList<>(batchSize);
+
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                clickEventRepository.insertAll(batch);
+            } catch (RuntimeException e) {
+                log.error("Failed to write {} click events: {}", batch.size(), e.getMessage());
+                droppedEvents.addAndGet(batch.size());
+            }
+            batch.clear();
+        }
+
+        long dropped = droppedEvents.getAndSet(0);
+        if (dropped > 0) {
+            log.warn("Dropped {} click events since the last flush", dropped);
+        }
+    }
+}
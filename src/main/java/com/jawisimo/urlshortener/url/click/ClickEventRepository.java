@@ -0,0 +1,146 @@
+package com.jawisimo.urlshortener.url.click;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC repository for the {@code url_clicks} table.
+ * <p>
+ * Click events are append-only and written in large batches, so this repository works with plain JDBC
+ * instead of JPA entities.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClickEventRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A stored click event together with its row id.
+     *
+     * @param id        the row id
+     * @param urlId     the id of the clicked URL
+     * @param userId    the id of the URL owner
+     * @param clickedAt the click timestamp in epoch milliseconds
+     */
+    public record StoredClick(long id, long urlId, long userId, long clickedAt) {
+    }
+
+    /**
+     * Inserts the given click events in a single JDBC batch.
+     *
+     * @param events the events to insert
+     */
+    public void insertAll(List<ClickEvent> events) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO url_clicks (url_id, user_id, clicked_at) VALUES (?, ?, ?)",
+                events,
+                events.size(),
+                (ps, event) -> {
+                    ps.setLong(1, event.urlId());
+                    ps.setLong(2, event.userId());
+                    ps.setTimestamp(3, Timestamp.valueOf(event.clickedAt()));
+                });
+    }
+
+    /**
+     * Returns the highest click id recorded before the given moment.
+     *
+     * @param cutoff the exclusive upper bound for the click timestamp
+     * @return the highest matching id, or {@code 0} if there is none
+     */
+    public long findMaxIdClickedBefore(LocalDateTime cutoff) {
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT max(id) FROM url_clicks WHERE clicked_at < ?",
+                Long.class,
+                Timestamp.valueOf(cutoff));
+        return maxId == null ? 0L : maxId;
+    }
+
+    /**
+     * Loads a keyset-ordered chunk of clicks with ids in {@code (afterId, upToId]}.
+     *
+     * @param afterId exclusive lower id bound
+     * @param upToId  inclusive upper id bound
+     * @param limit   maximum number of rows
+     * @return the clicks ordered by id
+     */
+    public List<StoredClick> findChunk(long afterId, long upToId, int limit) {
+        List<StoredClick> clicks = new ArrayList<>();
+        jdbcTemplate.query(
+                "SELECT id, url_id, user_id, clicked_at FROM url_clicks " +
+                        "WHERE id > ? AND id <= ? ORDER BY id LIMIT ?",
+                (RowCallbackHandler) rs -> clicks.add(new StoredClick(
+                        rs.getLong(1),
+                        rs.getLong(2),
+                        rs.getLong(3),
+                        toEpochMillis(rs.getTimestamp(4)))),
+                afterId, upToId, limit);
+        return clicks;
+    }
+
+    /**
+     * Deletes clicks with ids in {@code (afterId, upToId]}.
+     *
+     * @param afterId exclusive lower id bound
+     * @param upToId  inclusive upper id bound
+     * @return the number of deleted rows
+     */
+    public int deleteRange(long afterId, long upToId) {
+        return jdbcTemplate.update("DELETE FROM url_clicks WHERE id > ? AND id <= ?", afterId, upToId);
+    }
+
+    /**
+     * Counts clicks that are still stored in Postgres and match the given query.
+     * <p>
+     * Only rows with an id greater than {@code afterId} are counted, so clicks that have already been
+     * rolled into the archive are never counted twice.
+     * </p>
+     *
+     * @param query   the click query
+     * @param afterId the archive watermark; rows with a smaller or equal id are ignored
+     * @return click counts by group key
+     */
+    public Map<Long, Long> countGrouped(ClickQuery query, long afterId) {
+        ClickGrouping grouping = query.grouping();
+        String keyExpression = switch (grouping) {
+            case HOUR, DAY -> "(floor(extract(epoch FROM clicked_at) * 1000 / "
+                    + grouping.getBucketMillis() + ") * " + grouping.getBucketMillis() + ")::bigint";
+            case URL -> "url_id";
+            case NONE -> "0";
+        };
+        String idColumn = query.urlId() != null ? "url_id" : "user_id";
+        long idValue = query.urlId() != null ? query.urlId() : query.userId();
+
+        Map<Long, Long> counts = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT " + keyExpression + " AS group_key, count(*) FROM url_clicks " +
+                        "WHERE " + idColumn + " = ? AND clicked_at >= ? AND clicked_at < ? AND id > ? " +
+                        "GROUP BY group_key",
+                (RowCallbackHandler) rs -> counts.merge(rs.getLong(1), rs.getLong(2), Long::sum),
+                idValue,
+                toTimestamp(query.fromMillis()),
+                toTimestamp(query.toMillis()),
+                afterId);
+        return counts;
+    }
+
+    private static long toEpochMillis(Timestamp timestamp) {
+        return timestamp.toLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static Timestamp toTimestamp(long epochMillis) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,86 @@
+package com.jawisimo.urlshortener.url.click;
+
+import com.jawisimo.urlshortener.error.exception.ValidationException;
+
+import java.util.Locale;
+import java.util.Objects;
+
+import static com.jawisimo.urlshortener.util.MessageProvider.CLICKS_INCORRECT_GROUPING_MESSAGE;
+
+/**
+ * Supported group-by modes for click queries.
+ * <p>
+ * Time based groupings bucket clicks by the start of the hour or day (UTC),
+ * {@link #URL} groups clicks by the clicked URL and {@link #NONE} returns a single total.
+ * </p>
+ */
+public enum ClickGrouping {
+
+    /** All clicks in a single group */
+    NONE(0L),
+
+    /** Clicks grouped by hour */
+    HOUR(3_600_000L),
+
+    /** Clicks grouped by day */
+    DAY(86_400_000L),
+
+    /** Clicks grouped by URL */
+    URL(0L);
+
+    private final long bucketMillis;
+
+    ClickGrouping(long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+    }
+
+    /**
+     * Returns the width of a time bucket in milliseconds, or {@code 0} for non time based groupings.
+     *
+     * @return the bucket width in milliseconds
+     */
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    /**
+     * Returns {@code true} if this grouping buckets clicks by time.
+     *
+     * @return whether the grouping is time based
+     */
+    public boolean isTimeBased() {
+        return bucketMillis > 0;
+    }
+
+    /**
+     * Computes the group key of a single click.
+     *
+     * @param clickedAtMillis the click timestamp in epoch milliseconds
+     * @param urlId           the id of the clicked URL
+     * @return the group key: bucket start for time groupings, URL id for {@link #URL}, {@code 0} otherwise
+     */
+    public long keyOf(long clickedAtMillis, long urlId) {
+        if (isTimeBased()) {
+            return clickedAtMillis - Math.floorMod(clickedAtMillis, bucketMillis);
+        }
+        return this == URL ? urlId : 0L;
+    }
+
+    /**
+     * Parses a grouping from a request parameter, ignoring case.
+     *
+     * @param value the raw parameter value, may be {@code null}
+     * @return the matching grouping, {@link #NONE} for a missing value
+     * @throws ValidationException if the value does not name a grouping
+     */
+    public static ClickGrouping fromString(String value) {
+        if (Objects.isNull(value) || value.isBlank()) {
+            return NONE;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(CLICKS_INCORRECT_GROUPING_MESSAGE);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.jawisimo.urlshortener.url.click;
+
+/**
+ * Filter for click count queries.
+ * <p>
+ * Exactly one of {@code urlId} and {@code userId} is set. The time range is half-open: {@code [fromMillis, toMillis)}.
+ * </p>
+ *
+ * @param urlId      the URL to count clicks for, or {@code null} for a per-user query
+ * @param userId     the owner to count clicks for, or {@code null} for a per-URL query
+ * @param fromMillis inclusive range start in epoch milliseconds
+ * @param toMillis   exclusive range end in epoch milliseconds
+ * @param grouping   how clicks are grouped in the result
+ */
+public record ClickQuery(Long urlId, Long userId, long fromMillis, long toMillis, ClickGrouping grouping) {
+
+    public static ClickQuery forUrl(long urlId, long fromMillis, long toMillis, ClickGrouping grouping) {
+        return new ClickQuery(urlId, null, fromMillis, toMillis, grouping);
+    }
+
+    public static ClickQuery forUser(long userId, long fromMillis, long toMillis, ClickGrouping grouping) {
+        return new ClickQuery(null, userId, fromMillis, toMillis, grouping);
+    }
+
+    /**
+     * Checks whether a click matches the id filter of this query.
+     *
+     * @param clickUrlId  the id of the clicked URL
+     * @param clickUserId the id of the URL owner
+     * @return {@code true} if the click belongs to the queried URL or user
+     */
+    public boolean matches(long clickUrlId, long clickUserId) {
+        return urlId != null ? urlId == clickUrlId : userId == clickUserId;
+    }
+}
@@ -0,0 +1,242 @@
+package com.jawisimo.urlshortener.url.click.archive;
+
+import com.jawisimo.urlshortener.url.click.ClickEventRepository.StoredClick;
+import com.jawisimo.urlshortener.url.click.ClickQuery;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static com.jawisimo.urlshortener.url.click.archive.ClickSegmentFormat.FILE_SUFFIX;
+import static com.jawisimo.urlshortener.url.click.archive.ClickSegmentFormat.TEMP_SUFFIX;
+
+/**
+ * On-disk archive of aged click events.
+ * <p>
+ * The archive is a directory of immutable {@link ClickSegment} files. Queries fan out over the segments
+ * with a dedicated {@link ForkJoinPool}; each leaf task scans a few memory-mapped segments and the
+ * partial counts are merged on the way back up.
+ * </p>
+ * <p>
+ * Only the node running the {@link ClickArchiver} writes segments. Every other node serving click
+ * statistics opens the same directory, which must then be on shared storage, and picks up new segments
+ * when it takes a {@link #snapshot()}: the archived clicks are deleted from {@code url_clicks}, so a node
+ * without them would undercount.
+ * </p>
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "click.archive.enabled", havingValue = "true")
+public class ClickArchive {
+    private static final int SEGMENTS_PER_TASK = 4;
+
+    private final Path directory;
+    private final ForkJoinPool pool;
+    private volatile List<ClickSegment> segments = List.of();
+
+    public ClickArchive(@Value("${click.archive.directory:./data/click-archive}") String directory,
+                        @Value("${click.archive.query-parallelism:0}") int parallelism) {
+        this.directory = Path.of(directory);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Maps all existing segments of the archive directory.
+     *
+     * @throws IOException if the archive directory cannot be read
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        refresh();
+        log.info("Click archive opened with {} segments in {}", segments.size(), directory.toAbsolutePath());
+    }
+
+    /**
+     * Removes leftovers of interrupted writes.
+     * <p>
+     * Only the writing node may call it, while it is not appending: on shared storage, a temporary file may
+     * be a segment another node is still writing.
+     * </p>
+     *
+     * @throws IOException if the archive directory cannot be read
+     */
+    public void deleteTemporaryFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TEMP_SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Returns the segments of the archive, including segments written by another node since the last call.
+     *
+     * @return an immutable snapshot of the archive
+     * @throws UncheckedIOException if the archive directory cannot be read
+     */
+    public Snapshot snapshot() {
+        try {
+            refresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read click archive " + directory, e);
+        }
+        return new Snapshot(segments);
+    }
+
+    /**
+     * Returns the highest click id stored in the archive.
+     *
+     * @return the highest archived click id, or {@code 0} for an empty archive
+     * @see Snapshot#watermark()
+     */
+    public long getWatermark() {
+        return snapshot().watermark();
+    }
+
+    /**
+     * Writes the given clicks as a new segment and makes it visible to queries.
+     *
+     * @param clicks the clicks to archive, ordered by id and newer than the current watermark
+     * @return the new segment
+     * @throws IOException if the segment cannot be written
+     */
+    public synchronized ClickSegment append(List<StoredClick> clicks) throws IOException {
+        ClickSegment segment = ClickSegment.open(ClickSegmentWriter.write(directory, clicks));
+        List<ClickSegment> updated = new ArrayList<>(segments);
+        updated.add(segment);
+        segments = List.copyOf(updated);
+        return segment;
+    }
+
+    /**
+     * Counts archived clicks matching the query in the current segments.
+     *
+     * @param query the click query
+     * @return click counts by group key
+     */
+    public Map<Long, Long> query(ClickQuery query) {
+        return query(snapshot(), query);
+    }
+
+    /**
+     * Counts archived clicks matching the query, scanning candidate segments of the snapshot in parallel.
+     *
+     * @param snapshot the segments to scan
+     * @param query    the click query
+     * @return click counts by group key
+     */
+    public Map<Long, Long> query(Snapshot snapshot, ClickQuery query) {
+        List<ClickSegment> candidates = snapshot.segments().stream()
+                .filter(segment -> segment.mayContain(query))
+                .toList();
+
+        if (candidates.isEmpty()) {
+            return new HashMap<>();
+        }
+        return pool.invoke(new ScanTask(candidates, 0, candidates.size(), query));
+    }
+
+    /**
+     * Opens the segment files not opened yet, written by this node before a restart or by another node.
+     */
+    private synchronized void refresh() throws IOException {
+        List<ClickSegment> current = segments;
+        Set<Path> known = new HashSet<>();
+        current.forEach(segment -> known.add(segment.getPath()));
+        List<ClickSegment> opened = new ArrayList<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                if (!known.contains(file)) {
+                    opened.add(ClickSegment.open(file));
+                }
+            }
+        }
+
+        if (!opened.isEmpty()) {
+            opened.addAll(current);
+            opened.sort(Comparator.comparingLong(ClickSegment::getMaxClickId));
+            segments = List.copyOf(opened);
+        }
+    }
+
+    /**
+     * Immutable view of the archive segments at one point in time.
+     *
+     * @param segments the segments, ordered by their highest click id
+     */
+    public record Snapshot(List<ClickSegment> segments) {
+
+        /**
+         * Returns the highest click id stored in the snapshot.
+         * <p>
+         * Every click with an id up to this watermark is served from the archive; Postgres only
+         * answers for newer clicks.
+         * </p>
+         *
+         * @return the highest archived click id, or {@code 0} for an empty archive
+         */
+        public long watermark() {
+            return segments.isEmpty() ? 0L : segments.getLast().getMaxClickId();
+        }
+    }
+
+    /**
+     * Fork/join task scanning a range of segments.
+     */
+    private static final class ScanTask extends RecursiveTask<Map<Long, Long>> {
+        private final List<ClickSegment> segments;
+        private final int from;
+        private final int to;
+        private final ClickQuery query;
+
+        private ScanTask(List<ClickSegment> segments, int from, int to, ClickQuery query) {
+            this.segments = segments;
+            this.from = from;
+            this.to = to;
+            this.query = query;
+        }
+
+        @Override
+        protected Map<Long, Long> compute() {
+            if (to - from <= SEGMENTS_PER_TASK) {
+                Map<Long, Long> counts = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    segments.get(i).scan(query, counts);
+                }
+                return counts;
+            }
+
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(segments, from, middle, query);
+            ScanTask right = new ScanTask(segments, middle, to, query);
+            left.fork();
+            Map<Long, Long> counts = right.compute();
+            left.join().forEach((key, count) -> counts.merge(key, count, Long::sum));
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.jawisimo.urlshortener.url.click.archive;
+
+import com.jawisimo.urlshortener.url.click.ClickEventRepository;
+import com.jawisimo.urlshortener.url.click.ClickEventRepository.StoredClick;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Background job that rolls aged click events from Postgres into the {@link ClickArchive}.
+ * <p>
+ * Clicks older than {@code click.archive.age-days} are read in id-ordered chunks, written as a new
+ * segment and then deleted from {@code url_clicks}. The archive watermark (highest archived click id)
+ * makes the job idempotent: rows left behind by an interrupted run are removed before new ones are archived.
+ * The job must be enabled on a single node only, the only one writing to the archive directory.
+ * </p>
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "click.archive", name = {"enabled", "archiver-enabled"}, havingValue = "true")
+public class ClickArchiver {
+    private final ClickEventRepository clickEventRepository;
+    private final ClickArchive clickArchive;
+    private final TransactionTemplate transactionTemplate;
+    private final int ageDays;
+    private final int segmentSize;
+
+    public ClickArchiver(ClickEventRepository clickEventRepository,
+                         ClickArchive clickArchive,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${click.archive.age-days:30}") int ageDays,
+                         @Value("${click.archive.segment-size:500000}") int segmentSize) {
+        this.clickEventRepository = clickEventRepository;
+        this.clickArchive = clickArchive;
+        this.transactionTemplate = transactionTemplate;
+        this.ageDays = ageDays;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Archives all clicks older than the configured age.
+     */
+    @Scheduled(fixedDelayString = "${click.archive.interval-ms:3600000}",
+            initialDelayString = "${click.archive.initial-delay-ms:60000}")
+    public void archive() {
+        try {
+            clickArchive.deleteTemporaryFiles();
+        } catch (IOException e) {
+            log.error("Failed to remove temporary click segments: {}", e.getMessage());
+            return;
+        }
+        long watermark = clickArchive.getWatermark();
+
+        // Remove rows that were archived by an interrupted run but not yet deleted
+        int leftovers = clickEventRepository.deleteRange(0L, watermark);
+        if (leftovers > 0) {
+            log.info("Removed {} already archived click rows", leftovers);
+        }
+
+        long upToId = clickEventRepository.findMaxIdClickedBefore(LocalDateTime.now().minusDays(ageDays));
+        long archived = 0L;
+
+        while (watermark < upToId) {
+            List<StoredClick> chunk = clickEventRepository.findChunk(watermark, upToId, segmentSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            try {
+                clickArchive.append(chunk);
+            } catch (IOException e) {
+                log.error("Failed to write click segment: {}", e.getMessage());
+                return;
+            }
+
+            long from = watermark;
+            long to = chunk.getLast().id();
+            transactionTemplate.executeWithoutResult(status -> clickEventRepository.deleteRange(from, to));
+            watermark = to;
+            archived += chunk.size();
+        }
+
+        if (archived > 0) {
+            log.info("Archived {} clicks up to id {}", archived, watermark);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.jawisimo.urlshortener.url.click.archive;
+
+import com.jawisimo.urlshortener.url.click.ClickGrouping;
+import com.jawisimo.urlshortener.url.click.ClickQuery;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.jawisimo.urlshortener.url.click.archive.ClickSegmentFormat.*;
+
+/**
+ * Read-only view of a memory-mapped click segment.
+ * <p>
+ * The header statistics (time range, id ranges) are read eagerly and used to skip segments
+ * that cannot contain matching clicks. Column blocks are inflated straight from the mapped buffer
+ * only when a segment is actually scanned.
+ * </p>
+ */
+@Getter
+public final class ClickSegment {
+    private final Path path;
+    private final int rowCount;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final long minUrlId;
+    private final long maxUrlId;
+    private final long minUserId;
+    private final long maxUserId;
+    private final long maxClickId;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final MappedByteBuffer buffer;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final int[] columnOffsets = new int[COLUMN_COUNT];
+
+    private ClickSegment(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+
+        ByteBuffer header = buffer.duplicate();
+        if (header.getInt() != MAGIC || header.getShort() != VERSION) {
+            throw new IOException("Not a click segment: " + path);
+        }
+        header.getShort();
+        this.rowCount = header.getInt();
+        this.minTimestamp = header.getLong();
+        this.maxTimestamp = header.getLong();
+        this.minUrlId = header.getLong();
+        this.maxUrlId = header.getLong();
+        this.minUserId = header.getLong();
+        this.maxUserId = header.getLong();
+        this.maxClickId = header.getLong();
+
+        int offset = HEADER_BYTES;
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            columnOffsets[column] = offset;
+            offset += COLUMN_HEADER_BYTES + buffer.getInt(offset);
+        }
+    }
+
+    /**
+     * Maps the given segment file into memory.
+     * <p>
+     * The mapping stays valid after the file channel is closed.
+     * </p>
+     *
+     * @param path the segment file
+     * @return the opened segment
+     * @throws IOException if the file cannot be mapped or is not a segment
+     */
+    public static ClickSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ClickSegment(path, buffer);
+        }
+    }
+
+    /**
+     * Checks the segment statistics against the query without touching the column data.
+     *
+     * @param query the click query
+     * @return {@code false} if the segment certainly contains no matching clicks
+     */
+    public boolean mayContain(ClickQuery query) {
+        if (maxTimestamp < query.fromMillis() || minTimestamp >= query.toMillis()) {
+            return false;
+        }
+        if (query.urlId() != null) {
+            return query.urlId() >= minUrlId && query.urlId() <= maxUrlId;
+        }
+        return query.userId() >= minUserId && query.userId() <= maxUserId;
+    }
+
+    /**
+     * Scans the segment and adds the counts of matching clicks to the given map.
+     *
+     * @param query  the click query
+     * @param counts click counts by group key, updated in place
+     */
+    public void scan(ClickQuery query, Map<Long, Long> counts) {
+        if (!mayContain(query)) {
+            return;
+        }
+
+        long[] timestamps = readColumn(TIMESTAMP_COLUMN);
+        int from = lowerBound(timestamps, query.fromMillis());
+        int to = lowerBound(timestamps, query.toMillis());
+        if (from >= to) {
+            return;
+        }
+
+        long[] urlIds = readColumn(URL_ID_COLUMN);
+        long[] userIds = readColumn(USER_ID_COLUMN);
+        ClickGrouping grouping = query.grouping();
+
+        // Rows are sorted by time, so time buckets arrive in runs; merge one run at a time
+        long runKey = 0L;
+        long runCount = 0L;
+        for (int i = from; i < to; i++) {
+            if (!query.matches(urlIds[i], userIds[i])) {
+                continue;
+            }
+            long key = grouping.keyOf(timestamps[i], urlIds[i]);
+            if (runCount > 0 && key != runKey) {
+                counts.merge(runKey, runCount, Long::sum);
+                runCount = 0L;
+            }
+            runKey = key;
+            runCount++;
+        }
+        if (runCount > 0) {
+            counts.merge(runKey, runCount, Long::sum);
+        }
+    }
+
+    private long[] readColumn(int column) {
+        int offset = columnOffsets[column];
+        int compressedLength = buffer.getInt(offset);
+        int rawLength = buffer.getInt(offset + Integer.BYTES);
+
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice(offset + COLUMN_HEADER_BYTES, compressedLength));
+            int position = 0;
+            while (position < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, position, rawLength - position);
+                if (inflated == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Unexpected end of column data");
+                }
+                position += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted click segment: " + path, e);
+        } finally {
+            inflater.end();
+        }
+        return decodeDeltas(raw, rowCount);
+    }
+
+    private static int lowerBound(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
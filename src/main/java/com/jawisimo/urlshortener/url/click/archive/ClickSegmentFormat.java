@@ -0,0 +1,84 @@
+package com.jawisimo.urlshortener.url.click.archive;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Binary layout shared by {@link ClickSegmentWriter} and {@link ClickSegment}.
+ * <p>
+ * A segment file starts with a fixed-size header followed by three column blocks
+ * (timestamps, URL ids, owner ids). Each block is {@code [int compressedLength][int rawLength][deflated bytes]},
+ * where the raw bytes are zigzag-encoded deltas stored as varints. Rows are sorted by timestamp,
+ * so timestamp deltas are small and compress well.
+ * </p>
+ */
+@UtilityClass
+class ClickSegmentFormat {
+
+    static final int MAGIC = 0x434C4B53; // "CLKS"
+    static final short VERSION = 1;
+
+    /** magic, version, reserved, row count, then seven long statistics */
+    static final int HEADER_BYTES = Integer.BYTES + Short.BYTES * 2 + Integer.BYTES + Long.BYTES * 7;
+    static final int COLUMN_HEADER_BYTES = Integer.BYTES * 2;
+    static final int COLUMN_COUNT = 3;
+
+    static final int TIMESTAMP_COLUMN = 0;
+    static final int URL_ID_COLUMN = 1;
+    static final int USER_ID_COLUMN = 2;
+
+    static final String FILE_SUFFIX = ".seg";
+    static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Encodes a column of longs as zigzag varint deltas.
+     *
+     * @param values the column values
+     * @return the raw (uncompressed) column bytes
+     */
+    static byte[] encodeDeltas(long[] values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(values.length * 2);
+        long previous = 0L;
+
+        for (long value : values) {
+            long delta = value - previous;
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.write((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.write((int) zigzag);
+            previous = value;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a column produced by {@link #encodeDeltas(long[])}.
+     *
+     * @param raw      the raw column bytes
+     * @param rowCount the number of values in the column
+     * @return the decoded column values
+     */
+    static long[] decodeDeltas(byte[] raw, int rowCount) {
+        long[] values = new long[rowCount];
+        long previous = 0L;
+        int position = 0;
+
+        for (int i = 0; i < rowCount; i++) {
+            long zigzag = 0L;
+            int shift = 0;
+            byte b;
+            do {
+                b = raw[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            long delta = (zigzag >>> 1) ^ -(zigzag & 1);
+            previous += delta;
+            values[i] = previous;
+        }
+        return values;
+    }
+}
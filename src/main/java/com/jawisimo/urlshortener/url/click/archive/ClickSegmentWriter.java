@@ -0,0 +1,128 @@
+package com.jawisimo.urlshortener.url.click.archive;
+
+import com.jawisimo.urlshortener.url.click.ClickEventRepository.StoredClick;
+import lombok.experimental.UtilityClass;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static com.jawisimo.urlshortener.url.click.archive.ClickSegmentFormat.*;
+
+/**
+ * Writes immutable, compressed columnar click segments.
+ * <p>
+ * A segment is written to a temporary file, forced to disk and then atomically renamed,
+ * so readers never observe a partially written segment.
+ * </p>
+ */
+@UtilityClass
+public class ClickSegmentWriter {
+
+    /**
+     * Writes the given clicks into a new segment file in the given directory.
+     *
+     * @param directory the archive directory
+     * @param clicks    the clicks to archive, must not be empty
+     * @return the path of the new segment file
+     * @throws IOException if the segment cannot be written
+     */
+    public static Path write(Path directory, List<StoredClick> clicks) throws IOException {
+        List<StoredClick> sorted = clicks.stream()
+                .sorted(Comparator.comparingLong(StoredClick::clickedAt))
+                .toList();
+        int rowCount = sorted.size();
+
+        long[] timestamps = new long[rowCount];
+        long[] urlIds = new long[rowCount];
+        long[] userIds = new long[rowCount];
+        long minUrlId = Long.MAX_VALUE;
+        long maxUrlId = Long.MIN_VALUE;
+        long minUserId = Long.MAX_VALUE;
+        long maxUserId = Long.MIN_VALUE;
+        long maxClickId = Long.MIN_VALUE;
+
+        for (int i = 0; i < rowCount; i++) {
+            StoredClick click = sorted.get(i);
+            timestamps[i] = click.clickedAt();
+            urlIds[i] = click.urlId();
+            userIds[i] = click.userId();
+            minUrlId = Math.min(minUrlId, click.urlId());
+            maxUrlId = Math.max(maxUrlId, click.urlId());
+            minUserId = Math.min(minUserId, click.userId());
+            maxUserId = Math.max(maxUserId, click.userId());
+            maxClickId = Math.max(maxClickId, click.id());
+        }
+
+        byte[][] columns = {
+                encodeDeltas(timestamps),
+                encodeDeltas(urlIds),
+                encodeDeltas(userIds)
+        };
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) 0)
+                .putInt(rowCount)
+                .putLong(timestamps[0])
+                .putLong(timestamps[rowCount - 1])
+                .putLong(minUrlId)
+                .putLong(maxUrlId)
+                .putLong(minUserId)
+                .putLong(maxUserId)
+                .putLong(maxClickId)
+                .flip();
+
+        Path target = directory.resolve(String.format("clicks-%020d%s", maxClickId, FILE_SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + TEMP_SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, header);
+            for (byte[] column : columns) {
+                byte[] compressed = deflate(column);
+                ByteBuffer columnHeader = ByteBuffer.allocate(COLUMN_HEADER_BYTES)
+                        .putInt(compressed.length)
+                        .putInt(column.length)
+                        .flip();
+                writeFully(channel, columnHeader);
+                writeFully(channel, ByteBuffer.wrap(compressed));
+            }
+            channel.force(true);
+        }
+
+        return Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                out.write(chunk, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
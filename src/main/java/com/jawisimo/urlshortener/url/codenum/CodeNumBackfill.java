@@ -0,0 +1,65 @@
+package com.jawisimo.urlshortener.url.codenum;
+
+import com.jawisimo.urlshortener.url.Base62Codec;
+import com.jawisimo.urlshortener.url.backfill.Backfill;
+import com.jawisimo.urlshortener.url.backfill.ConcurrentIndex;
+import com.jawisimo.urlshortener.url.codenum.CodeNumRepository.UrlCode;
+import com.jawisimo.urlshortener.url.codenum.CodeNumRepository.UrlCodeNum;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link Backfill} filling the {@code code_num} column of URLs created before it existed.
+ * <p>
+ * Once the backfill is complete, short codes can be resolved by their number alone. Codes without a
+ * numeric form keep an empty number. The unique index of the number contains the short code, as the
+ * partition key must be part of it; equal codes have equal numbers, so the number is still unique.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class CodeNumBackfill implements Backfill {
+    private final CodeNumRepository codeNumRepository;
+    private volatile boolean complete;
+
+    /**
+     * @return {@code true} if every URL with a numeric code has its code number
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String name() {
+        return "urls.code_num";
+    }
+
+    @Override
+    public int backfill(long afterId, long toId) {
+        List<UrlCode> urls = codeNumRepository.findWithoutCodeNum(afterId, toId);
+        List<UrlCodeNum> codeNums = new ArrayList<>(urls.size());
+        for (UrlCode url : urls) {
+            long codeNum = Base62Codec.decode(url.shortUrlCode());
+            if (codeNum != Base62Codec.INVALID) {
+                codeNums.add(new UrlCodeNum(url.id(), url.shortUrlCode(), codeNum));
+            }
+        }
+        if (!codeNums.isEmpty()) {
+            codeNumRepository.updateCodeNums(codeNums);
+        }
+        return codeNums.size();
+    }
+
+    @Override
+    public List<ConcurrentIndex> indexes() {
+        return List.of(new ConcurrentIndex("urls_code_num_key", true, "(code_num, short_url_code)"));
+    }
+
+    @Override
+    public void onComplete() {
+        complete = true;
+    }
+}
@@ -0,0 +1,70 @@
+package com.jawisimo.urlshortener.url.codenum;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * JDBC repository filling the {@code code_num} column of existing URLs.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CodeNumRepository {
+    private static final String FIND_WITHOUT_CODE_NUM_SQL =
+            "SELECT id, short_url_code FROM urls WHERE id > ? AND id <= ? AND code_num IS NULL";
+    private static final String UPDATE_CODE_NUM_SQL =
+            "UPDATE urls SET code_num = ? WHERE id = ? AND short_url_code = ? AND code_num IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Loads the URLs without a code number in an id range.
+     *
+     * @param afterId the exclusive lower bound of the ids
+     * @param toId    the inclusive upper bound of the ids
+     * @return the URLs
+     */
+    public List<UrlCode> findWithoutCodeNum(long afterId, long toId) {
+        return jdbcTemplate.query(FIND_WITHOUT_CODE_NUM_SQL,
+                (rs, rowNum) -> new UrlCode(rs.getLong(1), rs.getString(2)),
+                afterId, toId);
+    }
+
+    /**
+     * Sets the code numbers of URLs in one batch.
+     * <p>
+     * A URL is skipped if its code has changed meanwhile or its number is already set; the short code
+     * also limits each update to a single partition.
+     * </p>
+     *
+     * @param codeNums the URLs with their code numbers
+     */
+    public void updateCodeNums(List<UrlCodeNum> codeNums) {
+        jdbcTemplate.batchUpdate(UPDATE_CODE_NUM_SQL, codeNums, codeNums.size(), (ps, codeNum) -> {
+            ps.setLong(1, codeNum.codeNum());
+            ps.setLong(2, codeNum.id());
+            ps.setString(3, codeNum.shortUrlCode());
+        });
+    }
+
+    /**
+     * A URL id with its short code.
+     *
+     * @param id           the URL id
+     * @param shortUrlCode the short URL code
+     */
+    public record UrlCode(long id, String shortUrlCode) {
+    }
+
+    /**
+     * A URL id with its short code and code number.
+     *
+     * @param id           the URL id
+     * @param shortUrlCode the short URL code
+     * @param codeNum      the code number
+     */
+    public record UrlCodeNum(long id, String shortUrlCode, long codeNum) {
+    }
+}
@@ -1,32 +1,50 @@
 package com.jawisimo.urlshortener.url.controller;
 
+import com.jawisimo.urlshortener.doc.annotation.url.ClicksByShortUrlOpenApi;
+import com.jawisimo.urlshortener.doc.annotation.url.ClicksByUserOpenApi;
 import com.jawisimo.urlshortener.doc.annotation.url.UrlListOpenApi;
+import com.jawisimo.urlshortener.doc.annotation.url.UrlSummaryOpenApi;
 import com.jawisimo.urlshortener.doc.annotation.url.VisitsByShortUrlOpenApi;
+import com.jawisimo.urlshortener.ratelimit.RateLimitOperation;
+import com.jawisimo.urlshortener.ratelimit.RateLimited;
+import com.jawisimo.urlshortener.url.dto.statistics.StatsClicksResponse;
 import com.jawisimo.urlshortener.url.dto.statistics.StatsListUrlResponse;
+import com.jawisimo.urlshortener.url.dto.statistics.StatsSummaryResponse;
 import com.jawisimo.urlshortener.url.dto.statistics.StatsVisitsUrlResponse;
+import com.jawisimo.urlshortener.url.service.ClickStatsService;
 import com.jawisimo.urlshortener.url.service.StatsService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
 
 /**
  * Controller for managing URL statistics in the URL shortener application.
  * <p>
  * Provides endpoints for retrieving statistics about URLs, including retrieving
- * all URLs, active URLs, and visit counts for specific short URLs.
+ * all URLs, active URLs, the per-user summary, visit counts for specific short URLs
+ * and click counts over time ranges.
+ * URL list, summary and visit endpoints support conditional requests: a matching {@code If-None-Match}
+ * header is answered with {@code 304 Not Modified} without loading any URL.
  * </p>
  */
 @Tag(name = "3. URL statistics", description = "Endpoints for retrieving statistics about URLs")
 @RestController
 @RequestMapping("/api/v1/url")
 @RequiredArgsConstructor
+@RateLimited(RateLimitOperation.STATS)
 public class StatsController {
     private final StatsService statsService;
+    private final ClickStatsService clickStatsService;
 
     /**
      * Retrieves all URLs created by the authenticated user.
@@ -35,13 +53,19 @@ public class StatsController {
      * user. The response contains the details of each URL.
      * </p>
      *
-     * @return a {@link ResponseEntity} containing a list of URLs and an HTTP status
+     * @param webRequest the current request, used to evaluate {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing a list of URLs and an HTTP status,
+     * or {@code null} if the response has been completed as {@code 304 Not Modified}
      */
     @UrlListOpenApi
     @GetMapping("/all")
-    public ResponseEntity<StatsListUrlResponse> allUrls() {
+    public ResponseEntity<StatsListUrlResponse> allUrls(WebRequest webRequest) {
+        String eTag = statsService.getETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         StatsListUrlResponse response = statsService.getAllUrls();
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return ResponseEntity.status(HttpStatus.OK).eTag(eTag).body(response);
     }
 
     /**
@@ -51,13 +75,41 @@ public class StatsController {
      * and belong to the authenticated user.
      * </p>
      *
-     * @return a {@link ResponseEntity} containing a list of active URLs and an HTTP status
+     * @param webRequest the current request, used to evaluate {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing a list of active URLs and an HTTP status,
+     * or {@code null} if the response has been completed as {@code 304 Not Modified}
      */
     @UrlListOpenApi
     @GetMapping("/active")
-    public ResponseEntity<StatsListUrlResponse> activeUrls() {
+    public ResponseEntity<StatsListUrlResponse> activeUrls(WebRequest webRequest) {
+        String eTag = statsService.getETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         StatsListUrlResponse response = statsService.getActiveUrls();
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return ResponseEntity.status(HttpStatus.OK).eTag(eTag).body(response);
+    }
+
+    /**
+     * Retrieves the URL summary of the authenticated user.
+     * <p>
+     * This endpoint returns the total and active URL counts and the total number of visits
+     * without loading the user's URLs.
+     * </p>
+     *
+     * @param webRequest the current request, used to evaluate {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing the user summary and an HTTP status,
+     * or {@code null} if the response has been completed as {@code 304 Not Modified}
+     */
+    @UrlSummaryOpenApi
+    @GetMapping("/summary")
+    public ResponseEntity<StatsSummaryResponse> summary(WebRequest webRequest) {
+        String eTag = statsService.getETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        StatsSummaryResponse response = statsService.getSummary();
+        return ResponseEntity.status(HttpStatus.OK).eTag(eTag).body(response);
     }
 
     /**
@@ -68,12 +120,61 @@ public class StatsController {
      * </p>
      *
      * @param shortUrlCode the code of the short URL whose visit count is to be retrieved
-     * @return a {@link ResponseEntity} containing the visit count for the specified URL
+     * @param webRequest   the current request, used to evaluate {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing the visit count for the specified URL,
+     * or {@code null} if the response has been completed as {@code 304 Not Modified}
      */
     @VisitsByShortUrlOpenApi
     @GetMapping("/visits/{shortUrlCode}")
-    public ResponseEntity<StatsVisitsUrlResponse> visitsByShortUrl(@PathVariable String shortUrlCode) {
+    public ResponseEntity<StatsVisitsUrlResponse> visitsByShortUrl(@PathVariable String shortUrlCode,
+                                                                   WebRequest webRequest) {
+        String eTag = statsService.getETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         StatsVisitsUrlResponse response = statsService.getVisitsByShortUrl(shortUrlCode);
+        return ResponseEntity.status(HttpStatus.OK).eTag(eTag).body(response);
+    }
+
+    /**
+     * Retrieves click counts for a specific short URL over a time range.
+     * <p>
+     * Clicks are counted from both the live click table and the click archive,
+     * so the range may reach arbitrarily far into the past.
+     * </p>
+     *
+     * @param shortUrlCode the code of the short URL
+     * @param from         inclusive range start (UTC), defaults to 30 days before {@code to}
+     * @param to           exclusive range end (UTC), defaults to now
+     * @param groupBy      optional grouping: {@code none}, {@code hour} or {@code day}
+     * @return a {@link ResponseEntity} containing the click counts for the specified URL
+     */
+    @ClicksByShortUrlOpenApi
+    @GetMapping("/clicks/{shortUrlCode}")
+    public ResponseEntity<StatsClicksResponse> clicksByShortUrl(
+            @PathVariable String shortUrlCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String groupBy) {
+        StatsClicksResponse response = clickStatsService.getClicksByShortUrl(shortUrlCode, from, to, groupBy);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves click counts for all URLs of the authenticated user over a time range.
+     *
+     * @param from    inclusive range start (UTC), defaults to 30 days before {@code to}
+     * @param to      exclusive range end (UTC), defaults to now
+     * @param groupBy optional grouping: {@code none}, {@code hour}, {@code day} or {@code url}
+     * @return a {@link ResponseEntity} containing the click counts for the user's URLs
+     */
+    @ClicksByUserOpenApi
+    @GetMapping("/clicks")
+    public ResponseEntity<StatsClicksResponse> clicksByUser(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String groupBy) {
+        StatsClicksResponse response = clickStatsService.getClicksByUser(from, to, groupBy);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
@@ -1,6 +1,8 @@
 package com.jawisimo.urlshortener.url.controller;
 
 import com.jawisimo.urlshortener.doc.annotation.url.*;
+import com.jawisimo.urlshortener.ratelimit.RateLimitOperation;
+import com.jawisimo.urlshortener.ratelimit.RateLimited;
 import com.jawisimo.urlshortener.url.dto.operations.GetShortUrlRequest;
 import com.jawisimo.urlshortener.url.dto.operations.UpdateUrlRequest;
 import com.jawisimo.urlshortener.url.dto.operations.UrlResponse;
@@ -35,6 +37,7 @@ public class UrlController {
      * @return a {@link ResponseEntity} containing the short URL code and HTTP status
      */
     @ShortFromLongOpenApi
+    @RateLimited(RateLimitOperation.CREATE)
     @PostMapping
     public ResponseEntity<UrlResponse> shortFromLong(
             @ShortFromLongRequestBodyOpenApi
@@ -53,6 +56,7 @@ public class UrlController {
      * @return a {@link ResponseEntity} containing the long URL and HTTP status
      */
     @LongFromShortOpenApi
+    @RateLimited(RateLimitOperation.RESOLVE)
     @PostMapping("/{shortUrlCode}")
     public ResponseEntity<UrlResponse> longFromShort(@PathVariable String shortUrlCode) {
         UrlResponse response = urlService.getLongUrlFromShortUrl(shortUrlCode);
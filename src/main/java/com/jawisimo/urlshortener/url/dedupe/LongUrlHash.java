@@ -0,0 +1,38 @@
+package com.jawisimo.urlshortener.url.dedupe;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 64-bit hash of a canonical long URL, stored in {@code urls.long_url_hash}.
+ * <p>
+ * The hash is the first eight bytes of the SHA-256 digest, so it is stable across JVMs and versions and
+ * cannot be steered into collisions. A match is still confirmed by comparing the URLs.
+ * </p>
+ */
+public final class LongUrlHash {
+
+    private LongUrlHash() {
+    }
+
+    /**
+     * Computes the hash of a canonical long URL.
+     *
+     * @param canonicalUrl the URL in canonical form
+     * @return the 64-bit hash
+     */
+    public static long of(String canonicalUrl) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(canonicalUrl.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        long hash = 0L;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = hash << 8 | (digest[i] & 0xff);
+        }
+        return hash;
+    }
+}
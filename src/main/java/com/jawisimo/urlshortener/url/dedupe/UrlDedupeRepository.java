@@ -0,0 +1,107 @@
+package com.jawisimo.urlshortener.url.dedupe;
+
+import com.jawisimo.urlshortener.url.Base62Codec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * JDBC repository inserting deduplicated URLs.
+ * <p>
+ * A deduplicated URL carries the {@link LongUrlHash} of its long URL and is unique per user, hash and
+ * expiration date by the primary key of {@code url_dedupe_keys}; a unique index on the partitioned
+ * {@code urls} table would have to contain the short URL code. The key row is inserted first and the URL
+ * takes the id it reserved and refers to the shared long URL taken by the caller beforehand. The existing
+ * URL is looked up before, so the id is drawn from the sequence only when a URL is inserted.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlDedupeRepository {
+    private static final String INSERT_OR_FIND_SQL =
+            "WITH existing AS (" +
+                    "SELECT u.id, u.short_url_code, url_long_url(u.long_url_id, u.short_url_code) AS long_url, " +
+                    "u.created_at, u.expires_at " +
+                    "FROM url_dedupe_keys k JOIN urls u ON u.id = k.url_id " +
+                    "WHERE k.user_id = ? AND k.long_url_hash = ? " +
+                    "AND k.expires_key = COALESCE(CAST(? AS TIMESTAMP), 'infinity'::TIMESTAMP)), " +
+                    "dedupe_key AS (" +
+                    "INSERT INTO url_dedupe_keys (user_id, long_url_hash, expires_key, url_id) " +
+                    "SELECT ?, ?, COALESCE(CAST(? AS TIMESTAMP), 'infinity'::TIMESTAMP), nextval('urls_id_seq') " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM existing) " +
+                    "ON CONFLICT (user_id, long_url_hash, expires_key) DO NOTHING " +
+                    "RETURNING url_id), " +
+                    "inserted AS (" +
+                    "INSERT INTO urls " +
+                    "(id, short_url_code, code_num, long_url_id, long_url_hash, expires_at, user_id) " +
+                    "SELECT url_id, ?, CAST(? AS BIGINT), ?, ?, CAST(? AS TIMESTAMP), ? FROM dedupe_key " +
+                    "RETURNING id, short_url_code, created_at, expires_at), " +
+                    "counter AS (INSERT INTO url_counters (url_id) SELECT id FROM inserted) " +
+                    "SELECT i.id, i.short_url_code, CAST(? AS VARCHAR) AS long_url, i.created_at, i.expires_at, " +
+                    "TRUE AS created " +
+                    "FROM inserted i " +
+                    "UNION ALL " +
+                    "SELECT e.id, e.short_url_code, e.long_url, e.created_at, e.expires_at, FALSE FROM existing e";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts a deduplicated URL, or finds the one the user already has for the same hash and expiration
+     * date, in a single statement.
+     * <p>
+     * The result is empty if a concurrent transaction committed the existing URL after this statement
+     * took its snapshot; the insert waits for that transaction and detects the conflict, but the URL is not
+     * visible, and the statement has to be repeated. The repeated statement takes a new snapshot and sees
+     * the URL, unless it has been deleted meanwhile, in which case it inserts the URL.
+     * </p>
+     *
+     * @param shortUrlCode the short URL code to use for a new URL
+     * @param longUrl      the canonical long URL
+     * @param longUrlId    the id of the shared long URL, taken in the current transaction
+     * @param longUrlHash  the hash of the long URL
+     * @param expiresAt    the expiration date, or {@code null}
+     * @param userId       the owner id
+     * @return the new or the existing URL, or empty if the statement has to be repeated
+     */
+    public Optional<DedupedUrl> insertOrFind(String shortUrlCode, String longUrl, long longUrlId, long longUrlHash,
+                                             LocalDateTime expiresAt, long userId) {
+        Timestamp expiresAtTimestamp = Objects.isNull(expiresAt) ? null : Timestamp.valueOf(expiresAt);
+        long codeNum = Base62Codec.decode(shortUrlCode);
+        List<DedupedUrl> urls = jdbcTemplate.query(INSERT_OR_FIND_SQL,
+                (rs, rowNum) -> new DedupedUrl(
+                        rs.getLong("id"),
+                        rs.getString("short_url_code"),
+                        rs.getString("long_url"),
+                        rs.getTimestamp("created_at").toLocalDateTime(),
+                        Objects.isNull(rs.getTimestamp("expires_at"))
+                                ? null
+                                : rs.getTimestamp("expires_at").toLocalDateTime(),
+                        rs.getBoolean("created")),
+                userId, longUrlHash, expiresAtTimestamp,
+                userId, longUrlHash, expiresAtTimestamp,
+                shortUrlCode, codeNum == Base62Codec.INVALID ? null : codeNum, longUrlId, longUrlHash,
+                expiresAtTimestamp, userId,
+                longUrl);
+        return urls.stream().findFirst();
+    }
+
+    /**
+     * A deduplicated URL row.
+     *
+     * @param id           the URL id
+     * @param shortUrlCode the short URL code
+     * @param longUrl      the long URL
+     * @param createdAt    the creation date
+     * @param expiresAt    the expiration date, or {@code null}
+     * @param created      {@code true} if the row was inserted by this statement
+     */
+    public record DedupedUrl(long id, String shortUrlCode, String longUrl, LocalDateTime createdAt,
+                             LocalDateTime expiresAt, boolean created) {
+    }
+}
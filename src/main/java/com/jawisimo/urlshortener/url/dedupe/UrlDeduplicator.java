@@ -0,0 +1,96 @@
+package com.jawisimo.urlshortener.url.dedupe;
+
+import com.jawisimo.urlshortener.url.Url;
+import com.jawisimo.urlshortener.url.dedupe.UrlDedupeRepository.DedupedUrl;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
+import com.jawisimo.urlshortener.user.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Opt-in deduplication of created URLs, enabled by {@code url.dedupe.enabled}.
+ * <p>
+ * When a user shortens the same canonical long URL with the same expiration date again, the existing
+ * short URL is returned instead of inserting a new row. Insert and lookup are one statement guarded by a
+ * unique key, so concurrent identical requests end up with the same short URL.
+ * </p>
+ */
+@Component
+@Slf4j
+public class UrlDeduplicator {
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final UrlDedupeRepository urlDedupeRepository;
+    private final LongUrlRepository longUrlRepository;
+    private final boolean enabled;
+
+    public UrlDeduplicator(UrlDedupeRepository urlDedupeRepository,
+                           LongUrlRepository longUrlRepository,
+                           @Value("${url.dedupe.enabled:false}") boolean enabled) {
+        this.urlDedupeRepository = urlDedupeRepository;
+        this.longUrlRepository = longUrlRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return {@code true} if created URLs are deduplicated
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Creates a deduplicated URL or returns the existing one.
+     * <p>
+     * The result is empty if the existing URL with the same hash has a different long URL, i.e. the hashes
+     * collide; the caller then creates a regular URL. A URL committed concurrently is read by repeating the
+     * statement, never bypassed by a regular URL, which would duplicate it.
+     * </p>
+     *
+     * @param shortUrlCode the short URL code for a new URL
+     * @param longUrl      the canonical long URL
+     * @param expiresAt    the expiration date, or {@code null}
+     * @param user         the owner
+     * @return the result, or empty if the URL has to be created without deduplication
+     * @throws IllegalStateException if the URL is created and deleted concurrently on every attempt
+     */
+    public Optional<Result> createOrFind(String shortUrlCode, String longUrl, LocalDateTime expiresAt, User user) {
+        long longUrlHash = LongUrlHash.of(longUrl);
+        long longUrlId = longUrlRepository.acquire(longUrl);
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            Optional<DedupedUrl> dedupedUrl = urlDedupeRepository.insertOrFind(
+                    shortUrlCode, longUrl, longUrlId, longUrlHash, expiresAt, user.getId());
+            if (dedupedUrl.isPresent()) {
+                DedupedUrl row = dedupedUrl.get();
+                if (!row.longUrl().equals(longUrl)) {
+                    log.warn("Long URL hash collision for user {}, creating URL without deduplication", user.getId());
+                    return Optional.empty();
+                }
+                return Optional.of(new Result(Url.builder()
+                        .id(row.id())
+                        .shortUrlCode(row.shortUrlCode())
+                        .longUrl(row.longUrl())
+                        .longUrlId(longUrlId)
+                        .longUrlHash(longUrlHash)
+                        .createdAt(row.createdAt())
+                        .expiresAt(row.expiresAt())
+                        .user(user)
+                        .build(), row.created()));
+            }
+        }
+        throw new IllegalStateException("Deduplicated URL could not be stored after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * Result of a deduplicated creation.
+     *
+     * @param url     the new or existing URL; not a managed entity
+     * @param created {@code true} if the URL was created by this request
+     */
+    public record Result(Url url, boolean created) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.jawisimo.urlshortener.url.dto.statistics;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"key", "clicks"})
+@Schema
+public class StatsClicksGroupDto {
+
+    @Schema(example = "2028-08-30T00:00")
+    private String key;
+
+    @Schema(example = "312")
+    private long clicks;
+}
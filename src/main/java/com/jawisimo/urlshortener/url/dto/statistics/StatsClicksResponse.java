@@ -0,0 +1,26 @@
+package com.jawisimo.urlshortener.url.dto.statistics;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"totalClicks", "groups"})
+@Schema
+public class StatsClicksResponse {
+
+    @Schema(example = "1048")
+    private Long totalClicks;
+
+    private List<StatsClicksGroupDto> groups;
+
+    public static StatsClicksResponse createSuccessResponse(Long totalClicks, List<StatsClicksGroupDto> groups) {
+        return new StatsClicksResponse(totalClicks, groups);
+    }
+}
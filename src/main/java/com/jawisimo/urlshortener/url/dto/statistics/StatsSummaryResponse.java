@@ -0,0 +1,27 @@
+package com.jawisimo.urlshortener.url.dto.statistics;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"totalUrls", "activeUrls", "totalVisits"})
+public class StatsSummaryResponse {
+
+    @Schema(example = "42")
+    private Long totalUrls;
+
+    @Schema(example = "37")
+    private Long activeUrls;
+
+    @Schema(example = "1048")
+    private Long totalVisits;
+
+    public static StatsSummaryResponse createSuccessResponse(Long totalUrls, Long activeUrls, Long totalVisits) {
+        return new StatsSummaryResponse(totalUrls, activeUrls, totalVisits);
+    }
+}
@@ -0,0 +1,63 @@
+package com.jawisimo.urlshortener.url.longurl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+
+/**
+ * Background job deleting long URLs that are no longer referred to by any URL.
+ * <p>
+ * Each run walks {@code long_urls} once in id order, in chunks of {@code url.long-url.cleanup-batch-size}
+ * rows, every chunk in its own short transaction. References are looked up through the {@code long_url_id}
+ * indexes of {@code urls} and {@code urls_archive}, so a run costs one pass over the long URLs. Nothing is
+ * deleted until the {@link LongUrlIdBackfill} has built the index of {@code urls}.
+ * </p>
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "url.long-url.cleanup-enabled", havingValue = "true")
+public class LongUrlCleanup {
+    private final LongUrlRepository longUrlRepository;
+    private final LongUrlIdBackfill longUrlIdBackfill;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public LongUrlCleanup(LongUrlRepository longUrlRepository,
+                          LongUrlIdBackfill longUrlIdBackfill,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${url.long-url.cleanup-batch-size:1000}") int batchSize) {
+        this.longUrlRepository = longUrlRepository;
+        this.longUrlIdBackfill = longUrlIdBackfill;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Deletes the unreferenced long URLs.
+     */
+    @Scheduled(fixedDelayString = "${url.long-url.cleanup-interval-ms:3600000}")
+    public void cleanUp() {
+        if (!longUrlIdBackfill.isComplete()) {
+            return;
+        }
+        long total = 0L;
+        long afterId = 0L;
+        long chunkEnd;
+        while ((chunkEnd = longUrlRepository.findChunkEnd(afterId, batchSize)) > afterId) {
+            long from = afterId;
+            long to = chunkEnd;
+            total += Objects.requireNonNullElse(
+                    transactionTemplate.execute(status -> longUrlRepository.deleteUnreferenced(from, to)), 0);
+            afterId = chunkEnd;
+        }
+
+        if (total > 0) {
+            log.debug("Deleted {} unreferenced long URLs", total);
+        }
+    }
+}
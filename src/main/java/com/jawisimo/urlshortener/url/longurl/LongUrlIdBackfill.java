@@ -0,0 +1,54 @@
+package com.jawisimo.urlshortener.url.longurl;
+
+import com.jawisimo.urlshortener.url.backfill.Backfill;
+import com.jawisimo.urlshortener.url.backfill.ConcurrentIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@link Backfill} moving the long URLs of URLs created before {@code long_urls} existed into it.
+ * <p>
+ * Until the backfill is complete, such URLs read their long URL from their own row, and the jobs relying on
+ * the {@code long_url_id} index wait for it.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class LongUrlIdBackfill implements Backfill {
+    private final LongUrlRepository longUrlRepository;
+    private volatile boolean complete;
+
+    /**
+     * @return {@code true} if every URL refers to its long URL in {@code long_urls}
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String name() {
+        return "urls.long_url_id";
+    }
+
+    @Override
+    public int backfill(long afterId, long toId) {
+        return longUrlRepository.fillLongUrlIds(afterId, toId);
+    }
+
+    @Override
+    public List<ConcurrentIndex> indexes() {
+        return List.of(new ConcurrentIndex("idx_urls_long_url_id", false, "(long_url_id)"));
+    }
+
+    @Override
+    public List<String> notNullColumns() {
+        return List.of("long_url_id");
+    }
+
+    @Override
+    public void onComplete() {
+        complete = true;
+    }
+}
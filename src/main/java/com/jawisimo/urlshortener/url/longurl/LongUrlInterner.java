@@ -0,0 +1,51 @@
+package com.jawisimo.urlshortener.url.longurl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded LRU table returning one shared copy of each long URL, keyed by its {@code long_urls} id.
+ * <p>
+ * Every loaded URL carries its own copy of the long URL string. Responses that are kept in memory,
+ * like the cached statistics, intern their long URLs here, so a destination shortened by many users
+ * is held once instead of once per URL.
+ * </p>
+ */
+@Component
+public class LongUrlInterner {
+    private final Map<Long, String> entries;
+
+    public LongUrlInterner(@Value("${url.long-url.intern.max-entries:100000}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the shared copy of a long URL.
+     *
+     * @param longUrlId the id of the long URL, or {@code null} if it is not stored yet
+     * @param longUrl   the long URL
+     * @return the shared copy, or the given long URL if it has no id
+     */
+    public String intern(Long longUrlId, String longUrl) {
+        if (Objects.isNull(longUrlId) || Objects.isNull(longUrl)) {
+            return longUrl;
+        }
+        synchronized (entries) {
+            String shared = entries.get(longUrlId);
+            if (Objects.nonNull(shared) && shared.equals(longUrl)) {
+                return shared;
+            }
+            entries.put(longUrlId, longUrl);
+            return longUrl;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.jawisimo.urlshortener.url.longurl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * JDBC repository for the {@code long_urls} table.
+ * <p>
+ * Every distinct long URL is stored once, keyed by the SHA-256 of its UTF-8 bytes. References are not
+ * counted: {@link #acquire(String)} only inserts a new long URL or takes a key share lock on the existing
+ * row, which concurrent creations of the same destination hold together, and which keeps it from being
+ * deleted until the referring URL is committed. Unreferenced rows are found by
+ * {@link #deleteUnreferenced(long, long)}, which looks for referring URLs instead of trusting a counter,
+ * so a popular destination is neither a hot row on create nor deleted and inserted again each time its
+ * last URL goes away.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class LongUrlRepository {
+    private static final int MAX_ACQUIRE_ATTEMPTS = 3;
+    private static final String ACQUIRE_SQL =
+            "WITH inserted AS (" +
+                    "INSERT INTO long_urls (url_hash, url) VALUES (sha256(convert_to(?, 'UTF8')), ?) " +
+                    "ON CONFLICT (url_hash) DO NOTHING " +
+                    "RETURNING id), " +
+                    "existing AS (" +
+                    "SELECT id FROM long_urls WHERE url_hash = sha256(convert_to(?, 'UTF8')) FOR KEY SHARE) " +
+                    "SELECT id FROM inserted UNION ALL SELECT id FROM existing";
+    private static final String CHUNK_END_SQL =
+            "SELECT max(id) FROM (SELECT id FROM long_urls WHERE id > ? ORDER BY id LIMIT ?) chunk";
+    private static final String UNREFERENCED_SQL =
+            "NOT EXISTS (SELECT 1 FROM urls u WHERE u.long_url_id = l.id) " +
+                    "AND NOT EXISTS (SELECT 1 FROM urls_archive a WHERE a.long_url_id = l.id)";
+    private static final String LOCK_UNREFERENCED_SQL =
+            "SELECT l.id FROM long_urls l WHERE l.id > ? AND l.id <= ? AND " + UNREFERENCED_SQL +
+                    " FOR UPDATE SKIP LOCKED";
+    private static final String DELETE_UNREFERENCED_SQL =
+            "DELETE FROM long_urls l WHERE l.id = ANY (?) AND " + UNREFERENCED_SQL;
+    private static final String FILL_LONG_URL_IDS_SQL = "SELECT urls_fill_long_url_ids(?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Takes a reference to a long URL, inserting it if it is not stored yet.
+     * <p>
+     * Must run in the transaction creating the referring URL, which keeps the long URL from being deleted.
+     * A long URL inserted or deleted by a concurrent transaction after the statement took its snapshot is
+     * not seen, and the statement is repeated.
+     * </p>
+     *
+     * @param longUrl the canonical long URL
+     * @return the id of the long URL
+     */
+    public long acquire(String longUrl) {
+        for (int attempt = 1; attempt <= MAX_ACQUIRE_ATTEMPTS; attempt++) {
+            List<Long> ids = jdbcTemplate.queryForList(ACQUIRE_SQL, Long.class, longUrl, longUrl, longUrl);
+            if (!ids.isEmpty()) {
+                return ids.getFirst();
+            }
+        }
+        throw new IllegalStateException("Long URL could not be stored after " + MAX_ACQUIRE_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * Finds the end of the next chunk of {@code long_urls} in id order.
+     *
+     * @param afterId the end of the previous chunk
+     * @param limit   the maximum number of long URLs in the chunk
+     * @return the id of the last long URL of the chunk, or {@code afterId} if no long URLs are left
+     */
+    public long findChunkEnd(long afterId, int limit) {
+        Long end = jdbcTemplate.queryForObject(CHUNK_END_SQL, Long.class, afterId, limit);
+        return Objects.isNull(end) ? afterId : end;
+    }
+
+    /**
+     * Deletes the long URLs of an id range that no URL or archived URL refers to.
+     * <p>
+     * Must run in a transaction. The unreferenced rows are locked first, skipping rows a creating
+     * transaction holds a reference on, and are checked again in a later statement, which sees every URL
+     * committed before the lock was taken. A reference taken after the lock waits for the delete and then
+     * inserts the long URL anew.
+     * </p>
+     *
+     * @param afterId exclusive lower bound of the ids
+     * @param toId    inclusive upper bound of the ids
+     * @return the number of deleted long URLs
+     */
+    public int deleteUnreferenced(long afterId, long toId) {
+        List<Long> locked = jdbcTemplate.queryForList(LOCK_UNREFERENCED_SQL, Long.class, afterId, toId);
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(DELETE_UNREFERENCED_SQL, ps ->
+                ps.setArray(1, ps.getConnection().createArrayOf("bigint", locked.toArray())));
+    }
+
+    /**
+     * Stores the long URLs of URLs created before {@code long_urls} existed and refers the URLs to them.
+     * <p>
+     * Runs the {@code urls_fill_long_url_ids} function of the schema, which reads the {@code long_url}
+     * column of {@code urls} while it exists and does nothing once it is dropped.
+     * </p>
+     *
+     * @param afterId the exclusive lower bound of the URL ids
+     * @param toId    the inclusive upper bound of the URL ids
+     * @return the number of changed URLs
+     */
+    public int fillLongUrlIds(long afterId, long toId) {
+        Integer filled = jdbcTemplate.queryForObject(FILL_LONG_URL_IDS_SQL, Integer.class, afterId, toId);
+        return Objects.isNull(filled) ? 0 : filled;
+    }
+}
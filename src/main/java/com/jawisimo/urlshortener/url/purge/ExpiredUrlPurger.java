@@ -0,0 +1,187 @@
+package com.jawisimo.urlshortener.url.purge;
+
+import com.jawisimo.urlshortener.url.shard.UrlShards;
+import com.jawisimo.urlshortener.url.summary.UserUrlSummaryRepository;
+import com.jawisimo.urlshortener.url.summary.UserUrlSummaryRepository.SummaryDelta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Background job deleting URLs that expired more than {@code url.purge.grace-days} ago.
+ * <p>
+ * Expired URLs are deleted from {@code urls}, the archive and the shards in chunks of
+ * {@code url.purge.batch-size}, each in its own short transaction together with the summary changes of
+ * its owners, with a pause of {@code url.purge.pause-ms} between chunks to spread locks and WAL over time.
+ * Shard chunks are committed on the shard before the summary changes are applied on the primary.
+ * Only URLs at or before the expiry sweep watermark are deleted, so they no longer count as active.
+ * A run holds a Postgres advisory lock, so on several nodes only one of them purges at a time.
+ * </p>
+ * <p>
+ * Progress is published as the metrics {@code url.purge.deleted}, {@code url.purge.pending},
+ * {@code url.purge.running}, {@code url.purge.last-completed} and {@code url.purge.chunk}.
+ * </p>
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "url.purge.enabled", havingValue = "true")
+public class ExpiredUrlPurger {
+    private final ExpiredUrlRepository expiredUrlRepository;
+    private final UserUrlSummaryRepository summaryRepository;
+    private final UrlShards urlShards;
+    private final TransactionTemplate transactionTemplate;
+    private final int graceDays;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final Counter deletedUrls;
+    private final Counter deletedArchivedUrls;
+    private final Counter deletedShardUrls;
+    private final Timer chunkTimer;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong running = new AtomicLong();
+    private final AtomicLong lastCompleted = new AtomicLong();
+
+    public ExpiredUrlPurger(ExpiredUrlRepository expiredUrlRepository,
+                            UserUrlSummaryRepository summaryRepository,
+                            UrlShards urlShards,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${url.purge.grace-days:30}") int graceDays,
+                            @Value("${url.purge.batch-size:500}") int batchSize,
+                            @Value("${url.purge.pause-ms:200}") long pauseMillis) {
+        this.expiredUrlRepository = expiredUrlRepository;
+        this.summaryRepository = summaryRepository;
+        this.urlShards = urlShards;
+        this.transactionTemplate = transactionTemplate;
+        this.graceDays = graceDays;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.deletedUrls = deletedCounter(meterRegistry, "urls");
+        this.deletedArchivedUrls = deletedCounter(meterRegistry, "urls_archive");
+        this.deletedShardUrls = deletedCounter(meterRegistry, "shards");
+        this.chunkTimer = Timer.builder("url.purge.chunk")
+                .description("Duration of the deletion of one chunk of expired URLs")
+                .register(meterRegistry);
+        Gauge.builder("url.purge.pending", pending, AtomicLong::get)
+                .description("Expired URLs left to delete by the running purge")
+                .register(meterRegistry);
+        Gauge.builder("url.purge.running", running, AtomicLong::get)
+                .description("1 while this node holds the purge lock and deletes expired URLs")
+                .register(meterRegistry);
+        Gauge.builder("url.purge.last-completed", lastCompleted, AtomicLong::get)
+                .description("Epoch second of the last purge completed on this node")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deletes all URLs expired for the grace period, unless another node is already purging.
+     *
+     * @return {@code true} if this node has run the purge
+     */
+    @Scheduled(fixedDelayString = "${url.purge.interval-ms:3600000}",
+            initialDelayString = "${url.purge.initial-delay-ms:60000}")
+    public boolean purgeExpired() {
+        boolean ran = expiredUrlRepository.runExclusively(this::purgeAll);
+        if (!ran) {
+            log.debug("Expired URL purge skipped, another node holds the purge lock");
+        }
+        return ran;
+    }
+
+    private void purgeAll() {
+        LocalDateTime gracePeriodStart = LocalDateTime.now().minusDays(graceDays);
+        LocalDateTime watermark = summaryRepository.findExpiryWatermark();
+        LocalDateTime expiredBefore = watermark.isBefore(gracePeriodStart) ? watermark : gracePeriodStart;
+
+        running.set(1L);
+        try {
+            long expired = expiredUrlRepository.countExpired(expiredBefore);
+            for (int shard = 0; shard < urlShards.count(); shard++) {
+                expired += expiredUrlRepository.countExpiredOnShard(shard, expiredBefore);
+            }
+            pending.set(expired);
+            if (expired > 0) {
+                long deleted = purgeChunks(deletedUrls, () -> transactionTemplate.execute(status ->
+                        applyDeltas(expiredUrlRepository.deleteExpired(expiredBefore, batchSize))));
+                deleted += purgeChunks(deletedArchivedUrls, () -> transactionTemplate.execute(status ->
+                        applyDeltas(expiredUrlRepository.deleteExpiredArchived(expiredBefore, batchSize))));
+                for (int shard = 0; shard < urlShards.count(); shard++) {
+                    int current = shard;
+                    deleted += purgeChunks(deletedShardUrls, () ->
+                            applyDeltas(expiredUrlRepository.deleteExpiredOnShard(current, expiredBefore, batchSize)));
+                }
+                log.info("Purged {} URLs expired before {}", deleted, expiredBefore);
+            }
+            lastCompleted.set(Instant.now().getEpochSecond());
+        } finally {
+            running.set(0L);
+            pending.set(0L);
+        }
+    }
+
+    /**
+     * Deletes chunks until a chunk comes out short, pausing between them.
+     *
+     * @param counter the counter of the deleted URLs
+     * @param chunk   deletes one chunk and returns the number of deleted URLs
+     * @return the number of deleted URLs
+     */
+    private long purgeChunks(Counter counter, Supplier<Long> chunk) {
+        long total = 0L;
+        long deleted;
+        do {
+            deleted = Objects.requireNonNullElse(chunkTimer.record(chunk), 0L);
+            total += deleted;
+            counter.increment(deleted);
+            pending.accumulateAndGet(deleted, (left, chunkSize) -> Math.max(left - chunkSize, 0L));
+        } while (deleted == batchSize && pause());
+        return total;
+    }
+
+    private long applyDeltas(List<SummaryDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return 0L;
+        }
+        summaryRepository.applyDeltas(deltas);
+        long deleted = 0L;
+        for (SummaryDelta delta : deltas) {
+            deleted -= delta.urls();
+        }
+        return deleted;
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Counter deletedCounter(MeterRegistry meterRegistry, String table) {
+        return Counter.builder("url.purge.deleted")
+                .description("Expired URLs deleted by the purge")
+                .tag("table", table)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,164 @@
+package com.jawisimo.urlshortener.url.purge;
+
+import com.jawisimo.urlshortener.url.shard.UrlShards;
+import com.jawisimo.urlshortener.url.summary.UserUrlSummaryRepository.SummaryDelta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * JDBC repository deleting expired URLs from {@code urls}, {@code urls_archive} and the URL shards.
+ * <p>
+ * Each delete takes the URLs expiring first from the partial {@code expires_at} index, at most a chunk of
+ * them, and skips URLs locked by a concurrent change. The deleted URLs are returned as negative summary
+ * changes of their owners. The triggers of {@code urls} release the counters and dedupe keys of deleted
+ * URLs; long URLs left without references are deleted later by the long URL cleanup.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExpiredUrlRepository {
+    /**
+     * Key of the session advisory lock held by the node running the purge, {@code "urlpurge"} in ASCII.
+     */
+    private static final long PURGE_LOCK_KEY = 0x75726C7075726765L;
+    private static final String SUMMARY_DELTAS_SQL =
+            "SELECT user_id, count(*), COALESCE(sum(visits), 0) FROM deleted GROUP BY user_id";
+    private static final String DELETE_EXPIRED_SQL =
+            "WITH expired AS (" +
+                    "SELECT u.id, u.short_url_code, COALESCE(c.visits, 0) AS visits " +
+                    "FROM urls u LEFT JOIN url_counters c ON c.url_id = u.id " +
+                    "WHERE u.expires_at < ? ORDER BY u.expires_at LIMIT ? FOR UPDATE OF u SKIP LOCKED), " +
+                    "deleted AS (" +
+                    "DELETE FROM urls u USING expired e " +
+                    "WHERE u.id = e.id AND u.short_url_code = e.short_url_code " +
+                    "RETURNING u.user_id, e.visits) " +
+                    SUMMARY_DELTAS_SQL;
+    private static final String DELETE_EXPIRED_ARCHIVED_SQL =
+            "WITH expired AS (" +
+                    "SELECT id FROM urls_archive " +
+                    "WHERE expires_at < ? ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED), " +
+                    "deleted AS (" +
+                    "DELETE FROM urls_archive a USING expired e WHERE a.id = e.id " +
+                    "RETURNING a.user_id, a.visits) " +
+                    SUMMARY_DELTAS_SQL;
+    private static final String DELETE_EXPIRED_ON_SHARD_SQL =
+            "WITH expired AS (" +
+                    "SELECT id FROM urls " +
+                    "WHERE expires_at < ? ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED), " +
+                    "deleted AS (" +
+                    "DELETE FROM urls u USING expired e WHERE u.id = e.id " +
+                    "RETURNING u.user_id, u.visits) " +
+                    SUMMARY_DELTAS_SQL;
+    private static final String COUNT_EXPIRED_SQL =
+            "SELECT (SELECT count(*) FROM urls WHERE expires_at < ?) " +
+                    "+ (SELECT count(*) FROM urls_archive WHERE expires_at < ?)";
+    private static final RowMapper<SummaryDelta> DELTA_MAPPER =
+            (rs, rowNum) -> new SummaryDelta(rs.getLong(1), -rs.getLong(2), 0L, -rs.getLong(3));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UrlShards urlShards;
+
+    /**
+     * Runs a task while holding the purge advisory lock, unless another node holds it.
+     * <p>
+     * The lock belongs to the database session of a connection kept for the whole task, so it is released
+     * by the end of the task or by the connection closing if the node dies.
+     * </p>
+     *
+     * @param task the task to run
+     * @return {@code true} if the lock was taken and the task has run
+     */
+    public boolean runExclusively(Runnable task) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                return false;
+            }
+            try {
+                task.run();
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Counts the URLs of the primary database expiring before the given time.
+     *
+     * @param expiredBefore the exclusive upper bound of the expiration dates
+     * @return the number of expired URLs, archived URLs included
+     */
+    public long countExpired(LocalDateTime expiredBefore) {
+        Timestamp before = Timestamp.valueOf(expiredBefore);
+        return Objects.requireNonNullElse(jdbcTemplate.queryForObject(COUNT_EXPIRED_SQL, Long.class, before, before),
+                0L);
+    }
+
+    /**
+     * Counts the URLs of a shard expiring before the given time.
+     *
+     * @param shard         the shard index
+     * @param expiredBefore the exclusive upper bound of the expiration dates
+     * @return the number of expired URLs
+     */
+    public long countExpiredOnShard(int shard, LocalDateTime expiredBefore) {
+        return Objects.requireNonNullElse(urlShards.jdbc(shard).queryForObject(
+                "SELECT count(*) FROM urls WHERE expires_at < ?", Long.class, Timestamp.valueOf(expiredBefore)), 0L);
+    }
+
+    /**
+     * Deletes a chunk of expired URLs from {@code urls}.
+     *
+     * @param expiredBefore the exclusive upper bound of the expiration dates
+     * @param limit         the maximum number of URLs to delete
+     * @return the summary changes of the owners of the deleted URLs
+     */
+    public List<SummaryDelta> deleteExpired(LocalDateTime expiredBefore, int limit) {
+        return jdbcTemplate.query(DELETE_EXPIRED_SQL, DELTA_MAPPER, Timestamp.valueOf(expiredBefore), limit);
+    }
+
+    /**
+     * Deletes a chunk of expired URLs from {@code urls_archive}.
+     *
+     * @param expiredBefore the exclusive upper bound of the expiration dates
+     * @param limit         the maximum number of URLs to delete
+     * @return the summary changes of the owners of the deleted URLs
+     */
+    public List<SummaryDelta> deleteExpiredArchived(LocalDateTime expiredBefore, int limit) {
+        return jdbcTemplate.query(DELETE_EXPIRED_ARCHIVED_SQL, DELTA_MAPPER, Timestamp.valueOf(expiredBefore), limit);
+    }
+
+    /**
+     * Deletes a chunk of expired URLs from a shard.
+     *
+     * @param shard         the shard index
+     * @param expiredBefore the exclusive upper bound of the expiration dates
+     * @param limit         the maximum number of URLs to delete
+     * @return the summary changes of the owners of the deleted URLs
+     */
+    public List<SummaryDelta> deleteExpiredOnShard(int shard, LocalDateTime expiredBefore, int limit) {
+        return urlShards.jdbc(shard).query(DELETE_EXPIRED_ON_SHARD_SQL, DELTA_MAPPER,
+                Timestamp.valueOf(expiredBefore), limit);
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, PURGE_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
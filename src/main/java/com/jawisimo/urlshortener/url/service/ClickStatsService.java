@@ -0,0 +1,173 @@
+package com.jawisimo.urlshortener.url.service;
+
+import com.jawisimo.urlshortener.error.exception.ResourceNotFoundException;
+import com.jawisimo.urlshortener.error.exception.ValidationException;
+import com.jawisimo.urlshortener.security.provider.SecurityContextProvider;
+import com.jawisimo.urlshortener.url.Url;
+import com.jawisimo.urlshortener.url.UrlRepository;
+import com.jawisimo.urlshortener.url.click.ClickEventRepository;
+import com.jawisimo.urlshortener.url.click.ClickGrouping;
+import com.jawisimo.urlshortener.url.click.ClickQuery;
+import com.jawisimo.urlshortener.url.click.archive.ClickArchive;
+import com.jawisimo.urlshortener.url.dto.statistics.StatsClicksGroupDto;
+import com.jawisimo.urlshortener.url.dto.statistics.StatsClicksResponse;
+import com.jawisimo.urlshortener.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static com.jawisimo.urlshortener.util.MessageProvider.CLICKS_INCORRECT_RANGE_MESSAGE;
+import static com.jawisimo.urlshortener.util.MessageProvider.URL_NOT_FOUND_MESSAGE;
+
+/**
+ * Service for click statistics of the authenticated user.
+ * <p>
+ * Click counts are answered from two tiers: the click archive for aged clicks, if enabled,
+ * and the {@code url_clicks} table for clicks newer than the archive watermark.
+ * Both partial results are merged, so a query may span any time range.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ClickStatsService {
+    private static final long DEFAULT_RANGE_DAYS = 30L;
+    private static final String TOTAL_GROUP_KEY = "total";
+
+    private final UrlRepository urlRepository;
+    private final SecurityContextProvider contextProvider;
+    private final ClickEventRepository clickEventRepository;
+    private final Optional<ClickArchive> clickArchive;
+
+    /**
+     * Counts clicks on a single short URL owned by the authenticated user.
+     *
+     * @param shortUrlCode the short URL code
+     * @param from         inclusive range start, defaults to 30 days before {@code to}
+     * @param to           exclusive range end, defaults to now
+     * @param groupBy      the grouping name ({@code none}, {@code hour}, {@code day}, {@code url})
+     * @return a {@link StatsClicksResponse} with the total and the grouped counts
+     * @throws ResourceNotFoundException if the URL is not found or does not belong to the authenticated user
+     * @throws ValidationException       if the range or the grouping is invalid
+     */
+    @Transactional(readOnly = true)
+    public StatsClicksResponse getClicksByShortUrl(String shortUrlCode,
+                                                   LocalDateTime from,
+                                                   LocalDateTime to,
+                                                   String groupBy) {
+        User user = contextProvider.getAuthenticatedUser();
+        ClickGrouping grouping = ClickGrouping.fromString(groupBy);
+
+        Url url = urlRepository.findUrlByShortUrlCode(shortUrlCode)
+                .filter(u -> u.getUser().getLogin().equals(user.getLogin()))
+                .orElseThrow(() -> new ResourceNotFoundException(URL_NOT_FOUND_MESSAGE));
+
+        LocalDateTime rangeTo = Objects.requireNonNullElseGet(to, LocalDateTime::now);
+        LocalDateTime rangeFrom = Objects.requireNonNullElseGet(from, () -> rangeTo.minusDays(DEFAULT_RANGE_DAYS));
+        ClickQuery query = ClickQuery.forUrl(url.getId(), toMillis(rangeFrom), toMillis(rangeTo), grouping);
+
+        return createResponse(countClicks(query), grouping, Map.of(url.getId(), url.getShortUrlCode()));
+    }
+
+    /**
+     * Counts clicks on all URLs owned by the authenticated user.
+     *
+     * @param from    inclusive range start, defaults to 30 days before {@code to}
+     * @param to      exclusive range end, defaults to now
+     * @param groupBy the grouping name ({@code none}, {@code hour}, {@code day}, {@code url})
+     * @return a {@link StatsClicksResponse} with the total and the grouped counts
+     * @throws ValidationException if the range or the grouping is invalid
+     */
+    @Transactional(readOnly = true)
+    public StatsClicksResponse getClicksByUser(LocalDateTime from, LocalDateTime to, String groupBy) {
+        User user = contextProvider.getAuthenticatedUser();
+        ClickGrouping grouping = ClickGrouping.fromString(groupBy);
+
+        LocalDateTime rangeTo = Objects.requireNonNullElseGet(to, LocalDateTime::now);
+        LocalDateTime rangeFrom = Objects.requireNonNullElseGet(from, () -> rangeTo.minusDays(DEFAULT_RANGE_DAYS));
+        ClickQuery query = ClickQuery.forUser(user.getId(), toMillis(rangeFrom), toMillis(rangeTo), grouping);
+
+        Map<Long, String> codes = grouping == ClickGrouping.URL
+                ? urlRepository.findAllUrlsByUserId(user.getId()).stream()
+                .collect(Collectors.toMap(Url::getId, Url::getShortUrlCode))
+                : Map.of();
+
+        return createResponse(countClicks(query), grouping, codes);
+    }
+
+    /**
+     * Merges archived and live click counts for the given query.
+     *
+     * @param query the click query
+     * @return click counts by group key
+     */
+    private Map<Long, Long> countClicks(ClickQuery query) {
+        if (query.fromMillis() >= query.toMillis()) {
+            throw new ValidationException(CLICKS_INCORRECT_RANGE_MESSAGE);
+        }
+
+        if (clickArchive.isEmpty()) {
+            return clickEventRepository.countGrouped(query, 0L);
+        }
+        ClickArchive archive = clickArchive.get();
+
+        // The archiver deletes clicks from Postgres only after appending their segment, so if the watermark
+        // did not move while counting in Postgres, no click newer than the snapshot was missing there
+        ClickArchive.Snapshot snapshot;
+        Map<Long, Long> liveCounts;
+        do {
+            snapshot = archive.snapshot();
+            liveCounts = clickEventRepository.countGrouped(query, snapshot.watermark());
+        } while (archive.snapshot().watermark() != snapshot.watermark());
+
+        Map<Long, Long> counts = archive.query(snapshot, query);
+        liveCounts.forEach((key, count) -> counts.merge(key, count, Long::sum));
+        return counts;
+    }
+
+    /**
+     * Helper method to build the response from grouped click counts.
+     *
+     * @param counts   click counts by group key
+     * @param grouping the grouping used for the query
+     * @param codes    short URL codes by URL id, used to label {@link ClickGrouping#URL} groups
+     * @return a {@link StatsClicksResponse} with groups ordered by time or by click count
+     */
+    private StatsClicksResponse createResponse(Map<Long, Long> counts, ClickGrouping grouping, Map<Long, String> codes) {
+        long totalClicks = counts.values().stream().mapToLong(Long::longValue).sum();
+
+        Comparator<Map.Entry<Long, Long>> order = grouping == ClickGrouping.URL
+                ? Map.Entry.<Long, Long>comparingByValue().reversed()
+                : Map.Entry.comparingByKey();
+
+        List<StatsClicksGroupDto> groups = counts.entrySet().stream()
+                .sorted(order)
+                .map(entry -> new StatsClicksGroupDto(label(entry.getKey(), grouping, codes), entry.getValue()))
+                .toList();
+
+        return StatsClicksResponse.createSuccessResponse(totalClicks, groups);
+    }
+
+    private static String label(long key, ClickGrouping grouping, Map<Long, String> codes) {
+        if (grouping.isTimeBased()) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(key), ZoneOffset.UTC).toString();
+        }
+        if (grouping == ClickGrouping.URL) {
+            return codes.getOrDefault(key, String.valueOf(key));
+        }
+        return TOTAL_GROUP_KEY;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -5,9 +5,14 @@ import com.jawisimo.urlshortener.security.provider.SecurityContextProvider;
 import com.jawisimo.urlshortener.url.Url;
 import com.jawisimo.urlshortener.url.UrlMapper;
 import com.jawisimo.urlshortener.url.UrlRepository;
+import com.jawisimo.urlshortener.url.archive.UrlArchiveRepository;
 import com.jawisimo.urlshortener.url.dto.statistics.StatsListUrlResponse;
+import com.jawisimo.urlshortener.url.dto.statistics.StatsSummaryResponse;
 import com.jawisimo.urlshortener.url.dto.statistics.StatsUrlDto;
 import com.jawisimo.urlshortener.url.dto.statistics.StatsVisitsUrlResponse;
+import com.jawisimo.urlshortener.url.shard.ShardedUrlRepository;
+import com.jawisimo.urlshortener.url.summary.StatsResponseCache;
+import com.jawisimo.urlshortener.url.summary.UserUrlSummary;
 import com.jawisimo.urlshortener.user.User;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -24,7 +29,9 @@ import static com.jawisimo.urlshortener.util.MessageProvider.URL_NOT_FOUND_MESSA
  * Service for managing URL statistics in the URL shortener application.
  * <p>
  * Provides methods for retrieving statistics about URLs created by the authenticated user,
- * including all URLs, active URLs, and the number of visits for a specific short URL.
+ * including all URLs, active URLs, the number of visits for a specific short URL and the per-user summary.
+ * Responses are cached per user and version stamp, and the same stamp is exposed as an ETag so that
+ * unchanged statistics can be answered with {@code 304 Not Modified} before any URL is loaded.
  * </p>
  */
 @Service
@@ -33,13 +40,36 @@ public class StatsService {
     private final UrlRepository urlRepository;
     private final SecurityContextProvider contextProvider;
     private final UrlMapper urlMapper;
+    private final UrlSummaryService urlSummaryService;
+    private final StatsResponseCache responseCache;
+    private final UrlArchiveRepository urlArchiveRepository;
+    private final ShardedUrlRepository shardedUrlRepository;
     private static final long INITIAL_VISITS_COUNT = 0L;
+    private static final String ALL_URLS_VIEW = "all";
+    private static final String ACTIVE_URLS_VIEW = "active";
+    private static final String VISITS_VIEW_PREFIX = "visits:";
+
+    /**
+     * Computes the strong ETag of the statistics of the authenticated user.
+     * <p>
+     * The ETag changes with every URL change and visit flush of the user, and with every visit
+     * counted on this instance. It costs a single primary key lookup.
+     * </p>
+     *
+     * @return the quoted ETag value
+     */
+    @Transactional(readOnly = true)
+    public String getETag() {
+        User user = contextProvider.getAuthenticatedUser();
+        return "\"" + user.getId() + "-" + urlSummaryService.getVersionStamp(user.getId()) + "\"";
+    }
 
     /**
      * Retrieves statistics for all URLs created by the authenticated user.
      * <p>
      * This method returns a list of all URLs created by the user along with the total number of visits
      * for each URL. It is used to get an overview of the user's URLs and their visit statistics.
+     * The total number of visits is taken from the materialized user summary.
      * </p>
      *
      * @return a {@link StatsListUrlResponse} containing a list of all URLs and their visit statistics
@@ -47,17 +77,42 @@ public class StatsService {
     @Transactional(readOnly = true)
     public StatsListUrlResponse getAllUrls() {
         User user = contextProvider.getAuthenticatedUser();
-        List<Url> urls = urlRepository.findAllUrlsByUserId(user.getId());
+        String version = urlSummaryService.getVersionStamp(user.getId());
+        return responseCache.get(user.getId(), ALL_URLS_VIEW, version, () -> loadAllUrls(user));
+    }
+
+    /**
+     * Helper method to build the response of {@link #getAllUrls()} on a cache miss.
+     *
+     * @param user the authenticated user
+     * @return a {@link StatsListUrlResponse} containing all URLs of the user
+     */
+    private StatsListUrlResponse loadAllUrls(User user) {
+        List<Url> urls = findAllUrls(user);
 
         List<StatsUrlDto> statsUrlDtos = createStatsUrlDtos(urls);
 
-        long totalVisits = statsUrlDtos.stream()
-                .map(StatsUrlDto::getVisits)
-                .reduce(INITIAL_VISITS_COUNT, Long::sum);
+        long totalVisits = urlSummaryService.getSummary(user.getId()).totalVisits();
 
         return StatsListUrlResponse.createSuccessResponse(totalVisits, statsUrlDtos);
     }
 
+    /**
+     * Retrieves the URL summary of the authenticated user.
+     * <p>
+     * The summary is maintained incrementally, so this method does not load any URLs.
+     * </p>
+     *
+     * @return a {@link StatsSummaryResponse} with the total and active URL counts and the total number of visits
+     */
+    @Transactional(readOnly = true)
+    public StatsSummaryResponse getSummary() {
+        User user = contextProvider.getAuthenticatedUser();
+        UserUrlSummary summary = urlSummaryService.getSummary(user.getId());
+        return StatsSummaryResponse.createSuccessResponse(
+                summary.totalUrls(), summary.activeUrls(), summary.totalVisits());
+    }
+
     /**
      * Retrieves statistics for all active (non-expired) URLs created by the authenticated user.
      * <p>
@@ -70,8 +125,18 @@ public class StatsService {
     @Transactional(readOnly = true)
     public StatsListUrlResponse getActiveUrls() {
         User user = contextProvider.getAuthenticatedUser();
+        String version = urlSummaryService.getVersionStamp(user.getId());
+        return responseCache.get(user.getId(), ACTIVE_URLS_VIEW, version, () -> loadActiveUrls(user));
+    }
 
-        List<Url> urls = urlRepository.findAllUrlsByUserId(user.getId());
+    /**
+     * Helper method to build the response of {@link #getActiveUrls()} on a cache miss.
+     *
+     * @param user the authenticated user
+     * @return a {@link StatsListUrlResponse} containing the active URLs of the user
+     */
+    private StatsListUrlResponse loadActiveUrls(User user) {
+        List<Url> urls = findAllUrls(user);
         List<StatsUrlDto> activeStatsUrlDtos = createActiveStatsUrlDtos(urls);
 
         long totalVisits = activeStatsUrlDtos.stream()
@@ -94,15 +159,53 @@ public class StatsService {
      */
     @Transactional(readOnly = true)
     public StatsVisitsUrlResponse getVisitsByShortUrl(String shortUrlCode) {
-    User user = contextProvider.getAuthenticatedUser();
+        User user = contextProvider.getAuthenticatedUser();
+        String version = urlSummaryService.getVersionStamp(user.getId());
+        return responseCache.get(user.getId(), VISITS_VIEW_PREFIX + shortUrlCode, version,
+                () -> loadVisitsByShortUrl(user, shortUrlCode));
+    }
+
+    /**
+     * Helper method to build the response of {@link #getVisitsByShortUrl(String)} on a cache miss.
+     *
+     * @param user         the authenticated user
+     * @param shortUrlCode the short URL code
+     * @return a {@link StatsVisitsUrlResponse} containing the visit count of the URL
+     * @throws ResourceNotFoundException if the URL is not found or does not belong to the user
+     */
+    private StatsVisitsUrlResponse loadVisitsByShortUrl(User user, String shortUrlCode) {
+        if (shardedUrlRepository.isEnabled()) {
+            Url url = shardedUrlRepository.findByShortUrlCode(shortUrlCode, user)
+                    .orElseThrow(() -> new ResourceNotFoundException(URL_NOT_FOUND_MESSAGE));
+            return StatsVisitsUrlResponse.createSuccessResponse(url.getVisits());
+        }
 
-    Url url = urlRepository.findUrlByShortUrlCode(shortUrlCode)
-        .filter(u -> u.getUser().getLogin().equals(user.getLogin()))
-        .orElseThrow(() -> new ResourceNotFoundException(URL_NOT_FOUND_MESSAGE));
+        Url url = urlRepository.findUrlByShortUrlCode(shortUrlCode)
+                .filter(u -> u.getUser().getLogin().equals(user.getLogin()))
+                .or(() -> urlArchiveRepository.findByShortUrlCode(shortUrlCode, user))
+                .orElseThrow(() -> new ResourceNotFoundException(URL_NOT_FOUND_MESSAGE));
 
-    return StatsVisitsUrlResponse.createSuccessResponse(url.getVisits());
-}
+        return StatsVisitsUrlResponse.createSuccessResponse(url.getVisits());
+    }
 
+    /**
+     * Helper method to load all URLs of a user, archived URLs included.
+     * <p>
+     * Archived URLs are read in place; only visits move them back. With sharding enabled the URLs are
+     * gathered from all shards instead.
+     * </p>
+     *
+     * @param user the authenticated user
+     * @return the URLs of the user
+     */
+    private List<Url> findAllUrls(User user) {
+        if (shardedUrlRepository.isEnabled()) {
+            return shardedUrlRepository.findAllByUser(user);
+        }
+        List<Url> urls = new ArrayList<>(urlRepository.findAllUrlsByUserId(user.getId()));
+        urls.addAll(urlArchiveRepository.findAllByUser(user));
+        return urls;
+    }
 
     /**
      * Helper method to create a list of {@link StatsUrlDto} for all URLs, including their active status.
@@ -4,17 +4,27 @@ import com.jawisimo.urlshortener.error.exception.ResourceNotFoundException;
 import com.jawisimo.urlshortener.error.exception.ValidationException;
 import com.jawisimo.urlshortener.security.provider.SecurityContextProvider;
 import com.jawisimo.urlshortener.url.*;
+import com.jawisimo.urlshortener.url.archive.UrlArchiveRepository;
+import com.jawisimo.urlshortener.url.click.ClickEventRecorder;
+import com.jawisimo.urlshortener.url.codenum.CodeNumBackfill;
+import com.jawisimo.urlshortener.url.dedupe.UrlDeduplicator;
 import com.jawisimo.urlshortener.url.dto.operations.GetShortUrlRequest;
 import com.jawisimo.urlshortener.url.dto.operations.UpdateUrlRequest;
 import com.jawisimo.urlshortener.url.dto.operations.UrlDto;
 import com.jawisimo.urlshortener.url.dto.operations.UrlResponse;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
+import com.jawisimo.urlshortener.url.shard.ShardedUrlRepository;
+import com.jawisimo.urlshortener.url.store.UrlStore;
 import com.jawisimo.urlshortener.user.User;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 
 import static com.jawisimo.urlshortener.util.MessageProvider.*;
 
@@ -34,12 +44,24 @@ public class UrlService {
     private final LongUrlValidator urlValidator;
     private final ShortUrlCodeGenerator urlGenerator;
     private final UrlMapper urlMapper;
+    private final ClickEventRecorder clickEventRecorder;
+    private final UrlSummaryService urlSummaryService;
+    private final UrlDeduplicator urlDeduplicator;
+    private final UrlCounterRepository urlCounterRepository;
+    private final CodeNumBackfill codeNumBackfill;
+    private final LongUrlRepository longUrlRepository;
+    private final UrlArchiveRepository urlArchiveRepository;
+    private final ShardedUrlRepository shardedUrlRepository;
+    private final UrlStore urlStore;
+    private final TransactionOperations transactionOperations;
 
     /**
      * Generates a short URL code for a given long URL and stores the URL in the repository.
      * <p>
      * This method takes a long URL and generates a unique short URL code. The URL is then stored in the database.
      * If an expiration date is provided, it is validated to ensure it's in the future.
+     * In dedupe mode an existing URL of the user with the same long URL and expiration date is returned instead.
+     * With sharding enabled the URL is stored on the shard of its code, without deduplication.
      * </p>
      *
      * @param request the {@link GetShortUrlRequest} containing the long URL and expiration date
@@ -49,14 +71,13 @@ public class UrlService {
     @Transactional
     public UrlResponse getShortUrlCodeFromLongUrl(GetShortUrlRequest request) {
         User user = contextProvider.getAuthenticatedUser();
-        String longUrl = request.getLongUrl();
-        urlValidator.validateLongUrl(longUrl);
+        String longUrl = urlValidator.validateLongUrl(request.getLongUrl());
         String shortUrlCode;
 
         // Generate unique short URL code
         do {
             shortUrlCode = urlGenerator.generateShortUrlCode();
-        } while (urlRepository.existsUrlByShortUrlCode(shortUrlCode));
+        } while (isShortUrlCodeTaken(shortUrlCode));
 
         LocalDateTime expiresAt = request.getExpiresAt();
 
@@ -64,22 +85,63 @@ public class UrlService {
             throw new ValidationException(URL_INCORRECT_EXPIRES_AT_MESSAGE);
         }
 
-        // Create and save URL entity
+        if (shardedUrlRepository.isEnabled()) {
+            Url url = shardedUrlRepository.insert(Url.builder()
+                    .shortUrlCode(shortUrlCode)
+                    .longUrl(longUrl)
+                    .expiresAt(expiresAt)
+                    .user(user)
+                    .build());
+            urlSummaryService.onUrlCreated(url);
+            return UrlResponse.createSuccessResponse(urlMapper.mapToUrlDto(url));
+        }
+
+        if (urlDeduplicator.isEnabled()) {
+            Optional<UrlDeduplicator.Result> result =
+                    urlDeduplicator.createOrFind(shortUrlCode, longUrl, expiresAt, user);
+            if (result.isPresent()) {
+                if (result.get().created()) {
+                    urlSummaryService.onUrlCreated(result.get().url());
+                }
+                return UrlResponse.createSuccessResponse(urlMapper.mapToUrlDto(result.get().url()));
+            }
+        }
+
+        // Create and save URL entity, referring to the shared copy of the long URL
         Url url = Url.builder()
                 .shortUrlCode(shortUrlCode)
                 .longUrl(longUrl)
+                .longUrlId(longUrlRepository.acquire(longUrl))
                 .expiresAt(expiresAt)
                 .user(user)
                 .build();
         urlRepository.save(url);
+        urlSummaryService.onUrlCreated(url);
         return UrlResponse.createSuccessResponse(urlMapper.mapToUrlDto(url));
     }
 
+    /**
+     * Helper method to check whether a short URL code is taken, by a URL on its shard if sharding is enabled,
+     * or else by a URL or an archived URL.
+     *
+     * @param shortUrlCode the short URL code
+     * @return {@code true} if the code is taken
+     */
+    private boolean isShortUrlCodeTaken(String shortUrlCode) {
+        if (shardedUrlRepository.isEnabled()) {
+            return shardedUrlRepository.existsByShortUrlCode(shortUrlCode);
+        }
+        return urlRepository.existsUrlByShortUrlCode(shortUrlCode)
+                || urlArchiveRepository.existsByShortUrlCode(shortUrlCode);
+    }
+
     /**
      * Retrieves the long URL corresponding to the given short URL code.
      * <p>
      * This method checks if the short URL exists in the database and if it is still valid (not expired).
-     * The long URL is returned if the short URL is found and valid.
+     * The long URL is returned if the short URL is found and valid. An archived URL is moved back first.
+     * With an enabled {@link UrlStore} the code is resolved from the store without touching the database,
+     * which is only queried, in a transaction of its own, for codes the store does not hold.
      * </p>
      *
      * @param shortUrlCode the short URL code
@@ -87,29 +149,109 @@ public class UrlService {
      * @throws ResourceNotFoundException if the short URL code does not exist
      * @throws ValidationException if the short URL has expired
      */
-    @Transactional
     public UrlResponse getLongUrlFromShortUrl(String shortUrlCode) {
         if (Objects.isNull(shortUrlCode) || shortUrlCode.isEmpty()) {
             throw new ValidationException(URL_INCORRECT_MESSAGE);
         }
 
-        Url url = urlRepository.findUrlByShortUrlCode(shortUrlCode)
-                .orElseThrow(() -> new ResourceNotFoundException(URL_NOT_FOUND_MESSAGE));
+        if (urlStore.isEnabled()) {
+            Optional<Url> stored = urlStore.findByShortUrlCode(shortUrlCode);
+            if (stored.isPresent()) {
+                validateNotExpired(stored.get());
+                urlStore.incrementVisits(stored.get());
+                return recordVisit(stored.get());
+            }
+        }
+        return transactionOperations.execute(status -> resolveFromDatabase(shortUrlCode));
+    }
 
-        LocalDateTime expiresAt = url.getExpiresAt();
+    /**
+     * Helper method to resolve a short URL code from the database and count the visit there.
+     *
+     * @param shortUrlCode the short URL code
+     * @return a {@link UrlResponse} containing the long URL
+     * @throws ResourceNotFoundException if the short URL code does not exist
+     * @throws ValidationException if the short URL has expired
+     */
+    private UrlResponse resolveFromDatabase(String shortUrlCode) {
+        Optional<Url> found = shardedUrlRepository.isEnabled()
+                ? shardedUrlRepository.findByShortUrlCode(shortUrlCode)
+                : findUrlToResolve(shortUrlCode).or(() -> restoreArchived(shortUrlCode, this::findUrlToResolve));
+        Url url = found.orElseThrow(() -> new ResourceNotFoundException(URL_NOT_FOUND_MESSAGE));
+        validateNotExpired(url);
+
+        // Increment the visit count in the counters table, the URL itself is not rewritten
+        if (shardedUrlRepository.isEnabled()) {
+            shardedUrlRepository.incrementVisits(url);
+        } else {
+            urlCounterRepository.incrementVisits(url.getId());
+        }
+        return recordVisit(url);
+    }
 
-        // Check if the URL is expired
+    /**
+     * Helper method to reject a URL that has expired.
+     *
+     * @param url the resolved URL
+     * @throws ValidationException if the URL has expired
+     */
+    private void validateNotExpired(Url url) {
+        LocalDateTime expiresAt = url.getExpiresAt();
         if (Objects.nonNull(expiresAt) && expiresAt.isBefore(LocalDateTime.now())) {
             throw new ValidationException(URL_EXPIRED_MESSAGE);
         }
+    }
 
-        // Increment the visit count and save the URL
-        url.setVisits(url.getVisits() + 1);
-        urlRepository.save(url);
+    /**
+     * Helper method to record the click and the summary visit of a resolved URL.
+     *
+     * @param url the resolved URL
+     * @return a {@link UrlResponse} containing the long URL
+     */
+    private UrlResponse recordVisit(Url url) {
+        clickEventRecorder.record(url.getId(), url.getUser().getId());
+        urlSummaryService.onUrlVisited(url.getUser().getId());
         UrlDto urlDto = UrlDto.builder().longUrl(url.getLongUrl()).build();
         return UrlResponse.createSuccessResponse(urlDto);
     }
 
+    /**
+     * Helper method to find the URL of a short URL code by its numeric code.
+     * <p>
+     * The text code is only used if the code has no numeric form, or if the URL was not found while
+     * the code numbers of older URLs are still being backfilled.
+     * </p>
+     *
+     * @param shortUrlCode the short URL code
+     * @return the URL, or empty if it does not exist
+     */
+    private Optional<Url> findUrlToResolve(String shortUrlCode) {
+        long codeNum = Base62Codec.decode(shortUrlCode);
+        if (codeNum == Base62Codec.INVALID) {
+            return urlRepository.findUrlByShortUrlCode(shortUrlCode);
+        }
+        Optional<Url> url = urlRepository.findUrlByShortUrlCodeAndCodeNum(shortUrlCode, codeNum);
+        if (url.isEmpty() && !codeNumBackfill.isComplete()) {
+            return urlRepository.findUrlByShortUrlCode(shortUrlCode);
+        }
+        return url;
+    }
+
+    /**
+     * Helper method to move an archived URL back and load it.
+     * <p>
+     * The URL is loaded even if it was not moved here, since a concurrent request may just have moved it.
+     * </p>
+     *
+     * @param shortUrlCode the short URL code
+     * @param finder       the lookup of the URL by its short URL code
+     * @return the URL, or empty if it exists neither in the archive nor in the URLs
+     */
+    private Optional<Url> restoreArchived(String shortUrlCode, Function<String, Optional<Url>> finder) {
+        urlArchiveRepository.restore(shortUrlCode);
+        return finder.apply(shortUrlCode);
+    }
+
     /**
      * Updates the expiration date and/or short URL code of an existing URL.
      * <p>
@@ -126,9 +268,7 @@ public class UrlService {
     public UrlResponse updateUrl(UpdateUrlRequest request) {
         User user = contextProvider.getAuthenticatedUser();
 
-        Url url = urlRepository.findUrlByShortUrlCode(request.getShortUrlCode())
-                .filter(u -> u.getUser().getLogin().equals(user.getLogin()))
-                .orElseThrow(() -> new ResourceNotFoundException(URL_NOT_FOUND_MESSAGE));
+        Url url = findUrlToChange(request.getShortUrlCode(), user);
 
         LocalDateTime expiresAt = request.getExpiresAt();
 
@@ -136,6 +276,9 @@ public class UrlService {
             throw new ValidationException(URL_INCORRECT_EXPIRES_AT_MESSAGE);
         }
 
+        LocalDateTime oldExpiresAt = url.getExpiresAt();
+        String oldShortUrlCode = url.getShortUrlCode();
+
         // Update URL properties
         String newShortUrlCode = urlGenerator.generateShortUrlCode();
         url.setShortUrlCode(newShortUrlCode);
@@ -144,9 +287,16 @@ public class UrlService {
         // so as not to set the value to an existing date
         if (Objects.nonNull(expiresAt)) {
             url.setExpiresAt(expiresAt);
+            // A deduplicated URL with a new expiration date no longer stands for the original request
+            url.setLongUrlHash(null);
         }
 
-        urlRepository.save(url);
+        if (shardedUrlRepository.isEnabled()) {
+            shardedUrlRepository.update(url, oldShortUrlCode);
+        } else {
+            urlRepository.save(url);
+        }
+        urlSummaryService.onUrlUpdated(url, oldExpiresAt);
         return UrlResponse.createSuccessResponse(urlMapper.mapToUrlDto(url));
     }
 
@@ -163,9 +313,33 @@ public class UrlService {
     @Transactional
     public void deleteUrl(String shortUrlCode) {
         User user = contextProvider.getAuthenticatedUser();
-        Url url = urlRepository.findUrlByShortUrlCode(shortUrlCode)
-                .filter(u -> u.getUser().getLogin().equals(user.getLogin()))
+        Url url = findUrlToChange(shortUrlCode, user);
+        if (shardedUrlRepository.isEnabled()) {
+            shardedUrlRepository.delete(url);
+        } else {
+            urlRepository.delete(url);
+        }
+        urlSummaryService.onUrlDeleted(url);
+    }
+
+    /**
+     * Helper method to find a URL of the user for an update or deletion.
+     * <p>
+     * The URL is looked up on its shard if sharding is enabled, and otherwise in the URLs, moving it back
+     * from the archive if necessary.
+     * </p>
+     *
+     * @param shortUrlCode the short URL code
+     * @param user         the authenticated user
+     * @return the URL
+     * @throws ResourceNotFoundException if the URL does not exist or does not belong to the user
+     */
+    private Url findUrlToChange(String shortUrlCode, User user) {
+        Optional<Url> url = shardedUrlRepository.isEnabled()
+                ? shardedUrlRepository.findByShortUrlCode(shortUrlCode, user)
+                : urlRepository.findUrlByShortUrlCode(shortUrlCode)
+                .or(() -> restoreArchived(shortUrlCode, urlRepository::findUrlByShortUrlCode));
+        return url.filter(u -> u.getUser().getLogin().equals(user.getLogin()))
                 .orElseThrow(() -> new ResourceNotFoundException(URL_NOT_FOUND_MESSAGE));
-        urlRepository.delete(url);
     }
 }
@@ -0,0 +1,116 @@
+package com.jawisimo.urlshortener.url.service;
+
+import com.jawisimo.urlshortener.url.Url;
+import com.jawisimo.urlshortener.url.summary.UserUrlSummary;
+import com.jawisimo.urlshortener.url.summary.UserUrlSummaryRepository;
+import com.jawisimo.urlshortener.url.summary.VisitCountBuffer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Service maintaining the materialized per-user URL summary.
+ * <p>
+ * URL changes are accounted in the transaction of the change itself, visits are added by the
+ * {@link VisitCountBuffer} flush and expirations by the {@code UrlExpirySweeper}.
+ * Reading a summary is a single primary key lookup, independent of the number of URLs.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class UrlSummaryService {
+    private final UserUrlSummaryRepository summaryRepository;
+    private final VisitCountBuffer visitCountBuffer;
+
+    /**
+     * Returns the current summary of the given user, including visits not flushed yet.
+     *
+     * @param userId the owner id
+     * @return the user summary, all zeros if the user has no URLs
+     */
+    @Transactional(readOnly = true)
+    public UserUrlSummary getSummary(long userId) {
+        return summaryRepository.findByUserId(userId)
+                .orElseGet(() -> UserUrlSummary.empty(userId))
+                .withPendingVisits(visitCountBuffer.pending(userId));
+    }
+
+    /**
+     * Returns a stamp that changes whenever the statistics of the given user may have changed.
+     * <p>
+     * The stamp combines the summary version, bumped by every URL change and visit flush, with the
+     * number of visits this instance has buffered for the user, so local visits are visible immediately.
+     * Visits buffered on other instances become visible with their next flush.
+     * </p>
+     *
+     * @param userId the owner id
+     * @return the version stamp
+     */
+    @Transactional(readOnly = true)
+    public String getVersionStamp(long userId) {
+        return summaryRepository.findVersion(userId) + "." + visitCountBuffer.pending(userId);
+    }
+
+    /**
+     * Accounts a newly created URL.
+     *
+     * @param url the saved URL
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onUrlCreated(Url url) {
+        LocalDateTime watermark = summaryRepository.findExpiryWatermark();
+        summaryRepository.applyDelta(url.getUser().getId(), 1L, isActive(url.getExpiresAt(), watermark) ? 1L : 0L, 0L);
+    }
+
+    /**
+     * Accounts an updated URL.
+     * <p>
+     * The summary is touched even if the counts do not change, because the update changes the short URL
+     * code and thus the statistics responses of the user.
+     * </p>
+     *
+     * @param url          the updated URL
+     * @param oldExpiresAt the expiration date before the update
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onUrlUpdated(Url url, LocalDateTime oldExpiresAt) {
+        LocalDateTime watermark = summaryRepository.findExpiryWatermark();
+        long activeDelta = (isActive(url.getExpiresAt(), watermark) ? 1L : 0L)
+                - (isActive(oldExpiresAt, watermark) ? 1L : 0L);
+        summaryRepository.applyDelta(url.getUser().getId(), 0L, activeDelta, 0L);
+    }
+
+    /**
+     * Accounts a deleted URL.
+     * <p>
+     * The visits of the URL are subtracted from the summary. Visits of the owner that are still buffered
+     * are left to the next flush: the changes are additive, so the flush adds what is subtracted here, and
+     * a rolled back deletion loses no visits.
+     * </p>
+     *
+     * @param url the deleted URL
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onUrlDeleted(Url url) {
+        LocalDateTime watermark = summaryRepository.findExpiryWatermark();
+        summaryRepository.applyDelta(url.getUser().getId(), -1L, isActive(url.getExpiresAt(), watermark) ? -1L : 0L,
+                -url.getVisits());
+    }
+
+    /**
+     * Counts a visit to a URL of the given owner; the summary is updated by the next buffer flush.
+     *
+     * @param userId the URL owner id
+     */
+    public void onUrlVisited(long userId) {
+        visitCountBuffer.increment(userId);
+    }
+
+    private static boolean isActive(LocalDateTime expiresAt, LocalDateTime watermark) {
+        return Objects.isNull(expiresAt) || expiresAt.isAfter(watermark);
+    }
+}
@@ -0,0 +1,71 @@
+package com.jawisimo.urlshortener.url.shard;
+
+/**
+ * Maps short URL codes to shards with the jump consistent hash of Lamping and Veach.
+ * <p>
+ * The mapping needs no table and is stable: growing from {@code n} to {@code n + 1} shards moves only
+ * the codes that now belong to the new shard, about {@code 1 / (n + 1)} of them, and never moves a code
+ * between old shards. The code is first reduced to a 64-bit key by FNV-1a with a final bit mix, which
+ * is fixed by this class and therefore the same on every node and version.
+ * </p>
+ */
+public final class JumpConsistentHash {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long JUMP_MULTIPLIER = 2862933555777941757L;
+
+    private JumpConsistentHash() {
+    }
+
+    /**
+     * Returns the shard of a short URL code.
+     *
+     * @param shortUrlCode the short URL code
+     * @param shards       the number of shards
+     * @return the shard index, from {@code 0} to {@code shards - 1}
+     * @throws IllegalArgumentException if the number of shards is not positive
+     */
+    public static int shardOf(CharSequence shortUrlCode, int shards) {
+        return shardOf(keyOf(shortUrlCode), shards);
+    }
+
+    /**
+     * Returns the shard of a 64-bit key.
+     *
+     * @param key    the key
+     * @param shards the number of shards
+     * @return the shard index, from {@code 0} to {@code shards - 1}
+     * @throws IllegalArgumentException if the number of shards is not positive
+     */
+    public static int shardOf(long key, int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("Number of shards must be positive: " + shards);
+        }
+        long bucket = -1L;
+        long next = 0L;
+        while (next < shards) {
+            bucket = next;
+            key = key * JUMP_MULTIPLIER + 1L;
+            next = (long) ((bucket + 1L) * ((double) (1L << 31) / (double) ((key >>> 33) + 1L)));
+        }
+        return (int) bucket;
+    }
+
+    /**
+     * Reduces a short URL code to its 64-bit key.
+     *
+     * @param shortUrlCode the short URL code
+     * @return the key
+     */
+    static long keyOf(CharSequence shortUrlCode) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < shortUrlCode.length(); i++) {
+            hash = (hash ^ shortUrlCode.charAt(i)) * FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+}
@@ -0,0 +1,82 @@
+package com.jawisimo.urlshortener.url.shard;
+
+import com.jawisimo.urlshortener.url.shard.ShardedUrlRepository.ShardedUrl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Background job moving URLs to the shard their code belongs to after shards were added.
+ * <p>
+ * To add shards, append their JDBC URLs to {@code datasource.shards.urls}, set
+ * {@code datasource.shards.previous-count} to the former number of shards and enable the rebalance on
+ * one node. Lookups try the former shard of a code until the move is done. Each run walks every shard in
+ * id order and moves the URLs that now belong elsewhere; with {@link JumpConsistentHash} these all move to
+ * the new shards. Each URL is moved from the row deleted on its shard, not from the batch read before.
+ * The first run that moves nothing logs that the rebalance is complete, after which the previous count and
+ * the rebalance are to be removed from the configuration.
+ * </p>
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "datasource.shards.rebalance.enabled", havingValue = "true")
+public class ShardRebalancer {
+    private final UrlShards urlShards;
+    private final ShardedUrlRepository shardedUrlRepository;
+    private final int batchSize;
+    private boolean complete;
+
+    public ShardRebalancer(UrlShards urlShards,
+                           ShardedUrlRepository shardedUrlRepository,
+                           @Value("${datasource.shards.rebalance.batch-size:1000}") int batchSize) {
+        this.urlShards = urlShards;
+        this.shardedUrlRepository = shardedUrlRepository;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Moves all URLs stored on a shard other than their own.
+     *
+     * @return the number of moved URLs
+     */
+    @Scheduled(fixedDelayString = "${datasource.shards.rebalance.interval-ms:60000}")
+    public synchronized long rebalance() {
+        long moved = 0L;
+        for (int shard = 0; shard < urlShards.count(); shard++) {
+            moved += rebalanceShard(shard);
+        }
+
+        if (moved > 0) {
+            log.info("Moved {} URLs to their shards", moved);
+        } else if (!complete) {
+            log.info("Shard rebalance complete, every URL is stored on its shard");
+        } else {
+            log.debug("Shard rebalance found no URLs to move");
+        }
+        complete = moved == 0;
+        return moved;
+    }
+
+    private long rebalanceShard(int shard) {
+        long moved = 0L;
+        long lastId = 0L;
+        List<ShardedUrl> batch;
+        do {
+            batch = shardedUrlRepository.findBatch(shard, lastId, batchSize);
+            for (ShardedUrl stored : batch) {
+                int target = urlShards.shardOf(stored.url().getShortUrlCode());
+                if (target != shard && shardedUrlRepository.move(shard, target, stored.url().getId())) {
+                    moved++;
+                }
+            }
+            if (!batch.isEmpty()) {
+                lastId = batch.getLast().url().getId();
+            }
+        } while (batch.size() == batchSize);
+        return moved;
+    }
+}
@@ -0,0 +1,396 @@
+package com.jawisimo.urlshortener.url.shard;
+
+import com.jawisimo.urlshortener.url.Url;
+import com.jawisimo.urlshortener.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+
+/**
+ * JDBC repository for URLs stored on the {@link UrlShards}.
+ * <p>
+ * A URL is read and written on the shard of its short URL code; during a rebalance the former shard is
+ * tried as well. The URLs of a user are spread over all shards, so listing them queries every shard in
+ * parallel and merges the sorted results into keyset pages. Ids are taken from the sequence of the
+ * primary database and stay unique over all shards, so click events keep referring to URLs by id.
+ * </p>
+ * <p>
+ * The owners, click events and user summaries stay in the primary database. Shard writes are not part of
+ * the primary transaction; a failing primary transaction leaves the shard change in place.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class ShardedUrlRepository {
+    private static final String COLUMNS = "id, short_url_code, long_url, user_id, visits, created_at, expires_at";
+    private static final String INSERT_SQL =
+            "INSERT INTO urls (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING";
+    private static final String FIND_BY_CODE_SQL = "SELECT " + COLUMNS + " FROM urls WHERE short_url_code = ?";
+    private static final String FIRST_PAGE_SQL =
+            "SELECT " + COLUMNS + " FROM urls WHERE user_id = ? ORDER BY created_at, short_url_code LIMIT ?";
+    private static final String NEXT_PAGE_SQL =
+            "SELECT " + COLUMNS + " FROM urls WHERE user_id = ? AND (created_at, short_url_code) > (?, ?) " +
+                    "ORDER BY created_at, short_url_code LIMIT ?";
+    private static final String BATCH_SQL = "SELECT " + COLUMNS + " FROM urls WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String DELETE_RETURNING_SQL = "DELETE FROM urls WHERE id = ? RETURNING " + COLUMNS;
+    private static final String COUNT_EXPIRED_SQL =
+            "SELECT user_id, count(*) FROM urls WHERE expires_at > ? AND expires_at <= ? GROUP BY user_id";
+    private static final Comparator<Url> PAGE_ORDER =
+            Comparator.comparing(Url::getCreatedAt).thenComparing(Url::getShortUrlCode);
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    private final UrlShards urlShards;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return {@code true} if URLs are stored on shards
+     */
+    public boolean isEnabled() {
+        return urlShards.isEnabled();
+    }
+
+    /**
+     * Checks whether a short URL code is taken on its shard.
+     *
+     * @param shortUrlCode the short URL code
+     * @return {@code true} if a URL has this code
+     */
+    public boolean existsByShortUrlCode(String shortUrlCode) {
+        return find(shortUrlCode).isPresent();
+    }
+
+    /**
+     * Stores a new URL on the shard of its code, setting its id and creation date.
+     *
+     * @param url the new URL with its owner
+     * @return the stored URL
+     */
+    public Url insert(Url url) {
+        url.setId(Objects.requireNonNull(jdbcTemplate.queryForObject("SELECT nextval('urls_id_seq')", Long.class)));
+        url.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        insert(urlShards.shardOf(url.getShortUrlCode()), url);
+        return url;
+    }
+
+    /**
+     * Loads a URL by its short URL code.
+     *
+     * @param shortUrlCode the short URL code
+     * @return the URL with an owner carrying only its id, or empty if no URL has this code
+     */
+    public Optional<Url> findByShortUrlCode(String shortUrlCode) {
+        return find(shortUrlCode).map(ShardedUrl::url);
+    }
+
+    /**
+     * Loads a URL of the given owner by its short URL code.
+     *
+     * @param shortUrlCode the short URL code
+     * @param owner        the owner
+     * @return the URL with the given owner, or empty if the owner has no URL with this code
+     */
+    public Optional<Url> findByShortUrlCode(String shortUrlCode, User owner) {
+        return findByShortUrlCode(shortUrlCode)
+                .filter(url -> url.getUser().getId().equals(owner.getId()))
+                .map(url -> {
+                    url.setUser(owner);
+                    return url;
+                });
+    }
+
+    /**
+     * Adds one visit to a URL.
+     *
+     * @param url the visited URL
+     */
+    public void incrementVisits(Url url) {
+        forEachShardOf(url.getShortUrlCode(), shard -> urlShards.jdbc(shard)
+                .update("UPDATE urls SET visits = visits + 1 WHERE id = ?", url.getId()));
+    }
+
+    /**
+     * Stores the changed short URL code and expiration date of a URL.
+     * <p>
+     * A URL whose new code belongs to another shard is moved there. A URL moved by a rebalance meanwhile
+     * is looked up again.
+     * </p>
+     *
+     * @param url             the changed URL
+     * @param oldShortUrlCode the short URL code before the change
+     */
+    public void update(Url url, String oldShortUrlCode) {
+        int newShard = urlShards.shardOf(url.getShortUrlCode());
+        Optional<ShardedUrl> stored = find(oldShortUrlCode);
+        if (stored.isEmpty()) {
+            return;
+        }
+        if (stored.get().shard() == newShard) {
+            int updated = urlShards.jdbc(newShard).update(
+                    "UPDATE urls SET short_url_code = ?, expires_at = ? WHERE id = ?",
+                    url.getShortUrlCode(), toTimestamp(url.getExpiresAt()), url.getId());
+            if (updated == 0) {
+                update(url, oldShortUrlCode);
+            }
+        } else {
+            move(stored.get().shard(), newShard, url.getId(), moved -> {
+                moved.setShortUrlCode(url.getShortUrlCode());
+                moved.setExpiresAt(url.getExpiresAt());
+                url.setVisits(moved.getVisits());
+                return moved;
+            });
+        }
+    }
+
+    /**
+     * Deletes a URL.
+     *
+     * @param url the URL to delete
+     */
+    public void delete(Url url) {
+        forEachShardOf(url.getShortUrlCode(),
+                shard -> urlShards.jdbc(shard).update("DELETE FROM urls WHERE id = ?", url.getId()));
+    }
+
+    /**
+     * Loads all URLs of a user from all shards, page by page.
+     *
+     * @param owner the owner
+     * @return the URLs in creation order
+     */
+    public List<Url> findAllByUser(User owner) {
+        List<Url> urls = new ArrayList<>();
+        List<Url> page = findPageByUser(owner, null, LIST_PAGE_SIZE);
+        while (!page.isEmpty()) {
+            urls.addAll(page);
+            if (page.size() < LIST_PAGE_SIZE) {
+                break;
+            }
+            page = findPageByUser(owner, page.getLast(), LIST_PAGE_SIZE);
+        }
+        return urls;
+    }
+
+    /**
+     * Loads one keyset page of the URLs of a user, ordered by creation date and short URL code.
+     * <p>
+     * Every shard returns its first {@code limit} URLs after the cursor, and the merged page keeps the
+     * first {@code limit} of all of them. A URL found on two shards while it is being moved is returned once.
+     * </p>
+     *
+     * @param owner the owner
+     * @param after the last URL of the previous page, or {@code null} for the first page
+     * @param limit the page size
+     * @return the page, empty after the last URL
+     */
+    public List<Url> findPageByUser(User owner, Url after, int limit) {
+        List<Callable<List<Url>>> queries = new ArrayList<>(urlShards.count());
+        for (int shard = 0; shard < urlShards.count(); shard++) {
+            JdbcTemplate shardJdbc = urlShards.jdbc(shard);
+            int index = shard;
+            queries.add(() -> Objects.isNull(after)
+                    ? shardJdbc.query(FIRST_PAGE_SQL, mapper(index), owner.getId(), limit)
+                    : shardJdbc.query(NEXT_PAGE_SQL, mapper(index), owner.getId(),
+                    Timestamp.valueOf(after.getCreatedAt()), after.getShortUrlCode(), limit));
+        }
+
+        List<Url> merged = new ArrayList<>();
+        for (List<Url> shardPage : scatter(queries)) {
+            merged.addAll(shardPage);
+        }
+        merged.sort(PAGE_ORDER);
+
+        List<Url> page = new ArrayList<>(Math.min(limit, merged.size()));
+        for (Url url : merged) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (page.isEmpty() || PAGE_ORDER.compare(page.getLast(), url) != 0) {
+                url.setUser(owner);
+                page.add(url);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Counts the URLs expiring in {@code (from, to]} on all shards.
+     *
+     * @param from exclusive lower bound
+     * @param to   inclusive upper bound
+     * @return the number of expiring URLs by owner id
+     */
+    public Map<Long, Long> countExpiredByUser(LocalDateTime from, LocalDateTime to) {
+        List<Callable<Map<Long, Long>>> queries = new ArrayList<>(urlShards.count());
+        for (int shard = 0; shard < urlShards.count(); shard++) {
+            JdbcTemplate shardJdbc = urlShards.jdbc(shard);
+            queries.add(() -> {
+                Map<Long, Long> counts = new HashMap<>();
+                shardJdbc.query(COUNT_EXPIRED_SQL, rs -> {
+                    counts.put(rs.getLong(1), rs.getLong(2));
+                }, Timestamp.valueOf(from), Timestamp.valueOf(to));
+                return counts;
+            });
+        }
+
+        Map<Long, Long> expired = new HashMap<>();
+        for (Map<Long, Long> counts : scatter(queries)) {
+            counts.forEach((userId, count) -> expired.merge(userId, count, Long::sum));
+        }
+        return expired;
+    }
+
+    /**
+     * Loads the next URLs stored on a shard, in id order.
+     *
+     * @param shard   the shard index
+     * @param afterId the id after which to start
+     * @param limit   the maximum number of URLs
+     * @return the URLs with the shard they are stored on
+     */
+    List<ShardedUrl> findBatch(int shard, long afterId, int limit) {
+        return urlShards.jdbc(shard).query(BATCH_SQL, rowMapper(shard), afterId, limit);
+    }
+
+    /**
+     * Moves a URL to another shard.
+     *
+     * @param source the shard the URL is stored on
+     * @param target the shard the URL belongs to
+     * @param id     the URL id
+     * @return {@code true} if the URL was still stored on the source shard and has been moved
+     */
+    boolean move(int source, int target, long id) {
+        return move(source, target, id, UnaryOperator.identity());
+    }
+
+    /**
+     * Moves a URL to another shard, changing it on the way.
+     * <p>
+     * The row is deleted from the source shard and the deleted row, not an earlier read, is inserted on the
+     * target shard before the source transaction commits. Until then the row lock holds back changes of the
+     * URL on the source shard and lookups still find it there; changes blocked meanwhile find the URL on the
+     * target shard afterwards. A URL deleted before is not moved. A copy already on the target shard, left
+     * by an interrupted move and changed since, is kept.
+     * </p>
+     *
+     * @param source the shard the URL is stored on
+     * @param target the shard the URL belongs to
+     * @param id     the URL id
+     * @param change the change applied to the deleted row before it is inserted
+     * @return {@code true} if the URL was still stored on the source shard and has been moved
+     */
+    private boolean move(int source, int target, long id, UnaryOperator<Url> change) {
+        return Boolean.TRUE.equals(urlShards.transaction(source).execute(status -> {
+            Optional<Url> deleted = urlShards.jdbc(source).query(DELETE_RETURNING_SQL, mapper(source), id)
+                    .stream().findFirst();
+            deleted.ifPresent(url -> insert(target, change.apply(url)));
+            return deleted.isPresent();
+        }));
+    }
+
+    private void insert(int shard, Url url) {
+        urlShards.jdbc(shard).update(INSERT_SQL,
+                url.getId(), url.getShortUrlCode(), url.getLongUrl(), url.getUser().getId(), url.getVisits(),
+                Timestamp.valueOf(url.getCreatedAt()), toTimestamp(url.getExpiresAt()));
+    }
+
+    private Optional<ShardedUrl> find(String shortUrlCode) {
+        int shard = urlShards.shardOf(shortUrlCode);
+        Optional<ShardedUrl> url = findOnShard(shard, shortUrlCode);
+        int previousShard = urlShards.previousShardOf(shortUrlCode);
+        if (url.isEmpty() && previousShard >= 0 && previousShard != shard) {
+            return findOnShard(previousShard, shortUrlCode);
+        }
+        return url;
+    }
+
+    private Optional<ShardedUrl> findOnShard(int shard, String shortUrlCode) {
+        return urlShards.jdbc(shard).query(FIND_BY_CODE_SQL, rowMapper(shard), shortUrlCode).stream().findFirst();
+    }
+
+    /**
+     * Applies a change on the shard of a code and, during a rebalance, also on its former shard if the
+     * URL was not found on the current one. A change held back on the former shard by a move of the URL
+     * is applied on the current shard once the move has committed.
+     */
+    private void forEachShardOf(String shortUrlCode, ShardUpdate update) {
+        int shard = urlShards.shardOf(shortUrlCode);
+        int previousShard = urlShards.previousShardOf(shortUrlCode);
+        if (update.apply(shard) == 0 && previousShard >= 0 && previousShard != shard
+                && update.apply(previousShard) == 0) {
+            update.apply(shard);
+        }
+    }
+
+    private <T> List<T> scatter(List<Callable<T>> queries) {
+        List<T> results = new ArrayList<>(queries.size());
+        try {
+            for (Future<T> future : urlShards.executor().invokeAll(queries)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying the shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to query the shards", e.getCause());
+        }
+        return results;
+    }
+
+    private static RowMapper<Url> mapper(int shard) {
+        RowMapper<ShardedUrl> rowMapper = rowMapper(shard);
+        return (rs, rowNum) -> rowMapper.mapRow(rs, rowNum).url();
+    }
+
+    private static RowMapper<ShardedUrl> rowMapper(int shard) {
+        return (rs, rowNum) -> {
+            Timestamp expiresAt = rs.getTimestamp("expires_at");
+            return new ShardedUrl(shard, Url.builder()
+                    .id(rs.getLong("id"))
+                    .shortUrlCode(rs.getString("short_url_code"))
+                    .longUrl(rs.getString("long_url"))
+                    .user(User.builder().id(rs.getLong("user_id")).build())
+                    .visits(rs.getLong("visits"))
+                    .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                    .expiresAt(Objects.isNull(expiresAt) ? null : expiresAt.toLocalDateTime())
+                    .build());
+        };
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return Objects.isNull(dateTime) ? null : Timestamp.valueOf(dateTime);
+    }
+
+    /**
+     * A URL with the shard it is stored on.
+     *
+     * @param shard the shard index
+     * @param url   the URL
+     */
+    record ShardedUrl(int shard, Url url) {
+    }
+
+    @FunctionalInterface
+    private interface ShardUpdate {
+        int apply(int shard);
+    }
+}
@@ -0,0 +1,145 @@
+package com.jawisimo.urlshortener.url.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The Postgres databases holding the URLs when sharding is enabled.
+ * <p>
+ * Sharding is enabled by listing the JDBC URLs of the shards in {@code datasource.shards.urls}; the
+ * position of a URL in the list is its shard index and must not change. Each shard gets its own connection
+ * pool and is migrated at startup with the shard migrations. A short URL code belongs to the shard given
+ * by {@link JumpConsistentHash}. While the URLs are being rebalanced after shards were added,
+ * {@code datasource.shards.previous-count} is the former number of shards, and lookups also try the
+ * former shard of a code.
+ * </p>
+ */
+@Component
+@Slf4j
+public class UrlShards implements Closeable {
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<JdbcTemplate> jdbcTemplates = new ArrayList<>();
+    private final List<TransactionTemplate> transactionTemplates = new ArrayList<>();
+    private final int previousCount;
+    private final ExecutorService executor;
+
+    public UrlShards(DataSourceProperties properties,
+                     @Value("${datasource.shards.urls:}") List<String> urls,
+                     @Value("${datasource.shards.previous-count:0}") int previousCount,
+                     @Value("${datasource.shards.pool-size:10}") int poolSize,
+                     @Value("${datasource.shards.migration-locations:classpath:db/shard-migration}")
+                     String migrationLocations) {
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(properties.determineUsername())
+                    .password(properties.determinePassword())
+                    .build();
+            dataSource.setPoolName("shard-" + dataSources.size());
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSources.add(dataSource);
+            jdbcTemplates.add(new JdbcTemplate(dataSource));
+            transactionTemplates.add(new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations(migrationLocations.split(","))
+                    .baselineOnMigrate(true)
+                    .load()
+                    .migrate();
+        }
+        this.previousCount = previousCount;
+        this.executor = dataSources.isEmpty() ? null : Executors.newVirtualThreadPerTaskExecutor();
+        if (!dataSources.isEmpty()) {
+            log.info("URLs are sharded over {} databases", dataSources.size());
+        }
+    }
+
+    /**
+     * @return {@code true} if the URLs are stored on the shards instead of the primary database
+     */
+    public boolean isEnabled() {
+        return !dataSources.isEmpty();
+    }
+
+    /**
+     * @return the number of shards
+     */
+    public int count() {
+        return dataSources.size();
+    }
+
+    /**
+     * Returns the shard a short URL code belongs to.
+     *
+     * @param shortUrlCode the short URL code
+     * @return the shard index
+     */
+    public int shardOf(String shortUrlCode) {
+        return JumpConsistentHash.shardOf(shortUrlCode, count());
+    }
+
+    /**
+     * Returns the shard a short URL code belonged to before the shards were added.
+     *
+     * @param shortUrlCode the short URL code
+     * @return the former shard index, or {@code -1} if no rebalance is in progress
+     */
+    public int previousShardOf(String shortUrlCode) {
+        if (previousCount <= 0 || previousCount >= count()) {
+            return -1;
+        }
+        return JumpConsistentHash.shardOf(shortUrlCode, previousCount);
+    }
+
+    /**
+     * @param shard the shard index
+     * @return the JDBC template of the shard
+     */
+    public JdbcTemplate jdbc(int shard) {
+        return jdbcTemplates.get(shard);
+    }
+
+    /**
+     * @param shard the shard index
+     * @return the template running a transaction on the shard, which its JDBC template takes part in
+     */
+    TransactionTemplate transaction(int shard) {
+        return transactionTemplates.get(shard);
+    }
+
+    /**
+     * @return the executor querying the shards in parallel
+     */
+    ExecutorService executor() {
+        return executor;
+    }
+
+    @Override
+    public void close() {
+        if (Objects.nonNull(executor)) {
+            executor.shutdown();
+        }
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
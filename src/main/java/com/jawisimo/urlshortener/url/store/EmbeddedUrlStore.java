@@ -0,0 +1,279 @@
+package com.jawisimo.urlshortener.url.store;
+
+import com.jawisimo.urlshortener.url.Url;
+import com.jawisimo.urlshortener.url.UrlCounterRepository;
+import com.jawisimo.urlshortener.url.store.UrlChangeRepository.UrlChange;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embedded {@link UrlStore} for redirect-only nodes, enabled by {@code url.store.embedded.enabled}.
+ * <p>
+ * The URLs are kept in a local {@link UrlLog} fed from Postgres: the first start loads all URLs, and then
+ * every poll applies the codes recorded in {@code url_changes} since the previous poll by reloading their
+ * current URLs. The snapshot of the last applied poll is saved next to the log, so a restart continues
+ * from there; a node that has not polled within the change retention loads all URLs again. Visits of URLs
+ * resolved from the store are summed in memory and added to their counters in batches.
+ * </p>
+ * <p>
+ * The first poll turns the change stream on and waits for the transactions then in flight, which may have
+ * skipped recording their changes. A saved position of an earlier generation of the stream has missed the
+ * changes made while it was off, and all URLs are loaded again.
+ * </p>
+ */
+@Component
+@Slf4j
+public class EmbeddedUrlStore implements UrlStore {
+    private static final String POSITION_FILE = "position";
+    private static final long MIN_COMPACTION_BYTES = 1L << 20;
+
+    private final UrlChangeRepository urlChangeRepository;
+    private final UrlCounterRepository urlCounterRepository;
+    private final boolean enabled;
+    private final Path directory;
+    private final int batchSize;
+    private final double compactionGarbageRatio;
+    private final Duration retention;
+    private final ConcurrentHashMap<Long, Long> pendingVisits = new ConcurrentHashMap<>();
+    private UrlLog urlLog;
+    private String snapshot;
+    private Instant polledAt;
+    private int savedGeneration = -1;
+    private int generation = -1;
+    private String streamSnapshot;
+
+    public EmbeddedUrlStore(UrlChangeRepository urlChangeRepository,
+                            UrlCounterRepository urlCounterRepository,
+                            @Value("${url.store.embedded.enabled:false}") boolean enabled,
+                            @Value("${url.store.embedded.directory:./data/url-store}") String directory,
+                            @Value("${url.store.embedded.batch-size:1000}") int batchSize,
+                            @Value("${url.store.embedded.compaction-garbage-ratio:0.5}") double compactionGarbageRatio,
+                            @Value("${url.store.changes.retention-hours:24}") int retentionHours) {
+        this.urlChangeRepository = urlChangeRepository;
+        this.urlCounterRepository = urlCounterRepository;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.batchSize = batchSize;
+        this.compactionGarbageRatio = compactionGarbageRatio;
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    /**
+     * Opens the log and reads the saved poll position.
+     *
+     * @throws IOException if the log cannot be read
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        urlLog = UrlLog.open(directory);
+
+        Path position = directory.resolve(POSITION_FILE);
+        if (Files.exists(position)) {
+            List<String> lines = Files.readAllLines(position);
+            snapshot = lines.get(0);
+            polledAt = Instant.parse(lines.get(1));
+            savedGeneration = lines.size() > 2 ? Integer.parseInt(lines.get(2)) : -1;
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Optional<Url> findByShortUrlCode(String shortUrlCode) {
+        return urlLog.get(shortUrlCode);
+    }
+
+    @Override
+    public void incrementVisits(Url url) {
+        pendingVisits.merge(url.getId(), 1L, Long::sum);
+    }
+
+    /**
+     * Applies the URL changes committed since the previous poll, or loads all URLs if the store has no
+     * usable position within the change retention.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    @Scheduled(fixedDelayString = "${url.store.embedded.poll-interval-ms:1000}")
+    public synchronized void poll() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (generation < 0) {
+            generation = urlChangeRepository.enableStream();
+            streamSnapshot = urlChangeRepository.currentSnapshot();
+        }
+        if (Objects.nonNull(streamSnapshot)) {
+            if (!urlChangeRepository.hasEnded(streamSnapshot)) {
+                return;
+            }
+            streamSnapshot = null;
+        }
+        if (Objects.isNull(snapshot) || savedGeneration != generation
+                || polledAt.isBefore(Instant.now().minus(retention))) {
+            load();
+            return;
+        }
+
+        String current = urlChangeRepository.currentSnapshot();
+        if (!urlChangeRepository.precedes(snapshot, current)) {
+            log.warn("Saved position of the embedded store is ahead of the database, reloading all URLs");
+            load();
+            return;
+        }
+        long afterId = 0L;
+        int applied = 0;
+        List<UrlChange> changes;
+        do {
+            changes = urlChangeRepository.findChanges(snapshot, current, afterId, batchSize);
+            Set<String> codes = new LinkedHashSet<>();
+            changes.forEach(change -> codes.add(change.shortUrlCode()));
+            applied += apply(codes);
+            if (!changes.isEmpty()) {
+                afterId = changes.getLast().id();
+            }
+        } while (changes.size() == batchSize);
+
+        savePosition(current);
+        if (applied > 0) {
+            log.debug("Applied {} URL changes to the embedded store", applied);
+        }
+    }
+
+    /**
+     * Compacts the log once replaced and removed records take up the configured share of it.
+     *
+     * @throws IOException if the log cannot be compacted
+     */
+    @Scheduled(fixedDelayString = "${url.store.embedded.compaction-interval-ms:600000}")
+    public synchronized void compact() throws IOException {
+        if (enabled && urlLog.sizeInBytes() >= MIN_COMPACTION_BYTES
+                && urlLog.garbageRatio() >= compactionGarbageRatio) {
+            urlLog.compact();
+        }
+    }
+
+    /**
+     * Adds the visits counted since the last flush to the URL counters.
+     * <p>
+     * If the write fails, the drained counts are put back and retried on the next flush.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${url.store.embedded.visit-flush-interval-ms:1000}")
+    public void flushVisits() {
+        Map<Long, Long> batch = new HashMap<>();
+        for (Long urlId : pendingVisits.keySet()) {
+            Long visits = pendingVisits.remove(urlId);
+            if (Objects.nonNull(visits)) {
+                batch.put(urlId, visits);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            urlCounterRepository.addVisits(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush visits of {} URLs: {}", batch.size(), e.getMessage());
+            batch.forEach((urlId, visits) -> pendingVisits.merge(urlId, visits, Long::sum));
+        }
+    }
+
+    /**
+     * Flushes the counted visits and closes the log.
+     *
+     * @throws IOException if the log cannot be closed
+     */
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        flushVisits();
+        if (Objects.nonNull(urlLog)) {
+            urlLog.close();
+        }
+    }
+
+    /**
+     * Replaces the content of the store with all current URLs.
+     * <p>
+     * The snapshot is taken first, so changes committed during the load are applied again by the next poll.
+     * </p>
+     */
+    private void load() throws IOException {
+        String current = urlChangeRepository.currentSnapshot();
+        urlLog.clear();
+
+        long afterId = 0L;
+        List<Url> page;
+        do {
+            page = urlChangeRepository.findUrlPage(afterId, batchSize);
+            for (Url url : page) {
+                urlLog.put(url);
+            }
+            if (!page.isEmpty()) {
+                afterId = page.getLast().getId();
+            }
+        } while (page.size() == batchSize);
+
+        savePosition(current);
+        log.info("Loaded {} URLs into the embedded store", urlLog.size());
+    }
+
+    private int apply(Set<String> shortUrlCodes) throws IOException {
+        if (shortUrlCodes.isEmpty()) {
+            return 0;
+        }
+        Set<String> removed = new HashSet<>(shortUrlCodes);
+        for (Url url : urlChangeRepository.findUrls(shortUrlCodes)) {
+            urlLog.put(url);
+            removed.remove(url.getShortUrlCode());
+        }
+        for (String shortUrlCode : removed) {
+            urlLog.remove(shortUrlCode);
+        }
+        return shortUrlCodes.size();
+    }
+
+    /**
+     * Forces the log to disk and then saves the snapshot it is complete up to.
+     */
+    private void savePosition(String current) throws IOException {
+        urlLog.force();
+        Instant now = Instant.now();
+        Path temp = directory.resolve(POSITION_FILE + UrlLog.TEMP_SUFFIX);
+        Files.writeString(temp, current + System.lineSeparator() + now + System.lineSeparator()
+                + generation + System.lineSeparator());
+        Files.move(temp, directory.resolve(POSITION_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        snapshot = current;
+        polledAt = now;
+        savedGeneration = generation;
+    }
+}
@@ -0,0 +1,39 @@
+package com.jawisimo.urlshortener.url.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background job deleting changes of the {@code url_changes} stream after their retention.
+ * <p>
+ * Runs whether or not this node has an embedded store, since every URL change is recorded. An embedded
+ * store that has not polled within the retention rebuilds itself from the URLs instead.
+ * </p>
+ */
+@Component
+@Slf4j
+public class UrlChangeCleanup {
+    private final UrlChangeRepository urlChangeRepository;
+    private final int retentionHours;
+
+    public UrlChangeCleanup(UrlChangeRepository urlChangeRepository,
+                            @Value("${url.store.changes.retention-hours:24}") int retentionHours) {
+        this.urlChangeRepository = urlChangeRepository;
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * Deletes the changes older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${url.store.changes.cleanup-interval-ms:3600000}")
+    public void cleanUp() {
+        int deleted = urlChangeRepository.deleteChangesBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.debug("Deleted {} URL changes", deleted);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.jawisimo.urlshortener.url.store;
+
+import com.jawisimo.urlshortener.url.Url;
+import com.jawisimo.urlshortener.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * JDBC repository for the {@code url_changes} change stream and the current state of the changed URLs.
+ * <p>
+ * A consumer polls with the snapshot it took at its previous poll and a snapshot taken now. The changes of
+ * the transactions visible in the new snapshot but not in the previous one are exactly the changes it has
+ * not seen yet, whatever order their ids were committed in.
+ * </p>
+ * <p>
+ * Changes are recorded only while the stream is turned on in {@code url_change_stream}, which every consumer
+ * does when it starts.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlChangeRepository {
+    private static final String URL_COLUMNS =
+            "u.id, u.short_url_code, url_long_url(u.long_url_id, u.short_url_code) AS url, u.user_id, u.expires_at";
+    private static final String FIND_CHANGES_SQL =
+            "SELECT id, short_url_code FROM url_changes " +
+                    "WHERE xid >= pg_snapshot_xmin(?::pg_snapshot) AND id > ? " +
+                    "AND NOT pg_visible_in_snapshot(xid, ?::pg_snapshot) " +
+                    "AND pg_visible_in_snapshot(xid, ?::pg_snapshot) " +
+                    "ORDER BY id LIMIT ?";
+    private static final String FIND_URLS_SQL =
+            "SELECT " + URL_COLUMNS + " FROM urls u WHERE u.short_url_code = ANY (?)";
+    private static final String ENABLE_STREAM_SQL =
+            "UPDATE url_change_stream " +
+                    "SET enabled = TRUE, generation = generation + CASE WHEN enabled THEN 0 ELSE 1 END " +
+                    "RETURNING generation";
+    private static final String ENDED_SQL =
+            "SELECT NOT EXISTS (SELECT 1 FROM pg_snapshot_xip(?::pg_snapshot) x " +
+                    "WHERE pg_xact_status(x) = 'in progress')";
+    private static final String URL_PAGE_SQL =
+            "SELECT " + URL_COLUMNS + " FROM urls u WHERE u.id > ? ORDER BY u.id LIMIT ?";
+    private static final RowMapper<Url> URL_MAPPER = (rs, rowNum) -> {
+        Timestamp expiresAt = rs.getTimestamp("expires_at");
+        return Url.builder()
+                .id(rs.getLong("id"))
+                .shortUrlCode(rs.getString("short_url_code"))
+                .longUrl(rs.getString("url"))
+                .user(User.builder().id(rs.getLong("user_id")).build())
+                .expiresAt(Objects.isNull(expiresAt) ? null : expiresAt.toLocalDateTime())
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the current snapshot in its text form
+     */
+    public String currentSnapshot() {
+        return jdbcTemplate.queryForObject("SELECT pg_current_snapshot()::text", String.class);
+    }
+
+    /**
+     * Turns the change stream on, starting a new generation if it was off.
+     *
+     * @return the generation of the stream; changes were recorded without gaps since it started
+     */
+    public int enableStream() {
+        return Objects.requireNonNull(jdbcTemplate.queryForObject(ENABLE_STREAM_SQL, Integer.class));
+    }
+
+    /**
+     * Tells whether all transactions in progress when a snapshot was taken have ended.
+     *
+     * @param snapshot the snapshot
+     * @return {@code true} if none of them is in progress any more
+     */
+    public boolean hasEnded(String snapshot) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(ENDED_SQL, Boolean.class, snapshot));
+    }
+
+    /**
+     * Tells whether a snapshot can have been taken before another one of this database.
+     * <p>
+     * A saved snapshot ahead of the current one belongs to another database, e.g. one restored from a backup.
+     * </p>
+     *
+     * @param previousSnapshot the earlier snapshot
+     * @param snapshot         the later snapshot
+     * @return {@code true} if the earlier snapshot does not start after the later one
+     */
+    public boolean precedes(String previousSnapshot, String snapshot) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_snapshot_xmin(?::pg_snapshot) <= pg_snapshot_xmin(?::pg_snapshot)",
+                Boolean.class, previousSnapshot, snapshot));
+    }
+
+    /**
+     * Loads changes committed between two snapshots, in id order.
+     *
+     * @param previousSnapshot the snapshot of the previous poll
+     * @param snapshot         the snapshot of this poll
+     * @param afterId          the id of the last change read in this poll, or {@code 0}
+     * @param limit            the maximum number of changes
+     * @return the changes
+     */
+    public List<UrlChange> findChanges(String previousSnapshot, String snapshot, long afterId, int limit) {
+        return jdbcTemplate.query(FIND_CHANGES_SQL,
+                (rs, rowNum) -> new UrlChange(rs.getLong("id"), rs.getString("short_url_code")),
+                previousSnapshot, afterId, previousSnapshot, snapshot, limit);
+    }
+
+    /**
+     * Loads the current URLs of some short URL codes.
+     *
+     * @param shortUrlCodes the short URL codes
+     * @return the URLs with an owner carrying only its id; codes without a URL are left out
+     */
+    public List<Url> findUrls(Collection<String> shortUrlCodes) {
+        String[] codes = shortUrlCodes.toArray(String[]::new);
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_URLS_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", codes));
+            return statement;
+        }, URL_MAPPER);
+    }
+
+    /**
+     * Loads the next URLs in id order.
+     *
+     * @param afterId the id after which to start
+     * @param limit   the maximum number of URLs
+     * @return the URLs with an owner carrying only its id
+     */
+    public List<Url> findUrlPage(long afterId, int limit) {
+        return jdbcTemplate.query(URL_PAGE_SQL, URL_MAPPER, afterId, limit);
+    }
+
+    /**
+     * Deletes the changes recorded before the given time.
+     *
+     * @param changedBefore the time of the oldest change to keep
+     * @return the number of deleted changes
+     */
+    public int deleteChangesBefore(LocalDateTime changedBefore) {
+        return jdbcTemplate.update("DELETE FROM url_changes WHERE changed_at < ?", Timestamp.valueOf(changedBefore));
+    }
+
+    /**
+     * A change of the URL of a short URL code.
+     *
+     * @param id           the change id
+     * @param shortUrlCode the short URL code
+     */
+    public record UrlChange(long id, String shortUrlCode) {
+    }
+}
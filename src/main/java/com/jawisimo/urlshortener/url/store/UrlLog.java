@@ -0,0 +1,450 @@
+package com.jawisimo.urlshortener.url.store;
+
+import com.jawisimo.urlshortener.url.Url;
+import com.jawisimo.urlshortener.user.User;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of URLs keyed by short URL code, with an in-memory hash index.
+ * <p>
+ * Every put and remove appends a record {@code [int bodyLength][int crc][body]} to the log file. The index
+ * maps each live code to the position and length of its latest record, so a lookup is one hash probe and
+ * one positional read, served from the page cache for hot codes. The index is rebuilt by scanning the log
+ * on open; a torn record at the end of the log is cut off. Records replaced or removed since are garbage,
+ * which {@link #compact()} drops by copying the live records into a new log generation and switching over.
+ * </p>
+ * <p>
+ * Lookups are lock-free; writes and compaction are serialized on the log. Durability is up to the caller,
+ * which calls {@link #force()} after a batch of writes.
+ * </p>
+ */
+@Slf4j
+public final class UrlLog implements Closeable {
+    static final String FILE_PREFIX = "urls-";
+    static final String FILE_SUFFIX = ".log";
+    static final String TEMP_SUFFIX = ".tmp";
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES * 2;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int LENGTH_BITS = 24;
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+
+    private final Path directory;
+    private volatile Generation generation;
+    private long writePosition;
+    private long garbageBytes;
+
+    private UrlLog(Path directory, Generation generation, long writePosition, long garbageBytes) {
+        this.directory = directory;
+        this.generation = generation;
+        this.writePosition = writePosition;
+        this.garbageBytes = garbageBytes;
+    }
+
+    /**
+     * Opens the latest log generation of a directory and rebuilds its index, creating an empty log if there
+     * is none. Older generations and leftovers of interrupted compactions are deleted.
+     *
+     * @param directory the store directory
+     * @return the opened log
+     * @throws IOException if the log cannot be read
+     */
+    public static UrlLog open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> logs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(FILE_SUFFIX)) {
+                    logs.add(file);
+                }
+            }
+        }
+        logs.sort(Path::compareTo);
+        for (int i = 0; i < logs.size() - 1; i++) {
+            Files.delete(logs.get(i));
+        }
+
+        long number = logs.isEmpty() ? 1L : generationOf(logs.getLast());
+        Path file = logs.isEmpty() ? directory.resolve(fileName(number)) : logs.getLast();
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ConcurrentHashMap<String, Long> index = new ConcurrentHashMap<>();
+        long[] positionAndGarbage = replay(channel, index);
+
+        log.info("URL log {} opened with {} URLs", file.toAbsolutePath(), index.size());
+        return new UrlLog(directory, new Generation(number, file, channel, index),
+                positionAndGarbage[0], positionAndGarbage[1]);
+    }
+
+    /**
+     * Loads the URL of a short URL code.
+     *
+     * @param shortUrlCode the short URL code
+     * @return the URL with an owner carrying only its id, or empty if the log does not hold the code
+     */
+    public Optional<Url> get(String shortUrlCode) {
+        while (true) {
+            Generation current = generation;
+            Long entry = current.index().get(shortUrlCode);
+            if (Objects.isNull(entry)) {
+                return Optional.empty();
+            }
+            try {
+                ByteBuffer record = read(current.channel(), entry);
+                return Optional.of(decode(shortUrlCode, record.position(RECORD_HEADER_BYTES)));
+            } catch (ClosedChannelException e) {
+                // Compacted meanwhile, or closed by the interrupt of another reading thread
+                reopen(current);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new UncheckedIOException(e);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Stores a URL under its short URL code, replacing the URL stored before.
+     *
+     * @param url the URL with its id, long URL, owner and expiration date
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void put(Url url) throws IOException {
+        append(url.getShortUrlCode(), encodePut(url));
+    }
+
+    /**
+     * Removes the URL of a short URL code.
+     *
+     * @param shortUrlCode the short URL code
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void remove(String shortUrlCode) throws IOException {
+        if (generation.index().containsKey(shortUrlCode)) {
+            append(shortUrlCode, encodeRemove(shortUrlCode));
+        }
+    }
+
+    /**
+     * Forces the written records to disk.
+     *
+     * @throws IOException if the log cannot be forced
+     */
+    public synchronized void force() throws IOException {
+        generation.channel().force(false);
+    }
+
+    /**
+     * @return the number of stored URLs
+     */
+    public int size() {
+        return generation.index().size();
+    }
+
+    /**
+     * @return the share of the log taken by replaced and removed records
+     */
+    public synchronized double garbageRatio() {
+        return writePosition == 0L ? 0.0 : (double) garbageBytes / writePosition;
+    }
+
+    /**
+     * @return the size of the log file in bytes
+     */
+    public synchronized long sizeInBytes() {
+        return writePosition;
+    }
+
+    /**
+     * Copies the live records into a new log generation and deletes the old one.
+     *
+     * @throws IOException if the new generation cannot be written
+     */
+    public synchronized void compact() throws IOException {
+        Generation current = generation;
+        ConcurrentHashMap<String, Long> index = new ConcurrentHashMap<>(current.index().size());
+        long position = 0L;
+
+        Path temp = directory.resolve(fileName(current.number() + 1) + TEMP_SUFFIX);
+        try (FileChannel out = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Long> entry : current.index().entrySet()) {
+                ByteBuffer record = read(current.channel(), entry.getValue());
+                index.put(entry.getKey(), entryOf(position, record.remaining()));
+                position += writeFully(out, record, position);
+            }
+            out.force(true);
+        }
+
+        long before = writePosition;
+        switchTo(temp, current.number() + 1, index, position);
+        log.info("Compacted URL log from {} to {} bytes", before, position);
+    }
+
+    /**
+     * Switches to a new empty log generation, dropping every stored URL.
+     *
+     * @throws IOException if the new generation cannot be created
+     */
+    public synchronized void clear() throws IOException {
+        long number = generation.number() + 1;
+        Path temp = directory.resolve(fileName(number) + TEMP_SUFFIX);
+        Files.deleteIfExists(temp);
+        Files.createFile(temp);
+        switchTo(temp, number, new ConcurrentHashMap<>(), 0L);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        generation.channel().close();
+    }
+
+    private void switchTo(Path temp, long number, ConcurrentHashMap<String, Long> index, long position)
+            throws IOException {
+        Path file = Files.move(temp, directory.resolve(fileName(number)), StandardCopyOption.ATOMIC_MOVE);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        Generation old = generation;
+        generation = new Generation(number, file, channel, index);
+        writePosition = position;
+        garbageBytes = 0L;
+        old.channel().close();
+        Files.deleteIfExists(old.file());
+    }
+
+    private synchronized void reopen(Generation closed) {
+        if (generation != closed || closed.channel().isOpen()) {
+            return;
+        }
+        try {
+            FileChannel channel = FileChannel.open(closed.file(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            generation = new Generation(closed.number(), closed.file(), channel, closed.index());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(String shortUrlCode, ByteBuffer record) throws IOException {
+        int length = record.remaining();
+        Generation current = generation;
+        writeFully(current.channel(), record, writePosition);
+
+        Long previous = current.index().get(shortUrlCode);
+        if (Objects.nonNull(previous)) {
+            garbageBytes += lengthOf(previous);
+        }
+        if (record.get(RECORD_HEADER_BYTES) == PUT) {
+            current.index().put(shortUrlCode, entryOf(writePosition, length));
+        } else {
+            current.index().remove(shortUrlCode);
+            garbageBytes += length;
+        }
+        writePosition += length;
+    }
+
+    private static long[] replay(FileChannel channel, ConcurrentHashMap<String, Long> index) throws IOException {
+        long position = 0L;
+        long garbage = 0L;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        CRC32C crc = new CRC32C();
+
+        while (true) {
+            byte[] body;
+            try {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_BODY_BYTES) {
+                    break;
+                }
+                body = new byte[length];
+                in.readFully(body);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+            } catch (EOFException e) {
+                break;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            byte type = buffer.get();
+            String shortUrlCode = readString(buffer, buffer.getShort());
+            int recordLength = RECORD_HEADER_BYTES + body.length;
+
+            Long previous = type == PUT
+                    ? index.put(shortUrlCode, entryOf(position, recordLength))
+                    : index.remove(shortUrlCode);
+            if (Objects.nonNull(previous)) {
+                garbage += lengthOf(previous);
+            }
+            if (type != PUT) {
+                garbage += recordLength;
+            }
+            position += recordLength;
+        }
+
+        if (position < channel.size()) {
+            log.warn("Cutting off {} bytes of a torn record at the end of the URL log", channel.size() - position);
+            channel.truncate(position);
+        }
+        return new long[]{position, garbage};
+    }
+
+    private static ByteBuffer encodePut(Url url) {
+        byte[] code = url.getShortUrlCode().getBytes(StandardCharsets.UTF_8);
+        byte[] longUrl = url.getLongUrl().getBytes(StandardCharsets.UTF_8);
+        LocalDateTime expiresAt = url.getExpiresAt();
+
+        ByteBuffer body = ByteBuffer.allocate(1 + Short.BYTES + code.length + Long.BYTES * 3 + Integer.BYTES
+                        + longUrl.length)
+                .put(PUT)
+                .putShort((short) code.length)
+                .put(code)
+                .putLong(url.getId())
+                .putLong(url.getUser().getId())
+                .putLong(Objects.isNull(expiresAt) ? NO_EXPIRY : toEpochMicros(expiresAt))
+                .putInt(longUrl.length)
+                .put(longUrl)
+                .flip();
+        return withHeader(body);
+    }
+
+    private static ByteBuffer encodeRemove(String shortUrlCode) {
+        byte[] code = shortUrlCode.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(1 + Short.BYTES + code.length)
+                .put(REMOVE)
+                .putShort((short) code.length)
+                .put(code)
+                .flip();
+        return withHeader(body);
+    }
+
+    private static ByteBuffer withHeader(ByteBuffer body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        return ByteBuffer.allocate(RECORD_HEADER_BYTES + body.remaining())
+                .putInt(body.remaining())
+                .putInt((int) crc.getValue())
+                .put(body)
+                .flip();
+    }
+
+    private static Url decode(String shortUrlCode, ByteBuffer body) {
+        body.get();
+        int codeLength = body.getShort();
+        body.position(body.position() + codeLength);
+        long id = body.getLong();
+        long userId = body.getLong();
+        long expiresAt = body.getLong();
+        String longUrl = readString(body, body.getInt());
+
+        return Url.builder()
+                .id(id)
+                .shortUrlCode(shortUrlCode)
+                .longUrl(longUrl)
+                .user(User.builder().id(userId).build())
+                .expiresAt(expiresAt == NO_EXPIRY ? null : fromEpochMicros(expiresAt))
+                .build();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long entry) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(lengthOf(entry));
+        long position = positionOf(entry);
+        while (record.hasRemaining()) {
+            int read = channel.read(record, position + record.position());
+            if (read < 0) {
+                throw new EOFException("URL log ends within a record at " + position);
+            }
+        }
+        return record.flip();
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static long toEpochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1000;
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    private static long entryOf(long position, int length) {
+        return position << LENGTH_BITS | length;
+    }
+
+    private static long positionOf(long entry) {
+        return entry >>> LENGTH_BITS;
+    }
+
+    private static int lengthOf(long entry) {
+        return (int) (entry & ((1L << LENGTH_BITS) - 1));
+    }
+
+    private static String fileName(long number) {
+        return String.format("%s%020d%s", FILE_PREFIX, number, FILE_SUFFIX);
+    }
+
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    /**
+     * A log file with the index of its live records.
+     *
+     * @param number  the generation number, increased by every compaction
+     * @param file    the log file
+     * @param channel the open log file
+     * @param index   the position and length of the latest record by short URL code
+     */
+    private record Generation(long number, Path file, FileChannel channel, ConcurrentHashMap<String, Long> index) {
+    }
+}
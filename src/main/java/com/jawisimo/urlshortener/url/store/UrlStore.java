@@ -0,0 +1,37 @@
+package com.jawisimo.urlshortener.url.store;
+
+import com.jawisimo.urlshortener.url.Url;
+
+import java.util.Optional;
+
+/**
+ * Store answering short URL resolution in place of the database.
+ * <p>
+ * When a store is enabled, {@link com.jawisimo.urlshortener.url.service.UrlService} resolves a short code
+ * from it first and only falls back to the database for codes the store does not hold, such as URLs
+ * created moments ago or archived URLs. A store may lag behind the database.
+ * </p>
+ */
+public interface UrlStore {
+
+    /**
+     * @return {@code true} if short codes are resolved from this store
+     */
+    boolean isEnabled();
+
+    /**
+     * Loads the URL of a short URL code.
+     *
+     * @param shortUrlCode the short URL code
+     * @return the URL with its id, long URL, expiration date and an owner carrying only its id,
+     * or empty if the store does not hold the code
+     */
+    Optional<Url> findByShortUrlCode(String shortUrlCode);
+
+    /**
+     * Counts a visit of a URL found in this store.
+     *
+     * @param url the visited URL
+     */
+    void incrementVisits(Url url);
+}
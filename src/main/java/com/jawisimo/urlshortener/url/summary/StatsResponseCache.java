@@ -0,0 +1,68 @@
+package com.jawisimo.urlshortener.url.summary;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of statistics responses, keyed by user, view and version stamp.
+ * <p>
+ * Only the latest version of each view of a user is kept: a response computed for a newer stamp
+ * replaces the older one, and a lookup with a different stamp is a miss. Responses are never invalidated
+ * explicitly, the version stamp of {@code UrlSummaryService} changes instead.
+ * </p>
+ */
+@Component
+public class StatsResponseCache {
+    private final Map<ViewKey, Entry> entries;
+
+    public StatsResponseCache(@Value("${url.stats.cache.max-entries:10000}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ViewKey, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached response for the given version, computing and caching it on a miss.
+     * <p>
+     * The loader runs outside the cache lock, so concurrent misses may compute the same response twice.
+     * </p>
+     *
+     * @param userId  the user id
+     * @param view    the name of the statistics view, e.g. {@code all} or {@code visits:abc123}
+     * @param version the current version stamp of the user
+     * @param loader  computes the response on a miss
+     * @param <T>     the response type
+     * @return the cached or freshly computed response
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(long userId, String view, String version, Supplier<T> loader) {
+        ViewKey key = new ViewKey(userId, view);
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (Objects.nonNull(entry) && Objects.equals(entry.version(), version)) {
+                return (T) entry.response();
+            }
+        }
+
+        T response = loader.get();
+        synchronized (entries) {
+            entries.put(key, new Entry(version, response));
+        }
+        return response;
+    }
+
+    private record ViewKey(long userId, String view) {
+    }
+
+    private record Entry(String version, Object response) {
+    }
+}
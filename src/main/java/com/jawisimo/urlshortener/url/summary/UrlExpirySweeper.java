@@ -0,0 +1,55 @@
+package com.jawisimo.urlshortener.url.summary;
+
+import com.jawisimo.urlshortener.url.shard.ShardedUrlRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Background job that keeps the active URL counts of {@code user_url_summary} in step with time.
+ * <p>
+ * Each run claims the expiry range since the previous run by moving the sweep watermark with a
+ * compare-and-set, and subtracts the URLs that expired in that range in the same transaction. A node whose
+ * claim fails leaves the range to the node that moved the watermark, so no range is subtracted twice.
+ * URL changes read the watermark without a lock and are never held back by a sweep.
+ * With sharding enabled the URLs that expired on the shards are counted there and subtracted as well.
+ * </p>
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UrlExpirySweeper {
+    private final UserUrlSummaryRepository summaryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardedUrlRepository shardedUrlRepository;
+
+    /**
+     * Subtracts URLs that expired since the last sweep from the active counts.
+     */
+    @Scheduled(fixedDelayString = "${url.summary.expiry-sweep-interval-ms:60000}")
+    public void sweep() {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime from = summaryRepository.findExpiryWatermark();
+            LocalDateTime to = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            if (!to.isAfter(from) || !summaryRepository.claimExpiryRange(from, to)) {
+                return;
+            }
+
+            int users = summaryRepository.subtractExpired(from, to);
+            if (shardedUrlRepository.isEnabled()) {
+                Map<Long, Long> expired = shardedUrlRepository.countExpiredByUser(from, to);
+                summaryRepository.subtractActive(expired);
+                users += expired.size();
+            }
+            if (users > 0) {
+                log.debug("Expiry sweep updated {} user summaries up to {}", users, to);
+            }
+        });
+    }
+}
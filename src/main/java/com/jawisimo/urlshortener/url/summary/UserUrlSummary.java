@@ -0,0 +1,20 @@
+package com.jawisimo.urlshortener.url.summary;
+
+/**
+ * Materialized URL statistics of a single user.
+ *
+ * @param userId      the owner id
+ * @param totalUrls   number of URLs owned by the user
+ * @param activeUrls  number of URLs that have not expired yet
+ * @param totalVisits sum of visits over all URLs of the user
+ */
+public record UserUrlSummary(long userId, long totalUrls, long activeUrls, long totalVisits) {
+
+    public static UserUrlSummary empty(long userId) {
+        return new UserUrlSummary(userId, 0L, 0L, 0L);
+    }
+
+    public UserUrlSummary withPendingVisits(long pendingVisits) {
+        return new UserUrlSummary(userId, totalUrls, activeUrls, totalVisits + pendingVisits);
+    }
+}
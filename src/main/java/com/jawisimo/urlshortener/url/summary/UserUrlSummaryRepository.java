@@ -0,0 +1,174 @@
+package com.jawisimo.urlshortener.url.summary;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JDBC repository for the {@code user_url_summary} and {@code url_expiry_sweep} tables.
+ * <p>
+ * Summary rows are only ever changed by relative deltas, so concurrent writers never overwrite each other.
+ * A missing row is created on the first change; counters are clamped at zero. Every change increments
+ * the row {@code version}, which stamps the statistics of the user for conditional requests.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserUrlSummaryRepository {
+    private static final String UPSERT_DELTA_SQL =
+            "INSERT INTO user_url_summary AS s (user_id, total_urls, active_urls, total_visits, version) " +
+                    "VALUES (?, GREATEST(?, 0), GREATEST(?, 0), GREATEST(?, 0), 1) " +
+                    "ON CONFLICT (user_id) DO UPDATE SET " +
+                    "total_urls = GREATEST(s.total_urls + ?, 0), " +
+                    "active_urls = GREATEST(s.active_urls + ?, 0), " +
+                    "total_visits = GREATEST(s.total_visits + ?, 0), " +
+                    "version = s.version + 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Loads the summary of the given user.
+     *
+     * @param userId the owner id
+     * @return the summary, or empty if the user has never owned a URL
+     */
+    public Optional<UserUrlSummary> findByUserId(long userId) {
+        List<UserUrlSummary> rows = jdbcTemplate.query(
+                "SELECT user_id, total_urls, active_urls, total_visits FROM user_url_summary WHERE user_id = ?",
+                (rs, rowNum) -> new UserUrlSummary(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)),
+                userId);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Loads the version of the summary of the given user.
+     *
+     * @param userId the owner id
+     * @return the summary version, or {@code 0} if the user has no summary yet
+     */
+    public long findVersion(long userId) {
+        List<Long> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM user_url_summary WHERE user_id = ?", Long.class, userId);
+        return versions.isEmpty() ? 0L : versions.getFirst();
+    }
+
+    /**
+     * Applies relative changes to the summary of a user.
+     *
+     * @param userId      the owner id
+     * @param urlsDelta   change of the URL count
+     * @param activeDelta change of the active URL count
+     * @param visitsDelta change of the visit count
+     */
+    public void applyDelta(long userId, long urlsDelta, long activeDelta, long visitsDelta) {
+        jdbcTemplate.update(UPSERT_DELTA_SQL,
+                userId, urlsDelta, activeDelta, visitsDelta,
+                urlsDelta, activeDelta, visitsDelta);
+    }
+
+    /**
+     * Adds flushed visit counts to the summaries of several users in a single JDBC batch.
+     *
+     * @param visitsByUser visit counts by owner id
+     */
+    public void addVisits(Map<Long, Long> visitsByUser) {
+        List<Object[]> args = new ArrayList<>(visitsByUser.size());
+        visitsByUser.forEach((userId, visits) -> args.add(new Object[]{userId, 0L, 0L, visits, 0L, 0L, visits}));
+        jdbcTemplate.batchUpdate(UPSERT_DELTA_SQL, args);
+    }
+
+    /**
+     * Subtracts URLs from the active counts of several users in a single JDBC batch.
+     *
+     * @param urlsByUser URL counts by owner id
+     */
+    public void subtractActive(Map<Long, Long> urlsByUser) {
+        List<Object[]> args = new ArrayList<>(urlsByUser.size());
+        urlsByUser.forEach((userId, urls) -> args.add(new Object[]{userId, 0L, -urls, 0L, 0L, -urls, 0L}));
+        jdbcTemplate.batchUpdate(UPSERT_DELTA_SQL, args);
+    }
+
+    /**
+     * Applies relative changes to the summaries of several users in a single JDBC batch.
+     *
+     * @param deltas the changes, one per owner
+     */
+    public void applyDeltas(List<SummaryDelta> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (SummaryDelta delta : deltas) {
+            args.add(new Object[]{delta.userId(), delta.urls(), delta.activeUrls(), delta.visits(),
+                    delta.urls(), delta.activeUrls(), delta.visits()});
+        }
+        jdbcTemplate.batchUpdate(UPSERT_DELTA_SQL, args);
+    }
+
+    /**
+     * Reads the expiry sweep watermark without locking it.
+     * <p>
+     * The watermark only moves forward, so URLs expiring at or before the returned value stay subtracted
+     * from the active counts. URL changes compare against it without a lock, so they never wait for a sweep.
+     * </p>
+     *
+     * @return the current watermark
+     */
+    public LocalDateTime findExpiryWatermark() {
+        Timestamp watermark = jdbcTemplate.queryForObject(
+                "SELECT swept_until FROM url_expiry_sweep WHERE id = 1", Timestamp.class);
+        return watermark == null ? LocalDateTime.MIN : watermark.toLocalDateTime();
+    }
+
+    /**
+     * Moves the expiry sweep watermark from {@code from} to {@code to}, unless it was moved meanwhile.
+     * <p>
+     * Only the transaction that moves the watermark off {@code from} may subtract the range
+     * {@code (from, to]}, so a range is applied once even if several nodes sweep at the same time.
+     * </p>
+     *
+     * @param from the watermark read before
+     * @param to   the new watermark
+     * @return {@code true} if the watermark was moved and the range belongs to the current transaction
+     */
+    public boolean claimExpiryRange(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.update("UPDATE url_expiry_sweep SET swept_until = ? WHERE id = 1 AND swept_until = ?",
+                Timestamp.valueOf(to), Timestamp.valueOf(from)) == 1;
+    }
+
+    /**
+     * Subtracts URLs expiring in {@code (from, to]} from the active counts of their owners, archived URLs
+     * included.
+     *
+     * @param from exclusive lower bound, the previous watermark
+     * @param to   inclusive upper bound, the new watermark
+     * @return the number of updated summaries
+     */
+    public int subtractExpired(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.update(
+                "UPDATE user_url_summary s " +
+                        "SET active_urls = GREATEST(s.active_urls - e.expired, 0), version = s.version + 1 " +
+                        "FROM (SELECT user_id, count(*) AS expired " +
+                        "FROM (SELECT user_id, expires_at FROM urls " +
+                        "UNION ALL SELECT user_id, expires_at FROM urls_archive) u " +
+                        "WHERE expires_at > ? AND expires_at <= ? GROUP BY user_id) e " +
+                        "WHERE s.user_id = e.user_id",
+                Timestamp.valueOf(from),
+                Timestamp.valueOf(to));
+    }
+
+    /**
+     * Relative changes of the summary of a user.
+     *
+     * @param userId     the owner id
+     * @param urls       change of the URL count
+     * @param activeUrls change of the active URL count
+     * @param visits     change of the visit count
+     */
+    public record SummaryDelta(long userId, long urls, long activeUrls, long visits) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.jawisimo.urlshortener.url.summary;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accumulates visits per URL owner and flushes them to {@code user_url_summary} periodically.
+ * <p>
+ * Every redirect would otherwise update the same summary row of a popular user, so visits are
+ * summed in memory and written as one delta per user and flush.
+ * </p>
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class VisitCountBuffer {
+    private final UserUrlSummaryRepository summaryRepository;
+    private final ConcurrentHashMap<Long, Long> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Counts a visit to a URL of the given owner.
+     *
+     * @param userId the URL owner id
+     */
+    public void increment(long userId) {
+        pending.merge(userId, 1L, Long::sum);
+    }
+
+    /**
+     * Returns the visits of the given owner that have not been flushed yet.
+     *
+     * @param userId the URL owner id
+     * @return the number of pending visits
+     */
+    public long pending(long userId) {
+        return pending.getOrDefault(userId, 0L);
+    }
+
+    /**
+     * Writes all pending visits to the summary table.
+     * <p>
+     * If the write fails, the drained counts are put back and retried on the next flush.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${url.summary.visit-flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        Map<Long, Long> batch = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            Long visits = pending.remove(userId);
+            if (visits != null) {
+                batch.put(userId, visits);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            summaryRepository.addVisits(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush visits of {} users: {}", batch.size(), e.getMessage());
+            batch.forEach((userId, visits) -> pending.merge(userId, visits, Long::sum));
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.jawisimo.urlshortener.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 
@@ -14,4 +17,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findUserByEmail(String email);
 
     Optional<User> findUserByLoginOrEmail(String login, String email);
+
+    /**
+     * Finds the users whose token epoch was raised, using the partial index on them.
+     *
+     * @return the ids and token epochs of the users
+     */
+    @Query(value = "SELECT u.id AS id, u.tokenEpoch AS tokenEpoch FROM User u WHERE u.tokenEpoch > 0")
+    List<UserTokenEpoch> findAllWithRaisedTokenEpoch();
+
+    /**
+     * Raises the token epoch of a user.
+     *
+     * @param userId the user id
+     * @return the raised token epoch, or empty if the user does not exist
+     */
+    @Query(value = "UPDATE users SET token_epoch = token_epoch + 1 WHERE id = :userId RETURNING token_epoch",
+            nativeQuery = true)
+    Optional<Integer> incrementTokenEpoch(@Param("userId") Long userId);
 }
@@ -0,0 +1,11 @@
+package com.jawisimo.urlshortener.user;
+
+/**
+ * Projection of the token revocation epoch of a user.
+ */
+public interface UserTokenEpoch {
+
+    Long getId();
+
+    int getTokenEpoch();
+}
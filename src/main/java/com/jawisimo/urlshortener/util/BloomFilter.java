@@ -0,0 +1,80 @@
+package com.jawisimo.urlshortener.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over 64-bit hashes.
+ * <p>
+ * A negative answer of {@link #mightContain(long)} is definite, a positive one has to be confirmed by an
+ * exact lookup. Elements cannot be removed; owners rebuild the filter instead. Hashes are mixed before use,
+ * so callers may pass weak hashes such as the bits of a random UUID.
+ * </p>
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a filter sized for the given number of elements and false positive probability.
+     *
+     * @param expectedInsertions       the expected number of elements
+     * @param falsePositiveProbability the desired false positive probability, e.g. {@code 0.01}
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveProbability) {
+        int insertions = Math.max(expectedInsertions, 1);
+        long optimalBits = (long) Math.ceil(-insertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Math.max(optimalBits, Long.SIZE), Integer.MAX_VALUE - Long.SIZE);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * Math.log(2)));
+        this.bits = new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    /**
+     * Adds an element.
+     *
+     * @param hash the 64-bit hash of the element
+     */
+    public void add(long hash) {
+        long mixed = mix(hash);
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(mixed, i);
+            long mask = 1L << index;
+            int word = index >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * Checks whether an element may have been added.
+     *
+     * @param hash the 64-bit hash of the element
+     * @return {@code false} if the element was definitely not added
+     */
+    public boolean mightContain(long hash) {
+        long mixed = mix(hash);
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(mixed, i);
+            if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(long mixed, int i) {
+        int combined = (int) mixed + i * (int) (mixed >>> 32);
+        return (combined & Integer.MAX_VALUE) % bitCount;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -31,19 +31,35 @@ public final class MessageProvider {
             "Password must be at least 8 characters long, " +
                     "including digits, uppercase, and lowercase letters. ";
     public static final String PASSWORD_WRONG_MESSAGE = "Wrong password. ";
+    public static final String PASSWORD_HASHING_BUSY_MESSAGE =
+            "Too many authentication requests are in progress. Please try again later. ";
 
     // General messages related to authentication and authorization
     public static final String UNAUTHORIZED_MESSAGE =
             "User is not authenticated. ";
+    public static final String TOO_MANY_REQUESTS_MESSAGE =
+            "Too many requests. Please try again later. ";
+
+    // Error messages related to API keys
+    public static final String API_KEY_NAME_MESSAGE =
+            "API key name cannot be empty and must be no more than 100 characters. ";
+    public static final String API_KEY_NOT_FOUND_MESSAGE = "API key not found. ";
 
     // Error messages related to URL validation and processing
     public static final String URL_INCORRECT_MESSAGE = "Url is incorrect. ";
     public static final String URL_NOT_FOUND_MESSAGE = "URL not found. ";
+    public static final String URL_BLOCKED_MESSAGE = "This URL cannot be shortened. ";
     public static final String TOKEN_INCORRECT_MESSAGE = "JWT token is incorrect. ";
     public static final String URL_EXPIRED_MESSAGE = "URL has expired.";
     public static final String URL_INCORRECT_EXPIRES_AT_MESSAGE =
             "You cannot set the expiration date to a past date. ";
 
+    // Error messages related to click statistics
+    public static final String CLICKS_INCORRECT_RANGE_MESSAGE =
+            "The start of the time range must be before its end. ";
+    public static final String CLICKS_INCORRECT_GROUPING_MESSAGE =
+            "Grouping must be one of: none, hour, day, url. ";
+
     /**
      * Generates a message indicating that a user with the specified login already exists.
      *
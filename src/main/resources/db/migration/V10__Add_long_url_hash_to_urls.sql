@@ -0,0 +1,7 @@
+ALTER TABLE urls
+    ADD COLUMN IF NOT EXISTS long_url_hash BIGINT;
+
+-- Only URLs created in dedupe mode carry a hash; a user has at most one of them per long URL and expiry.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_urls_user_long_url_hash_expires_at
+    ON urls (user_id, long_url_hash, (COALESCE(expires_at, 'infinity'::TIMESTAMP)))
+    WHERE long_url_hash IS NOT NULL;
@@ -0,0 +1,160 @@
+-- The urls table is hash-partitioned by short_url_code: resolving a short code, the hot path, touches a
+-- single partition, and each partition is vacuumed on its own. Unique constraints of a partitioned table
+-- must contain the partition key, so the dedupe uniqueness moves to the url_dedupe_keys table and the
+-- url_counters foreign key is replaced by a trigger.
+--
+-- The primary key becomes (id, short_url_code), so the database no longer enforces that id alone is unique.
+-- Every id is drawn from urls_id_seq, which never hands out an id twice; the only inserts with an explicit id
+-- restore an archived URL, which is in urls_archive and not in urls until then, or copy a URL between
+-- shards. The entity keeps id as its identifier on that guarantee. A lookup by id alone probes the primary
+-- key index of every partition.
+--
+-- The rows are copied in this migration, which holds an exclusive lock on urls until it commits: about
+-- 16 seconds per million URLs on a laptop, during which the application cannot read or create URLs. For a
+-- table too large for such a pause, create the partitioned table under another name first, mirror the
+-- writes into it with a trigger, copy the existing rows in id chunks as BackfillRunner does, and only swap
+-- the names in this migration.
+
+-- Unique dedupe key of a URL created in dedupe mode, see UrlDedupeRepository
+CREATE TABLE IF NOT EXISTS url_dedupe_keys
+(
+    user_id       BIGINT    NOT NULL,
+    long_url_hash BIGINT    NOT NULL,
+    expires_key   TIMESTAMP NOT NULL,
+    url_id        BIGINT    NOT NULL,
+    PRIMARY KEY (user_id, long_url_hash, expires_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_url_dedupe_keys_url_id ON url_dedupe_keys (url_id);
+
+ALTER TABLE url_counters
+    DROP CONSTRAINT IF EXISTS url_counters_url_id_fkey;
+
+-- Keep the old table aside until its rows are copied
+ALTER TABLE urls
+    RENAME TO urls_unpartitioned;
+ALTER TABLE urls_unpartitioned
+    RENAME CONSTRAINT urls_pkey TO urls_unpartitioned_pkey;
+ALTER TABLE urls_unpartitioned
+    RENAME CONSTRAINT urls_short_url_code_key TO urls_unpartitioned_short_url_code_key;
+DROP INDEX IF EXISTS idx_urls_expires_at;
+DROP INDEX IF EXISTS ux_urls_user_long_url_hash_expires_at;
+
+CREATE TABLE urls
+(
+    id             BIGINT    DEFAULT nextval('urls_id_seq') NOT NULL,
+    short_url_code VARCHAR(50)                              NOT NULL,
+    long_url       VARCHAR(2000)                            NOT NULL,
+    created_at     TIMESTAMP DEFAULT CURRENT_TIMESTAMP      NOT NULL,
+    expires_at     TIMESTAMP,
+    user_id        BIGINT                                   NOT NULL,
+    long_url_hash  BIGINT,
+    CONSTRAINT urls_pkey PRIMARY KEY (id, short_url_code),
+    CONSTRAINT urls_short_url_code_key UNIQUE (short_url_code),
+    FOREIGN KEY (user_id) REFERENCES users (id)
+) PARTITION BY HASH (short_url_code);
+
+-- Creates the missing partitions urls_p<modulus>_<remainder> of the given modulus.
+-- A hash-partitioned table has no default partition, so every remainder must exist before any insert.
+CREATE OR REPLACE FUNCTION create_urls_partitions(p_modulus INT) RETURNS INT
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    v_created INT := 0;
+BEGIN
+    FOR v_remainder IN 0 .. p_modulus - 1
+        LOOP
+            IF to_regclass(format('urls_p%s_%s', p_modulus, v_remainder)) IS NULL THEN
+                EXECUTE format('CREATE TABLE %I PARTITION OF urls FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                               format('urls_p%s_%s', p_modulus, v_remainder), p_modulus, v_remainder);
+                v_created := v_created + 1;
+            END IF;
+        END LOOP;
+    RETURN v_created;
+END;
+$$;
+
+-- Splits the partition of the given modulus and remainder into two partitions of twice the modulus and
+-- moves its rows, so partitions can be added ahead of growth. Takes an exclusive lock on urls for the
+-- duration of the move, about a second per 60 thousand rows of the partition, during which no URL can be
+-- read or created, so split in a quiet hour or while the partitions are still small. Returns the number of
+-- moved rows.
+CREATE OR REPLACE FUNCTION split_urls_partition(p_modulus INT, p_remainder INT) RETURNS BIGINT
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    v_old_partition TEXT := format('urls_p%s_%s', p_modulus, p_remainder);
+    v_moved         BIGINT;
+BEGIN
+    EXECUTE format('ALTER TABLE urls DETACH PARTITION %I', v_old_partition);
+    EXECUTE format('CREATE TABLE %I PARTITION OF urls FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                   format('urls_p%s_%s', p_modulus * 2, p_remainder), p_modulus * 2, p_remainder);
+    EXECUTE format('CREATE TABLE %I PARTITION OF urls FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                   format('urls_p%s_%s', p_modulus * 2, p_remainder + p_modulus), p_modulus * 2,
+                   p_remainder + p_modulus);
+    EXECUTE format('INSERT INTO urls SELECT * FROM %I', v_old_partition);
+    GET DIAGNOSTICS v_moved = ROW_COUNT;
+    EXECUTE format('DROP TABLE %I', v_old_partition);
+    RETURN v_moved;
+END;
+$$;
+
+SELECT create_urls_partitions(16);
+
+CREATE INDEX IF NOT EXISTS idx_urls_user_id ON urls (user_id);
+CREATE INDEX IF NOT EXISTS idx_urls_expires_at ON urls (expires_at) WHERE expires_at IS NOT NULL;
+
+INSERT INTO urls (id, short_url_code, long_url, created_at, expires_at, user_id, long_url_hash)
+SELECT id, short_url_code, long_url, created_at, expires_at, user_id, long_url_hash
+FROM urls_unpartitioned;
+
+INSERT INTO url_dedupe_keys (user_id, long_url_hash, expires_key, url_id)
+SELECT user_id, long_url_hash, COALESCE(expires_at, 'infinity'::TIMESTAMP), id
+FROM urls_unpartitioned
+WHERE long_url_hash IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+ALTER SEQUENCE urls_id_seq OWNED BY NONE;
+DROP TABLE urls_unpartitioned;
+ALTER SEQUENCE urls_id_seq OWNED BY urls.id;
+
+-- Releases the counter and dedupe key of a deleted URL, and the dedupe key of a URL whose hash or expiry
+-- changed. An update of the short code moves the row to another partition, which may fire the delete
+-- trigger; row triggers run after the statement, so anything still matching a row of urls is kept.
+CREATE OR REPLACE FUNCTION urls_release_dependents() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    DELETE
+    FROM url_dedupe_keys k
+    WHERE k.url_id = OLD.id
+      AND NOT EXISTS (SELECT 1
+                      FROM urls u
+                      WHERE u.id = OLD.id
+                        AND u.long_url_hash = k.long_url_hash
+                        AND COALESCE(u.expires_at, 'infinity'::TIMESTAMP) = k.expires_key);
+    IF TG_OP = 'DELETE' THEN
+        DELETE
+        FROM url_counters c
+        WHERE c.url_id = OLD.id
+          AND NOT EXISTS (SELECT 1 FROM urls u WHERE u.id = OLD.id);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_urls_release_dependents_on_delete
+    AFTER DELETE
+    ON urls
+    FOR EACH ROW
+EXECUTE FUNCTION urls_release_dependents();
+
+CREATE TRIGGER trg_urls_release_dependents_on_update
+    AFTER UPDATE
+    ON urls
+    FOR EACH ROW
+    WHEN (OLD.long_url_hash IS DISTINCT FROM NEW.long_url_hash
+        OR OLD.expires_at IS DISTINCT FROM NEW.expires_at)
+EXECUTE FUNCTION urls_release_dependents();
+
+ANALYZE urls;
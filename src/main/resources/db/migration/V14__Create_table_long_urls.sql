@@ -0,0 +1,78 @@
+-- Each distinct long URL is stored once, keyed by the SHA-256 of its UTF-8 bytes, and urls refer to it
+-- by id. ref_count is the number of referring urls; rows that dropped to zero are deleted by
+-- LongUrlCleanup.
+CREATE TABLE IF NOT EXISTS long_urls
+(
+    id        BIGSERIAL PRIMARY KEY,
+    url_hash  BYTEA            NOT NULL UNIQUE,
+    url       VARCHAR(2000)    NOT NULL,
+    ref_count BIGINT DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_long_urls_unreferenced ON long_urls (id) WHERE ref_count <= 0;
+
+-- Only the catalog changes here, so urls stays available. long_url_id is added empty together with its
+-- foreign key, which needs no validation then, and long_url is no longer required of new URLs.
+-- LongUrlIdBackfill fills long_url_id of the existing URLs online and builds its index concurrently;
+-- V19 makes it required and drops long_url once that is done.
+ALTER TABLE urls
+    ADD COLUMN IF NOT EXISTS long_url_id BIGINT REFERENCES long_urls (id);
+ALTER TABLE urls
+    ALTER COLUMN long_url DROP NOT NULL;
+
+-- The long URL of a URL, from long_urls, or from the URL itself while it is not backfilled yet
+CREATE OR REPLACE FUNCTION url_long_url(p_long_url_id BIGINT, p_short_url_code VARCHAR) RETURNS VARCHAR
+    LANGUAGE sql
+    STABLE AS
+$$
+SELECT COALESCE((SELECT l.url FROM long_urls l WHERE l.id = p_long_url_id),
+                (SELECT u.long_url FROM urls u WHERE u.short_url_code = p_short_url_code))
+$$;
+
+-- Stores the long URLs of the URLs with ids in (p_after_id, p_to_id] and refers the URLs to them
+CREATE OR REPLACE FUNCTION urls_fill_long_url_ids(p_after_id BIGINT, p_to_id BIGINT) RETURNS INT
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    v_filled INT;
+BEGIN
+    INSERT INTO long_urls (url_hash, url)
+    SELECT DISTINCT ON (sha256(convert_to(u.long_url, 'UTF8'))) sha256(convert_to(u.long_url, 'UTF8')), u.long_url
+    FROM urls u
+    WHERE u.id > p_after_id
+      AND u.id <= p_to_id
+      AND u.long_url_id IS NULL
+    ON CONFLICT (url_hash) DO NOTHING;
+
+    UPDATE urls u
+    SET long_url_id = l.id
+    FROM long_urls l
+    WHERE u.id > p_after_id
+      AND u.id <= p_to_id
+      AND u.long_url_id IS NULL
+      AND l.url_hash = sha256(convert_to(u.long_url, 'UTF8'));
+    GET DIAGNOSTICS v_filled = ROW_COUNT;
+    RETURN v_filled;
+END;
+$$;
+
+-- A deleted URL also releases its reference to the long URL
+CREATE OR REPLACE FUNCTION urls_release_dependents() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    DELETE
+    FROM url_dedupe_keys k
+    WHERE k.url_id = OLD.id
+      AND NOT EXISTS (SELECT 1
+                      FROM urls u
+                      WHERE u.id = OLD.id
+                        AND u.long_url_hash = k.long_url_hash
+                        AND COALESCE(u.expires_at, 'infinity'::TIMESTAMP) = k.expires_key);
+    IF TG_OP = 'DELETE' AND NOT EXISTS (SELECT 1 FROM urls u WHERE u.id = OLD.id) THEN
+        DELETE FROM url_counters c WHERE c.url_id = OLD.id;
+        UPDATE long_urls l SET ref_count = l.ref_count - 1 WHERE l.id = OLD.long_url_id;
+    END IF;
+    RETURN NULL;
+END;
+$$;
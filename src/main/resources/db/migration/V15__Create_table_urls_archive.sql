@@ -0,0 +1,52 @@
+-- The last visit of a URL is kept next to its counter, which a visit updates anyway. The column is not
+-- indexed, so the update stays HOT. URLs visited before the column existed count as visited now.
+ALTER TABLE url_counters
+    ADD COLUMN IF NOT EXISTS last_visited_at TIMESTAMP;
+
+UPDATE url_counters
+SET last_visited_at = LOCALTIMESTAMP
+WHERE visits > 0;
+
+-- URLs idle for url.archive.idle-days are moved here by UrlArchiver and moved back to urls by the next
+-- lookup of their short code. A row holds the URL together with its counter, without the dedupe hash:
+-- an archived URL is no longer returned by dedupe mode.
+CREATE TABLE IF NOT EXISTS urls_archive
+(
+    id              BIGINT PRIMARY KEY,
+    short_url_code  VARCHAR(50)                         NOT NULL UNIQUE,
+    long_url_id     BIGINT                              NOT NULL,
+    user_id         BIGINT                              NOT NULL,
+    visits          BIGINT                              NOT NULL,
+    created_at      TIMESTAMP                           NOT NULL,
+    expires_at      TIMESTAMP,
+    last_visited_at TIMESTAMP,
+    archived_at     TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    FOREIGN KEY (long_url_id) REFERENCES long_urls (id),
+    FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_urls_archive_user_id ON urls_archive (user_id);
+CREATE INDEX IF NOT EXISTS idx_urls_archive_expires_at ON urls_archive (expires_at) WHERE expires_at IS NOT NULL;
+
+-- A URL moved to the archive keeps its reference to the long URL
+CREATE OR REPLACE FUNCTION urls_release_dependents() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    DELETE
+    FROM url_dedupe_keys k
+    WHERE k.url_id = OLD.id
+      AND NOT EXISTS (SELECT 1
+                      FROM urls u
+                      WHERE u.id = OLD.id
+                        AND u.long_url_hash = k.long_url_hash
+                        AND COALESCE(u.expires_at, 'infinity'::TIMESTAMP) = k.expires_key);
+    IF TG_OP = 'DELETE' AND NOT EXISTS (SELECT 1 FROM urls u WHERE u.id = OLD.id) THEN
+        DELETE FROM url_counters c WHERE c.url_id = OLD.id;
+        IF NOT EXISTS (SELECT 1 FROM urls_archive a WHERE a.id = OLD.id) THEN
+            UPDATE long_urls l SET ref_count = l.ref_count - 1 WHERE l.id = OLD.long_url_id;
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$;
@@ -0,0 +1,46 @@
+-- Change stream of urls feeding the embedded URL stores of redirect-only nodes. A row names a short code
+-- whose URL was created, changed or deleted; a consumer reloads the current URL of the code. xid is the
+-- writing transaction: a row is new to a consumer if its transaction was not visible in the snapshot the
+-- consumer took at its previous poll, so rows committed out of id order are never skipped. Rows older
+-- than url.store.changes.retention-hours are deleted by UrlChangeCleanup.
+CREATE TABLE IF NOT EXISTS url_changes
+(
+    id             BIGSERIAL PRIMARY KEY,
+    short_url_code VARCHAR(50)                            NOT NULL,
+    xid            XID8      DEFAULT pg_current_xact_id() NOT NULL,
+    changed_at     TIMESTAMP DEFAULT CURRENT_TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_url_changes_xid ON url_changes (xid);
+CREATE INDEX IF NOT EXISTS idx_url_changes_changed_at ON url_changes (changed_at);
+
+CREATE OR REPLACE FUNCTION urls_record_change() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        INSERT INTO url_changes (short_url_code) VALUES (OLD.short_url_code);
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.short_url_code <> OLD.short_url_code) THEN
+        INSERT INTO url_changes (short_url_code) VALUES (NEW.short_url_code);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_urls_record_change_on_insert_or_delete
+    AFTER INSERT OR DELETE
+    ON urls
+    FOR EACH ROW
+EXECUTE FUNCTION urls_record_change();
+
+-- Only the columns held by the embedded stores; code_num backfills and dedupe hashes are not streamed
+CREATE TRIGGER trg_urls_record_change_on_update
+    AFTER UPDATE
+    ON urls
+    FOR EACH ROW
+    WHEN (OLD.short_url_code IS DISTINCT FROM NEW.short_url_code
+        OR OLD.long_url_id IS DISTINCT FROM NEW.long_url_id
+        OR OLD.user_id IS DISTINCT FROM NEW.user_id
+        OR OLD.expires_at IS DISTINCT FROM NEW.expires_at)
+EXECUTE FUNCTION urls_record_change();
@@ -0,0 +1,2 @@
+-- Only users whose tokens were revoked have a raised epoch; TokenEpochService reloads them periodically
+CREATE INDEX IF NOT EXISTS idx_users_raised_token_epoch ON users (id) INCLUDE (token_epoch) WHERE token_epoch > 0;
@@ -0,0 +1,4 @@
+-- An archived URL keeps its dedupe hash, so the restore gives it back its dedupe key unless a URL created
+-- in dedupe mode while it was archived has taken the key
+ALTER TABLE urls_archive
+    ADD COLUMN IF NOT EXISTS long_url_hash BIGINT;
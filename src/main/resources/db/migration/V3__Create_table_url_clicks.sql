@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS url_clicks
+(
+    id         BIGSERIAL PRIMARY KEY,
+    url_id     BIGINT    NOT NULL,
+    user_id    BIGINT    NOT NULL,
+    clicked_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_url_clicks_url_id_clicked_at ON url_clicks (url_id, clicked_at);
+CREATE INDEX IF NOT EXISTS idx_url_clicks_user_id_clicked_at ON url_clicks (user_id, clicked_at);
+CREATE INDEX IF NOT EXISTS idx_url_clicks_clicked_at ON url_clicks (clicked_at);
@@ -0,0 +1,30 @@
+CREATE TABLE IF NOT EXISTS user_url_summary
+(
+    user_id      BIGINT PRIMARY KEY,
+    total_urls   BIGINT DEFAULT 0 NOT NULL,
+    active_urls  BIGINT DEFAULT 0 NOT NULL,
+    total_visits BIGINT DEFAULT 0 NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS url_expiry_sweep
+(
+    id          SMALLINT PRIMARY KEY CHECK (id = 1),
+    swept_until TIMESTAMP NOT NULL
+);
+
+INSERT INTO url_expiry_sweep (id, swept_until)
+VALUES (1, LOCALTIMESTAMP)
+ON CONFLICT (id) DO NOTHING;
+
+INSERT INTO user_url_summary (user_id, total_urls, active_urls, total_visits)
+SELECT u.user_id,
+       count(*),
+       count(*) FILTER (WHERE u.expires_at IS NULL OR u.expires_at > s.swept_until),
+       sum(u.visits)
+FROM urls u
+         CROSS JOIN url_expiry_sweep s
+GROUP BY u.user_id
+ON CONFLICT (user_id) DO NOTHING;
+
+CREATE INDEX IF NOT EXISTS idx_urls_expires_at ON urls (expires_at) WHERE expires_at IS NOT NULL;
@@ -0,0 +1,2 @@
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS token_epoch INTEGER DEFAULT 0 NOT NULL;
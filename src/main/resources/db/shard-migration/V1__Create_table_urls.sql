@@ -0,0 +1,16 @@
+-- URLs of one shard, see UrlShards. Owners live in the primary database, so user_id has no foreign key,
+-- and ids are taken from urls_id_seq of the primary, so they are unique over all shards.
+CREATE TABLE IF NOT EXISTS urls
+(
+    id              BIGINT PRIMARY KEY,
+    short_url_code  VARCHAR(50)                         NOT NULL UNIQUE,
+    long_url        VARCHAR(2000)                       NOT NULL,
+    user_id         BIGINT                              NOT NULL,
+    visits          BIGINT    DEFAULT 0                 NOT NULL,
+    created_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    expires_at      TIMESTAMP
+) WITH (fillfactor = 70);
+
+-- Keyset pages of the URLs of a user, in the order of the merged listing
+CREATE INDEX IF NOT EXISTS idx_urls_user_id_created_at ON urls (user_id, created_at, short_url_code);
+CREATE INDEX IF NOT EXISTS idx_urls_expires_at ON urls (expires_at) WHERE expires_at IS NOT NULL;
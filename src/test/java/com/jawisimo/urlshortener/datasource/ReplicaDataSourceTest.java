@@ -0,0 +1,145 @@
+package com.jawisimo.urlshortener.datasource;
+
+import com.jawisimo.urlshortener.security.CustomUserDetails;
+import com.jawisimo.urlshortener.user.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica1;
+
+    @Mock
+    private DataSource replica2;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection1;
+
+    @Mock
+    private Connection replicaConnection2;
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getConnection_shouldAlternateBetweenReplicas() throws SQLException {
+        when(replica1.getConnection()).thenReturn(replicaConnection1);
+        when(replica2.getConnection()).thenReturn(replicaConnection2);
+        ReplicaDataSource dataSource = replicaDataSource(0L, replica1, replica2);
+
+        assertSame(replicaConnection1, dataSource.getConnection());
+        assertSame(replicaConnection2, dataSource.getConnection());
+        assertSame(replicaConnection1, dataSource.getConnection());
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void getConnection_shouldFallBackToPrimaryAndSkipReplica_whenReplicaFails() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(replica2.getConnection()).thenReturn(replicaConnection2);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaDataSource dataSource = replicaDataSource(0L, replica1, replica2);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertEquals(List.of("replica-2"), dataSource.healthyReplicas());
+        assertSame(replicaConnection2, dataSource.getConnection());
+        assertSame(replicaConnection2, dataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_shouldUsePrimary_whenCurrentUserWroteRecently() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(60_000L);
+        ReplicaDataSource dataSource = new ReplicaDataSource(primary, List.of(replica1), tracker, 5000L);
+        authenticate(1L);
+
+        tracker.recordWrite(1L);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        verify(replica1, never()).getConnection();
+    }
+
+    @Test
+    void getConnection_shouldUseReplica_whenOnlyAnotherUserWroteRecently() throws SQLException {
+        when(replica1.getConnection()).thenReturn(replicaConnection1);
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(60_000L);
+        ReplicaDataSource dataSource = new ReplicaDataSource(primary, List.of(replica1), tracker, 5000L);
+        authenticate(1L);
+
+        tracker.recordWrite(2L);
+
+        assertSame(replicaConnection1, dataSource.getConnection());
+    }
+
+    @Test
+    void checkHealth_shouldTakeOutLaggingReplicaAndBringItBack() throws SQLException {
+        ResultSet lag = mockLagQuery(replica1, replicaConnection1);
+        when(lag.getLong(1)).thenReturn(10_000L, 100L);
+        ReplicaDataSource dataSource = replicaDataSource(5000L, replica1);
+
+        dataSource.checkHealth();
+        assertEquals(List.of(), dataSource.healthyReplicas());
+
+        dataSource.checkHealth();
+        assertEquals(List.of("replica-1"), dataSource.healthyReplicas());
+    }
+
+    @Test
+    void checkHealth_shouldTakeOutUnreachableReplica() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaDataSource dataSource = replicaDataSource(5000L, replica1);
+
+        dataSource.checkHealth();
+
+        assertEquals(List.of(), dataSource.healthyReplicas());
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    private ReplicaDataSource replicaDataSource(long maxLagMillis, DataSource... replicas) {
+        return new ReplicaDataSource(primary, List.of(replicas), new ReadYourWritesTracker(0L), maxLagMillis);
+    }
+
+    private ResultSet mockLagQuery(DataSource replica, Connection connection) throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        return resultSet;
+    }
+
+    private void authenticate(long userId) {
+        CustomUserDetails details = new CustomUserDetails(User.builder().id(userId).build());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(details, null, List.of()));
+    }
+}
@@ -0,0 +1,105 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+import com.jawisimo.urlshortener.error.exception.TooManyRequestsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ApiRateLimiterTest {
+
+    @Mock
+    private SharedQuotaRepository sharedQuotaRepository;
+
+    private MockEnvironment environment;
+
+    @BeforeEach
+    void init() {
+        environment = new MockEnvironment()
+                .withProperty("ratelimit.api.create.user-per-minute", "2")
+                .withProperty("ratelimit.api.create.ip-per-minute", "3");
+    }
+
+    @Test
+    void acquire_shouldRejectUser_whenUserLimitIsExhausted() {
+        ApiRateLimiter limiter = new ApiRateLimiter(environment, sharedQuotaRepository, 1000, false, 60, true);
+
+        limiter.acquire(RateLimitOperation.CREATE, 1L, "127.0.0.1");
+        limiter.acquire(RateLimitOperation.CREATE, 1L, "127.0.0.1");
+
+        assertThrows(TooManyRequestsException.class,
+                () -> limiter.acquire(RateLimitOperation.CREATE, 1L, "127.0.0.1"));
+        assertDoesNotThrow(() -> limiter.acquire(RateLimitOperation.CREATE, 2L, "127.0.0.1"));
+        assertThrows(TooManyRequestsException.class,
+                () -> limiter.acquire(RateLimitOperation.CREATE, 3L, "127.0.0.1"));
+    }
+
+    @Test
+    void acquire_shouldLimitOperationsIndependently() {
+        ApiRateLimiter limiter = new ApiRateLimiter(environment, sharedQuotaRepository, 1000, false, 60, true);
+
+        limiter.acquire(RateLimitOperation.CREATE, 1L, "127.0.0.1");
+        limiter.acquire(RateLimitOperation.CREATE, 1L, "127.0.0.1");
+
+        assertDoesNotThrow(() -> limiter.acquire(RateLimitOperation.STATS, 1L, "127.0.0.1"));
+    }
+
+    @Test
+    void acquire_shouldNotLimitAddresses_whenAddressLimitsAreDisabled() {
+        ApiRateLimiter limiter = new ApiRateLimiter(environment, sharedQuotaRepository, 1000, false, 60, false);
+
+        for (long userId = 1L; userId <= 5L; userId++) {
+            long id = userId;
+            assertDoesNotThrow(() -> limiter.acquire(RateLimitOperation.CREATE, id, "127.0.0.1"));
+        }
+    }
+
+    @Test
+    void acquire_shouldLimitResolvePerAddressOnly() {
+        environment.withProperty("ratelimit.api.resolve.ip-per-minute", "1");
+        ApiRateLimiter limiter = new ApiRateLimiter(environment, sharedQuotaRepository, 1000, false, 60, true);
+
+        limiter.acquire(RateLimitOperation.RESOLVE, 1L, "127.0.0.1");
+
+        assertThrows(TooManyRequestsException.class,
+                () -> limiter.acquire(RateLimitOperation.RESOLVE, 2L, "127.0.0.1"));
+        assertDoesNotThrow(() -> limiter.acquire(RateLimitOperation.RESOLVE, 1L, "10.0.0.1"));
+    }
+
+    @Test
+    void syncSharedQuota_shouldDoNothing_whenSharingIsDisabled() {
+        ApiRateLimiter limiter = new ApiRateLimiter(environment, sharedQuotaRepository, 1000, false, 60, true);
+        limiter.acquire(RateLimitOperation.CREATE, 1L, "127.0.0.1");
+
+        limiter.syncSharedQuota();
+
+        verifyNoInteractions(sharedQuotaRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void syncSharedQuota_shouldApplyTokensTakenByOtherInstances() {
+        ApiRateLimiter limiter = new ApiRateLimiter(environment, sharedQuotaRepository, 1000, true, 60, true);
+        when(sharedQuotaRepository.addAndGet(anyLong(), any(SortedMap.class)))
+                .thenReturn(Map.of("create.user:1", 2L, "create.ip:127.0.0.1", 2L));
+
+        limiter.acquire(RateLimitOperation.CREATE, 1L, "127.0.0.1");
+        limiter.syncSharedQuota();
+
+        verify(sharedQuotaRepository).addAndGet(anyLong(),
+                eq(new TreeMap<>(Map.of("create.user:1", 1L, "create.ip:127.0.0.1", 1L))));
+        assertThrows(TooManyRequestsException.class,
+                () -> limiter.acquire(RateLimitOperation.CREATE, 1L, "10.0.0.1"));
+    }
+}
@@ -0,0 +1,29 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+import com.jawisimo.urlshortener.error.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoginRateLimiterTest {
+
+    private final LoginRateLimiter limiter = new LoginRateLimiter(20, 20, 5, 5, 2, 2, 1000);
+
+    @Test
+    void acquireForApiKeyLookup_shouldRejectClient_whenLimitIsExhausted() {
+        limiter.acquireForApiKeyLookup("127.0.0.1");
+        limiter.acquireForApiKeyLookup("127.0.0.1");
+
+        assertThrows(TooManyRequestsException.class, () -> limiter.acquireForApiKeyLookup("127.0.0.1"));
+        assertDoesNotThrow(() -> limiter.acquireForApiKeyLookup("127.0.0.2"));
+    }
+
+    @Test
+    void acquireForApiKeyLookup_shouldNotSpendClientLimit() {
+        limiter.acquireForApiKeyLookup("127.0.0.1");
+        limiter.acquireForApiKeyLookup("127.0.0.1");
+
+        assertDoesNotThrow(() -> limiter.acquireForClient("127.0.0.1"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.jawisimo.urlshortener.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTableTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private TokenBucketTable table;
+
+    @BeforeEach
+    void init() {
+        table = new TokenBucketTable(2, 1.0, 4, 2);
+    }
+
+    @Test
+    void tryConsume_shouldRejectRequests_whenBurstIsExhausted() {
+        assertEquals(0L, table.tryConsume("127.0.0.1", 0L));
+        assertEquals(0L, table.tryConsume("127.0.0.1", 0L));
+
+        long waitNanos = table.tryConsume("127.0.0.1", 0L);
+
+        assertTrue(waitNanos > 0L && waitNanos <= SECOND);
+        assertEquals(0L, table.tryConsume("10.0.0.1", 0L));
+    }
+
+    @Test
+    void tryConsume_shouldAdmitRequest_afterRefill() {
+        table.tryConsume("127.0.0.1", 0L);
+        table.tryConsume("127.0.0.1", 0L);
+
+        assertTrue(table.tryConsume("127.0.0.1", SECOND / 2) > 0L);
+        assertEquals(0L, table.tryConsume("127.0.0.1", SECOND));
+    }
+
+    @Test
+    void debit_shouldDelayRequests_untilDebtIsRefilled() {
+        table.debit("127.0.0.1", 3.0, 0L);
+
+        assertTrue(table.tryConsume("127.0.0.1", SECOND) > 0L);
+        assertEquals(0L, table.tryConsume("127.0.0.1", 2 * SECOND));
+    }
+
+    @Test
+    void evictIdle_shouldOnlyRemoveFullBuckets() {
+        table.tryConsume("127.0.0.1", 0L);
+        table.tryConsume("10.0.0.1", SECOND);
+
+        assertEquals(1, table.evictIdle(SECOND));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void tryConsume_shouldNotGrowBeyondMaxEntries() {
+        for (int i = 0; i < 100; i++) {
+            table.tryConsume("10.0.0." + i, 0L);
+        }
+
+        assertTrue(table.size() <= 4);
+    }
+}
@@ -0,0 +1,85 @@
+package com.jawisimo.urlshortener.security;
+
+import com.jawisimo.urlshortener.security.apikey.ActiveApiKey;
+import com.jawisimo.urlshortener.security.apikey.ApiKeyCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiKeyCacheTest {
+
+    private ApiKeyCache cache;
+    private AtomicInteger loads;
+    private ActiveApiKey activeKey;
+
+    @BeforeEach
+    void init() {
+        cache = new ApiKeyCache(2, 2, 30, 5);
+        loads = new AtomicInteger();
+        activeKey = new ActiveApiKey("hash", 1L, "testUser", Role.ROLE_USER);
+    }
+
+    @Test
+    void get_shouldLoadKeyOnce_whenPrefixIsRepeated() {
+        cache.get("prefix01", loader(activeKey));
+        Optional<ActiveApiKey> cached = cache.get("prefix01", loader(activeKey));
+
+        assertEquals(Optional.of(activeKey), cached);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_shouldCacheMissingKey() {
+        cache.get("unknown1", loader(null));
+        Optional<ActiveApiKey> cached = cache.get("unknown1", loader(null));
+
+        assertTrue(cached.isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evict_shouldForceLoad_ofRevokedKey() {
+        cache.get("prefix01", loader(activeKey));
+
+        cache.evict("prefix01");
+        Optional<ActiveApiKey> loaded = cache.get("prefix01", loader(null));
+
+        assertTrue(loaded.isEmpty());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_shouldEvictEntry_whenFull() {
+        cache.get("prefix01", loader(activeKey));
+        cache.get("prefix02", loader(activeKey));
+        cache.get("prefix03", loader(activeKey));
+        Optional<ActiveApiKey> cached = cache.get("prefix03", loader(activeKey));
+
+        assertEquals(Optional.of(activeKey), cached);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void get_shouldKeepActiveKey_whenMissingKeysFillCache() {
+        cache.get("prefix01", loader(activeKey));
+        for (int i = 0; i < 10; i++) {
+            cache.get("unknown" + i, loader(null));
+        }
+        Optional<ActiveApiKey> cached = cache.get("prefix01", loader(activeKey));
+
+        assertEquals(Optional.of(activeKey), cached);
+        assertEquals(11, loads.get());
+    }
+
+    private Function<String, Optional<ActiveApiKey>> loader(ActiveApiKey result) {
+        return prefix -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(result);
+        };
+    }
+}
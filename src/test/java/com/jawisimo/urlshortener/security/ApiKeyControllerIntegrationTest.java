@@ -0,0 +1,159 @@
+package com.jawisimo.urlshortener.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jawisimo.urlshortener.security.apikey.ApiKeyRepository;
+import com.jawisimo.urlshortener.security.dto.CreateApiKeyRequest;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.jawisimo.urlshortener.security.ApiKeyAuthenticationFilter.API_KEY_HEADER;
+import static com.jawisimo.urlshortener.util.MessageProvider.API_KEY_NAME_MESSAGE;
+import static com.jawisimo.urlshortener.util.MessageProvider.API_KEY_NOT_FOUND_MESSAGE;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ApiKeyControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApiKeyRepository apiKeyRepository;
+
+    private static final String API_KEY_PATH = "/api/v1/api-keys";
+    private static final String URL_ALL_PATH = "/api/v1/url/all";
+
+    private CustomUserDetails userDetails;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder()
+                .login("testUser")
+                .email("test@email.com")
+                .password("passWord123")
+                .role(Role.ROLE_USER)
+                .build());
+        userDetails = new CustomUserDetails(user);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        apiKeyRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void createApiKey_shouldReturnCreatedAndKey_withSuccessRequest() throws Exception {
+        mockMvc.perform(post(API_KEY_PATH)
+                        .with(user(userDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateApiKeyRequest("link-service"))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value("link-service"))
+                .andExpect(jsonPath("$.key").value(containsString("usk_")));
+    }
+
+    @Test
+    void createApiKey_shouldReturnBadRequest_withEmptyName() throws Exception {
+        mockMvc.perform(post(API_KEY_PATH)
+                        .with(user(userDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateApiKeyRequest(" "))))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString(API_KEY_NAME_MESSAGE)));
+    }
+
+    @Test
+    void createApiKey_shouldReturnForbidden_withAnonymousUser() throws Exception {
+        mockMvc.perform(post(API_KEY_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateApiKeyRequest("link-service"))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void listApiKeys_shouldReturnKeysWithoutSecret() throws Exception {
+        createApiKey();
+
+        mockMvc.perform(get(API_KEY_PATH).with(user(userDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("link-service"))
+                .andExpect(jsonPath("$[0].key").doesNotExist());
+    }
+
+    @Test
+    void apiKey_shouldAuthenticateRequest_untilRevoked() throws Exception {
+        JsonNode apiKey = createApiKey();
+
+        mockMvc.perform(get(URL_ALL_PATH).header(API_KEY_HEADER, apiKey.get("key").asText()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete(API_KEY_PATH + "/" + apiKey.get("id").asLong()).with(user(userDetails)))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(URL_ALL_PATH).header(API_KEY_HEADER, apiKey.get("key").asText()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void apiKey_shouldNotAuthenticateRequest_withWrongSecret() throws Exception {
+        String key = createApiKey().get("key").asText();
+        String wrongKey = key.substring(0, key.length() - 1) + (key.endsWith("A") ? "B" : "A");
+
+        mockMvc.perform(get(URL_ALL_PATH).header(API_KEY_HEADER, wrongKey))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void apiKeys_shouldReturnForbidden_whenAuthenticatedByApiKey() throws Exception {
+        JsonNode apiKey = createApiKey();
+        String key = apiKey.get("key").asText();
+
+        mockMvc.perform(post(API_KEY_PATH)
+                        .header(API_KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateApiKeyRequest("second-key"))))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(delete(API_KEY_PATH + "/" + apiKey.get("id").asLong()).header(API_KEY_HEADER, key))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get(URL_ALL_PATH).header(API_KEY_HEADER, key))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void revokeApiKey_shouldReturnNotFound_whenKeyDoesNotExist() throws Exception {
+        mockMvc.perform(delete(API_KEY_PATH + "/" + Long.MAX_VALUE).with(user(userDetails)))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(containsString(API_KEY_NOT_FOUND_MESSAGE)));
+    }
+
+    private JsonNode createApiKey() throws Exception {
+        String response = mockMvc.perform(post(API_KEY_PATH)
+                        .with(user(userDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateApiKeyRequest("link-service"))))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+}
@@ -1,7 +1,9 @@
 package com.jawisimo.urlshortener.security;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jawisimo.urlshortener.security.dto.AuthUserRequest;
+import com.jawisimo.urlshortener.security.service.TokenEpochService;
 import com.jawisimo.urlshortener.user.UserRepository;
 import com.jawisimo.urlshortener.user.dto.RegisterUserRequest;
 import org.junit.jupiter.api.AfterEach;
@@ -10,10 +12,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.Map;
+
 import static com.jawisimo.urlshortener.util.MessageProvider.generateUserWithLoginNotFoundMessage;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -31,8 +39,16 @@ class AuthenticationControllerIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TokenEpochService tokenEpochService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private static final String USER_REGISTER_PATH = "/api/v1/auth/register";
     private static final String USER_AUTH_PATH = "/api/v1/auth/login";
+    private static final String USER_REFRESH_PATH = "/api/v1/auth/refresh";
+    private static final String URL_ALL_PATH = "/api/v1/url/all";
 
     private String login;
     private String email;
@@ -73,4 +89,103 @@ class AuthenticationControllerIntegrationTest {
                 .andExpect(jsonPath("$.message")
                         .value(generateUserWithLoginNotFoundMessage(login)));
     }
+
+    @Test
+    void accessToken_shouldBeRejected_afterTokensAreRevoked() throws Exception {
+        RegisterUserRequest requestRegister = new RegisterUserRequest(login, email, password);
+        mockMvc.perform(post(USER_REGISTER_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestRegister)));
+        AuthUserRequest requestAuth = new AuthUserRequest(login, password);
+        String body = mockMvc.perform(post(USER_AUTH_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestAuth)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        JsonNode tokens = objectMapper.readTree(body);
+        String accessToken = tokens.get("accessToken").asText();
+        String refreshToken = tokens.get("refreshToken").asText();
+
+        mockMvc.perform(get(URL_ALL_PATH)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk());
+
+        tokenEpochService.revokeTokens(userRepository.findUserByLogin(login).orElseThrow().getId());
+
+        mockMvc.perform(get(URL_ALL_PATH)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post(USER_REFRESH_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", refreshToken))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refreshToken_shouldRevokeFamily_whenRotatedTokenIsReused() throws Exception {
+        RegisterUserRequest requestRegister = new RegisterUserRequest(login, email, password);
+        mockMvc.perform(post(USER_REGISTER_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestRegister)));
+        AuthUserRequest requestAuth = new AuthUserRequest(login, password);
+        String body = mockMvc.perform(post(USER_AUTH_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestAuth)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String refreshToken = objectMapper.readTree(body).get("refreshToken").asText();
+
+        String refreshed = mockMvc.perform(post(USER_REFRESH_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", refreshToken))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String rotatedToken = objectMapper.readTree(refreshed).get("refreshToken").asText();
+
+        mockMvc.perform(post(USER_REFRESH_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", refreshToken))))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post(USER_REFRESH_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", rotatedToken))))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get(URL_ALL_PATH)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + rotatedToken))
+                .andExpect(status().isForbidden());
+
+        long userId = userRepository.findUserByLogin(login).orElseThrow().getId();
+        assertEquals(0L, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM refresh_tokens WHERE user_id = ? AND revoked_at IS NULL", Long.class, userId));
+        assertEquals(2L, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM refresh_tokens WHERE user_id = ? AND revoked_at IS NOT NULL",
+                Long.class, userId));
+    }
+
+    @Test
+    void refreshToken_shouldNotBeAcceptedAsAccessToken() throws Exception {
+        RegisterUserRequest requestRegister = new RegisterUserRequest(login, email, password);
+        mockMvc.perform(post(USER_REGISTER_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestRegister)));
+        AuthUserRequest requestAuth = new AuthUserRequest(login, password);
+        String body = mockMvc.perform(post(USER_AUTH_PATH)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestAuth)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String refreshToken = objectMapper.readTree(body).get("refreshToken").asText();
+
+        mockMvc.perform(get(URL_ALL_PATH)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshToken))
+                .andExpect(status().isForbidden());
+    }
 }
@@ -0,0 +1,84 @@
+package com.jawisimo.urlshortener.security;
+
+import com.jawisimo.urlshortener.error.exception.ServiceUnavailableException;
+import com.jawisimo.urlshortener.security.password.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void shutdown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_shouldDelegateToWrappedEncoder() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4, meterRegistry);
+
+        String encoded = encoder.encode("passWord123");
+
+        assertTrue(encoder.matches("passWord123", encoded));
+        assertFalse(encoder.matches("wrongPassword1", encoded));
+        assertEquals(3L, encoder.statistics().completed());
+        assertEquals(3.0,
+                meterRegistry.get("password.hashing.tasks").tag("result", "completed").functionCounter().count());
+        assertEquals(3.0, meterRegistry.get("password.hashing.hash").functionTimer().count());
+    }
+
+    @Test
+    void encode_shouldThrowServiceUnavailable_whenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new BlockingPasswordEncoder(started, release), 1, 1, meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        while (encoder.statistics().queued() == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(ServiceUnavailableException.class, () -> encoder.encode("third"));
+        assertEquals(1L, encoder.statistics().rejected());
+        assertEquals(1.0,
+                meterRegistry.get("password.hashing.tasks").tag("result", "rejected").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("password.hashing.queued").gauge().value());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private record BlockingPasswordEncoder(CountDownLatch started, CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.jawisimo.urlshortener.security;
+
+import com.jawisimo.urlshortener.security.provider.JwtTokenProvider;
+import com.jawisimo.urlshortener.security.provider.VerifiedTokenCache;
+import com.jawisimo.urlshortener.security.service.CustomUserDetailsService;
+import com.jawisimo.urlshortener.security.service.TokenEpochService;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the JWT authorization path.
+ * <p>
+ * {@code legacyVerification} reproduces the previous filter, which decoded the key and built a parser
+ * for each of its two parses of the token; {@code singlePassVerification} is the current verification.
+ * {@code filter} runs the whole filter with a warm verified token cache, {@code uncachedFilter} with a
+ * cache that never keeps an entry, so their difference is the verification time saved per request.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthorizationFilterBenchmark {
+    private static final String JWT_SECRET =
+            "SglgjrxcUfBGB0PR5ZEBsOTa/vdBBseWzDHQBCgzlgStFAQ+Gp23Bp8mxaTijnVT84o6jYE91qbw882TmyQI0g==";
+
+    private JwtTokenProvider tokenProvider;
+    private JwtAuthorizationFilter filter;
+    private JwtAuthorizationFilter uncachedFilter;
+    private String token;
+
+    @Setup
+    public void setup() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.invokeMethod(tokenProvider, "init");
+
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), 10_000);
+        TokenEpochService tokenEpochService =
+                new TokenEpochService(Mockito.mock(UserRepository.class), verifiedTokenCache);
+        CustomUserDetailsService detailService = Mockito.mock(CustomUserDetailsService.class);
+        filter = new JwtAuthorizationFilter(tokenProvider, detailService, tokenEpochService, verifiedTokenCache);
+        uncachedFilter = new JwtAuthorizationFilter(tokenProvider, detailService, tokenEpochService,
+                new VerifiedTokenCache(new SimpleMeterRegistry(), 0));
+
+        token = tokenProvider.generateAccessToken(User.builder()
+                .id(1L)
+                .login("benchmarkUser")
+                .role(Role.ROLE_USER)
+                .build());
+    }
+
+    @Benchmark
+    public Claims legacyVerification() {
+        Jwts.parser().verifyWith(legacySignInKey()).build().parseSignedClaims(token).getPayload();
+        return Jwts.parser().verifyWith(legacySignInKey()).build().parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Claims singlePassVerification() {
+        return tokenProvider.verifyToken(token).orElseThrow();
+    }
+
+    @Benchmark
+    public Object filter() throws Exception {
+        return authenticate(filter);
+    }
+
+    @Benchmark
+    public Object uncachedFilter() throws Exception {
+        return authenticate(uncachedFilter);
+    }
+
+    private Object authenticate(JwtAuthorizationFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/url/all");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    private static SecretKey legacySignInKey() {
+        return Keys.hmacShaKeyFor(Base64.getDecoder().decode(JWT_SECRET.getBytes()));
+    }
+}
@@ -1,6 +1,8 @@
 package com.jawisimo.urlshortener.security;
 
 import com.jawisimo.urlshortener.security.provider.JwtTokenProvider;
+import com.jawisimo.urlshortener.user.User;
+import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -8,6 +10,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Profile;
 
+import java.util.Optional;
+import java.util.UUID;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -18,42 +23,85 @@ class JwtTokenProviderTest {
     @Autowired
     private JwtTokenProvider tokenProvider;
     private String login;
+    private User user;
     private int minSizeJwtToken;
 
     @BeforeAll
     void init() {
         login = "testUser123";
+        user = User.builder()
+                .id(42L)
+                .login(login)
+                .role(Role.ROLE_USER)
+                .tokenEpoch(3)
+                .build();
         minSizeJwtToken = 50;
     }
 
     @Test
     void generateAccessToken_shouldReturnAccessToken_whenLoginIsValid() {
-        String token = tokenProvider.generateAccessToken(login);
+        String token = tokenProvider.generateAccessToken(user);
         assertNotNull(token);
         assertTrue(token.length() >= minSizeJwtToken);
     }
 
     @Test
     void generateRefreshToken_shouldReturnRefreshToken_whenLoginIsValid() {
-        String token = tokenProvider.generateRefreshToken(login);
+        String token = tokenProvider.generateRefreshToken(user, UUID.randomUUID(), UUID.randomUUID(),
+                tokenProvider.nextRefreshTokenExpiration());
         assertNotNull(token);
         assertTrue(token.length() >= minSizeJwtToken);
     }
 
     @Test
     void getLoginFromToken_shouldReturnLogin() {
-        String token = tokenProvider.generateAccessToken(login);
+        String token = tokenProvider.generateAccessToken(user);
         String extractedLogin = tokenProvider.getLoginFromToken(token);
-        String tokenWithNullLogin = tokenProvider.generateAccessToken(null);
+        String tokenWithNullLogin = tokenProvider.generateAccessToken(User.builder().build());
         assertNotNull(token);
         assertNotNull(extractedLogin);
         assertEquals(login, extractedLogin);
         assertNull(tokenProvider.getLoginFromToken(tokenWithNullLogin));
     }
 
+    @Test
+    void getClaimsFromToken_shouldReturnUserIdRoleAndEpoch_fromAccessToken() {
+        Claims claims = tokenProvider.getClaimsFromToken(tokenProvider.generateAccessToken(user));
+        assertEquals(login, claims.getSubject());
+        assertEquals(42L, claims.get(JwtTokenProvider.USER_ID_CLAIM, Long.class));
+        assertEquals(Role.ROLE_USER.name(), claims.get(JwtTokenProvider.ROLE_CLAIM, String.class));
+        assertEquals(3, tokenProvider.getEpochFromClaims(claims));
+    }
+
+    @Test
+    void getClaimsFromToken_shouldContainLoginEpochAndIds_fromRefreshToken() {
+        UUID familyId = UUID.randomUUID();
+        UUID tokenId = UUID.randomUUID();
+        Claims claims = tokenProvider.getClaimsFromToken(tokenProvider.generateRefreshToken(user, familyId, tokenId,
+                tokenProvider.nextRefreshTokenExpiration()));
+        assertEquals(login, claims.getSubject());
+        assertNull(claims.get(JwtTokenProvider.USER_ID_CLAIM));
+        assertEquals(3, tokenProvider.getEpochFromClaims(claims));
+        assertEquals(tokenId.toString(), claims.getId());
+        assertEquals(familyId.toString(), claims.get(JwtTokenProvider.FAMILY_CLAIM, String.class));
+    }
+
+    @Test
+    void verifyToken_shouldReturnClaims_whenTokenIsValid() {
+        Optional<Claims> claims = tokenProvider.verifyToken(tokenProvider.generateAccessToken(user));
+        assertTrue(claims.isPresent());
+        assertEquals(login, claims.get().getSubject());
+    }
+
+    @Test
+    void verifyToken_shouldReturnEmpty_whenTokenIsNotValid() {
+        assertTrue(tokenProvider.verifyToken("jjhdoioiIIihks").isEmpty());
+        assertTrue(tokenProvider.verifyToken(null).isEmpty());
+    }
+
     @Test
     void validateToken_shouldReturnTrue_whenTokenIsValid() {
-        String token = tokenProvider.generateAccessToken(login);
+        String token = tokenProvider.generateAccessToken(user);
         assertNotNull(token);
         assertTrue(tokenProvider.validateToken(token));
     }
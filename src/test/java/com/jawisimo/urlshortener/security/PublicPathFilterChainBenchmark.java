@@ -0,0 +1,143 @@
+package com.jawisimo.urlshortener.security;
+
+import com.jawisimo.urlshortener.ratelimit.ClientIpResolver;
+import com.jawisimo.urlshortener.security.provider.JwtTokenProvider;
+import com.jawisimo.urlshortener.security.provider.VerifiedTokenCache;
+import com.jawisimo.urlshortener.security.service.ApiKeyService;
+import com.jawisimo.urlshortener.security.service.CustomUserDetailsService;
+import com.jawisimo.urlshortener.security.service.TokenEpochService;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Security overhead of the public short URL resolve request.
+ * <p>
+ * {@code fastLane} runs the request through the configured filter chains, where it is matched by the
+ * lightweight public chain. {@code mainChain} runs it through the main chain only, as before the public
+ * chain was introduced, including the JWT authorization of the bearer token sent by the client.
+ * The difference is the latency saved per request.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublicPathFilterChainBenchmark {
+    private static final String JWT_SECRET =
+            "SglgjrxcUfBGB0PR5ZEBsOTa/vdBBseWzDHQBCgzlgStFAQ+Gp23Bp8mxaTijnVT84o6jYE91qbw882TmyQI0g==";
+
+    private AnnotationConfigWebApplicationContext context;
+    private Filter fastLane;
+    private Filter mainChain;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("benchmark", Map.of("jwt.secret", JWT_SECRET)));
+        context.register(BenchmarkSecurityConfig.class);
+        context.refresh();
+
+        fastLane = context.getBean("springSecurityFilterChain", Filter.class);
+        FilterChainProxy mainChainProxy =
+                new FilterChainProxy(context.getBean("securityFilterChain", SecurityFilterChain.class));
+        mainChainProxy.afterPropertiesSet();
+        mainChain = mainChainProxy;
+
+        token = context.getBean(JwtTokenProvider.class).generateAccessToken(User.builder()
+                .id(1L)
+                .login("benchmarkUser")
+                .role(Role.ROLE_USER)
+                .build());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int fastLane() throws Exception {
+        return resolve(fastLane);
+    }
+
+    @Benchmark
+    public int mainChain() throws Exception {
+        return resolve(mainChain);
+    }
+
+    private int resolve(Filter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/url/dj5Kdt");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    @TestConfiguration
+    @EnableWebMvc
+    @Import(SecurityConfig.class)
+    static class BenchmarkSecurityConfig {
+
+        @Bean
+        JwtTokenProvider jwtTokenProvider() {
+            return new JwtTokenProvider();
+        }
+
+        @Bean
+        VerifiedTokenCache verifiedTokenCache() {
+            return new VerifiedTokenCache(new SimpleMeterRegistry(), 10_000);
+        }
+
+        @Bean
+        CustomUserDetailsService customUserDetailsService() {
+            return Mockito.mock(CustomUserDetailsService.class);
+        }
+
+        @Bean
+        TokenEpochService tokenEpochService(VerifiedTokenCache verifiedTokenCache) {
+            return new TokenEpochService(Mockito.mock(UserRepository.class), verifiedTokenCache);
+        }
+
+        @Bean
+        JwtAuthorizationFilter jwtAuthorizationFilter(JwtTokenProvider jwtTokenProvider,
+                                                      CustomUserDetailsService customUserDetailsService,
+                                                      TokenEpochService tokenEpochService,
+                                                      VerifiedTokenCache verifiedTokenCache) {
+            return new JwtAuthorizationFilter(jwtTokenProvider, customUserDetailsService, tokenEpochService,
+                    verifiedTokenCache);
+        }
+
+        @Bean
+        ApiKeyAuthenticationFilter apiKeyAuthenticationFilter() {
+            return new ApiKeyAuthenticationFilter(Mockito.mock(ApiKeyService.class), new ClientIpResolver(false),
+                    Mockito.mock(HandlerExceptionResolver.class));
+        }
+    }
+}
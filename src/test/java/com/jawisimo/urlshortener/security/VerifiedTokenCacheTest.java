@@ -0,0 +1,113 @@
+package com.jawisimo.urlshortener.security;
+
+import com.jawisimo.urlshortener.security.provider.VerifiedToken;
+import com.jawisimo.urlshortener.security.provider.VerifiedTokenCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private VerifiedTokenCache cache;
+    private AtomicInteger verifications;
+    private VerifiedToken verifiedToken;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VerifiedTokenCache(meterRegistry, 2);
+        verifications = new AtomicInteger();
+        verifiedToken = new VerifiedToken(1L, "testUser", Role.ROLE_USER.name(), 0,
+                Instant.now().plusSeconds(600));
+    }
+
+    @Test
+    void get_shouldVerifyTokenOnce_whenTokenIsRepeated() {
+        cache.get("token", verifier(verifiedToken));
+        Optional<VerifiedToken> cached = cache.get("token", verifier(verifiedToken));
+
+        assertEquals(Optional.of(verifiedToken), cached);
+        assertEquals(1, verifications.get());
+        assertEquals(1L, cache.statistics().hits());
+        assertEquals(1L, cache.statistics().misses());
+        assertEquals(0.5, cache.statistics().hitRatio());
+    }
+
+    @Test
+    void get_shouldRecordRequestsInMeters() {
+        cache.get("token", verifier(verifiedToken));
+        cache.get("token", verifier(verifiedToken));
+        cache.get("token", verifier(verifiedToken));
+
+        assertEquals(2.0,
+                meterRegistry.get("jwt.token-cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0,
+                meterRegistry.get("jwt.token-cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("jwt.token-cache.size").gauge().value());
+        assertEquals(1.0, meterRegistry.get("jwt.token-cache.verification").functionTimer().count());
+    }
+
+    @Test
+    void get_shouldNotCache_whenTokenIsInvalidOrExpired() {
+        VerifiedToken expired = new VerifiedToken(1L, "testUser", Role.ROLE_USER.name(), 0,
+                Instant.now().minusSeconds(1));
+
+        cache.get("invalid", verifier(null));
+        cache.get("invalid", verifier(null));
+        cache.get("expired", verifier(expired));
+        cache.get("expired", verifier(expired));
+
+        assertEquals(4, verifications.get());
+        assertEquals(0, cache.statistics().size());
+    }
+
+    @Test
+    void evictUser_shouldForceVerification_ofTokensOfRevokedUser() {
+        cache.get("token", verifier(verifiedToken));
+
+        cache.evictUser(1L);
+        cache.get("token", verifier(verifiedToken));
+
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void get_shouldEvictEntry_whenFull() {
+        cache.get("first", verifier(verifiedToken));
+        cache.get("second", verifier(verifiedToken));
+        cache.get("third", verifier(verifiedToken));
+        cache.get("third", verifier(verifiedToken));
+
+        assertEquals(2, cache.statistics().size());
+        assertEquals(3, verifications.get());
+    }
+
+    @Test
+    void purgeExpired_shouldRemoveEntriesOfExpiredTokens() throws InterruptedException {
+        VerifiedToken expiring = new VerifiedToken(2L, "otherUser", Role.ROLE_USER.name(), 0,
+                Instant.now().plusMillis(50));
+        cache.get("token", verifier(verifiedToken));
+        cache.get("expiring", verifier(expiring));
+
+        Thread.sleep(100);
+        cache.purgeExpired();
+
+        assertEquals(1, cache.statistics().size());
+    }
+
+    private Function<String, Optional<VerifiedToken>> verifier(VerifiedToken result) {
+        return token -> {
+            verifications.incrementAndGet();
+            return Optional.ofNullable(result);
+        };
+    }
+}
@@ -0,0 +1,166 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.security.Role;
+import com.jawisimo.urlshortener.url.backfill.Backfill;
+import com.jawisimo.urlshortener.url.backfill.BackfillRunner;
+import com.jawisimo.urlshortener.url.backfill.ConcurrentIndex;
+import com.jawisimo.urlshortener.url.codenum.CodeNumBackfill;
+import com.jawisimo.urlshortener.url.longurl.LongUrlIdBackfill;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "url.backfill.batch-size=2",
+        "url.backfill.pause-ms=0"
+})
+class BackfillRunnerIntegrationTest {
+
+    @Autowired
+    private BackfillRunner backfillRunner;
+
+    @Autowired
+    private CodeNumBackfill codeNumBackfill;
+
+    @Autowired
+    private LongUrlIdBackfill longUrlIdBackfill;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private LongUrlRepository longUrlRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String LONG_URL = "https://backfill.example.com/";
+    private static final String TEST_INDEX = "idx_urls_backfill_test";
+
+    private User user;
+
+    @TestConfiguration
+    static class IndexBackfillConfig {
+
+        @Bean
+        Backfill indexBackfill() {
+            return new Backfill() {
+                @Override
+                public String name() {
+                    return "test.index";
+                }
+
+                @Override
+                public int backfill(long afterId, long toId) {
+                    return 0;
+                }
+
+                @Override
+                public List<ConcurrentIndex> indexes() {
+                    return List.of(new ConcurrentIndex(TEST_INDEX, false, "(user_id, created_at)"));
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .login("testUser")
+                .email("test@email.com")
+                .password("passWord123")
+                .role(Role.ROLE_USER)
+                .build());
+        jdbcTemplate.update("DELETE FROM url_backfills");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("DROP INDEX IF EXISTS " + TEST_INDEX);
+        jdbcTemplate.update("DELETE FROM url_backfills");
+        urlRepository.deleteAll();
+        userRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM long_urls WHERE url = ?", LONG_URL);
+    }
+
+    @Test
+    void runBackfills_shouldFillAllChunks_andBuildIndexOnEveryPartition() {
+        List<Url> urls = saveUrls(5);
+
+        assertTrue(backfillRunner.runBackfills());
+
+        for (Url url : urls) {
+            assertEquals(Base62Codec.decode(url.getShortUrlCode()), codeNum(url));
+        }
+        assertTrue(codeNumBackfill.isComplete());
+        assertEquals(5L, jdbcTemplate.queryForObject(
+                "SELECT processed FROM url_backfills WHERE name = 'urls.code_num' AND completed_at IS NOT NULL",
+                Long.class));
+        assertTrue(jdbcTemplate.queryForObject(
+                "SELECT indisvalid FROM pg_index WHERE indexrelid = ?::REGCLASS", Boolean.class, TEST_INDEX));
+        assertTrue(jdbcTemplate.queryForObject(
+                "SELECT indisvalid FROM pg_index WHERE indexrelid = 'urls_code_num_key'::REGCLASS", Boolean.class));
+        assertTrue(longUrlIdBackfill.isComplete());
+        assertTrue(jdbcTemplate.queryForObject(
+                "SELECT indisvalid FROM pg_index WHERE indexrelid = 'idx_urls_long_url_id'::REGCLASS", Boolean.class));
+        assertEquals(jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM pg_inherits WHERE inhparent = 'urls'::REGCLASS", Long.class),
+                jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM pg_inherits WHERE inhparent = ?::REGCLASS", Long.class, TEST_INDEX));
+        assertEquals(1.0, meterRegistry.get("url.backfill.progress").tag("name", "urls.code_num").gauge().value());
+    }
+
+    @Test
+    void runBackfills_shouldContinueFromCheckpoint() {
+        List<Url> urls = saveUrls(5);
+        jdbcTemplate.update("INSERT INTO url_backfills (name, target_id, last_id) VALUES ('urls.code_num', ?, ?)",
+                urls.getLast().getId(), urls.get(2).getId());
+
+        assertTrue(backfillRunner.runBackfills());
+
+        for (int i = 0; i < urls.size(); i++) {
+            Long expected = i <= 2 ? null : Base62Codec.decode(urls.get(i).getShortUrlCode());
+            assertEquals(expected, codeNum(urls.get(i)));
+        }
+        assertEquals(2L, jdbcTemplate.queryForObject(
+                "SELECT processed FROM url_backfills WHERE name = 'urls.code_num'", Long.class));
+    }
+
+    private List<Url> saveUrls(int count) {
+        List<Url> urls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            urls.add(urlRepository.save(Url.builder()
+                    .shortUrlCode("backfill" + i)
+                    .longUrl(LONG_URL)
+                    .longUrlId(longUrlRepository.acquire(LONG_URL))
+                    .user(user)
+                    .build()));
+        }
+        jdbcTemplate.update("UPDATE urls SET code_num = NULL WHERE user_id = ?", user.getId());
+        return urls;
+    }
+
+    private Long codeNum(Url url) {
+        return jdbcTemplate.queryForObject("SELECT code_num FROM urls WHERE id = ?", Long.class, url.getId());
+    }
+}
@@ -0,0 +1,56 @@
+package com.jawisimo.urlshortener.url;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Base62CodecTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "a, 1",
+            "9, 62",
+            "aa, 63",
+            "ab, 64",
+            "ba, 125",
+            "99, 3906"
+    })
+    void decode_shouldReturnBijectiveBase62Number(String code, long expected) {
+        assertEquals(expected, Base62Codec.decode(code));
+        assertEquals(code, Base62Codec.encode(expected));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"abc123", "XjlOguI", "Zz09aAzZ", "9999999999"})
+    void encode_shouldRestoreCode_afterDecode(String code) {
+        long number = Base62Codec.decode(code);
+
+        assertTrue(number > 0);
+        assertEquals(code, Base62Codec.encode(number));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "abc-12", "abc 12", "äbc", "aaaaaaaaaaa"})
+    void decode_shouldReturnInvalid_forCodeWithoutNumericForm(String code) {
+        assertEquals(Base62Codec.INVALID, Base62Codec.decode(code));
+    }
+
+    @Test
+    void decode_shouldReturnDistinctNumbers_forCodesOfDifferentLengths() {
+        Set<Long> numbers = new HashSet<>();
+        for (String code : new String[]{"b", "ab", "aab", "aaab", "aaaab"}) {
+            assertTrue(numbers.add(Base62Codec.decode(code)));
+        }
+    }
+
+    @Test
+    void encode_shouldThrow_forNonPositiveNumber() {
+        assertThrows(IllegalArgumentException.class, () -> Base62Codec.encode(0L));
+    }
+}
@@ -0,0 +1,145 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.url.click.ClickEventRepository.StoredClick;
+import com.jawisimo.urlshortener.url.click.ClickGrouping;
+import com.jawisimo.urlshortener.url.click.ClickQuery;
+import com.jawisimo.urlshortener.url.click.archive.ClickArchive;
+import com.jawisimo.urlshortener.url.click.archive.ClickSegment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickArchiveTest {
+    private static final long HOUR = ClickGrouping.HOUR.getBucketMillis();
+    private static final long START = 1_700_000_000_000L - Math.floorMod(1_700_000_000_000L, HOUR);
+
+    @TempDir
+    private Path directory;
+
+    private ClickArchive archive;
+
+    @BeforeEach
+    void init() throws IOException {
+        archive = new ClickArchive(directory.toString(), 2);
+        archive.open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        archive.close();
+    }
+
+    @Test
+    void append_shouldAdvanceWatermark_andWriteSegmentStatistics() throws IOException {
+        ClickSegment segment = archive.append(List.of(
+                new StoredClick(1L, 10L, 1L, START + 2_000L),
+                new StoredClick(2L, 11L, 2L, START),
+                new StoredClick(3L, 12L, 1L, START + 1_000L)));
+
+        assertEquals(3L, archive.getWatermark());
+        assertEquals(3, segment.getRowCount());
+        assertEquals(START, segment.getMinTimestamp());
+        assertEquals(START + 2_000L, segment.getMaxTimestamp());
+        assertEquals(10L, segment.getMinUrlId());
+        assertEquals(12L, segment.getMaxUrlId());
+    }
+
+    @Test
+    void query_shouldCountClicksByHour_forUser() throws IOException {
+        archive.append(List.of(
+                new StoredClick(1L, 10L, 1L, START),
+                new StoredClick(2L, 10L, 1L, START + 10L),
+                new StoredClick(3L, 20L, 2L, START + 20L),
+                new StoredClick(4L, 11L, 1L, START + HOUR + 5L)));
+
+        Map<Long, Long> counts = archive.query(ClickQuery.forUser(1L, START, START + 2 * HOUR, ClickGrouping.HOUR));
+
+        assertEquals(Map.of(START, 2L, START + HOUR, 1L), counts);
+    }
+
+    @Test
+    void query_shouldRespectHalfOpenTimeRange() throws IOException {
+        archive.append(List.of(
+                new StoredClick(1L, 10L, 1L, START),
+                new StoredClick(2L, 10L, 1L, START + HOUR)));
+
+        Map<Long, Long> counts = archive.query(ClickQuery.forUrl(10L, START, START + HOUR, ClickGrouping.NONE));
+
+        assertEquals(Map.of(0L, 1L), counts);
+    }
+
+    @Test
+    void query_shouldMergeCountsAcrossSegments_whenScannedInParallel() throws IOException {
+        long id = 0L;
+        for (int segment = 0; segment < 10; segment++) {
+            List<StoredClick> clicks = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                clicks.add(new StoredClick(++id, 10L + i % 2, 1L, START + id));
+            }
+            archive.append(clicks);
+        }
+
+        Map<Long, Long> counts = archive.query(ClickQuery.forUser(1L, START, START + HOUR, ClickGrouping.URL));
+
+        assertEquals(Map.of(10L, 500L, 11L, 500L), counts);
+    }
+
+    @Test
+    void query_shouldReturnEmpty_whenNoSegmentMatches() throws IOException {
+        archive.append(List.of(new StoredClick(1L, 10L, 1L, START)));
+
+        assertTrue(archive.query(ClickQuery.forUser(2L, START, START + HOUR, ClickGrouping.NONE)).isEmpty());
+        assertTrue(archive.query(ClickQuery.forUser(1L, START + HOUR, START + 2 * HOUR, ClickGrouping.NONE)).isEmpty());
+    }
+
+    @Test
+    void open_shouldLoadExistingSegments_andKeepTemporaryFiles() throws IOException {
+        archive.append(List.of(new StoredClick(7L, 10L, 1L, START)));
+        Path leftover = Files.createFile(directory.resolve("clicks-partial.seg.tmp"));
+
+        ClickArchive reopened = new ClickArchive(directory.toString(), 1);
+        reopened.open();
+
+        assertEquals(7L, reopened.getWatermark());
+        assertTrue(Files.exists(leftover));
+        assertEquals(Map.of(0L, 1L),
+                reopened.query(ClickQuery.forUrl(10L, START, START + HOUR, ClickGrouping.NONE)));
+        reopened.close();
+    }
+
+    @Test
+    void deleteTemporaryFiles_shouldRemoveLeftoversOfInterruptedWrites() throws IOException {
+        archive.append(List.of(new StoredClick(7L, 10L, 1L, START)));
+        Path leftover = Files.createFile(directory.resolve("clicks-partial.seg.tmp"));
+
+        archive.deleteTemporaryFiles();
+
+        assertFalse(Files.exists(leftover));
+        assertEquals(7L, archive.getWatermark());
+    }
+
+    @Test
+    void snapshot_shouldPickUpSegmentsWrittenByAnotherNode() throws IOException {
+        ClickArchive reader = new ClickArchive(directory.toString(), 1);
+        reader.open();
+        ClickArchive.Snapshot before = reader.snapshot();
+
+        archive.append(List.of(new StoredClick(7L, 10L, 1L, START)));
+
+        assertEquals(0L, before.watermark());
+        assertTrue(reader.query(before, ClickQuery.forUrl(10L, START, START + HOUR, ClickGrouping.NONE)).isEmpty());
+        assertEquals(7L, reader.snapshot().watermark());
+        assertEquals(Map.of(0L, 1L), reader.query(ClickQuery.forUrl(10L, START, START + HOUR, ClickGrouping.NONE)));
+        reader.close();
+    }
+}
@@ -0,0 +1,151 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.security.Role;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
+import com.jawisimo.urlshortener.url.store.EmbeddedUrlStore;
+import com.jawisimo.urlshortener.url.store.UrlChangeRepository;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "url.store.embedded.enabled=true",
+        "url.store.embedded.directory=target/url-store-test",
+        "url.store.embedded.poll-interval-ms=3600000",
+        "url.store.embedded.visit-flush-interval-ms=3600000"
+})
+class EmbeddedUrlStoreIntegrationTest {
+
+    @Autowired
+    private EmbeddedUrlStore embeddedUrlStore;
+
+    @Autowired
+    private UrlChangeRepository urlChangeRepository;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private UrlCounterRepository urlCounterRepository;
+
+    @Autowired
+    private LongUrlRepository longUrlRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String LONG_URL = "https://store.example.com/";
+    private static final String RESTARTED_STORE_DIRECTORY = "target/url-store-test-restarted";
+
+    private User user;
+
+    @BeforeAll
+    static void deleteStore() throws IOException {
+        FileSystemUtils.deleteRecursively(Path.of("target/url-store-test"));
+        FileSystemUtils.deleteRecursively(Path.of(RESTARTED_STORE_DIRECTORY));
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        user = userRepository.save(User.builder()
+                .login("testUser")
+                .email("test@email.com")
+                .password("passWord123")
+                .role(Role.ROLE_USER)
+                .build());
+        embeddedUrlStore.poll();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        urlRepository.deleteAll();
+        userRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM long_urls WHERE url = ?", LONG_URL);
+    }
+
+    @Test
+    void poll_shouldApplyCreatedChangedAndDeletedUrls() throws IOException {
+        Url url = saveUrl("store01");
+        Url deleted = saveUrl("store02");
+        assertTrue(embeddedUrlStore.findByShortUrlCode("store01").isEmpty());
+
+        embeddedUrlStore.poll();
+
+        Url stored = embeddedUrlStore.findByShortUrlCode("store01").orElseThrow();
+        assertEquals(url.getId(), stored.getId());
+        assertEquals(LONG_URL, stored.getLongUrl());
+        assertEquals(user.getId(), stored.getUser().getId());
+
+        jdbcTemplate.update("UPDATE urls SET short_url_code = 'store03' WHERE id = ?", url.getId());
+        urlRepository.delete(deleted);
+        embeddedUrlStore.poll();
+
+        assertTrue(embeddedUrlStore.findByShortUrlCode("store01").isEmpty());
+        assertTrue(embeddedUrlStore.findByShortUrlCode("store02").isEmpty());
+        assertEquals(url.getId(), embeddedUrlStore.findByShortUrlCode("store03").orElseThrow().getId());
+    }
+
+    @Test
+    void flushVisits_shouldAddCountedVisitsToCounters() throws IOException {
+        Url url = saveUrl("store04");
+        urlCounterRepository.incrementVisits(url.getId());
+        embeddedUrlStore.poll();
+        Url stored = embeddedUrlStore.findByShortUrlCode("store04").orElseThrow();
+
+        embeddedUrlStore.incrementVisits(stored);
+        embeddedUrlStore.incrementVisits(stored);
+        embeddedUrlStore.flushVisits();
+
+        assertEquals(3L, jdbcTemplate.queryForObject(
+                "SELECT visits FROM url_counters WHERE url_id = ?", Long.class, url.getId()));
+    }
+
+    @Test
+    void poll_shouldLoadAllUrls_whenStreamWasOffSinceSavedPosition() throws IOException {
+        EmbeddedUrlStore store = restartedStore();
+        store.poll();
+        store.close();
+
+        jdbcTemplate.update("UPDATE url_change_stream SET enabled = FALSE");
+        saveUrl("store05");
+        assertEquals(0L, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM url_changes WHERE short_url_code = 'store05'", Long.class));
+
+        EmbeddedUrlStore restarted = restartedStore();
+        restarted.poll();
+
+        assertTrue(restarted.findByShortUrlCode("store05").isPresent());
+        restarted.close();
+    }
+
+    private EmbeddedUrlStore restartedStore() throws IOException {
+        EmbeddedUrlStore store = new EmbeddedUrlStore(urlChangeRepository, urlCounterRepository, true,
+                RESTARTED_STORE_DIRECTORY, 1000, 0.5, 24);
+        store.open();
+        return store;
+    }
+
+    private Url saveUrl(String shortUrlCode) {
+        return urlRepository.save(Url.builder()
+                .shortUrlCode(shortUrlCode)
+                .longUrl(LONG_URL)
+                .longUrlId(longUrlRepository.acquire(LONG_URL))
+                .user(user)
+                .build());
+    }
+}
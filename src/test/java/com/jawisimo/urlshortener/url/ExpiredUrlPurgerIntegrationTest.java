@@ -0,0 +1,159 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.security.Role;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
+import com.jawisimo.urlshortener.url.purge.ExpiredUrlPurger;
+import com.jawisimo.urlshortener.url.summary.UserUrlSummary;
+import com.jawisimo.urlshortener.url.summary.UserUrlSummaryRepository;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "url.purge.enabled=true",
+        "url.purge.grace-days=30",
+        "url.purge.batch-size=2",
+        "url.purge.pause-ms=0",
+        "url.purge.interval-ms=3600000",
+        "url.purge.initial-delay-ms=3600000"
+})
+class ExpiredUrlPurgerIntegrationTest {
+
+    @Autowired
+    private ExpiredUrlPurger expiredUrlPurger;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private UrlCounterRepository urlCounterRepository;
+
+    @Autowired
+    private LongUrlRepository longUrlRepository;
+
+    @Autowired
+    private UserUrlSummaryRepository summaryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String LONG_URL = "https://purge.example.com/";
+    private static final long PURGE_LOCK_KEY = 0x75726C7075726765L;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .login("testUser")
+                .email("test@email.com")
+                .password("passWord123")
+                .role(Role.ROLE_USER)
+                .build());
+        jdbcTemplate.update("UPDATE url_expiry_sweep SET swept_until = LOCALTIMESTAMP WHERE id = 1");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM urls_archive");
+        urlRepository.deleteAll();
+        userRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM long_urls WHERE url = ?", LONG_URL);
+    }
+
+    @Test
+    void purgeExpired_shouldDeleteUrlsExpiredForGracePeriod_andUpdateSummary() {
+        Url visited = saveUrl("gone01", 40);
+        saveUrl("gone02", 35);
+        saveUrl("gone03", 31);
+        saveUrl("recent01", 10);
+        saveUrl("active01", null);
+        urlCounterRepository.incrementVisits(visited.getId());
+        jdbcTemplate.update("INSERT INTO urls_archive (id, short_url_code, long_url_id, user_id, visits, created_at, " +
+                        "expires_at) VALUES (nextval('urls_id_seq'), 'gone04', ?, ?, 2, LOCALTIMESTAMP, " +
+                        "LOCALTIMESTAMP - INTERVAL '40 days')",
+                longUrlRepository.acquire(LONG_URL), user.getId());
+        summaryRepository.applyDelta(user.getId(), 6L, 2L, 3L);
+        double deletedBefore = deleted("urls");
+
+        assertTrue(expiredUrlPurger.purgeExpired());
+
+        assertTrue(urlRepository.findUrlByShortUrlCode("gone01").isEmpty());
+        assertTrue(urlRepository.findUrlByShortUrlCode("gone03").isEmpty());
+        assertTrue(urlRepository.findUrlByShortUrlCode("recent01").isPresent());
+        assertTrue(urlRepository.findUrlByShortUrlCode("active01").isPresent());
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT count(*) FROM urls_archive", Long.class));
+        assertEquals(0L, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM url_counters WHERE url_id = ?", Long.class, visited.getId()));
+        assertEquals(new UserUrlSummary(user.getId(), 2L, 2L, 0L),
+                summaryRepository.findByUserId(user.getId()).orElseThrow());
+        assertEquals(3.0, deleted("urls") - deletedBefore);
+        assertEquals(0.0, meterRegistry.get("url.purge.running").gauge().value());
+    }
+
+    @Test
+    void purgeExpired_shouldSkipRun_whenAnotherNodeHoldsTheLock() throws SQLException {
+        saveUrl("gone01", 40);
+
+        try (Connection connection = dataSource.getConnection()) {
+            advisoryLock(connection, "SELECT pg_advisory_lock(?)");
+            try {
+                assertFalse(expiredUrlPurger.purgeExpired());
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+            }
+        }
+
+        assertTrue(urlRepository.findUrlByShortUrlCode("gone01").isPresent());
+        assertTrue(expiredUrlPurger.purgeExpired());
+        assertTrue(urlRepository.findUrlByShortUrlCode("gone01").isEmpty());
+    }
+
+    private Url saveUrl(String shortUrlCode, Integer expiredDaysAgo) {
+        Url url = urlRepository.save(Url.builder()
+                .shortUrlCode(shortUrlCode)
+                .longUrl(LONG_URL)
+                .longUrlId(longUrlRepository.acquire(LONG_URL))
+                .user(user)
+                .build());
+        if (Objects.nonNull(expiredDaysAgo)) {
+            jdbcTemplate.update("UPDATE urls SET expires_at = LOCALTIMESTAMP - make_interval(days => ?) WHERE id = ?",
+                    expiredDaysAgo, url.getId());
+        }
+        return url;
+    }
+
+    private double deleted(String table) {
+        return meterRegistry.get("url.purge.deleted").tag("table", table).counter().count();
+    }
+
+    private static void advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, PURGE_LOCK_KEY);
+            statement.executeQuery().close();
+        }
+    }
+}
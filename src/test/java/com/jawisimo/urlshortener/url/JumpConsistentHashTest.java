@@ -0,0 +1,51 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.url.shard.JumpConsistentHash;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JumpConsistentHashTest {
+
+    @Test
+    void shardOf_shouldBeStableAndWithinRange() {
+        for (int i = 0; i < 1000; i++) {
+            String code = "code" + i;
+            int shard = JumpConsistentHash.shardOf(code, 7);
+            assertTrue(shard >= 0 && shard < 7);
+            assertEquals(shard, JumpConsistentHash.shardOf(code, 7));
+            assertEquals(0, JumpConsistentHash.shardOf(code, 1));
+        }
+    }
+
+    @Test
+    void shardOf_shouldMoveCodesOnlyToNewShard_whenShardIsAdded() {
+        int moved = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String code = "code" + i;
+            int before = JumpConsistentHash.shardOf(code, 4);
+            int after = JumpConsistentHash.shardOf(code, 5);
+            if (before != after) {
+                assertEquals(4, after);
+                moved++;
+            }
+        }
+        assertTrue(moved > 1500 && moved < 2500, "moved " + moved);
+    }
+
+    @Test
+    void shardOf_shouldSpreadCodesEvenly() {
+        int[] counts = new int[8];
+        for (int i = 0; i < 80_000; i++) {
+            counts[JumpConsistentHash.shardOf("code" + i, counts.length)]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 9000 && count < 11_000, "count " + count);
+        }
+    }
+
+    @Test
+    void shardOf_shouldThrow_whenNumberOfShardsIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> JumpConsistentHash.shardOf("abc123", 0));
+    }
+}
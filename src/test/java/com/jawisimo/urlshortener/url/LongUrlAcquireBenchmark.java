@@ -0,0 +1,97 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.UrlShortenerApiApplication;
+import com.jawisimo.urlshortener.security.Role;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of URL creations by eight threads, all for the same long URL or each for a new one.
+ * <p>
+ * Every operation takes a reference to the long URL and inserts a URL in one transaction, as the create
+ * path does, in Postgres started by Testcontainers. {@code sameDestination} close to {@code distinct}
+ * shows that creations of a popular destination do not queue on its {@code long_urls} row. The sizes of
+ * {@code urls} and {@code long_urls} after the run are logged as the space report.
+ * </p>
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgs = {"-Xmx2g", "-Dspring.profiles.active=test"})
+public class LongUrlAcquireBenchmark {
+    private static final String LONG_URL = "https://www.youtube.com/watch?v=dQw4w9WgXcQ";
+    private static final String INSERT_SQL = "INSERT INTO urls (short_url_code, code_num, long_url_id, user_id, " +
+            "created_at) VALUES (?, ?, ?, ?, LOCALTIMESTAMP)";
+    private static final String SIZE_SQL =
+            "SELECT pg_size_pretty(sum(pg_total_relation_size(relid))) FROM pg_partition_tree(?::REGCLASS)";
+
+    private final AtomicLong nextCode = new AtomicLong(1_000_000_000L);
+
+    private ConfigurableApplicationContext context;
+    private LongUrlRepository longUrlRepository;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private long userId;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(UrlShortenerApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        longUrlRepository = context.getBean(LongUrlRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        userId = context.getBean(UserRepository.class).save(User.builder()
+                .login("benchmarkUser")
+                .email("benchmark@email.com")
+                .password("passWord123")
+                .role(Role.ROLE_USER)
+                .build()).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (String table : new String[]{"urls", "long_urls"}) {
+            Map<String, Object> row = jdbcTemplate.queryForMap(
+                    "SELECT (SELECT count(*) FROM " + table + ") AS rows, (" + SIZE_SQL + ") AS size", table);
+            log.info("Space report: {} {} rows, {}", table, row.get("rows"), row.get("size"));
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public Long sameDestination() {
+        return create(LONG_URL);
+    }
+
+    @Benchmark
+    public Long distinct() {
+        return create(LONG_URL + "&t=" + ThreadLocalRandom.current().nextLong());
+    }
+
+    private Long create(String longUrl) {
+        long codeNum = nextCode.getAndIncrement();
+        return transactionTemplate.execute(status -> {
+            long longUrlId = longUrlRepository.acquire(longUrl);
+            jdbcTemplate.update(INSERT_SQL, Base62Codec.encode(codeNum), codeNum, longUrlId, userId);
+            return longUrlId;
+        });
+    }
+}
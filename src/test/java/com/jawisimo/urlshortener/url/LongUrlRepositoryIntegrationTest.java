@@ -0,0 +1,120 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.security.Role;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class LongUrlRepositoryIntegrationTest {
+
+    @Autowired
+    private LongUrlRepository longUrlRepository;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static final String LONG_URL = "https://www.youtube.com/";
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .login("testUser")
+                .email("test@email.com")
+                .password("passWord123")
+                .role(Role.ROLE_USER)
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        urlRepository.deleteAll();
+        userRepository.deleteAll();
+        deleteUnreferenced();
+    }
+
+    @Test
+    void acquire_shouldStoreLongUrlOnce_forUrlsOfSameDestination() {
+        Url first = saveUrl("code001");
+        Url second = saveUrl("code002");
+
+        assertEquals(first.getLongUrlId(), second.getLongUrlId());
+        assertEquals(1L, countLongUrls());
+        assertEquals(LONG_URL, urlRepository.findUrlByShortUrlCode("code002").orElseThrow().getLongUrl());
+    }
+
+    @Test
+    void deleteUnreferenced_shouldDeleteLongUrl_onlyAfterLastUrlIsDeleted() {
+        Url first = saveUrl("code001");
+        Url second = saveUrl("code002");
+
+        urlRepository.delete(first);
+        assertEquals(0, deleteUnreferenced(first.getLongUrlId()));
+        assertEquals(1L, countLongUrls());
+
+        urlRepository.delete(second);
+        assertEquals(1, deleteUnreferenced(first.getLongUrlId()));
+        assertEquals(0L, countLongUrls());
+    }
+
+    @Test
+    void acquire_shouldStoreLongUrlAgain_afterItWasDeleted() {
+        long deletedId = saveUrl("code001").getLongUrlId();
+        urlRepository.deleteAll();
+        assertEquals(1, deleteUnreferenced(deletedId));
+
+        Url url = saveUrl("code002");
+
+        assertNotEquals(deletedId, url.getLongUrlId());
+        assertEquals(LONG_URL, urlRepository.findUrlByShortUrlCode("code002").orElseThrow().getLongUrl());
+    }
+
+    @Test
+    void findChunkEnd_shouldReturnAfterId_whenNoLongUrlsAreLeft() {
+        long longUrlId = saveUrl("code001").getLongUrlId();
+
+        assertEquals(longUrlId, longUrlRepository.findChunkEnd(longUrlId - 1, 1));
+        assertEquals(longUrlId, longUrlRepository.findChunkEnd(longUrlId, 1));
+    }
+
+    private Url saveUrl(String shortUrlCode) {
+        return urlRepository.save(Url.builder()
+                .shortUrlCode(shortUrlCode)
+                .longUrl(LONG_URL)
+                .longUrlId(longUrlRepository.acquire(LONG_URL))
+                .user(user)
+                .build());
+    }
+
+    private int deleteUnreferenced() {
+        return transactionTemplate.execute(status -> longUrlRepository.deleteUnreferenced(0L, Long.MAX_VALUE));
+    }
+
+    private int deleteUnreferenced(long longUrlId) {
+        return transactionTemplate.execute(status -> longUrlRepository.deleteUnreferenced(longUrlId - 1, longUrlId));
+    }
+
+    private long countLongUrls() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM long_urls WHERE url = ?", Long.class, LONG_URL);
+    }
+}
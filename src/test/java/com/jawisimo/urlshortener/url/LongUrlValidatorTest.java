@@ -1,9 +1,18 @@
 package com.jawisimo.urlshortener.url;
 
 import com.jawisimo.urlshortener.error.exception.ValidationException;
+import com.jawisimo.urlshortener.url.blocklist.UrlBlocklist;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static com.jawisimo.urlshortener.util.MessageProvider.URL_BLOCKED_MESSAGE;
 import static com.jawisimo.urlshortener.util.MessageProvider.URL_INCORRECT_MESSAGE;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -11,9 +20,12 @@ class LongUrlValidatorTest {
 
     private LongUrlValidator validator;
 
+    @TempDir
+    private Path tempDir;
+
     @BeforeEach
     void init() {
-        validator = new LongUrlValidator();
+        validator = new LongUrlValidator(new UrlBlocklist(""));
     }
 
     @Test
@@ -57,4 +69,47 @@ class LongUrlValidatorTest {
                 () -> validator.validateLongUrl("ftp://example.com"));
         assertEquals(URL_INCORRECT_MESSAGE, exception.getMessage());
     }
+
+    @Test
+    void validateLongUrl_shouldReturnCanonicalUrl() {
+        assertEquals("https://example.com/a%2Fb~c?q=a%20b",
+                validator.validateLongUrl("HTTPS://Example.COM:443/a%2fb%7Ec?q=a b"));
+    }
+
+    @Test
+    void validateLongUrl_shouldThrow_whenHostIsMalformed() {
+        ValidationException exception = assertThrows(
+                ValidationException.class,
+                () -> validator.validateLongUrl("https://exa mple..com"));
+        assertEquals(URL_INCORRECT_MESSAGE, exception.getMessage());
+    }
+
+    @Test
+    void validateLongUrl_shouldThrow_whenHostIsBlocked() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("blocklist.txt"), "# phishing\nexample.com\n");
+        LongUrlValidator blockingValidator = new LongUrlValidator(new UrlBlocklist(file.toString()));
+
+        ValidationException exception = assertThrows(
+                ValidationException.class,
+                () -> blockingValidator.validateLongUrl("https://login.Example.com/account"));
+        assertEquals(URL_BLOCKED_MESSAGE, exception.getMessage());
+        assertDoesNotThrow(() -> blockingValidator.validateLongUrl("https://example.org"));
+    }
+
+    @Test
+    void validateLongUrl_shouldUseReloadedBlocklist_whenFileChanges() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("blocklist.txt"), "example.com\n");
+        UrlBlocklist blocklist = new UrlBlocklist(file.toString());
+        LongUrlValidator reloadingValidator = new LongUrlValidator(blocklist);
+
+        Files.writeString(file, "example.org\nregex:/wp-login\\.php\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+        blocklist.reload();
+
+        assertDoesNotThrow(() -> reloadingValidator.validateLongUrl("https://example.com"));
+        assertThrows(ValidationException.class,
+                () -> reloadingValidator.validateLongUrl("https://www.example.org"));
+        assertThrows(ValidationException.class,
+                () -> reloadingValidator.validateLongUrl("https://other.net/wp-login.php"));
+    }
 }
@@ -0,0 +1,141 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.security.Role;
+import com.jawisimo.urlshortener.url.shard.ShardedUrlRepository;
+import com.jawisimo.urlshortener.url.shard.UrlShards;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "datasource.shards.urls=jdbc:tc:postgresql:15:///shard0,jdbc:tc:postgresql:15:///shard1")
+class ShardedUrlRepositoryIntegrationTest {
+
+    @Autowired
+    private ShardedUrlRepository shardedUrlRepository;
+
+    @Autowired
+    private UrlShards urlShards;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .login("testUser")
+                .email("test@email.com")
+                .password("passWord123")
+                .role(Role.ROLE_USER)
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (int shard = 0; shard < urlShards.count(); shard++) {
+            urlShards.jdbc(shard).update("DELETE FROM urls");
+        }
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void insert_shouldStoreUrlOnShardOfItsCode() {
+        Url url = insert("abc123", null);
+
+        assertTrue(shardedUrlRepository.isEnabled());
+        assertEquals(1L, countOnShard(urlShards.shardOf("abc123"), "abc123"));
+        assertEquals(0L, countOnShard(1 - urlShards.shardOf("abc123"), "abc123"));
+
+        Url found = shardedUrlRepository.findByShortUrlCode("abc123", user).orElseThrow();
+        assertEquals(url.getId(), found.getId());
+        assertEquals("https://example.com/", found.getLongUrl());
+        assertEquals(user.getLogin(), found.getUser().getLogin());
+        assertTrue(shardedUrlRepository.findByShortUrlCode("abc123", User.builder().id(-1L).build()).isEmpty());
+    }
+
+    @Test
+    void update_shouldMoveUrlWithVisits_whenNewCodeBelongsToAnotherShard() {
+        String oldCode = "abc123";
+        String newCode = codeOnShard(1 - urlShards.shardOf(oldCode));
+        Url url = insert(oldCode, null);
+        shardedUrlRepository.incrementVisits(url);
+        shardedUrlRepository.incrementVisits(url);
+
+        url.setShortUrlCode(newCode);
+        shardedUrlRepository.update(url, oldCode);
+
+        assertFalse(shardedUrlRepository.existsByShortUrlCode(oldCode));
+        Url moved = shardedUrlRepository.findByShortUrlCode(newCode).orElseThrow();
+        assertEquals(url.getId(), moved.getId());
+        assertEquals(2L, moved.getVisits());
+        assertEquals(1L, countOnShard(urlShards.shardOf(newCode), newCode));
+
+        shardedUrlRepository.delete(moved);
+        assertFalse(shardedUrlRepository.existsByShortUrlCode(newCode));
+    }
+
+    @Test
+    void findPageByUser_shouldMergeShardsInCreationOrder() {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            codes.add(insert("page" + i, null).getShortUrlCode());
+        }
+
+        List<String> paged = new ArrayList<>();
+        List<Url> page = shardedUrlRepository.findPageByUser(user, null, 3);
+        while (!page.isEmpty()) {
+            page.forEach(url -> paged.add(url.getShortUrlCode()));
+            page = shardedUrlRepository.findPageByUser(user, page.getLast(), 3);
+        }
+
+        assertEquals(codes, paged);
+        assertEquals(7, shardedUrlRepository.findAllByUser(user).size());
+    }
+
+    @Test
+    void countExpiredByUser_shouldCountOverAllShards() {
+        LocalDateTime now = LocalDateTime.now();
+        insert("exp1", now.plusSeconds(1));
+        insert(codeOnShard(1 - urlShards.shardOf("exp1")), now.plusSeconds(2));
+        insert("exp3", now.plusDays(1));
+
+        Map<Long, Long> expired = shardedUrlRepository.countExpiredByUser(now, now.plusMinutes(1));
+
+        assertEquals(Map.of(user.getId(), 2L), expired);
+    }
+
+    private Url insert(String shortUrlCode, LocalDateTime expiresAt) {
+        return shardedUrlRepository.insert(Url.builder()
+                .shortUrlCode(shortUrlCode)
+                .longUrl("https://example.com/")
+                .expiresAt(expiresAt)
+                .user(user)
+                .build());
+    }
+
+    private String codeOnShard(int shard) {
+        for (int i = 0; ; i++) {
+            String code = "shard" + i;
+            if (urlShards.shardOf(code) == shard) {
+                return code;
+            }
+        }
+    }
+
+    private long countOnShard(int shard, String shortUrlCode) {
+        return urlShards.jdbc(shard).queryForObject(
+                "SELECT count(*) FROM urls WHERE short_url_code = ?", Long.class, shortUrlCode);
+    }
+}
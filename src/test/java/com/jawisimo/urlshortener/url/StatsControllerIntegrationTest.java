@@ -1,6 +1,8 @@
 package com.jawisimo.urlshortener.url;
 
 import com.jawisimo.urlshortener.security.Role;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
+import com.jawisimo.urlshortener.url.summary.VisitCountBuffer;
 import com.jawisimo.urlshortener.user.User;
 import com.jawisimo.urlshortener.user.UserRepository;
 import org.junit.jupiter.api.AfterAll;
@@ -10,6 +12,7 @@ import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithUserDetails;
@@ -23,6 +26,7 @@ import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -39,6 +43,12 @@ class StatsControllerIntegrationTest {
     @Autowired
     private UrlRepository urlRepository;
 
+    @Autowired
+    private LongUrlRepository longUrlRepository;
+
+    @Autowired
+    private VisitCountBuffer visitCountBuffer;
+
     private static final String URL_PATH = "/api/v1/url";
     private String shortUrlCode;
     private String shortUrlCodeNotExists;
@@ -63,6 +73,7 @@ class StatsControllerIntegrationTest {
         Url url = Url.builder()
                 .shortUrlCode(shortUrlCode)
                 .longUrl(longUrl)
+                .longUrlId(longUrlRepository.acquire(longUrl))
                 .expiresAt(expiresAt)
                 .user(user)
                 .build();
@@ -83,6 +94,27 @@ class StatsControllerIntegrationTest {
                 .andExpect(content().string(containsString(shortUrlCode)));
     }
 
+    @Test
+    @WithUserDetails("testUser")
+    void allUrls_shouldReturnNotModified_whenETagMatches() throws Exception {
+        // Write visits of other tests first, a flush in between would change the ETag
+        visitCountBuffer.flush();
+
+        String eTag = mockMvc.perform(get(URL_PATH + "/all")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(URL_PATH + "/all")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
     @Test
     @WithAnonymousUser
     void allUrls_shouldReturnForbidden_withAnonymousUser() throws Exception {
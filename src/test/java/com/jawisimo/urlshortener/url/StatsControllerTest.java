@@ -2,8 +2,11 @@ package com.jawisimo.urlshortener.url;
 
 import com.jawisimo.urlshortener.error.exception.ResourceNotFoundException;
 import com.jawisimo.urlshortener.url.controller.StatsController;
+import com.jawisimo.urlshortener.url.dto.statistics.StatsClicksResponse;
 import com.jawisimo.urlshortener.url.dto.statistics.StatsListUrlResponse;
+import com.jawisimo.urlshortener.url.dto.statistics.StatsSummaryResponse;
 import com.jawisimo.urlshortener.url.dto.statistics.StatsVisitsUrlResponse;
+import com.jawisimo.urlshortener.url.service.ClickStatsService;
 import com.jawisimo.urlshortener.url.service.StatsService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,9 +15,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -24,25 +32,44 @@ class StatsControllerTest {
     @Mock
     private StatsService statsService;
 
+    @Mock
+    private ClickStatsService clickStatsService;
+
+    @Mock
+    private WebRequest webRequest;
+
     @InjectMocks
     private StatsController statsController;
 
+    private static final String ETAG = "\"1-3.0\"";
 
     @Test
     void allUrls_shouldReturnOk_withSuccessRequest() {
         StatsListUrlResponse response = new StatsListUrlResponse();
+        when(statsService.getETag()).thenReturn(ETAG);
         when(statsService.getAllUrls()).thenReturn(response);
-        ResponseEntity<StatsListUrlResponse> result = statsController.allUrls();
+        ResponseEntity<StatsListUrlResponse> result = statsController.allUrls(webRequest);
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals(response, result.getBody());
+        assertEquals(ETAG, result.getHeaders().getETag());
         verify(statsService).getAllUrls();
     }
 
+    @Test
+    void allUrls_shouldReturnNotModified_whenETagMatches() {
+        when(statsService.getETag()).thenReturn(ETAG);
+        when(webRequest.checkNotModified(ETAG)).thenReturn(true);
+        ResponseEntity<StatsListUrlResponse> result = statsController.allUrls(webRequest);
+        assertNull(result);
+        verify(statsService, never()).getAllUrls();
+    }
+
     @Test
     void activeUrls_shouldReturnOkAndResponseBody_withSuccessRequest() {
         StatsListUrlResponse response = new StatsListUrlResponse();
+        when(statsService.getETag()).thenReturn(ETAG);
         when(statsService.getActiveUrls()).thenReturn(response);
-        ResponseEntity<StatsListUrlResponse> result = statsController.activeUrls();
+        ResponseEntity<StatsListUrlResponse> result = statsController.activeUrls(webRequest);
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals(response, result.getBody());
         verify(statsService).getActiveUrls();
@@ -52,8 +79,9 @@ class StatsControllerTest {
     void visitsByShortUrl_shouldReturnOkAndResponseBody_withSuccessRequest() {
         String shortUrlCode = "abc123";
         StatsVisitsUrlResponse response = new StatsVisitsUrlResponse();
+        when(statsService.getETag()).thenReturn(ETAG);
         when(statsService.getVisitsByShortUrl(shortUrlCode)).thenReturn(response);
-        ResponseEntity<StatsVisitsUrlResponse> result = statsController.visitsByShortUrl(shortUrlCode);
+        ResponseEntity<StatsVisitsUrlResponse> result = statsController.visitsByShortUrl(shortUrlCode, webRequest);
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals(response, result.getBody());
         verify(statsService).getVisitsByShortUrl(shortUrlCode);
@@ -62,9 +90,45 @@ class StatsControllerTest {
     @Test
     void visitsByShortUrl_shouldThrowException_whenNotFound() {
         String shortUrlCode = "nonexistent";
+        when(statsService.getETag()).thenReturn(ETAG);
         when(statsService.getVisitsByShortUrl(shortUrlCode))
                 .thenThrow(new ResourceNotFoundException("URL not found"));
-        assertThrows(ResourceNotFoundException.class, () -> statsController.visitsByShortUrl(shortUrlCode));
+        assertThrows(ResourceNotFoundException.class,
+                () -> statsController.visitsByShortUrl(shortUrlCode, webRequest));
         verify(statsService).getVisitsByShortUrl(shortUrlCode);
     }
+
+    @Test
+    void clicksByShortUrl_shouldReturnOkAndResponseBody_withSuccessRequest() {
+        String shortUrlCode = "abc123";
+        LocalDateTime from = LocalDateTime.now().minusDays(7);
+        LocalDateTime to = LocalDateTime.now();
+        StatsClicksResponse response = new StatsClicksResponse();
+        when(clickStatsService.getClicksByShortUrl(shortUrlCode, from, to, "day")).thenReturn(response);
+        ResponseEntity<StatsClicksResponse> result = statsController.clicksByShortUrl(shortUrlCode, from, to, "day");
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(response, result.getBody());
+        verify(clickStatsService).getClicksByShortUrl(shortUrlCode, from, to, "day");
+    }
+
+    @Test
+    void clicksByUser_shouldReturnOkAndResponseBody_withSuccessRequest() {
+        StatsClicksResponse response = new StatsClicksResponse();
+        when(clickStatsService.getClicksByUser(null, null, "url")).thenReturn(response);
+        ResponseEntity<StatsClicksResponse> result = statsController.clicksByUser(null, null, "url");
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(response, result.getBody());
+        verify(clickStatsService).getClicksByUser(null, null, "url");
+    }
+
+    @Test
+    void summary_shouldReturnOkAndResponseBody_withSuccessRequest() {
+        StatsSummaryResponse response = new StatsSummaryResponse(2L, 1L, 8L);
+        when(statsService.getETag()).thenReturn(ETAG);
+        when(statsService.getSummary()).thenReturn(response);
+        ResponseEntity<StatsSummaryResponse> result = statsController.summary(webRequest);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(response, result.getBody());
+        verify(statsService).getSummary();
+    }
 }
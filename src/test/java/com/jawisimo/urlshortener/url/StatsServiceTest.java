@@ -2,10 +2,16 @@ package com.jawisimo.urlshortener.url;
 
 import com.jawisimo.urlshortener.error.exception.ResourceNotFoundException;
 import com.jawisimo.urlshortener.security.provider.SecurityContextProvider;
+import com.jawisimo.urlshortener.url.archive.UrlArchiveRepository;
 import com.jawisimo.urlshortener.url.dto.statistics.StatsListUrlResponse;
+import com.jawisimo.urlshortener.url.dto.statistics.StatsSummaryResponse;
 import com.jawisimo.urlshortener.url.dto.statistics.StatsUrlDto;
 import com.jawisimo.urlshortener.url.dto.statistics.StatsVisitsUrlResponse;
 import com.jawisimo.urlshortener.url.service.StatsService;
+import com.jawisimo.urlshortener.url.service.UrlSummaryService;
+import com.jawisimo.urlshortener.url.shard.ShardedUrlRepository;
+import com.jawisimo.urlshortener.url.summary.StatsResponseCache;
+import com.jawisimo.urlshortener.url.summary.UserUrlSummary;
 import com.jawisimo.urlshortener.user.User;
 import com.jawisimo.urlshortener.util.MessageProvider;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
@@ -21,6 +28,9 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +45,18 @@ class StatsServiceTest {
     @Mock
     private UrlMapper urlMapper;
 
+    @Mock
+    private UrlSummaryService urlSummaryService;
+
+    @Spy
+    private StatsResponseCache responseCache = new StatsResponseCache(100);
+
+    @Mock
+    private UrlArchiveRepository urlArchiveRepository;
+
+    @Mock
+    private ShardedUrlRepository shardedUrlRepository;
+
     @InjectMocks
     private StatsService statsService;
 
@@ -85,6 +107,7 @@ class StatsServiceTest {
         when(urlRepository.findAllUrlsByUserId(user.getId())).thenReturn(urls);
         when(urlMapper.mapToStatsUrlDto(activeUrl, true)).thenReturn(activeStatsUrlDto);
         when(urlMapper.mapToStatsUrlDto(expiredUrl, false)).thenReturn(expiredStatsUrlDto);
+        when(urlSummaryService.getSummary(user.getId())).thenReturn(new UserUrlSummary(user.getId(), 2L, 1L, 8L));
 
         StatsListUrlResponse response = statsService.getAllUrls();
 
@@ -95,10 +118,25 @@ class StatsServiceTest {
         assertTrue(response.getUrls().contains(expiredStatsUrlDto));
     }
 
+    @Test
+    void getAllUrlsByUser_shouldIncludeArchivedUrls() {
+        when(contextProvider.getAuthenticatedUser()).thenReturn(user);
+        when(urlRepository.findAllUrlsByUserId(user.getId())).thenReturn(List.of(activeUrl));
+        when(urlArchiveRepository.findAllByUser(user)).thenReturn(List.of(expiredUrl));
+        when(urlMapper.mapToStatsUrlDto(activeUrl, true)).thenReturn(activeStatsUrlDto);
+        when(urlMapper.mapToStatsUrlDto(expiredUrl, false)).thenReturn(expiredStatsUrlDto);
+        when(urlSummaryService.getSummary(user.getId())).thenReturn(new UserUrlSummary(user.getId(), 2L, 1L, 8L));
+
+        StatsListUrlResponse response = statsService.getAllUrls();
+
+        assertEquals(List.of(activeStatsUrlDto, expiredStatsUrlDto), response.getUrls());
+    }
+
     @Test
     void getAllUrlsByUser_shouldReturnEmptyResponse_whenNoUrlsExist() {
         when(contextProvider.getAuthenticatedUser()).thenReturn(user);
         when(urlRepository.findAllUrlsByUserId(user.getId())).thenReturn(Collections.emptyList());
+        when(urlSummaryService.getSummary(user.getId())).thenReturn(UserUrlSummary.empty(user.getId()));
 
         StatsListUrlResponse response = statsService.getAllUrls();
 
@@ -107,6 +145,56 @@ class StatsServiceTest {
         assertTrue(response.getUrls().isEmpty());
     }
 
+    @Test
+    void getAllUrlsByUser_shouldServeCachedResponse_whenVersionIsUnchanged() {
+        when(contextProvider.getAuthenticatedUser()).thenReturn(user);
+        when(urlSummaryService.getVersionStamp(user.getId())).thenReturn("3.0");
+        when(urlRepository.findAllUrlsByUserId(user.getId())).thenReturn(List.of(activeUrl));
+        when(urlMapper.mapToStatsUrlDto(activeUrl, true)).thenReturn(activeStatsUrlDto);
+        when(urlSummaryService.getSummary(user.getId())).thenReturn(new UserUrlSummary(user.getId(), 1L, 1L, 5L));
+
+        StatsListUrlResponse first = statsService.getAllUrls();
+        StatsListUrlResponse second = statsService.getAllUrls();
+
+        assertSame(first, second);
+        verify(urlRepository, times(1)).findAllUrlsByUserId(user.getId());
+    }
+
+    @Test
+    void getAllUrlsByUser_shouldReloadResponse_whenVersionChanges() {
+        when(contextProvider.getAuthenticatedUser()).thenReturn(user);
+        when(urlSummaryService.getVersionStamp(user.getId())).thenReturn("3.0", "3.1");
+        when(urlRepository.findAllUrlsByUserId(user.getId())).thenReturn(Collections.emptyList());
+        when(urlSummaryService.getSummary(user.getId())).thenReturn(UserUrlSummary.empty(user.getId()));
+
+        statsService.getAllUrls();
+        statsService.getAllUrls();
+
+        verify(urlRepository, times(2)).findAllUrlsByUserId(user.getId());
+    }
+
+    @Test
+    void getETag_shouldCombineUserIdAndVersionStamp() {
+        when(contextProvider.getAuthenticatedUser()).thenReturn(user);
+        when(urlSummaryService.getVersionStamp(user.getId())).thenReturn("3.1");
+
+        assertEquals("\"1-3.1\"", statsService.getETag());
+    }
+
+    @Test
+    void getSummary_shouldReturnSuccessResponse_fromUserSummary() {
+        when(contextProvider.getAuthenticatedUser()).thenReturn(user);
+        when(urlSummaryService.getSummary(user.getId())).thenReturn(new UserUrlSummary(user.getId(), 2L, 1L, 8L));
+
+        StatsSummaryResponse response = statsService.getSummary();
+
+        assertNotNull(response);
+        assertEquals(2L, response.getTotalUrls());
+        assertEquals(1L, response.getActiveUrls());
+        assertEquals(8L, response.getTotalVisits());
+        verifyNoInteractions(urlRepository);
+    }
+
     @Test
     void getActiveUrlsByUser_shouldReturnSuccessResponse_withActiveUrlsOnly() {
         List<Url> urls = List.of(activeUrl, expiredUrl);
@@ -147,6 +235,16 @@ class StatsServiceTest {
         assertEquals(5L, response.getVisits());
     }
 
+    @Test
+    void getVisitsByShortUrl_shouldReadArchivedUrl_whenUrlIsArchived() {
+        when(contextProvider.getAuthenticatedUser()).thenReturn(user);
+        when(urlArchiveRepository.findByShortUrlCode(shortUrlCode, user)).thenReturn(Optional.of(activeUrl));
+
+        StatsVisitsUrlResponse response = statsService.getVisitsByShortUrl(shortUrlCode);
+
+        assertEquals(5L, response.getVisits());
+    }
+
     @Test
     void getVisitsByShortUrl_shouldThrowResourceNotFound_whenUrlNotFound() {
         when(contextProvider.getAuthenticatedUser()).thenReturn(user);
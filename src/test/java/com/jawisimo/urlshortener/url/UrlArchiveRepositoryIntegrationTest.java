@@ -0,0 +1,172 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.security.Role;
+import com.jawisimo.urlshortener.url.archive.UrlArchiveRepository;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class UrlArchiveRepositoryIntegrationTest {
+
+    @Autowired
+    private UrlArchiveRepository urlArchiveRepository;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private UrlCounterRepository urlCounterRepository;
+
+    @Autowired
+    private LongUrlRepository longUrlRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static final String LONG_URL = "https://archive.example.com/";
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .login("testUser")
+                .email("test@email.com")
+                .password("passWord123")
+                .role(Role.ROLE_USER)
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM urls_archive");
+        urlRepository.deleteAll();
+        userRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM long_urls WHERE url = ?", LONG_URL);
+    }
+
+    @Test
+    void archiveIdle_shouldMoveOnlyIdleUrls_andKeepLongUrlReference() {
+        Url idle = saveUrl("idle01", 40);
+        saveUrl("fresh01", 1);
+        Url visited = saveUrl("visit01", 40);
+        urlCounterRepository.incrementVisits(visited.getId());
+
+        assertEquals(1, archiveIdle());
+
+        assertTrue(urlRepository.findUrlByShortUrlCode("idle01").isEmpty());
+        assertTrue(urlArchiveRepository.existsByShortUrlCode("idle01"));
+        assertEquals(0L, count("SELECT count(*) FROM url_counters WHERE url_id = ?", idle.getId()));
+        deleteUnreferencedLongUrls();
+        assertEquals(1L, count("SELECT count(*) FROM long_urls WHERE id = ?", idle.getLongUrlId()));
+
+        List<Url> archived = urlArchiveRepository.findAllByUser(user);
+        assertEquals(1, archived.size());
+        assertEquals(LONG_URL, archived.getFirst().getLongUrl());
+    }
+
+    @Test
+    void archiveIdle_shouldOnlyMoveUrlsOfIdRange() {
+        Url first = saveUrl("idle01", 40);
+        Url second = saveUrl("idle02", 40);
+
+        assertEquals(first.getId(), urlArchiveRepository.findChunkEnd(0L, 1));
+        assertEquals(1, (int) transactionTemplate.execute(status ->
+                urlArchiveRepository.archiveIdle(30, 0L, first.getId())));
+
+        assertTrue(urlArchiveRepository.existsByShortUrlCode("idle01"));
+        assertTrue(urlRepository.findUrlByShortUrlCode("idle02").isPresent());
+        assertEquals(second.getId(), urlArchiveRepository.findChunkEnd(first.getId(), 1));
+        assertEquals(second.getId(), urlArchiveRepository.findChunkEnd(second.getId(), 1));
+    }
+
+    @Test
+    void restore_shouldMoveUrlBackWithIdAndVisits() {
+        Url url = saveUrl("idle01", 40);
+        urlCounterRepository.incrementVisits(url.getId());
+        jdbcTemplate.update("UPDATE url_counters SET last_visited_at = LOCALTIMESTAMP - INTERVAL '40 days' " +
+                "WHERE url_id = ?", url.getId());
+        assertEquals(1, archiveIdle());
+
+        assertTrue(Boolean.TRUE.equals(transactionTemplate.execute(status -> urlArchiveRepository.restore("idle01"))));
+        assertFalse(Boolean.TRUE.equals(transactionTemplate.execute(status -> urlArchiveRepository.restore("idle01"))));
+
+        Url restored = urlRepository.findUrlByShortUrlCode("idle01").orElseThrow();
+        assertEquals(url.getId(), restored.getId());
+        assertEquals(1L, restored.getVisits());
+        assertEquals(Base62Codec.decode("idle01"), restored.getCodeNum());
+        assertFalse(urlArchiveRepository.existsByShortUrlCode("idle01"));
+
+        urlRepository.delete(restored);
+        deleteUnreferencedLongUrls();
+        assertEquals(0L, count("SELECT count(*) FROM long_urls WHERE id = ?", url.getLongUrlId()));
+    }
+
+    @Test
+    void restore_shouldGiveBackDedupeHashAndKey() {
+        Url url = saveUrl("idle01", 40);
+        jdbcTemplate.update("UPDATE urls SET long_url_hash = 42 WHERE id = ?", url.getId());
+        jdbcTemplate.update("INSERT INTO url_dedupe_keys (user_id, long_url_hash, expires_key, url_id) " +
+                "VALUES (?, 42, 'infinity', ?)", user.getId(), url.getId());
+        assertEquals(1, archiveIdle());
+        assertEquals(0L, count("SELECT count(*) FROM url_dedupe_keys WHERE url_id = ?", url.getId()));
+
+        assertTrue(Boolean.TRUE.equals(transactionTemplate.execute(status -> urlArchiveRepository.restore("idle01"))));
+
+        assertEquals(42L, urlRepository.findUrlByShortUrlCode("idle01").orElseThrow().getLongUrlHash());
+        assertEquals(1L, count("SELECT count(*) FROM url_dedupe_keys WHERE url_id = ?", url.getId()));
+    }
+
+    @Test
+    void runExclusively_shouldSkipTask_whenAnotherNodeHoldsTheLock() {
+        boolean[] nestedRan = {false};
+
+        assertTrue(urlArchiveRepository.runExclusively(() ->
+                nestedRan[0] = urlArchiveRepository.runExclusively(() -> {
+                })));
+
+        assertFalse(nestedRan[0]);
+    }
+
+    private int archiveIdle() {
+        return transactionTemplate.execute(status -> urlArchiveRepository.archiveIdle(30, 0L, Long.MAX_VALUE));
+    }
+
+    private void deleteUnreferencedLongUrls() {
+        transactionTemplate.executeWithoutResult(status -> longUrlRepository.deleteUnreferenced(0L, Long.MAX_VALUE));
+    }
+
+    private Url saveUrl(String shortUrlCode, int ageDays) {
+        Url url = urlRepository.save(Url.builder()
+                .shortUrlCode(shortUrlCode)
+                .longUrl(LONG_URL)
+                .longUrlId(longUrlRepository.acquire(LONG_URL))
+                .user(user)
+                .build());
+        jdbcTemplate.update("UPDATE urls SET created_at = LOCALTIMESTAMP - make_interval(days => ?) WHERE id = ?",
+                ageDays, url.getId());
+        return url;
+    }
+
+    private long count(String sql, long id) {
+        return jdbcTemplate.queryForObject(sql, Long.class, id);
+    }
+}
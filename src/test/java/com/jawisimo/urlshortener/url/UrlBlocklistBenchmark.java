@@ -0,0 +1,46 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.url.blocklist.CompiledBlocklist;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of checking a URL against a blocklist of {@code domains} domains.
+ * <p>
+ * {@code allowedUrl} is the common case of a host that is not blocked, {@code blockedUrl} a subdomain of
+ * a blocked domain.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class UrlBlocklistBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int domains;
+
+    private CompiledBlocklist blocklist;
+    private String blockedUrl;
+
+    @Setup
+    public void setup() {
+        blocklist = CompiledBlocklist.compile(IntStream.range(0, domains)
+                .mapToObj(i -> "phishing-" + Integer.toHexString(i * 0x9e3779b9) + ".example" + (i % 97) + ".com"));
+        blockedUrl = "https://login.phishing-" + Integer.toHexString(42 * 0x9e3779b9) + ".example42.com/account";
+    }
+
+    @Benchmark
+    public boolean allowedUrl() {
+        return blocklist.isBlocked("https://www.youtube.com/watch?v=dQw4w9WgXcQ");
+    }
+
+    @Benchmark
+    public boolean blockedUrl() {
+        return blocklist.isBlocked(blockedUrl);
+    }
+}
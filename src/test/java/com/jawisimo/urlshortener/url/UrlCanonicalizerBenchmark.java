@@ -0,0 +1,46 @@
+package com.jawisimo.urlshortener.url;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cost of validating a long URL.
+ * <p>
+ * {@code regex} is the previous validation, which compiled the pattern on every call,
+ * {@code precompiledRegex} the same check with a compiled pattern and {@code canonicalize} the current
+ * parser, which also validates host, port and path and builds the canonical form.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlCanonicalizerBenchmark {
+    private static final String URL_REGEX = "^(http://|https://).+";
+    private static final Pattern URL_PATTERN = Pattern.compile(URL_REGEX);
+
+    @Param({
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ",
+            "HTTPS://Shop.Example.COM:443/search?q=red%20shoes&page=2#results"
+    })
+    private String url;
+
+    @Benchmark
+    public boolean regex() {
+        return url.matches(URL_REGEX);
+    }
+
+    @Benchmark
+    public boolean precompiledRegex() {
+        return URL_PATTERN.matcher(url).matches();
+    }
+
+    @Benchmark
+    public String canonicalize() {
+        return UrlCanonicalizer.canonicalize(url);
+    }
+}
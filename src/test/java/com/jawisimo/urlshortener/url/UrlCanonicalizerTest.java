@@ -0,0 +1,44 @@
+package com.jawisimo.urlshortener.url;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UrlCanonicalizerTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "https://example.com, https://example.com/",
+            "HTTPS://Example.COM:443, https://example.com/",
+            "http://example.com:80/path, http://example.com/path",
+            "http://example.com:8080, http://example.com:8080/",
+            "https://example.com./a, https://example.com/a",
+            "https://example.com/a%2fb%7e%41, https://example.com/a%2Fb~A",
+            "https://example.com?q=a b&x=%zz, https://example.com/?q=a%20b&x=%25zz",
+            "https://[2001:DB8::1]:443/x, https://[2001:db8::1]/x",
+            "https://user@x@example.com, https://user%40x@example.com/"
+    })
+    void canonicalize_shouldReturnCanonicalForm(String url, String expected) {
+        assertEquals(expected, UrlCanonicalizer.canonicalize(url));
+    }
+
+    @Test
+    void canonicalize_shouldEncodeInternationalHostAndPath() {
+        assertEquals("https://xn--bcher-kva.de/stra%C3%9Fe",
+                UrlCanonicalizer.canonicalize("https://bücher.de/straße"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "example.com", "ftp://example.com", "http://", "https://exa mple.com", "https://-bad.com",
+            "https://a..b", "http://a.com:0", "http://a.com:99999", "http://a.com:8o", "http://a.com\\@b.com",
+            "https://[]/"
+    })
+    void canonicalize_shouldReturnNull_whenUrlIsInvalid(String url) {
+        assertNull(UrlCanonicalizer.canonicalize(url));
+    }
+}
@@ -4,12 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jawisimo.urlshortener.security.Role;
 import com.jawisimo.urlshortener.url.dto.operations.GetShortUrlRequest;
 import com.jawisimo.urlshortener.url.dto.operations.UpdateUrlRequest;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
 import com.jawisimo.urlshortener.user.User;
 import com.jawisimo.urlshortener.user.UserRepository;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithUserDetails;
@@ -40,6 +42,9 @@ class UrlControllerIntegrationTest {
     @Autowired
     private UrlRepository urlRepository;
 
+    @Autowired
+    private LongUrlRepository longUrlRepository;
+
     private static final String URL_PATH = "/api/v1/url";
     private String shortUrlCode;
     private String longUrl;
@@ -71,6 +76,7 @@ class UrlControllerIntegrationTest {
         Url url = Url.builder()
                 .shortUrlCode(shortUrlCode)
                 .longUrl(longUrl)
+                .longUrlId(longUrlRepository.acquire(longUrl))
                 .expiresAt(expiresAt)
                 .user(user)
                 .build();
@@ -127,6 +133,15 @@ class UrlControllerIntegrationTest {
                 .andExpect(content().string(containsString(longUrl)));
     }
 
+    @Test
+    void longFromShort_shouldIgnoreBearerToken() throws Exception {
+        mockMvc.perform(post(URL_PATH + "/" + shortUrlCode)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer notValidToken")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(longUrl)));
+    }
+
     @Test
     void longFromShort_shouldReturnBadRequestAndResponseBody_whenUrlDoesNotExists() throws Exception {
         mockMvc.perform(post(URL_PATH + "/" + notExistsShortUrlCode)
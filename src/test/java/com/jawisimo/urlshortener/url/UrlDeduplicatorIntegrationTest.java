@@ -0,0 +1,136 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.security.Role;
+import com.jawisimo.urlshortener.url.dedupe.UrlDeduplicator;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class UrlDeduplicatorIntegrationTest {
+
+    @Autowired
+    private UrlDeduplicator urlDeduplicator;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String LONG_URL = "https://www.youtube.com/";
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .login("testUser")
+                .email("test@email.com")
+                .password("passWord123")
+                .role(Role.ROLE_USER)
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        urlRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void createOrFind_shouldReturnExistingUrl_forSameLongUrlAndExpiry() {
+        UrlDeduplicator.Result first = urlDeduplicator.createOrFind("code001", LONG_URL, null, user).orElseThrow();
+        UrlDeduplicator.Result second = urlDeduplicator.createOrFind("code002", LONG_URL, null, user).orElseThrow();
+
+        assertTrue(first.created());
+        assertFalse(second.created());
+        assertEquals("code001", second.url().getShortUrlCode());
+        assertEquals(1, urlRepository.count());
+        assertEquals(0L, urlRepository.findUrlByShortUrlCode("code001").orElseThrow().getVisits());
+    }
+
+    @Test
+    void createOrFind_shouldNotDrawId_whenUrlExists() {
+        urlDeduplicator.createOrFind("code001", LONG_URL, null, user).orElseThrow();
+        long lastId = lastUrlId();
+
+        urlDeduplicator.createOrFind("code002", LONG_URL, null, user).orElseThrow();
+
+        assertEquals(lastId, lastUrlId());
+    }
+
+    @Test
+    void createOrFind_shouldCreateNewUrl_forDifferentExpiry() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1).withNano(0);
+
+        urlDeduplicator.createOrFind("code001", LONG_URL, null, user).orElseThrow();
+        UrlDeduplicator.Result second =
+                urlDeduplicator.createOrFind("code002", LONG_URL, expiresAt, user).orElseThrow();
+
+        assertTrue(second.created());
+        assertEquals(2, urlRepository.count());
+    }
+
+    @Test
+    void createOrFind_shouldCreateNewUrl_afterExistingUrlWasDeleted() {
+        urlDeduplicator.createOrFind("code001", LONG_URL, null, user).orElseThrow();
+        urlRepository.delete(urlRepository.findUrlByShortUrlCode("code001").orElseThrow());
+
+        UrlDeduplicator.Result second = urlDeduplicator.createOrFind("code002", LONG_URL, null, user).orElseThrow();
+
+        assertTrue(second.created());
+        assertEquals("code002", second.url().getShortUrlCode());
+    }
+
+    @Test
+    void createOrFind_shouldReturnSameUrl_forConcurrentIdenticalRequests() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<UrlDeduplicator.Result>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                String shortUrlCode = "code" + (100 + i);
+                results.add(executor.submit(() ->
+                        urlDeduplicator.createOrFind(shortUrlCode, LONG_URL, null, user).orElseThrow()));
+            }
+
+            Set<String> codes = results.stream()
+                    .map(future -> {
+                        try {
+                            return future.get().url().getShortUrlCode();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    })
+                    .collect(Collectors.toSet());
+
+            assertEquals(1, codes.size());
+            assertEquals(1, urlRepository.count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long lastUrlId() {
+        return jdbcTemplate.queryForObject("SELECT last_value FROM urls_id_seq", Long.class);
+    }
+}
@@ -0,0 +1,121 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.url.store.UrlLog;
+import com.jawisimo.urlshortener.user.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlLogTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void get_shouldReturnLatestUrl_afterPutAndRemove() throws IOException {
+        LocalDateTime expiresAt = LocalDateTime.of(2030, 1, 2, 3, 4, 5, 123_456_000);
+        try (UrlLog urlLog = UrlLog.open(directory)) {
+            urlLog.put(url(1L, "abc123", "https://example.com/old", null));
+            urlLog.put(url(1L, "abc123", "https://example.com/new", expiresAt));
+            urlLog.put(url(2L, "gone01", "https://example.com/gone", null));
+            urlLog.remove("gone01");
+
+            Url url = urlLog.get("abc123").orElseThrow();
+            assertEquals(1L, url.getId());
+            assertEquals("https://example.com/new", url.getLongUrl());
+            assertEquals(expiresAt, url.getExpiresAt());
+            assertEquals(7L, url.getUser().getId());
+            assertTrue(urlLog.get("gone01").isEmpty());
+            assertEquals(1, urlLog.size());
+            assertTrue(urlLog.garbageRatio() > 0.5);
+        }
+    }
+
+    @Test
+    void open_shouldRebuildIndex_andCutOffTornRecord() throws IOException {
+        try (UrlLog urlLog = UrlLog.open(directory)) {
+            urlLog.put(url(1L, "abc123", "https://example.com/", null));
+            urlLog.put(url(2L, "def456", "https://example.org/", null));
+            urlLog.remove("def456");
+            urlLog.force();
+        }
+        Path file = logFiles().getFirst();
+        long size = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (UrlLog urlLog = UrlLog.open(directory)) {
+            assertEquals("https://example.com/", urlLog.get("abc123").orElseThrow().getLongUrl());
+            assertTrue(urlLog.get("def456").isEmpty());
+            assertEquals(size, urlLog.sizeInBytes());
+            assertEquals(size, Files.size(file));
+        }
+    }
+
+    @Test
+    void compact_shouldKeepLiveUrls_inNewGeneration() throws IOException {
+        try (UrlLog urlLog = UrlLog.open(directory)) {
+            for (long id = 0; id < 100; id++) {
+                urlLog.put(url(id, "code" + id, "https://example.com/" + id, null));
+                if (id % 2 == 0) {
+                    urlLog.remove("code" + id);
+                }
+            }
+            long before = urlLog.sizeInBytes();
+
+            urlLog.compact();
+
+            assertEquals(50, urlLog.size());
+            assertEquals(0.0, urlLog.garbageRatio());
+            assertTrue(urlLog.sizeInBytes() < before / 2);
+            assertEquals("https://example.com/51", urlLog.get("code51").orElseThrow().getLongUrl());
+            urlLog.put(url(100L, "code100", "https://example.com/100", null));
+        }
+        assertEquals(1, logFiles().size());
+
+        try (UrlLog urlLog = UrlLog.open(directory)) {
+            assertEquals(51, urlLog.size());
+            assertTrue(urlLog.get("code50").isEmpty());
+            assertEquals(100L, urlLog.get("code100").orElseThrow().getId());
+        }
+    }
+
+    @Test
+    void clear_shouldDropAllUrls() throws IOException {
+        try (UrlLog urlLog = UrlLog.open(directory)) {
+            urlLog.put(url(1L, "abc123", "https://example.com/", null));
+
+            urlLog.clear();
+
+            assertTrue(urlLog.get("abc123").isEmpty());
+            assertEquals(0, urlLog.size());
+        }
+        try (UrlLog urlLog = UrlLog.open(directory)) {
+            assertEquals(0, urlLog.size());
+        }
+    }
+
+    private List<Path> logFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).toList();
+        }
+    }
+
+    private static Url url(long id, String shortUrlCode, String longUrl, LocalDateTime expiresAt) {
+        return Url.builder()
+                .id(id)
+                .shortUrlCode(shortUrlCode)
+                .longUrl(longUrl)
+                .expiresAt(expiresAt)
+                .user(User.builder().id(7L).build())
+                .build();
+    }
+}
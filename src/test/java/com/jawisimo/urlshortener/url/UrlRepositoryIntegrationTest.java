@@ -1,6 +1,7 @@
 package com.jawisimo.urlshortener.url;
 
 import com.jawisimo.urlshortener.security.Role;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
 import com.jawisimo.urlshortener.user.User;
 import com.jawisimo.urlshortener.user.UserRepository;
 import org.junit.jupiter.api.AfterAll;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,12 +18,16 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
+@Import(LongUrlRepository.class)
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class UrlRepositoryIntegrationTest {
 
     @Autowired
     private UrlRepository urlRepository;
 
+    @Autowired
+    private LongUrlRepository longUrlRepository;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -50,6 +56,7 @@ class UrlRepositoryIntegrationTest {
         Url url = Url.builder()
                 .shortUrlCode(shortUrlCode)
                 .longUrl(longUrl)
+                .longUrlId(longUrlRepository.acquire(longUrl))
                 .user(user)
                 .build();
         urlRepository.save(url);
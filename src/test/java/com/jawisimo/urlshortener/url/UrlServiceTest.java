@@ -3,11 +3,20 @@ package com.jawisimo.urlshortener.url;
 import com.jawisimo.urlshortener.error.exception.ResourceNotFoundException;
 import com.jawisimo.urlshortener.error.exception.ValidationException;
 import com.jawisimo.urlshortener.security.provider.SecurityContextProvider;
+import com.jawisimo.urlshortener.url.archive.UrlArchiveRepository;
+import com.jawisimo.urlshortener.url.blocklist.UrlBlocklist;
+import com.jawisimo.urlshortener.url.click.ClickEventRecorder;
+import com.jawisimo.urlshortener.url.codenum.CodeNumBackfill;
+import com.jawisimo.urlshortener.url.dedupe.UrlDeduplicator;
 import com.jawisimo.urlshortener.url.dto.operations.GetShortUrlRequest;
 import com.jawisimo.urlshortener.url.dto.operations.UpdateUrlRequest;
 import com.jawisimo.urlshortener.url.dto.operations.UrlDto;
 import com.jawisimo.urlshortener.url.dto.operations.UrlResponse;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
 import com.jawisimo.urlshortener.url.service.UrlService;
+import com.jawisimo.urlshortener.url.service.UrlSummaryService;
+import com.jawisimo.urlshortener.url.shard.ShardedUrlRepository;
+import com.jawisimo.urlshortener.url.store.UrlStore;
 import com.jawisimo.urlshortener.user.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +25,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -33,8 +43,9 @@ class UrlServiceTest {
     @Mock
     private SecurityContextProvider contextProvider;
 
+    // used by @InjectMocks to inject into UrlService
     @Spy
-    private LongUrlValidator urlValidator; // used by @InjectMocks to inject into UrlService
+    private LongUrlValidator urlValidator = new LongUrlValidator(new UrlBlocklist(""));
 
     @Mock
     private ShortUrlCodeGenerator urlGenerator;
@@ -42,6 +53,37 @@ class UrlServiceTest {
     @Mock
     private UrlMapper urlMapper;
 
+    @Mock
+    private ClickEventRecorder clickEventRecorder;
+
+    @Mock
+    private UrlSummaryService urlSummaryService;
+
+    @Mock
+    private UrlDeduplicator urlDeduplicator;
+
+    @Mock
+    private UrlCounterRepository urlCounterRepository;
+
+    @Mock
+    private CodeNumBackfill codeNumBackfill;
+
+    @Mock
+    private LongUrlRepository longUrlRepository;
+
+    @Mock
+    private UrlArchiveRepository urlArchiveRepository;
+
+    @Mock
+    private ShardedUrlRepository shardedUrlRepository;
+
+    @Mock
+    private UrlStore urlStore;
+
+    // used by @InjectMocks to inject into UrlService
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private UrlService urlService;
 
@@ -57,6 +99,7 @@ class UrlServiceTest {
         shortUrlCode = "abc123";
         longUrl = "https://example.com";
         url = Url.builder()
+                .id(10L)
                 .shortUrlCode(shortUrlCode)
                 .longUrl(longUrl)
                 .user(user)
@@ -77,6 +120,43 @@ class UrlServiceTest {
         assertNotNull(response);
         assertEquals(urlDto, response.getUrlDto());
         verify(urlRepository, times(1)).save(any(Url.class));
+        verify(urlSummaryService, times(1)).onUrlCreated(any(Url.class));
+    }
+
+    @Test
+    void getShortUrlCodeFromLongUrl_shouldReturnExistingUrl_whenDeduplicated() {
+        GetShortUrlRequest request = new GetShortUrlRequest(longUrl, null);
+        when(contextProvider.getAuthenticatedUser()).thenReturn(user);
+        when(urlGenerator.generateShortUrlCode()).thenReturn(shortUrlCode);
+        when(urlRepository.existsUrlByShortUrlCode(shortUrlCode)).thenReturn(false);
+        when(urlDeduplicator.isEnabled()).thenReturn(true);
+        when(urlDeduplicator.createOrFind(shortUrlCode, "https://example.com/", null, user))
+                .thenReturn(Optional.of(new UrlDeduplicator.Result(url, false)));
+        when(urlMapper.mapToUrlDto(url)).thenReturn(urlDto);
+
+        UrlResponse response = urlService.getShortUrlCodeFromLongUrl(request);
+
+        assertEquals(urlDto, response.getUrlDto());
+        verify(urlRepository, never()).save(any(Url.class));
+        verify(urlSummaryService, never()).onUrlCreated(any(Url.class));
+    }
+
+    @Test
+    void getShortUrlCodeFromLongUrl_shouldInsertOnShard_whenShardingIsEnabled() {
+        GetShortUrlRequest request = new GetShortUrlRequest(longUrl, null);
+        when(contextProvider.getAuthenticatedUser()).thenReturn(user);
+        when(urlGenerator.generateShortUrlCode()).thenReturn(shortUrlCode);
+        when(shardedUrlRepository.isEnabled()).thenReturn(true);
+        when(shardedUrlRepository.existsByShortUrlCode(shortUrlCode)).thenReturn(false);
+        when(shardedUrlRepository.insert(any(Url.class))).thenReturn(url);
+        when(urlMapper.mapToUrlDto(url)).thenReturn(urlDto);
+
+        UrlResponse response = urlService.getShortUrlCodeFromLongUrl(request);
+
+        assertEquals(urlDto, response.getUrlDto());
+        verify(urlRepository, never()).save(any(Url.class));
+        verify(longUrlRepository, never()).acquire(anyString());
+        verify(urlSummaryService, times(1)).onUrlCreated(url);
     }
 
     @Test
@@ -91,6 +171,90 @@ class UrlServiceTest {
         assertEquals(URL_INCORRECT_EXPIRES_AT_MESSAGE, exception.getMessage());
     }
 
+    @Test
+    void getLongUrlFromShortUrl_shouldReturnLongUrlAndRecordClick_whenUrlIsActive() {
+        when(urlRepository.findUrlByShortUrlCode(shortUrlCode)).thenReturn(Optional.of(url));
+
+        UrlResponse response = urlService.getLongUrlFromShortUrl(shortUrlCode);
+
+        assertEquals(longUrl, response.getUrlDto().getLongUrl());
+        verify(urlCounterRepository, times(1)).incrementVisits(url.getId());
+        verify(urlRepository, never()).save(any(Url.class));
+        verify(clickEventRecorder, times(1)).record(url.getId(), user.getId());
+        verify(urlSummaryService, times(1)).onUrlVisited(user.getId());
+    }
+
+    @Test
+    void getLongUrlFromShortUrl_shouldFindUrlByCodeNum_whenBackfillIsComplete() {
+        when(urlRepository.findUrlByShortUrlCodeAndCodeNum(shortUrlCode, Base62Codec.decode(shortUrlCode)))
+                .thenReturn(Optional.of(url));
+
+        UrlResponse response = urlService.getLongUrlFromShortUrl(shortUrlCode);
+
+        assertEquals(longUrl, response.getUrlDto().getLongUrl());
+        verify(urlRepository, never()).findUrlByShortUrlCode(anyString());
+        verify(codeNumBackfill, never()).isComplete();
+    }
+
+    @Test
+    void getLongUrlFromShortUrl_shouldNotFallBackToTextCode_whenBackfillIsComplete() {
+        when(codeNumBackfill.isComplete()).thenReturn(true);
+
+        assertThrows(ResourceNotFoundException.class, () -> urlService.getLongUrlFromShortUrl(shortUrlCode));
+
+        verify(urlRepository, never()).findUrlByShortUrlCode(anyString());
+    }
+
+    @Test
+    void getLongUrlFromShortUrl_shouldRestoreArchivedUrl_whenUrlIsNotInUrls() {
+        when(urlRepository.findUrlByShortUrlCode(shortUrlCode)).thenReturn(Optional.empty(), Optional.of(url));
+        when(urlArchiveRepository.restore(shortUrlCode)).thenReturn(true);
+
+        UrlResponse response = urlService.getLongUrlFromShortUrl(shortUrlCode);
+
+        assertEquals(longUrl, response.getUrlDto().getLongUrl());
+        verify(urlCounterRepository, times(1)).incrementVisits(url.getId());
+    }
+
+    @Test
+    void getLongUrlFromShortUrl_shouldCountVisitOnShard_whenShardingIsEnabled() {
+        when(shardedUrlRepository.isEnabled()).thenReturn(true);
+        when(shardedUrlRepository.findByShortUrlCode(shortUrlCode)).thenReturn(Optional.of(url));
+
+        UrlResponse response = urlService.getLongUrlFromShortUrl(shortUrlCode);
+
+        assertEquals(longUrl, response.getUrlDto().getLongUrl());
+        verify(shardedUrlRepository, times(1)).incrementVisits(url);
+        verify(urlCounterRepository, never()).incrementVisits(anyLong());
+        verify(urlRepository, never()).findUrlByShortUrlCode(anyString());
+    }
+
+    @Test
+    void getLongUrlFromShortUrl_shouldResolveFromStore_withoutDatabase() {
+        when(urlStore.isEnabled()).thenReturn(true);
+        when(urlStore.findByShortUrlCode(shortUrlCode)).thenReturn(Optional.of(url));
+
+        UrlResponse response = urlService.getLongUrlFromShortUrl(shortUrlCode);
+
+        assertEquals(longUrl, response.getUrlDto().getLongUrl());
+        verify(urlStore, times(1)).incrementVisits(url);
+        verify(clickEventRecorder, times(1)).record(url.getId(), user.getId());
+        verifyNoInteractions(urlRepository, urlCounterRepository, transactionOperations);
+    }
+
+    @Test
+    void getLongUrlFromShortUrl_shouldFallBackToDatabase_whenStoreMissesCode() {
+        when(urlStore.isEnabled()).thenReturn(true);
+        when(urlStore.findByShortUrlCode(shortUrlCode)).thenReturn(Optional.empty());
+        when(urlRepository.findUrlByShortUrlCode(shortUrlCode)).thenReturn(Optional.of(url));
+
+        UrlResponse response = urlService.getLongUrlFromShortUrl(shortUrlCode);
+
+        assertEquals(longUrl, response.getUrlDto().getLongUrl());
+        verify(urlCounterRepository, times(1)).incrementVisits(url.getId());
+        verify(urlStore, never()).incrementVisits(any(Url.class));
+    }
+
     @Test
     void getLongUrlFromShortUrl_shouldThrowResourceNotFound_whenUrlNotFound() {
         when(urlRepository.findUrlByShortUrlCode(shortUrlCode)).thenReturn(Optional.empty());
@@ -112,6 +276,7 @@ class UrlServiceTest {
                 ValidationException.class,
                 () -> urlService.getLongUrlFromShortUrl(shortUrlCode));
         assertEquals(URL_EXPIRED_MESSAGE, exception.getMessage());
+        verifyNoInteractions(clickEventRecorder);
     }
 
     @Test
@@ -136,6 +301,22 @@ class UrlServiceTest {
         assertEquals(urlDto, response.getUrlDto());
         assertEquals("newCode", url.getShortUrlCode());
         verify(urlRepository, times(1)).save(url);
+        verify(urlSummaryService, times(1)).onUrlUpdated(url, null);
+    }
+
+    @Test
+    void updateUrl_shouldUpdateUrlOnShard_whenShardingIsEnabled() {
+        UpdateUrlRequest request = new UpdateUrlRequest(shortUrlCode, null);
+        when(contextProvider.getAuthenticatedUser()).thenReturn(user);
+        when(shardedUrlRepository.isEnabled()).thenReturn(true);
+        when(shardedUrlRepository.findByShortUrlCode(shortUrlCode, user)).thenReturn(Optional.of(url));
+        when(urlGenerator.generateShortUrlCode()).thenReturn("newCode");
+        when(urlMapper.mapToUrlDto(any(Url.class))).thenReturn(urlDto);
+
+        urlService.updateUrl(request);
+
+        verify(shardedUrlRepository, times(1)).update(url, shortUrlCode);
+        verify(urlRepository, never()).save(any(Url.class));
     }
 
     @Test
@@ -171,6 +352,7 @@ class UrlServiceTest {
         urlService.deleteUrl(shortUrlCode);
 
         verify(urlRepository, times(1)).delete(url);
+        verify(urlSummaryService, times(1)).onUrlDeleted(url);
     }
 
     @Test
@@ -0,0 +1,123 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.UrlShortenerApiApplication;
+import com.jawisimo.urlshortener.security.Role;
+import com.jawisimo.urlshortener.url.longurl.LongUrlRepository;
+import com.jawisimo.urlshortener.url.store.UrlChangeRepository;
+import com.jawisimo.urlshortener.url.store.UrlLog;
+import com.jawisimo.urlshortener.user.User;
+import com.jawisimo.urlshortener.user.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of resolving a random short code of {@code urls} URLs from the embedded store and through JPA.
+ * <p>
+ * {@code embeddedStore} looks the code up in a {@link UrlLog}, as a redirect-only node does on a store hit.
+ * {@code jpa} loads it by its numeric key in a transaction, as the database path of the resolve does,
+ * from Postgres started by Testcontainers. The difference is the latency a store hit saves per redirect,
+ * before the database round trips of the visit count.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g", "-Dspring.profiles.active=test"})
+public class UrlStoreBenchmark {
+    private static final String LONG_URL = "https://www.youtube.com/watch?v=dQw4w9WgXcQ";
+
+    @Param({"100000"})
+    private int urls;
+
+    private ConfigurableApplicationContext context;
+    private UrlRepository urlRepository;
+    private TransactionTemplate transactionTemplate;
+    private Path directory;
+    private UrlLog urlLog;
+    private String[] codes;
+
+    @Setup
+    public void setup() throws IOException {
+        context = new SpringApplicationBuilder(UrlShortenerApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        urlRepository = context.getBean(UrlRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .login("benchmarkUser")
+                .email("benchmark@email.com")
+                .password("passWord123")
+                .role(Role.ROLE_USER)
+                .build());
+        long longUrlId = context.getBean(LongUrlRepository.class).acquire(LONG_URL);
+
+        codes = new String[urls];
+        List<Object[]> rows = new ArrayList<>(urls);
+        for (int i = 0; i < urls; i++) {
+            long codeNum = 1_000_000_000L + i;
+            codes[i] = Base62Codec.encode(codeNum);
+            rows.add(new Object[]{codes[i], codeNum, longUrlId, user.getId()});
+        }
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.batchUpdate("INSERT INTO urls (short_url_code, code_num, long_url_id, user_id, created_at) " +
+                "VALUES (?, ?, ?, ?, LOCALTIMESTAMP)", rows);
+        jdbcTemplate.update("INSERT INTO url_counters (url_id, visits) SELECT id, 0 FROM urls " +
+                "ON CONFLICT (url_id) DO NOTHING");
+        jdbcTemplate.update("ANALYZE urls");
+
+        directory = Files.createTempDirectory("url-store-benchmark");
+        urlLog = UrlLog.open(directory);
+        UrlChangeRepository urlChangeRepository = context.getBean(UrlChangeRepository.class);
+        long afterId = 0L;
+        List<Url> page;
+        do {
+            page = urlChangeRepository.findUrlPage(afterId, 10_000);
+            for (Url url : page) {
+                urlLog.put(url);
+            }
+            if (!page.isEmpty()) {
+                afterId = page.getLast().getId();
+            }
+        } while (!page.isEmpty());
+        urlLog.force();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        urlLog.close();
+        FileSystemUtils.deleteRecursively(directory);
+        context.close();
+    }
+
+    @Benchmark
+    public Url embeddedStore() {
+        return urlLog.get(randomCode()).orElseThrow();
+    }
+
+    @Benchmark
+    public Url jpa() {
+        String code = randomCode();
+        return transactionTemplate.execute(status ->
+                urlRepository.findUrlByShortUrlCodeAndCodeNum(code, Base62Codec.decode(code)).orElseThrow());
+    }
+
+    private String randomCode() {
+        return codes[ThreadLocalRandom.current().nextInt(codes.length)];
+    }
+}
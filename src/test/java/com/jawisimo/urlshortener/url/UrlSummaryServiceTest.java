@@ -0,0 +1,138 @@
+package com.jawisimo.urlshortener.url;
+
+import com.jawisimo.urlshortener.url.service.UrlSummaryService;
+import com.jawisimo.urlshortener.url.summary.UserUrlSummary;
+import com.jawisimo.urlshortener.url.summary.UserUrlSummaryRepository;
+import com.jawisimo.urlshortener.url.summary.VisitCountBuffer;
+import com.jawisimo.urlshortener.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UrlSummaryServiceTest {
+
+    @Mock
+    private UserUrlSummaryRepository summaryRepository;
+
+    private VisitCountBuffer visitCountBuffer;
+    private UrlSummaryService urlSummaryService;
+    private User user;
+    private LocalDateTime watermark;
+
+    @BeforeEach
+    void init() {
+        visitCountBuffer = new VisitCountBuffer(summaryRepository);
+        urlSummaryService = new UrlSummaryService(summaryRepository, visitCountBuffer);
+        user = User.builder().id(1L).login("testUser").build();
+        watermark = LocalDateTime.now();
+    }
+
+    @Test
+    void getSummary_shouldIncludePendingVisits() {
+        when(summaryRepository.findByUserId(user.getId()))
+                .thenReturn(Optional.of(new UserUrlSummary(user.getId(), 3L, 2L, 10L)));
+        urlSummaryService.onUrlVisited(user.getId());
+        urlSummaryService.onUrlVisited(user.getId());
+
+        UserUrlSummary summary = urlSummaryService.getSummary(user.getId());
+
+        assertEquals(3L, summary.totalUrls());
+        assertEquals(2L, summary.activeUrls());
+        assertEquals(12L, summary.totalVisits());
+    }
+
+    @Test
+    void getSummary_shouldReturnZeros_whenSummaryDoesNotExist() {
+        when(summaryRepository.findByUserId(user.getId())).thenReturn(Optional.empty());
+
+        assertEquals(UserUrlSummary.empty(user.getId()), urlSummaryService.getSummary(user.getId()));
+    }
+
+    @Test
+    void onUrlCreated_shouldCountActiveUrl() {
+        when(summaryRepository.findExpiryWatermark()).thenReturn(watermark);
+
+        urlSummaryService.onUrlCreated(Url.builder().user(user).build());
+
+        verify(summaryRepository).applyDelta(user.getId(), 1L, 1L, 0L);
+    }
+
+    @Test
+    void onUrlDeleted_shouldNotDecrementActive_whenUrlAlreadySweptAsExpired() {
+        when(summaryRepository.findExpiryWatermark()).thenReturn(watermark);
+        Url url = Url.builder().user(user).visits(4L).expiresAt(watermark.minusMinutes(1)).build();
+
+        urlSummaryService.onUrlDeleted(url);
+
+        verify(summaryRepository).applyDelta(user.getId(), -1L, 0L, -4L);
+    }
+
+    @Test
+    void onUrlDeleted_shouldLeavePendingVisitsToFlush() {
+        when(summaryRepository.findExpiryWatermark()).thenReturn(watermark);
+        Url url = Url.builder().user(user).visits(4L).build();
+        urlSummaryService.onUrlVisited(user.getId());
+
+        urlSummaryService.onUrlDeleted(url);
+
+        verify(summaryRepository).applyDelta(user.getId(), -1L, -1L, -4L);
+        assertEquals(1L, visitCountBuffer.pending(user.getId()));
+    }
+
+    @Test
+    void onUrlUpdated_shouldReactivateUrl_whenExpiredUrlGetsFutureDate() {
+        when(summaryRepository.findExpiryWatermark()).thenReturn(watermark);
+        Url url = Url.builder().user(user).expiresAt(watermark.plusDays(1)).build();
+
+        urlSummaryService.onUrlUpdated(url, watermark.minusDays(1));
+
+        verify(summaryRepository).applyDelta(user.getId(), 0L, 1L, 0L);
+    }
+
+    @Test
+    void onUrlUpdated_shouldOnlyTouchSummary_whenExpiryIsUnchanged() {
+        when(summaryRepository.findExpiryWatermark()).thenReturn(watermark);
+        Url url = Url.builder().user(user).expiresAt(watermark.plusDays(1)).build();
+
+        urlSummaryService.onUrlUpdated(url, url.getExpiresAt());
+
+        verify(summaryRepository).applyDelta(user.getId(), 0L, 0L, 0L);
+    }
+
+    @Test
+    void getVersionStamp_shouldChange_whenVisitIsBuffered() {
+        when(summaryRepository.findVersion(user.getId())).thenReturn(7L);
+
+        String before = urlSummaryService.getVersionStamp(user.getId());
+        urlSummaryService.onUrlVisited(user.getId());
+        String after = urlSummaryService.getVersionStamp(user.getId());
+
+        assertEquals("7.0", before);
+        assertEquals("7.1", after);
+    }
+
+    @Test
+    void flush_shouldWriteVisitsPerUser_andKeepThem_whenWriteFails() {
+        visitCountBuffer.increment(1L);
+        visitCountBuffer.increment(1L);
+        visitCountBuffer.increment(2L);
+        doThrow(new IllegalStateException("database unavailable")).when(summaryRepository).addVisits(anyMap());
+
+        visitCountBuffer.flush();
+
+        verify(summaryRepository).addVisits(Map.of(1L, 2L, 2L, 1L));
+        assertEquals(2L, visitCountBuffer.pending(1L));
+        assertEquals(1L, visitCountBuffer.pending(2L));
+    }
+}
@@ -0,0 +1,18 @@
+-- Visit counters live apart from the urls rows: a visit rewrites only this narrow row, and the free space
+-- left by the fillfactor lets the new row version stay on the same page as a HOT update, since no indexed
+-- column changes.
+CREATE TABLE IF NOT EXISTS url_counters
+(
+    url_id BIGINT PRIMARY KEY REFERENCES urls (id) ON DELETE CASCADE,
+    visits BIGINT DEFAULT 0 NOT NULL
+) WITH (fillfactor = 50,
+        autovacuum_vacuum_scale_factor = 0.01,
+        autovacuum_analyze_scale_factor = 0.05);
+
+INSERT INTO url_counters (url_id, visits)
+SELECT id, visits
+FROM urls
+ON CONFLICT (url_id) DO NOTHING;
+
+ALTER TABLE urls
+    DROP COLUMN IF EXISTS visits;
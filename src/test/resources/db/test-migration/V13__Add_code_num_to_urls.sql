@@ -0,0 +1,51 @@
+-- code_num is the bijective base62 number of short_url_code, see Base62Codec. The column is added empty
+-- and filled online by CodeNumBackfill; new rows get it from the application.
+ALTER TABLE urls
+    ADD COLUMN IF NOT EXISTS code_num BIGINT;
+
+-- Its unique index is built concurrently by CodeNumBackfill once the column is filled, since building it
+-- here would scan every partition under a SHARE lock. Partitions created afterwards inherit that index.
+CREATE OR REPLACE FUNCTION create_urls_partition(p_modulus INT, p_remainder INT) RETURNS VOID
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    v_partition TEXT := format('urls_p%s_%s', p_modulus, p_remainder);
+BEGIN
+    EXECUTE format('CREATE TABLE %I PARTITION OF urls FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                   v_partition, p_modulus, p_remainder);
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION create_urls_partitions(p_modulus INT) RETURNS INT
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    v_created INT := 0;
+BEGIN
+    FOR v_remainder IN 0 .. p_modulus - 1
+        LOOP
+            IF to_regclass(format('urls_p%s_%s', p_modulus, v_remainder)) IS NULL THEN
+                PERFORM create_urls_partition(p_modulus, v_remainder);
+                v_created := v_created + 1;
+            END IF;
+        END LOOP;
+    RETURN v_created;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION split_urls_partition(p_modulus INT, p_remainder INT) RETURNS BIGINT
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    v_old_partition TEXT := format('urls_p%s_%s', p_modulus, p_remainder);
+    v_moved         BIGINT;
+BEGIN
+    EXECUTE format('ALTER TABLE urls DETACH PARTITION %I', v_old_partition);
+    PERFORM create_urls_partition(p_modulus * 2, p_remainder);
+    PERFORM create_urls_partition(p_modulus * 2, p_remainder + p_modulus);
+    EXECUTE format('INSERT INTO urls SELECT * FROM %I', v_old_partition);
+    GET DIAGNOSTICS v_moved = ROW_COUNT;
+    EXECUTE format('DROP TABLE %I', v_old_partition);
+    RETURN v_moved;
+END;
+$$;
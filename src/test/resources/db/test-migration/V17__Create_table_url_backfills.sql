@@ -0,0 +1,14 @@
+-- Checkpoints of the online backfills of urls run by BackfillRunner, one row per backfill. A backfill
+-- walks the URLs with ids up to target_id, the highest id when it started; newer URLs are written complete
+-- by the application. last_id is the end of the last committed chunk, so a restarted node continues there.
+-- Rows are filled before the indexes of the backfill are built, and completed_at is set once both are done.
+CREATE TABLE IF NOT EXISTS url_backfills
+(
+    name         VARCHAR(100) PRIMARY KEY,
+    target_id    BIGINT                              NOT NULL,
+    last_id      BIGINT    DEFAULT 0                 NOT NULL,
+    processed    BIGINT    DEFAULT 0                 NOT NULL,
+    started_at   TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at   TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP
+);
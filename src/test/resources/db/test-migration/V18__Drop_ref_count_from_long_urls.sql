@@ -0,0 +1,29 @@
+-- Long URLs are no longer reference-counted. Counting made every URL create, archive and delete update
+-- the long_urls row of its destination, so the creations of a popular destination queued on one row
+-- lock. LongUrlCleanup now deletes long URLs that neither urls nor urls_archive refer to.
+CREATE OR REPLACE FUNCTION urls_release_dependents() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    DELETE
+    FROM url_dedupe_keys k
+    WHERE k.url_id = OLD.id
+      AND NOT EXISTS (SELECT 1
+                      FROM urls u
+                      WHERE u.id = OLD.id
+                        AND u.long_url_hash = k.long_url_hash
+                        AND COALESCE(u.expires_at, 'infinity'::TIMESTAMP) = k.expires_key);
+    IF TG_OP = 'DELETE' AND NOT EXISTS (SELECT 1 FROM urls u WHERE u.id = OLD.id) THEN
+        DELETE FROM url_counters c WHERE c.url_id = OLD.id;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP INDEX IF EXISTS idx_long_urls_unreferenced;
+
+ALTER TABLE long_urls
+    DROP COLUMN IF EXISTS ref_count;
+
+-- Looked up by the cleanup and by the foreign key check of a deleted long URL
+CREATE INDEX IF NOT EXISTS idx_urls_archive_long_url_id ON urls_archive (long_url_id);
@@ -0,0 +1,42 @@
+-- Completes V14 once LongUrlIdBackfill has filled long_url_id of every URL and validated the
+-- urls_long_url_id_not_null check, which lets SET NOT NULL skip its scan, so only the catalog changes.
+-- Until the backfill is complete, see url_backfills, migrate with spring.flyway.target=18.
+DO
+$$
+    BEGIN
+        IF EXISTS (SELECT 1 FROM urls)
+            AND NOT EXISTS (SELECT 1
+                            FROM pg_constraint
+                            WHERE conrelid = 'urls'::REGCLASS
+                              AND conname = 'urls_long_url_id_not_null'
+                              AND convalidated) THEN
+            RAISE EXCEPTION 'The urls.long_url_id backfill is not complete, migrate to version 18 until it is';
+        END IF;
+    END
+$$;
+
+ALTER TABLE urls
+    ALTER COLUMN long_url_id SET NOT NULL;
+ALTER TABLE urls
+    DROP CONSTRAINT IF EXISTS urls_long_url_id_not_null;
+
+-- The space of the dropped column is reclaimed as the rows are rewritten, or at once by VACUUM FULL
+-- of each partition.
+ALTER TABLE urls
+    DROP COLUMN long_url;
+
+CREATE OR REPLACE FUNCTION url_long_url(p_long_url_id BIGINT, p_short_url_code VARCHAR) RETURNS VARCHAR
+    LANGUAGE sql
+    STABLE AS
+$$
+SELECT l.url
+FROM long_urls l
+WHERE l.id = p_long_url_id
+$$;
+
+-- Every URL refers to long_urls now, so there is nothing left to fill
+CREATE OR REPLACE FUNCTION urls_fill_long_url_ids(p_after_id BIGINT, p_to_id BIGINT) RETURNS INT
+    LANGUAGE sql AS
+$$
+SELECT 0
+$$;
@@ -0,0 +1,30 @@
+-- Switch of the url_changes stream. The writes to urls record changes only while it is on, so a deployment
+-- without embedded URL stores does not pay for the stream. Every embedded store turns it on when it starts
+-- and waits for the transactions in flight, which may not have recorded their changes. Turning it on again
+-- starts a new generation, and a store that saved its position in an older one loads all URLs.
+-- Once no node runs an embedded store any more, turn it off with UPDATE url_change_stream SET enabled = FALSE.
+CREATE TABLE IF NOT EXISTS url_change_stream
+(
+    enabled    BOOLEAN NOT NULL,
+    generation INTEGER NOT NULL
+);
+
+INSERT INTO url_change_stream (enabled, generation)
+VALUES (FALSE, 0);
+
+CREATE OR REPLACE FUNCTION urls_record_change() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM url_change_stream WHERE enabled) THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP <> 'INSERT' THEN
+        INSERT INTO url_changes (short_url_code) VALUES (OLD.short_url_code);
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.short_url_code <> OLD.short_url_code) THEN
+        INSERT INTO url_changes (short_url_code) VALUES (NEW.short_url_code);
+    END IF;
+    RETURN NULL;
+END;
+$$;
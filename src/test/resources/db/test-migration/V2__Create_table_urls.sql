@@ -1,7 +1,7 @@
 CREATE TABLE IF NOT EXISTS urls
 (
     id             BIGSERIAL PRIMARY KEY,
-    short_url_code VARCHAR(50),
+    short_url_code VARCHAR(50) UNIQUE,
     long_url       VARCHAR(2000)                       NOT NULL,
     visits         BIGINT    DEFAULT 0                 NOT NULL,
     created_at     TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
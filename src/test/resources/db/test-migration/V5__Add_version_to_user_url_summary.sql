@@ -0,0 +1,2 @@
+ALTER TABLE user_url_summary
+    ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
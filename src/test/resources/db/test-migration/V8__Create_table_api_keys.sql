@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS api_keys
+(
+    id         BIGSERIAL PRIMARY KEY,
+    user_id    BIGINT       NOT NULL,
+    name       VARCHAR(100) NOT NULL,
+    prefix     VARCHAR(16)  NOT NULL UNIQUE,
+    key_hash   VARCHAR(64)  NOT NULL,
+    created_at TIMESTAMP    NOT NULL,
+    revoked_at TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_api_keys_user_id ON api_keys (user_id);
@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS rate_limit_usage
+(
+    bucket_key   VARCHAR(200) NOT NULL,
+    window_start BIGINT       NOT NULL,
+    consumed     BIGINT       NOT NULL,
+    PRIMARY KEY (bucket_key, window_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_usage_window_start ON rate_limit_usage (window_start);